@@ -56,9 +56,8 @@ class Search implements Runnable {
                     int fromY = currentNode.getY();
                     x = fromX + offsetX;
                     y = fromY + offsetY;
-                    if (searchArea.notTraversable(x,y)) continue;
-                    if (searchArea.notTraversable(fromX,y)) continue;
-                    if (searchArea.notTraversable(x,fromY)) continue;
+                    // no corner cutting: the 2x2 cluster of the move must be traversable
+                    if (!searchArea.traversable(Math.min(fromX,x),Math.min(fromY,y),Math.max(fromX,x),Math.max(fromY,y))) continue;
                 } else { // orthogonal (not diagonal) move
                     x = currentNode.getX() + offsetX;
                     y = currentNode.getY() + offsetY;
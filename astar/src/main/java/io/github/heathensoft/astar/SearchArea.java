@@ -19,6 +19,25 @@ public interface SearchArea {
         return !traversable(x,y);
     }
     
+    /**
+     * Cluster check. Used by the search for diagonal moves (the 2x2 cluster of the move, no corner cutting).
+     * Areas backed by a MaskPyramid (storage) of the blocking flags can answer this
+     * without visiting every coordinate: !pyramid.any(blocked,...)
+     * Coordinates outside the area are not traversable (the pyramid clamps, so check the bounds first).
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     * @return if every coordinate of the area (inclusive) is traversable
+     */
+    default boolean traversable(int minX, int minY, int maxX, int maxY) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (!traversable(x,y)) return false;
+            }
+        } return true;
+    }
+    
     /**
      * This method does not need to check whether we are
      * outside the area. This is never the case.
@@ -1,9 +1,11 @@
 package io.github.heathensoft.core.window;
 
 
-import io.github.heathensoft.storage.generic.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
+ * Requests from other threads are queued (unbounded, lock-free) and handled on the GLFW thread.
+ *
  * @author Frederik Dahl
  * 17/06/2022
  */
@@ -11,30 +13,30 @@ import io.github.heathensoft.storage.generic.Queue;
 
 class WinRequestQueue {
     
-    private final Queue<WinRequest> requests;
+    private final ConcurrentLinkedQueue<WinRequest> requests;
     private final long glfwThread;
     
     WinRequestQueue(long glfwThread) {
         this.glfwThread = glfwThread;
-        this.requests = new Queue<>(16);
+        this.requests = new ConcurrentLinkedQueue<>();
     }
     
-    synchronized void handle() {
+    void handle() {
         long current = Thread.currentThread().getId();
         if (current == glfwThread) {
-            while (!requests.isEmpty()) {
-                WinRequest request = requests.dequeue();
+            WinRequest request;
+            while ((request = requests.poll()) != null) {
                 request.handle();
             }
         }
     }
     
-    synchronized void newRequest(WinRequest request) {
+    void newRequest(WinRequest request) {
         if (request != null) {
             long current = Thread.currentThread().getId();
             if (current == glfwThread)
                 request.handle();
-            else requests.enqueue(request);
+            else requests.offer(request);
         }
     }
 }
@@ -1,11 +1,13 @@
 package io.github.heathensoft.core.window.callbacks;
 
-import io.github.heathensoft.storage.primitive.IntQueue;
+import io.github.heathensoft.storage.primitive.SpscIntRing;
 import io.github.heathensoft.storage.primitive.iterators.IntReader;
 import org.lwjgl.glfw.GLFWCharCallback;
 
 /**
  * Only ASCII valid characters are queued.
+ * The queue holds 1024 characters, far more than typed between two collects.
+ * If the collecting thread falls that far behind, the newest characters are dropped.
  *
  * @author Frederik Dahl
  * 21/10/2021
@@ -14,28 +16,24 @@ import org.lwjgl.glfw.GLFWCharCallback;
 
 public class CharPressCallback extends GLFWCharCallback {
     
-    private final IntQueue queue = new IntQueue();
-    private boolean ignore = true;
+    private final SpscIntRing queue = new SpscIntRing(1024);
+    private volatile boolean ignore = true;
     
     @Override
     public void invoke(long window, int codepoint) {
         if (ignore || ((codepoint & 0x7F) != codepoint)) return;
-        synchronized (this) {
-            if (queue.size() == 16)
-                queue.dequeue();
-            queue.enqueue(codepoint);
-        }
+        queue.offer(codepoint);
     }
     
-    public synchronized void collect(IntReader collector) {
-        queue.dequeueAll(collector);
+    public void collect(IntReader collector) {
+        queue.drain(collector);
     }
     
-    public synchronized void ignore(boolean ignore) {
+    public void ignore(boolean ignore) {
         this.ignore = ignore;
     }
     
-    public synchronized void clear() {
+    public void clear() {
         queue.clear();
     }
     
@@ -1,6 +1,6 @@
 package io.github.heathensoft.core.window.callbacks;
 
-import io.github.heathensoft.storage.primitive.IntQueue;
+import io.github.heathensoft.storage.primitive.SpscIntRing;
 import io.github.heathensoft.storage.primitive.iterators.IntReader;
 import org.lwjgl.glfw.GLFWKeyCallback;
 
@@ -10,6 +10,8 @@ import static org.lwjgl.glfw.GLFW.*;
  *
  * Enqueues key state-changes only.
  * On release the enqueued key-value is negative
+ * The queue holds 1024 state-changes, far more than produced between two collects.
+ * If the collecting thread falls that far behind, the newest state-changes are dropped.
  *
  * @author Frederik Dahl
  * 21/10/2021
@@ -18,9 +20,9 @@ import static org.lwjgl.glfw.GLFW.*;
 
 public class KeyPressCallback extends GLFWKeyCallback {
     
-    private final IntQueue queue = new IntQueue(16);
+    private final SpscIntRing queue = new SpscIntRing(1024);
     private int lastKey = 0;
-    private boolean ignore;
+    private volatile boolean ignore;
     
     @Override
     public void invoke(long window, int key, int scancode, int action, int mods) {
@@ -28,25 +30,19 @@ public class KeyPressCallback extends GLFWKeyCallback {
         if (key != GLFW_KEY_UNKNOWN && key < GLFW_KEY_LAST && action != GLFW_REPEAT) {
             key = action == GLFW_PRESS ? key : -key;
             if (key == lastKey) return;
-            synchronized (this) {
-                if (queue.size() == 16)
-                    queue.dequeue();
-                queue.enqueue(lastKey = key);
-            }
+            if (queue.offer(key)) lastKey = key;
         }
     }
     
-    public synchronized boolean collect(IntReader collector) {
-        if (queue.isEmpty()) return false;
-        queue.dequeueAll(collector);
-        return true;
+    public boolean collect(IntReader collector) {
+        return queue.drain(collector) > 0;
     }
     
-    public synchronized void ignore(boolean ignore) {
+    public void ignore(boolean ignore) {
         this.ignore = ignore;
     }
     
-    public synchronized void clear() {
+    public void clear() {
         queue.clear();
     }
 }
@@ -3,6 +3,7 @@ package io.github.heathensoft.graphics.surface;
 import io.github.heathensoft.graphics.texture.Texture2D;
 import io.github.heathensoft.graphics.resources.Image;
 import io.github.heathensoft.storage.primitive.FloatArray2D;
+import io.github.heathensoft.storage.primitive.Stencil;
 import io.github.heathensoft.utility.NoiseFunction;
 
 /**
@@ -85,8 +86,11 @@ public class NoiseMap {
         }
     }
     
+    /**
+     * 3x3 gaussian blur (edges clamped). The amplitude and baseline still bound the values.
+     */
     public void smoothen() {
-        /* **** */
+        Stencil.gaussian(1,0.85f).parallelApply(map,map,Stencil.Edge.CLAMP);
     }
     
     public Texture2D toTexture(int GL_WRAP, int GL_FILTER) {
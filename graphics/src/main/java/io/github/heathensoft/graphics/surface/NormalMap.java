@@ -1,6 +1,8 @@
 package io.github.heathensoft.graphics.surface;
 
 import io.github.heathensoft.graphics.texture.Texture2D;
+import io.github.heathensoft.storage.primitive.FloatArray2D;
+import io.github.heathensoft.storage.primitive.Stencil;
 import org.joml.Math;
 import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
@@ -44,23 +46,7 @@ public class NormalMap {
                 depth[r][c] = (2 * d - 1) * amp;
             }
         }
-        int idx = 0;
-        float hu, hr, hd, hl;
-        final int cBounds = cols - 1;
-        final int rBounds = rows - 1;
-        Vector3f n = new Vector3f();
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                hr = c < cBounds ? depth[r][c+1] : depth[r][c];
-                hd = r < rBounds ? depth[r+1][c] : depth[r][c];
-                hu = r > 0 ? depth[r-1][c] : depth[r][c];
-                hl = c > 0 ? depth[r][c-1] : depth[r][c];
-                n.set(hl - hr,hd - hu,2).normalize();
-                map[idx++] = (byte) Math.round((n.x * 0.5f + 0.5f) * 255);
-                map[idx++] = (byte) Math.round((n.y * 0.5f + 0.5f) * 255);
-                map[idx++] = (byte) Math.round((n.z * 0.5f + 0.5f) * 255);
-            }
-        }
+        encode(depth,map);
     }
     
     public NormalMap(DepthMap16 dm, float amp) {
@@ -75,23 +61,23 @@ public class NormalMap {
                 depth[r][c] = (2 * d - 1) * amp;
             }
         }
-        int idx = 0;
-        float hu, hr, hd, hl;
-        final int cBounds = cols - 1;
-        final int rBounds = rows - 1;
-        Vector3f n = new Vector3f();
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                hr = c < cBounds ? depth[r][c+1] : depth[r][c];
-                hd = r < rBounds ? depth[r+1][c] : depth[r][c];
-                hu = r > 0 ? depth[r-1][c] : depth[r][c];
-                hl = c > 0 ? depth[r][c-1] : depth[r][c];
-                n.set(hl - hr,hd - hu,2).normalize();
-                map[idx++] = (byte) Math.round((n.x * 0.5f + 0.5f) * 255);
-                map[idx++] = (byte) Math.round((n.y * 0.5f + 0.5f) * 255);
-                map[idx++] = (byte) Math.round((n.z * 0.5f + 0.5f) * 255);
-            }
-        }
+        encode(depth,map);
+    }
+    
+    /**
+     * Central differences of the depth (edges clamped), normalized and packed to 8 bits per axis.
+     * The differences are taken by Stencil.gradient in the same pass as the packing.
+     */
+    private static void encode(float[][] depth, byte[] map) {
+        final int cols = depth[0].length;
+        final Vector3f n = new Vector3f();
+        Stencil.gradient(new FloatArray2D(depth),Stencil.Edge.CLAMP,(x, y, gx, gy) -> {
+            int idx = (y * cols + x) * CHANNELS;
+            n.set(-gx,gy,2).normalize();
+            map[idx] = (byte) Math.round((n.x * 0.5f + 0.5f) * 255);
+            map[idx + 1] = (byte) Math.round((n.y * 0.5f + 0.5f) * 255);
+            map[idx + 2] = (byte) Math.round((n.z * 0.5f + 0.5f) * 255);
+        });
     }
     
     public Texture2D toTexture(int GL_WRAP, int GL_FILTER) {
@@ -16,9 +16,38 @@ configurations {
 
  */
 
+repositories {
+    mavenCentral()
+}
+
+// JMH benchmarks: src/jmh/java. Run with ./gradlew :storage:jmh -Pjmh.include=<regex>
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
 dependencies {
     //someConfiguration(project(":common"))
     api(project(":common"))
+    implementation(libs.lwjgl.lwjgl)
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.test {
+    useJUnitPlatform()
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs("--add-modules", "jdk.incubator.vector")
+    args(project.findProperty("jmh.include")?.toString() ?: ".*")
 }
 
 
@@ -35,3 +64,8 @@ tasks.create("fatJar", Jar::class) {
     with(tasks.jar.get())
 }
 
+
+// WriteFunction SIMD kernels. The module is optional at runtime (scalar fallback)
+tasks.withType<JavaCompile> {
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector"))
+}
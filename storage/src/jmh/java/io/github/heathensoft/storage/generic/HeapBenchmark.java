@@ -0,0 +1,162 @@
+package io.github.heathensoft.storage.generic;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap (binary) versus DaryHeap (arity 4 and 8) and IntPriorityHeap (arity 4). Runs per millisecond.
+ * Nodes are cost ordered (a lower cost is on top), like search nodes.
+ *
+ * load: insert size nodes (Heap: add per node, the others: addAll), then pop every node
+ * promote: load the nodes, lower the cost of size / 2 random nodes, then pop every node
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeapBenchmark {
+    
+    public static final class Node extends HeapNode<Node> {
+        int cost;
+        public int compareTo(Node o) {
+            return Integer.compare(o.cost,cost);
+        }
+    }
+    
+    @Param({"1024","262144"})
+    public int size;
+    
+    private Node[] nodes;
+    private int[] costs;
+    private int[] lowered;
+    private int[] targets;
+    private Heap<Node> binary;
+    private DaryHeap<Node> dary4;
+    private DaryHeap<Node> dary8;
+    private IntPriorityHeap<Node> keyed;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        nodes = new Node[size];
+        costs = new int[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = new Node();
+            costs[i] = random.nextInt(1 << 20);
+        } targets = new int[size / 2];
+        lowered = new int[size / 2];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(size);
+            lowered[i] = random.nextInt(1 << 10);
+        } binary = new Heap<>(size);
+        dary4 = new DaryHeap<>(4,size);
+        dary8 = new DaryHeap<>(8,size);
+        keyed = new IntPriorityHeap<>(4,size);
+    }
+    
+    @Benchmark
+    public int loadHeap() {
+        reset();
+        for (Node node : nodes) binary.add(node);
+        return drain(binary);
+    }
+    
+    @Benchmark
+    public int loadDary4() {
+        reset();
+        dary4.addAll(nodes);
+        return drain(dary4);
+    }
+    
+    @Benchmark
+    public int loadDary8() {
+        reset();
+        dary8.addAll(nodes);
+        return drain(dary8);
+    }
+    
+    @Benchmark
+    public int loadIntPriority() {
+        reset();
+        keyed.addAll(nodes,costs,0,size);
+        return drain(keyed);
+    }
+    
+    @Benchmark
+    public int promoteHeap() {
+        reset();
+        for (Node node : nodes) binary.add(node);
+        for (int i = 0; i < targets.length; i++) {
+            Node node = nodes[targets[i]];
+            if (lowered[i] < node.cost) {
+                node.cost = lowered[i];
+                binary.update(node);
+            }
+        } return drain(binary);
+    }
+    
+    @Benchmark
+    public int promoteDary4() {
+        reset();
+        dary4.addAll(nodes);
+        return promote(dary4);
+    }
+    
+    @Benchmark
+    public int promoteDary8() {
+        reset();
+        dary8.addAll(nodes);
+        return promote(dary8);
+    }
+    
+    @Benchmark
+    public int promoteIntPriority() {
+        reset();
+        keyed.addAll(nodes,costs,0,size);
+        for (int i = 0; i < targets.length; i++) {
+            Node node = nodes[targets[i]];
+            if (lowered[i] < keyed.key(node)) keyed.decreaseKey(node,lowered[i]);
+        } return drain(keyed);
+    }
+    
+    private void reset() {
+        for (int i = 0; i < size; i++) nodes[i].cost = costs[i];
+    }
+    
+    private int promote(DaryHeap<Node> heap) {
+        for (int i = 0; i < targets.length; i++) {
+            Node node = nodes[targets[i]];
+            if (lowered[i] < node.cost) {
+                node.cost = lowered[i];
+                heap.promote(node);
+            }
+        } return drain(heap);
+    }
+    
+    private int drain(Heap<Node> heap) {
+        int sum = 0;
+        while (heap.notEmpty()) sum += heap.pop().cost;
+        return sum;
+    }
+    
+    private int drain(DaryHeap<Node> heap) {
+        int sum = 0;
+        while (heap.notEmpty()) sum += heap.pop().cost;
+        return sum;
+    }
+    
+    private int drain(IntPriorityHeap<Node> heap) {
+        int sum = 0;
+        while (heap.notEmpty()) sum += heap.pop().cost;
+        return sum;
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput counter for the benchmarks. Add the bytes processed per invocation.
+ * With @OutputTimeUnit(MICROSECONDS) the "bytes" column reads as MB/s.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Bytes {
+    
+    public long bytes;
+    
+    @Setup(Level.Iteration)
+    public void reset() {
+        bytes = 0;
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CompressedBitSet versus BitSet over 2^24 bits. Operations per millisecond.
+ * The sizes of both are printed in the setup.
+ *
+ * sparse: 0.1% of the bits at random positions (array chunks)
+ * runs: 64 runs of up to 64k bits (run chunks after runOptimize)
+ * dense: 50% of the bits at random positions (bitmap chunks)
+ *
+ * and: copy a set and intersect it with another one
+ * read: pass every set bit to a reader
+ * get: random single-bit lookups
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressedBitSetBenchmark {
+    
+    private static final int BITS = 1 << 24;
+    private static final int LOOKUPS = 4096;
+    
+    @Param({"sparse","runs","dense"})
+    public String shape;
+    
+    private BitSet plainA, plainB;
+    private CompressedBitSet compressedA, compressedB;
+    private int[] lookups;
+    private long sum;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        plainA = create(random);
+        plainB = create(random);
+        compressedA = new CompressedBitSet(plainA);
+        compressedB = new CompressedBitSet(plainB);
+        compressedA.runOptimize();
+        compressedB.runOptimize();
+        lookups = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) lookups[i] = random.nextInt(BITS);
+        System.out.printf("%n%s: BitSet %d bytes, CompressedBitSet %d bytes%n",
+                shape,plainA.getWords().length * 8L,compressedA.sizeBytes());
+    }
+    
+    @Benchmark
+    public BitSet andBitSet() {
+        BitSet bits = new BitSet(plainA);
+        bits.and(plainB);
+        return bits;
+    }
+    
+    @Benchmark
+    public CompressedBitSet andCompressed() {
+        CompressedBitSet bits = new CompressedBitSet(compressedA);
+        bits.and(compressedB);
+        return bits;
+    }
+    
+    @Benchmark
+    public long readBitSet() {
+        sum = 0;
+        plainA.read(i -> sum += i);
+        return sum;
+    }
+    
+    @Benchmark
+    public long readCompressed() {
+        sum = 0;
+        compressedA.read(i -> sum += i);
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int getBitSet() {
+        int count = 0;
+        for (int idx : lookups) if (plainA.get(idx)) count++;
+        return count;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int getCompressed() {
+        int count = 0;
+        for (int idx : lookups) if (compressedA.get(idx)) count++;
+        return count;
+    }
+    
+    private BitSet create(Random random) {
+        BitSet bits = new BitSet(BITS);
+        switch (shape) {
+            case "sparse" -> {
+                for (int i = 0; i < BITS / 1000; i++) bits.set(random.nextInt(BITS));
+            }
+            case "runs" -> {
+                for (int r = 0; r < 64; r++) {
+                    int start = random.nextInt(BITS - 65536);
+                    bits.set(start,start + 1 + random.nextInt(65536));
+                }
+            }
+            default -> {
+                for (int i = 0; i < BITS; i++) if (random.nextBoolean()) bits.set(i);
+            }
+        } return bits;
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GridCodec over 512 x 512 grids. The "bytes" column is raw (decoded) MB/s.
+ * The compression ratio (raw bytes / encoded bytes) is printed in the setup.
+ *
+ * heights: smooth short heightmap (sum of sines)
+ * mask: byte mask of a few hundred filled circles
+ * noise: random ints (incompressible)
+ *
+ * heap: the heap arrays (whole rows at a time)
+ * sparse: the sparse arrays (cell by cell through the raw bits)
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridCodecBenchmark {
+    
+    private static final int SIZE = 512;
+    
+    @Param({"RLE","DELTA_VARINT","LZ"})
+    public GridCodec codec;
+    
+    @Param({"heights","mask","noise"})
+    public String data;
+    
+    @Param({"heap","sparse"})
+    public String layout;
+    
+    private PrimitiveArray2D grid;
+    private ByteArrayOutputStream out;
+    private byte[] encoded;
+    private long raw;
+    
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        PrimitiveArray2D heap;
+        switch (data) {
+            case "heights" -> {
+                ShortArray2D heights = new ShortArray2D(SIZE,SIZE);
+                for (int y = 0; y < SIZE; y++) {
+                    for (int x = 0; x < SIZE; x++) {
+                        double h = Math.sin(x * 0.013) * 900 + Math.sin(y * 0.021) * 700 + Math.sin((x + y) * 0.057) * 120;
+                        heights.set((short) h,x,y);
+                    }
+                } heap = heights;
+                raw = (long) SIZE * SIZE * Short.BYTES;
+            }
+            case "mask" -> {
+                ByteArray2D mask = new ByteArray2D(SIZE,SIZE);
+                for (int i = 0; i < 300; i++) {
+                    Raster.circle(mask,random.nextInt(SIZE),random.nextInt(SIZE),4 + random.nextInt(24),
+                    (x0, y0, x1, y1) -> mask.write((byte) 1,x0,y0,x1,y1));
+                } heap = mask;
+                raw = (long) SIZE * SIZE;
+            }
+            default -> {
+                IntArray2D noise = new IntArray2D(SIZE,SIZE);
+                for (int y = 0; y < SIZE; y++) {
+                    for (int x = 0; x < SIZE; x++) noise.set(random.nextInt(),x,y);
+                } heap = noise;
+                raw = (long) SIZE * SIZE * Integer.BYTES;
+            }
+        } if (layout.equals("sparse")) {
+            if (heap instanceof ShortArray2D) grid = new SparseShortArray2D(SIZE,SIZE);
+            else if (heap instanceof ByteArray2D) grid = new SparseByteArray2D(SIZE,SIZE);
+            else grid = new SparseIntArray2D(SIZE,SIZE);
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) grid.setBits(heap.bits(x,y),x,y);
+            }
+        } else grid = heap;
+        out = new ByteArrayOutputStream((int) raw + 1024);
+        codec.encode(grid,out);
+        encoded = out.toByteArray();
+        System.out.printf("%n%s %s: %d raw bytes, %d encoded bytes, ratio %.2f%n",
+                codec,data,raw,encoded.length,(double) raw / encoded.length);
+    }
+    
+    @Benchmark
+    public int encode(Bytes bytes) throws IOException {
+        out.reset();
+        codec.encode(grid,out);
+        bytes.bytes += raw;
+        return out.size();
+    }
+    
+    @Benchmark
+    public PrimitiveArray2D decode(Bytes bytes) throws IOException {
+        codec.decode(new ByteArrayInputStream(encoded),grid);
+        bytes.bytes += raw;
+        return grid;
+    }
+}
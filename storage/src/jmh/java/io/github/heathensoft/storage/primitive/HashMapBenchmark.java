@@ -0,0 +1,115 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.external.IntIntMap4a;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IntIntHashMap versus IntIntMap4a and HashMap&lt;Integer,Integer&gt;. Operations per microsecond.
+ *
+ * get: lookups of random keys, half of them mapped
+ * churn: put then remove of random keys on a map holding size entries (no growth)
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashMapBenchmark {
+    
+    private static final int QUERIES = 4096;
+    
+    @Param({"1024","1048576"})
+    public int size;
+    
+    private IntIntHashMap primitive;
+    private IntIntMap4a external;
+    private HashMap<Integer,Integer> boxed;
+    private int[] queries;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        primitive = new IntIntHashMap(size + QUERIES);
+        external = new IntIntMap4a(size + QUERIES,0.75f);
+        boxed = new HashMap<>(2 * (size + QUERIES));
+        for (int i = 0; i < size; i++) {
+            int key = random.nextInt();
+            primitive.put(key,i);
+            external.put(key,i);
+            boxed.put(key,i);
+        } queries = new int[QUERIES];
+        int[] keys = new int[size];
+        primitive.readKeys(new io.github.heathensoft.storage.primitive.iterators.IntReader() {
+            int i;
+            public void next(int value) { keys[i++] = value; }
+        });
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = (i & 1) == 0 ? keys[random.nextInt(size)] : random.nextInt();
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int getPrimitive() {
+        int sum = 0;
+        for (int key : queries) sum += primitive.get(key);
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int getExternal() {
+        int sum = 0;
+        for (int key : queries) sum += external.get(key);
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int getBoxed() {
+        int sum = 0;
+        for (int key : queries) sum += boxed.getOrDefault(key,0);
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int churnPrimitive() {
+        int sum = 0;
+        for (int key : queries) {
+            sum += primitive.put(key ^ 0x5bd1e995,key);
+            sum += primitive.remove(key ^ 0x5bd1e995);
+        } return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int churnExternal() {
+        int sum = 0;
+        for (int key : queries) {
+            sum += external.put(key ^ 0x5bd1e995,key);
+            sum += external.remove(key ^ 0x5bd1e995);
+        } return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int churnBoxed() {
+        int sum = 0;
+        for (int key : queries) {
+            Integer previous = boxed.put(key ^ 0x5bd1e995,key);
+            if (previous != null) sum += previous;
+            sum += boxed.remove(key ^ 0x5bd1e995);
+        } return sum;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Array writes of every WriteFunction op and type: WriteFunction.write (SIMD kernels when the
+ * vector module is present) versus the scalar loop over the function (IntFunc.calc etc.).
+ * The source values are 1, so repeated writes stay in range (no overflow to zero, no denormals).
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WriteFunctionBenchmark {
+    
+    @Param({"ADD","SUB","MUL","DIV","SET","AND","CLR"})
+    public WriteFunction function;
+    
+    @Param({"byte","short","char","int","long","float","double"})
+    public String type;
+    
+    @Param("4096")
+    public int length;
+    
+    private byte[] bytes, byteSrc;
+    private short[] shorts, shortSrc;
+    private char[] chars, charSrc;
+    private int[] ints, intSrc;
+    private long[] longs, longSrc;
+    private float[] floats, floatSrc;
+    private double[] doubles, doubleSrc;
+    private int elementBytes;
+    
+    @Setup
+    public void setup() {
+        bytes = new byte[length]; byteSrc = new byte[length];
+        shorts = new short[length]; shortSrc = new short[length];
+        chars = new char[length]; charSrc = new char[length];
+        ints = new int[length]; intSrc = new int[length];
+        longs = new long[length]; longSrc = new long[length];
+        floats = new float[length]; floatSrc = new float[length];
+        doubles = new double[length]; doubleSrc = new double[length];
+        Arrays.fill(bytes,(byte) 1); Arrays.fill(byteSrc,(byte) 1);
+        Arrays.fill(shorts,(short) 1); Arrays.fill(shortSrc,(short) 1);
+        Arrays.fill(chars,(char) 1); Arrays.fill(charSrc,(char) 1);
+        Arrays.fill(ints,1); Arrays.fill(intSrc,1);
+        Arrays.fill(longs,1); Arrays.fill(longSrc,1);
+        Arrays.fill(floats,1); Arrays.fill(floatSrc,1);
+        Arrays.fill(doubles,1); Arrays.fill(doubleSrc,1);
+        switch (type) {
+            case "byte": elementBytes = Byte.BYTES; break;
+            case "short": case "char": elementBytes = Short.BYTES; break;
+            case "int": case "float": elementBytes = Integer.BYTES; break;
+            default: elementBytes = Long.BYTES;
+        } polluteProfile();
+    }
+    
+    @Benchmark
+    public Object writeFunction(Bytes counter) {
+        counter.bytes += (long) length * elementBytes;
+        switch (type) {
+            case "byte": function.write(bytes,byteSrc,0,length); return bytes;
+            case "short": function.write(shorts,shortSrc,0,length); return shorts;
+            case "char": function.write(chars,charSrc,0,length); return chars;
+            case "int": function.write(ints,intSrc,0,length); return ints;
+            case "long": function.write(longs,longSrc,0,length); return longs;
+            case "float": function.write(floats,floatSrc,0,length); return floats;
+            default: function.write(doubles,doubleSrc,0,length); return doubles;
+        }
+    }
+    
+    @Benchmark
+    public Object scalar(Bytes counter) {
+        counter.bytes += (long) length * elementBytes;
+        return scalar(function,type,length);
+    }
+    
+    /**
+     * The scalar loops are shared by every op (as in WriteFunction before the kernels). Running them
+     * with all ops first makes the calc calls megamorphic, as in an application using several ops.
+     * Without it the JIT inlines the single function and vectorizes the loop on its own.
+     */
+    private void polluteProfile() {
+        for (int n = 0; n < 2000; n++) {
+            for (WriteFunction f : WriteFunction.values()) {
+                if (f != WriteFunction.DIV) scalar(f,type,64);
+            }
+        }
+    }
+    
+    private Object scalar(WriteFunction function, String type, int length) {
+        switch (type) {
+            case "byte": scalar(function.byteFunc,bytes,byteSrc,length); return bytes;
+            case "short": scalar(function.shortFunc,shorts,shortSrc,length); return shorts;
+            case "char": scalar(function.charFunc,chars,charSrc,length); return chars;
+            case "int": scalar(function.intFunc,ints,intSrc,length); return ints;
+            case "long": scalar(function.longFunc,longs,longSrc,length); return longs;
+            case "float": scalar(function.floatFunc,floats,floatSrc,length); return floats;
+            default: scalar(function.doubleFunc,doubles,doubleSrc,length); return doubles;
+        }
+    }
+    
+    private static void scalar(WriteFunction.ByteFunc func, byte[] dest, byte[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    private static void scalar(WriteFunction.ShortFunc func, short[] dest, short[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    private static void scalar(WriteFunction.CharFunc func, char[] dest, char[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    private static void scalar(WriteFunction.IntFunc func, int[] dest, int[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    private static void scalar(WriteFunction.LongFunc func, long[] dest, long[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    private static void scalar(WriteFunction.FloatFunc func, float[] dest, float[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    private static void scalar(WriteFunction.DoubleFunc func, double[] dest, double[] src, int length) {
+        for (int i = 0; i < length; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+}
@@ -5,6 +5,11 @@ package io.github.heathensoft.storage.generic;
 import io.github.heathensoft.common.Disposable;
 
 import java.util.EmptyStackException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Grows on demand as elements are accessed.
@@ -175,6 +180,23 @@ public class Container<E> implements Disposable, Readable<E> {
         } peak = 0; count = 0;
     }
     
+    /**
+     * Spliterator over the non-null items (index order). Sized if the container has no gaps.
+     * @return splittable spliterator
+     */
+    public Spliterator<E> spliterator() {
+        if (count == peak) return Spliterators.spliterator(items,0,peak,Spliterator.ORDERED | Spliterator.NONNULL);
+        return new ItemSpliterator<>(items,0,peak);
+    }
+    
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(),false);
+    }
+    
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(),true);
+    }
+    
     public boolean isEmpty() {
         return count == 0;
     }
@@ -209,4 +231,62 @@ public class Container<E> implements Disposable, Readable<E> {
         } return -1;
     }
     
+    /**
+     * Skips the gaps (null items). The estimate is the remaining index range
+     */
+    private static final class ItemSpliterator<E> implements Spliterator<E> {
+        
+        private final E[] items;
+        private int index;
+        private final int fence;
+        
+        ItemSpliterator(E[] items, int index, int fence) {
+            this.items = items;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            while (index < fence) {
+                E item = items[index++];
+                if (item != null) {
+                    action.accept(item);
+                    return true;
+                }
+            } return false;
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            final E[] a = items;
+            final int end = fence;
+            int i = index;
+            index = end;
+            for (; i < end; i++) {
+                E item = a[i];
+                if (item != null) action.accept(item);
+            }
+        }
+        
+        @Override
+        public Spliterator<E> trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (mid <= lo) return null;
+            index = mid;
+            return new ItemSpliterator<>(items,lo,mid);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
+
 }
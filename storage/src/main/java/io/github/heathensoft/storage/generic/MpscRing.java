@@ -0,0 +1,145 @@
+package io.github.heathensoft.storage.generic;
+
+import io.github.heathensoft.common.Utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer.
+ * Any number of threads may offer, exactly one thread may poll / drain.
+ * Producers claim slots by CAS on the tail, and every slot carries a sequence number
+ * telling the consumer when it has been written (D. Vyukov's bounded queue).
+ * The producer and consumer counters are kept on separate cache lines to avoid false sharing.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+@SuppressWarnings("unchecked")
+public class MpscRing<E> {
+    
+    // counters are spaced 128 bytes apart in one array (padding against false sharing)
+    private static final int TAIL = 16;
+    private static final int HEAD = 32;
+    private static final int COUNTERS = 48;
+    private static final VarHandle COUNTER = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    private final long[] counters;
+    private final long[] sequence;
+    private final E[] buffer;
+    private final int mask;
+    
+    /**
+     * @param capacity rounded up to the nearest power of two
+     */
+    public MpscRing(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity < 1: " + capacity);
+        capacity = Utils.nextPowerOfTwo(capacity);
+        this.buffer = (E[]) new Object[capacity];
+        this.sequence = new long[capacity];
+        this.counters = new long[COUNTERS];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) sequence[i] = i;
+    }
+    
+    /**
+     * Any thread.
+     * @param value value to add (not null)
+     * @return false if the ring is full
+     */
+    public boolean offer(E value) {
+        if (value == null) throw new IllegalArgumentException("value == null");
+        final long[] c = counters;
+        long tail = (long) COUNTER.getVolatile(c,TAIL);
+        while (true) {
+            int index = (int) tail & mask;
+            long dif = (long) COUNTER.getAcquire(sequence,index) - tail;
+            if (dif == 0) {
+                long witness = (long) COUNTER.compareAndExchange(c,TAIL,tail,tail + 1);
+                if (witness == tail) {
+                    buffer[index] = value;
+                    COUNTER.setRelease(sequence,index,tail + 1);
+                    return true;
+                } tail = witness;
+            } else if (dif < 0) return false;
+            else tail = (long) COUNTER.getVolatile(c,TAIL);
+        }
+    }
+    
+    /**
+     * Consumer only.
+     * @return the next value, or null if the ring is empty
+     */
+    public E poll() {
+        final long[] c = counters;
+        long head = c[HEAD];
+        int index = (int) head & mask;
+        if ((long) COUNTER.getAcquire(sequence,index) != head + 1) return null;
+        E value = buffer[index];
+        buffer[index] = null;
+        COUNTER.setRelease(sequence,index,head + buffer.length);
+        COUNTER.setRelease(c,HEAD,head + 1);
+        return value;
+    }
+    
+    /**
+     * Consumer only. Passes all currently available values to the reader.
+     * @param itr reader
+     * @return number of values drained
+     */
+    public int drain(Reader<E> itr) {
+        return drain(itr,Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Consumer only. Passes up to limit available values to the reader.
+     * Stops at the first slot claimed by a producer that has not yet been written.
+     * @param itr reader
+     * @param limit max values to drain
+     * @return number of values drained
+     */
+    public int drain(Reader<E> itr, int limit) {
+        final long[] c = counters;
+        final long head = c[HEAD];
+        int n = 0;
+        try {
+            while (n < limit) {
+                long position = head + n;
+                int index = (int) position & mask;
+                if ((long) COUNTER.getAcquire(sequence,index) != position + 1) break;
+                E value = buffer[index];
+                buffer[index] = null;
+                COUNTER.setRelease(sequence,index,position + buffer.length);
+                n++;
+                itr.next(value);
+            }
+        } finally { // a throwing reader must not leave released slots behind the head
+            if (n > 0) COUNTER.setRelease(c,HEAD,head + n);
+        } return n;
+    }
+    
+    /**
+     * Consumer only. Discards all available values.
+     */
+    public void clear() {
+        drain(value -> { });
+    }
+    
+    /**
+     * @return approximate number of values in the ring
+     */
+    public int size() {
+        long head = (long) COUNTER.getAcquire(counters,HEAD);
+        long tail = (long) COUNTER.getAcquire(counters,TAIL);
+        return (int) Math.max(0,Math.min(tail - head,buffer.length));
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public int capacity() {
+        return buffer.length;
+    }
+}
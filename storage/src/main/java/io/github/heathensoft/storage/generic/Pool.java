@@ -1,12 +1,213 @@
 package io.github.heathensoft.storage.generic;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
 /**
+ * Thread-safe object pool.
+ *
+ * Every thread has its own small stack of free objects (no synchronization).
+ * When it runs empty it refills half of it from a shared overflow stack in one go,
+ * and when it is full, half of it is moved to the shared stack. Objects are only created
+ * by the factory when both are empty. The pool keeps at most maxRetained objects in total
+ * (the shared stack and the stacks of all threads), objects freed beyond that are left for the GC.
+ * Objects kept by a thread that terminates are lost with it, but still count towards maxRetained.
+ *
+ * Objects are reset when freed. Objects may be freed by a different thread than the one obtaining them.
+ * Never free the same object twice, or use it after freeing it.
+ *
  * @author Frederik Dahl
  * 04/06/2022
  */
 
 
-public class Pool {
-
-
+public class Pool<T extends Poolable> {
+    
+    public static final int DEFAULT_MAX_RETAINED = 1024;
+    public static final int DEFAULT_LOCAL_CAPACITY = 32;
+    
+    private final Supplier<T> factory;
+    private final ThreadLocal<Local> local;
+    private final Object[] shared;
+    private final int localCapacity;
+    private final AtomicInteger retained = new AtomicInteger();
+    private int sharedCount;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger peakOutstanding = new AtomicInteger();
+    
+    /**
+     * @param factory creates new objects on pool misses
+     * @param maxRetained max objects kept by the pool
+     * @param localCapacity max objects kept per thread
+     */
+    public Pool(Supplier<T> factory, int maxRetained, int localCapacity) {
+        if (factory == null) throw new IllegalArgumentException("factory == null");
+        if (maxRetained < 0) throw new IllegalArgumentException("maxRetained < 0");
+        if (localCapacity < 2) throw new IllegalArgumentException("localCapacity < 2");
+        this.factory = factory;
+        this.shared = new Object[maxRetained];
+        this.localCapacity = localCapacity;
+        this.local = ThreadLocal.withInitial(() -> new Local(localCapacity));
+    }
+    
+    public Pool(Supplier<T> factory, int maxRetained) {
+        this(factory,maxRetained,DEFAULT_LOCAL_CAPACITY);
+    }
+    
+    public Pool(Supplier<T> factory) {
+        this(factory,DEFAULT_MAX_RETAINED);
+    }
+    
+    /**
+     * @return a free object, or a new object if the pool is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T obtain() {
+        Local local = this.local.get();
+        if (local.count == 0) refill(local);
+        T object;
+        if (local.count > 0) {
+            object = (T) local.items[--local.count];
+            local.items[local.count] = null;
+            retained.decrementAndGet();
+            hits.increment();
+        } else {
+            object = factory.get();
+            misses.increment();
+        } int out = outstanding.incrementAndGet();
+        if (out > peakOutstanding.get()) peakOutstanding.accumulateAndGet(out,Math::max);
+        return object;
+    }
+    
+    /**
+     * Resets the object and returns it to the pool.
+     * @param object object obtained from this pool
+     */
+    public void free(T object) {
+        if (object == null) throw new IllegalArgumentException("object == null");
+        object.reset();
+        outstanding.decrementAndGet();
+        if (retained.incrementAndGet() > shared.length) {
+            retained.decrementAndGet();
+            discarded.increment();
+            return;
+        } Local local = this.local.get();
+        if (local.count == localCapacity) spill(local);
+        local.items[local.count++] = object;
+    }
+    
+    /**
+     * Creates objects until the shared stack holds n objects (or the pool is full)
+     * @param n objects
+     */
+    public void fill(int n) {
+        n = Math.min(n,shared.length);
+        synchronized (shared) {
+            while (sharedCount < n) {
+                if (retained.incrementAndGet() > shared.length) {
+                    retained.decrementAndGet();
+                    return;
+                } shared[sharedCount++] = factory.get();
+            }
+        }
+    }
+    
+    /**
+     * Drops all objects of the shared stack and of the calling thread.
+     * Objects kept by other threads are not affected.
+     */
+    public void clear() {
+        synchronized (shared) {
+            for (int i = 0; i < sharedCount; i++) {
+                shared[i] = null;
+            } retained.addAndGet(-sharedCount);
+            sharedCount = 0;
+        } Local local = this.local.get();
+        for (int i = 0; i < local.count; i++) {
+            local.items[i] = null;
+        } retained.addAndGet(-local.count);
+        local.count = 0;
+    }
+    
+    /**
+     * @return objects obtained from a free stack
+     */
+    public long hits() {
+        return hits.sum();
+    }
+    
+    /**
+     * @return objects created by the factory
+     */
+    public long misses() {
+        return misses.sum();
+    }
+    
+    /**
+     * @return freed objects dropped because the pool was full
+     */
+    public long discarded() {
+        return discarded.sum();
+    }
+    
+    /**
+     * @return objects obtained and not yet freed
+     */
+    public int outstanding() {
+        return outstanding.get();
+    }
+    
+    /**
+     * @return the highest number of outstanding objects so far
+     */
+    public int peakOutstanding() {
+        return peakOutstanding.get();
+    }
+    
+    /**
+     * @return objects kept by the pool (the shared stack and the stacks of all threads)
+     */
+    public int retained() {
+        return retained.get();
+    }
+    
+    public int maxRetained() {
+        return shared.length;
+    }
+    
+    private void refill(Local local) {
+        synchronized (shared) {
+            int n = Math.min(sharedCount,localCapacity >> 1);
+            for (int i = 0; i < n; i++) {
+                local.items[local.count++] = shared[--sharedCount];
+                shared[sharedCount] = null;
+            }
+        }
+    }
+    
+    private void spill(Local local) {
+        // the shared stack always has room: every object in it or in a thread stack is counted by retained
+        int n = localCapacity >> 1;
+        synchronized (shared) {
+            for (int i = 0; i < n; i++) {
+                shared[sharedCount++] = local.items[--local.count];
+                local.items[local.count] = null;
+            }
+        }
+    }
+    
+    private static final class Local {
+        
+        private final Object[] items;
+        private int count;
+        
+        Local(int capacity) {
+            items = new Object[capacity];
+        }
+    }
 }
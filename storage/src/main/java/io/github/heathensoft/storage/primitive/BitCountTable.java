@@ -0,0 +1,328 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Disposable;
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+/**
+ * Count tables (summed-area tables of flags) for mask arrays, f.ex. terrain layer masks.
+ * Each layer counts the cells where (value & mask) != 0. Rectangle counts are O(1).
+ * Accepts integral arrays (byte, short, char, int or long).
+ *
+ * The layers are split into 16 x 16 tiles. Within a tile, counts are stored in a byte per cell
+ * (a tile-local summed-area table, at most 225). The int counts are kept at tile granularity only:
+ * per tile corner, per row and tile column, and per column and tile row.
+ * About 1.8 bytes per cell and layer, against 4 for a plain table of ints.
+ * F.ex. perBit of a 2048 x 2048 short array (16 layers) takes about 120 MB. Prefer masks for the layers
+ * actually queried over perBit.
+ *
+ * The table observes the array: it registers its invalidate method as a write listener of the source
+ * (PrimitiveArray2D.addWriteListener), so every write through the array invalidates the written area.
+ * Writes to the underlying array (get()) or buffer are not seen. Report those with array.markDirty (or invalidate).
+ * Dispose to stop observing.
+ * Rebuilt lazily on the next query (or refresh): the tiles of the bounding box of the invalidated areas,
+ * the tile-level counts to the right of and below it (about 1/8 of the cells in those tile rows and columns).
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class BitCountTable implements Disposable {
+    
+    private static final int TILE_BITS = 4;
+    private static final int TILE = 1 << TILE_BITS;
+    private static final int TILE_MASK = TILE - 1;
+    private static final int TILE_AREA = TILE * TILE;
+    private static final int EDGE = TILE + 1;
+    
+    private final PrimitiveArray2D source;
+    private final AreaReader listener;
+    private final long[] masks;
+    private final byte[][] cells;      // per layer and tile: local counts of [0,lx) x [0,ly), lx and ly in [0,16)
+    private final short[][] tileRows;  // per layer and tile: counts of [0,16) x [0,ly), ly in [0,16]
+    private final short[][] tileCols;  // per layer and tile: counts of [0,lx) x [0,16), lx in [0,16]
+    private final int[][] rowStrips;   // per layer, row y and tile column tx: counts of [0,tx*16) x [ty*16,y)
+    private final int[][] colStrips;   // per layer, tile row ty and column x: counts of [tx*16,x) x [0,ty*16)
+    private final int[][] corners;     // per layer, tile corner: counts of [0,tx*16) x [0,ty*16)
+    private final int[] scratch;
+    private final long[] band;
+    private final int tilesX;
+    private final int tilesY;
+    private final int rows;
+    private final int cols;
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
+    
+    /**
+     * @param source integral array
+     * @param masks one layer per mask
+     * @throws IllegalArgumentException if the array holds float or double values, or no masks are given
+     */
+    public BitCountTable(PrimitiveArray2D source, long... masks) {
+        if (!GridCells.isIntegral(source)) throw new IllegalArgumentException("not an integral array");
+        if (masks.length == 0) throw new IllegalArgumentException("no masks");
+        this.source = source;
+        this.masks = masks.clone();
+        this.rows = source.rows();
+        this.cols = source.cols();
+        this.tilesX = (cols + TILE_MASK) >> TILE_BITS;
+        this.tilesY = (rows + TILE_MASK) >> TILE_BITS;
+        final int layers = masks.length;
+        final int tiles = tilesX * tilesY;
+        this.cells = new byte[layers][tiles * TILE_AREA];
+        this.tileRows = new short[layers][tiles * EDGE];
+        this.tileCols = new short[layers][tiles * EDGE];
+        this.rowStrips = new int[layers][(rows + 1) * (tilesX + 1)];
+        this.colStrips = new int[layers][(tilesY + 1) * (cols + 1)];
+        this.corners = new int[layers][(tilesY + 1) * (tilesX + 1)];
+        this.scratch = new int[EDGE * EDGE];
+        this.band = new long[TILE * cols];
+        invalidateAll();
+        refresh();
+        this.listener = this::invalidate;
+        source.addWriteListener(listener);
+    }
+    
+    /**
+     * One layer per bit. Layer i counts the cells with bit i set.
+     * @param source integral array
+     * @param bits number of (lowest) bits to count. 1 - 64
+     * @return new table
+     */
+    public static BitCountTable perBit(PrimitiveArray2D source, int bits) {
+        if (bits < 1 || bits > 64) throw new IllegalArgumentException("bits must be 1 - 64: " + bits);
+        long[] masks = new long[bits];
+        for (int i = 0; i < bits; i++) masks[i] = 1L << i;
+        return new BitCountTable(source,masks);
+    }
+    
+    /**
+     * Number of cells in the area matching the layer mask.
+     * min and max values are inclusive and clamped to the array.
+     * @param layer layer (mask index)
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     * @return the count. 0 if the area is outside the array
+     */
+    public int count(int layer, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return 0;
+        refresh();
+        return prefix(layer,maxX + 1,maxY + 1) - prefix(layer,minX,maxY + 1)
+             - prefix(layer,maxX + 1,minY) + prefix(layer,minX,minY);
+    }
+    
+    /**
+     * @param layer layer (mask index)
+     * @return number of cells in the array matching the layer mask
+     */
+    public int count(int layer) {
+        refresh();
+        return prefix(layer,cols,rows);
+    }
+    
+    /**
+     * @return true if any cell in the area (clamped) matches the layer mask
+     */
+    public boolean any(int layer, int minX, int minY, int maxX, int maxY) {
+        return count(layer,minX,minY,maxX,maxY) > 0;
+    }
+    
+    /**
+     * @return true if every cell in the area (clamped) matches the layer mask. False for empty areas
+     */
+    public boolean all(int layer, int minX, int minY, int maxX, int maxY) {
+        int w = Math.min(cols-1,Math.max(minX,maxX)) - Math.max(0,Math.min(minX,maxX)) + 1;
+        int h = Math.min(rows-1,Math.max(minY,maxY)) - Math.max(0,Math.min(minY,maxY)) + 1;
+        if (w <= 0 || h <= 0) return false;
+        return count(layer,minX,minY,maxX,maxY) == w * h;
+    }
+    
+    /**
+     * Report a modified area of the source array. min and max values are inclusive and clamped to the array.
+     * Signature matches AreaReader.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void invalidate(int minX, int minY, int maxX, int maxY) {
+        int x0 = Math.max(0,Math.min(minX,maxX));
+        int y0 = Math.max(0,Math.min(minY,maxY));
+        int x1 = Math.min(cols-1,Math.max(minX,maxX));
+        int y1 = Math.min(rows-1,Math.max(minY,maxY));
+        if (x0 > x1 || y0 > y1) return;
+        dirtyMinX = Math.min(dirtyMinX,x0 >> TILE_BITS);
+        dirtyMinY = Math.min(dirtyMinY,y0 >> TILE_BITS);
+        dirtyMaxX = Math.max(dirtyMaxX,x1 >> TILE_BITS);
+        dirtyMaxY = Math.max(dirtyMaxY,y1 >> TILE_BITS);
+    }
+    
+    public void invalidateAll() {
+        dirtyMinX = dirtyMinY = 0;
+        dirtyMaxX = tilesX - 1;
+        dirtyMaxY = tilesY - 1;
+    }
+    
+    public boolean isValid() {
+        return dirtyMinX > dirtyMaxX || dirtyMinY > dirtyMaxY;
+    }
+    
+    /**
+     * Rebuild the invalidated part of the layers. Called by the queries.
+     */
+    public void refresh() {
+        if (isValid()) return;
+        final int tx0 = dirtyMinX;
+        final int ty0 = dirtyMinY;
+        final int tx1 = dirtyMaxX;
+        final int ty1 = dirtyMaxY;
+        final long[] values = band;
+        final int stride = cols;
+        // tiles of the dirty box, one band (tile row) of values at a time. The source may read its area in any order
+        for (int ty = ty0; ty <= ty1; ty++) {
+            int y0 = ty << TILE_BITS;
+            GridCells.readLongs(source,(x, y, value) -> values[(y & TILE_MASK) * stride + x] = value,
+            tx0 << TILE_BITS,y0,Math.min(cols,(tx1 + 1) << TILE_BITS) - 1,Math.min(rows,y0 + TILE) - 1);
+            for (int l = 0; l < masks.length; l++) {
+                for (int tx = tx0; tx <= tx1; tx++) buildTile(l,tx,ty);
+            }
+        } // tile level counts to the right of and below the box
+        final int cornerStride = tilesX + 1;
+        final int colStride = cols + 1;
+        for (int l = 0; l < masks.length; l++) {
+            final short[] tRows = tileRows[l];
+            final short[] tCols = tileCols[l];
+            final int[] rStrips = rowStrips[l];
+            final int[] cStrips = colStrips[l];
+            final int[] c = corners[l];
+            for (int ty = ty0; ty <= ty1; ty++) {
+                int lyMax = Math.min(TILE_MASK,rows - (ty << TILE_BITS));
+                for (int ly = 1; ly <= lyMax; ly++) {
+                    int row = ((ty << TILE_BITS) + ly) * cornerStride;
+                    for (int tx = tx0; tx < tilesX; tx++) {
+                        rStrips[row + tx + 1] = rStrips[row + tx] + tRows[(ty * tilesX + tx) * EDGE + ly];
+                    }
+                }
+            } final int xEnd = Math.min(cols,(tx1 + 1) << TILE_BITS);
+            for (int x = tx0 << TILE_BITS; x <= xEnd; x++) {
+                int lx = x & TILE_MASK;
+                if (lx == 0) continue;
+                int tx = x >> TILE_BITS;
+                for (int ty = ty0; ty < tilesY; ty++) {
+                    cStrips[(ty + 1) * colStride + x] = cStrips[ty * colStride + x] + tCols[(ty * tilesX + tx) * EDGE + lx];
+                }
+            } for (int ty = ty0; ty < tilesY; ty++) {
+                for (int tx = tx0; tx < tilesX; tx++) {
+                    int above = ty * cornerStride + tx;
+                    int below = above + cornerStride;
+                    c[below + 1] = c[below] + c[above + 1] - c[above] + tRows[(ty * tilesX + tx) * EDGE + TILE];
+                }
+            }
+        } dirtyMinX = dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = dirtyMaxY = Integer.MIN_VALUE;
+    }
+    
+    /**
+     * @param layer layer index
+     * @return the mask of the layer
+     */
+    public long mask(int layer) {
+        return masks[layer];
+    }
+    
+    public int layers() {
+        return masks.length;
+    }
+    
+    /**
+     * Stop observing the source array. Later writes are not reflected unless reported with invalidate
+     */
+    @Override
+    public void dispose() {
+        source.removeWriteListener(listener);
+    }
+    
+    public PrimitiveArray2D source() {
+        return source;
+    }
+    
+    public int rows() {
+        return rows;
+    }
+    
+    public int cols() {
+        return cols;
+    }
+    
+    public int sizeBytes() {
+        int perLayer = cells[0].length + 2 * (tileRows[0].length + tileCols[0].length)
+        + 4 * (rowStrips[0].length + colStrips[0].length + corners[0].length);
+        return perLayer * masks.length + 8 * band.length;
+    }
+    
+    /**
+     * Count of [0,x) x [0,y), x in [0,cols], y in [0,rows]
+     */
+    private int prefix(int layer, int x, int y) {
+        final int tx = x >> TILE_BITS;
+        final int ty = y >> TILE_BITS;
+        final int lx = x & TILE_MASK;
+        final int ly = y & TILE_MASK;
+        int count = corners[layer][ty * (tilesX + 1) + tx];
+        if (ly != 0) count += rowStrips[layer][y * (tilesX + 1) + tx];
+        if (lx != 0) {
+            count += colStrips[layer][ty * (cols + 1) + x];
+            if (ly != 0) count += cells[layer][(ty * tilesX + tx) * TILE_AREA + (ly << TILE_BITS) + lx] & 0xFF;
+        } return count;
+    }
+    
+    /**
+     * Local counts of a tile, from the values in the band. Cells outside the array count as 0.
+     */
+    private void buildTile(int layer, int tx, int ty) {
+        final long mask = masks[layer];
+        final int[] s = scratch; // (17 x 17) counts of [0,lx) x [0,ly)
+        final int x0 = tx << TILE_BITS;
+        final int w = Math.min(TILE,cols - x0);
+        final int h = Math.min(TILE,rows - (ty << TILE_BITS));
+        for (int ly = 1; ly <= TILE; ly++) {
+            int row = ly * EDGE;
+            int rowCount = 0;
+            if (ly <= h) {
+                int offset = (ly - 1) * cols + x0;
+                for (int lx = 1; lx <= TILE; lx++) {
+                    if (lx <= w && (band[offset + lx - 1] & mask) != 0) rowCount++;
+                    s[row + lx] = s[row - EDGE + lx] + rowCount;
+                }
+            } else {
+                for (int lx = 1; lx <= TILE; lx++) s[row + lx] = s[row - EDGE + lx];
+            }
+        } final int tile = ty * tilesX + tx;
+        final byte[] local = cells[layer];
+        final int base = tile * TILE_AREA;
+        for (int ly = 0; ly < TILE; ly++) {
+            for (int lx = 0; lx < TILE; lx++) local[base + (ly << TILE_BITS) + lx] = (byte) s[ly * EDGE + lx];
+        } final short[] tRows = tileRows[layer];
+        final short[] tCols = tileCols[layer];
+        for (int i = 0; i <= TILE; i++) {
+            tRows[tile * EDGE + i] = (short) s[i * EDGE + TILE];
+            tCols[tile * EDGE + i] = (short) s[TILE * EDGE + i];
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.heathensoft.storage.primitive;
 
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+
 import java.util.Arrays;
 
 import static java.lang.Long.*;
@@ -7,9 +9,9 @@ import static java.lang.Long.*;
 /**
  * This class works very similar to the Java BitSet class, only slimmer and less safe.
  * Inspired by artemis-odb BitVector, which is a modified version of libgdx Bits.
- * It does not keep track over words in use. (Java Bitset does) There are advantages and disadvantages.
- * For setting and getting single flags, this should be more performant.
- * For comparing "Bitsets", Bitset would be more performant for large sets.
+ * It keeps track of the highest word in use, so bulk operations, iteration and comparisons
+ * on large but mostly empty sets do not scan the trailing zero words.
+ * Set bits are iterated a word at a time with read(IntReader) or nextSetBit(int).
  *
  * @author mzechner (libgdx Bits)
  * @author jshapcott (libgdx Bits)
@@ -23,12 +25,13 @@ import static java.lang.Long.*;
  */
 
 
-public class BitSet {
+public class BitSet implements ReadableInt {
     
     private final static int ADDRESS_BITS_PER_WORD = 6;
     private final static int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
     
     private long[] words;
+    private int wordsInUse;
     
     public BitSet() {
         words = new long[0];
@@ -37,6 +40,7 @@ public class BitSet {
     public BitSet(BitSet bits) {
         if (bits == null) throw new IllegalArgumentException("bits == null");
         words = Arrays.copyOf(bits.words, bits.words.length);
+        wordsInUse = bits.wordsInUse;
     }
     
     public BitSet(int nbits) {
@@ -57,30 +61,72 @@ public class BitSet {
         final int word = idx >>> ADDRESS_BITS_PER_WORD;
         checkCapacity(word);
         words[word] |= 1L << idx;
+        if (word >= wordsInUse) wordsInUse = word + 1;
     }
     
     public void setUnsafe(int idx) {
-        words[idx >>> ADDRESS_BITS_PER_WORD] |= 1L << idx;
+        final int word = idx >>> ADDRESS_BITS_PER_WORD;
+        words[word] |= 1L << idx;
+        if (word >= wordsInUse) wordsInUse = word + 1;
+    }
+    
+    /**
+     * Set all bits in range
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     */
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        checkCapacity(last);
+        for (int i = first; i <= last; i++) {
+            words[i] |= rangeMask(i, first, last, fromIndex, toIndex);
+        } if (last >= wordsInUse) wordsInUse = last + 1;
     }
     
     public void clear(int idx) {
         final int word = idx >>> ADDRESS_BITS_PER_WORD;
-        if (word < words.length) words[word] &= ~(1L << idx);
+        if (word < wordsInUse) {
+            words[word] &= ~(1L << idx);
+            if (word == wordsInUse - 1) trimWordsInUse(wordsInUse);
+        }
     }
     
     public void clearUnsafe(int idx) {
-        words[idx >>> ADDRESS_BITS_PER_WORD] &= ~(1L << idx);
+        final int word = idx >>> ADDRESS_BITS_PER_WORD;
+        words[word] &= ~(1L << idx);
+        if (word == wordsInUse - 1) trimWordsInUse(wordsInUse);
+    }
+    
+    /**
+     * Clear all bits in range
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     */
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        final int end = Math.min(last, wordsInUse - 1);
+        for (int i = first; i <= end; i++) {
+            words[i] &= ~rangeMask(i, first, last, fromIndex, toIndex);
+        } trimWordsInUse(wordsInUse);
     }
     
     public void clear() {
-        Arrays.fill(words, 0L);
+        Arrays.fill(words, 0, wordsInUse, 0L);
+        wordsInUse = 0;
     }
     
     public boolean getAndClear (int idx) {
         final int word = idx >>> 6;
-        if (word >= words.length) return false;
+        if (word >= wordsInUse) return false;
         long oldBits = words[word];
         words[word] &= ~(1L << (idx & 0x3F));
+        if (word == wordsInUse - 1) trimWordsInUse(wordsInUse);
         return words[word] != oldBits;
     }
     
@@ -89,6 +135,7 @@ public class BitSet {
         checkCapacity(word);
         long oldBits = words[word];
         words[word] |= 1L << (idx & 0x3F);
+        if (word >= wordsInUse) wordsInUse = word + 1;
         return words[word] == oldBits;
     }
     
@@ -96,10 +143,13 @@ public class BitSet {
         final int word = idx >>> ADDRESS_BITS_PER_WORD;
         checkCapacity(word);
         words[word] ^= 1L << idx;
+        trimWordsInUse(Math.max(wordsInUse, word + 1));
     }
     
     public void flipUnsafe(int idx) {
-        words[idx >>> ADDRESS_BITS_PER_WORD] ^= 1L << idx;
+        final int word = idx >>> ADDRESS_BITS_PER_WORD;
+        words[word] ^= 1L << idx;
+        trimWordsInUse(Math.max(wordsInUse, word + 1));
     }
     
     public void ensureCapacity(int nbits) {
@@ -112,45 +162,116 @@ public class BitSet {
     }
     
     public void and(BitSet other) {
-        final int l = words.length;
-        final int common = Math.min(l, other.words.length);
+        final int l = wordsInUse;
+        final int common = Math.min(l, other.wordsInUse);
         for (int i = 0; common > i; i++) words[i] &= other.words[i];
         if (l > common) for (int i = common; l > i; i++) words[i] = 0L;
+        trimWordsInUse(common);
     }
     
     public void andNot(BitSet other) {
-        int common = Math.min(words.length, other.words.length);
+        int common = Math.min(wordsInUse, other.wordsInUse);
         for (int i = 0; common > i; i++) {
             words[i] &= ~other.words[i];
-        }
+        } trimWordsInUse(wordsInUse);
     }
     
     public void or(BitSet other) {
-        final int ol = other.words.length;
-        final int common = Math.min(words.length, ol);
+        final int ol = other.wordsInUse;
+        final int common = Math.min(wordsInUse, ol);
         for (int i = 0; common > i; i++) words[i] |= other.words[i];
-        if (common < ol) { checkCapacity(ol);
-            for (int i = common; ol > i; i++) {
-                words[i] = other.words[i];
-            }
+        if (common < ol) { checkCapacity(ol - 1);
+            System.arraycopy(other.words, common, words, common, ol - common);
+            wordsInUse = ol;
         }
     }
     
     public void xor(BitSet other) {
-        final int ol = other.words.length;
-        final int common = Math.min(words.length, ol);
+        final int ol = other.wordsInUse;
+        final int common = Math.min(wordsInUse, ol);
         for (int i = 0; common > i; i++) words[i] ^= other.words[i];
-        if (common < ol) { checkCapacity(ol);
-            for (int i = common; ol > i; i++) {
-                words[i] = other.words[i];
-            }
-        }
+        if (common < ol) { checkCapacity(ol - 1);
+            System.arraycopy(other.words, common, words, common, ol - common);
+            wordsInUse = ol;
+        } else trimWordsInUse(wordsInUse);
+    }
+    
+    /**
+     * And with other. Only bits in range are affected.
+     * @param other other set
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     */
+    public void and(BitSet other, int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        final int end = Math.min(last, wordsInUse - 1);
+        for (int i = first; i <= end; i++) {
+            words[i] &= other.getWord(i) | ~rangeMask(i, first, last, fromIndex, toIndex);
+        } trimWordsInUse(wordsInUse);
+    }
+    
+    /**
+     * And-not with other. Only bits in range are affected.
+     * @param other other set
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     */
+    public void andNot(BitSet other, int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        final int end = Math.min(last, Math.min(wordsInUse, other.wordsInUse) - 1);
+        for (int i = first; i <= end; i++) {
+            words[i] &= ~(other.words[i] & rangeMask(i, first, last, fromIndex, toIndex));
+        } trimWordsInUse(wordsInUse);
+    }
+    
+    /**
+     * Or with other. Only bits in range are affected.
+     * @param other other set
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     */
+    public void or(BitSet other, int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        final int end = Math.min(last, other.wordsInUse - 1);
+        if (end < first) return;
+        checkCapacity(end);
+        for (int i = first; i <= end; i++) {
+            words[i] |= other.words[i] & rangeMask(i, first, last, fromIndex, toIndex);
+        } trimWordsInUse(Math.max(wordsInUse, end + 1));
+    }
+    
+    /**
+     * Xor with other. Only bits in range are affected.
+     * @param other other set
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     */
+    public void xor(BitSet other, int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        final int end = Math.min(last, other.wordsInUse - 1);
+        if (end < first) return;
+        checkCapacity(end);
+        for (int i = first; i <= end; i++) {
+            words[i] ^= other.words[i] & rangeMask(i, first, last, fromIndex, toIndex);
+        } trimWordsInUse(Math.max(wordsInUse, end + 1));
     }
     
     public boolean intersects(BitSet other) {
         long[] bits = this.words;
         long[] otherBits = other.words;
-        for (int i = 0, s = Math.min(bits.length, otherBits.length); s > i; i++) {
+        for (int i = 0, s = Math.min(wordsInUse, other.wordsInUse); s > i; i++) {
             if ((bits[i] & otherBits[i]) != 0) return true;
         } return false;
     }
@@ -158,21 +279,52 @@ public class BitSet {
     public boolean containsAll(BitSet other) {
         long[] bits = this.words;
         long[] otherBits = other.words;
-        final int ol = otherBits.length;
-        final int l = bits.length;
-        for (int i = l; i < ol; i++)
-            if (otherBits[i] != 0) return false;
-        for (int i = 0, s = Math.min(l, ol); s > i; i++) {
+        if (other.wordsInUse > wordsInUse) return false;
+        for (int i = 0, s = other.wordsInUse; s > i; i++) {
             if ((bits[i] & otherBits[i]) != otherBits[i]) return false;
         } return true;
     }
     
     public int cardinality() {
         int count = 0;
-        for (long word : words) count += bitCount(word);
+        for (int i = 0; i < wordsInUse; i++) count += bitCount(words[i]);
         return count;
     }
     
+    /**
+     * Number of set bits in range
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     * @return set bits
+     */
+    public int cardinality(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) return 0;
+        final int first = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        final int last = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        final int end = Math.min(last, wordsInUse - 1);
+        int count = 0;
+        for (int i = first; i <= end; i++) {
+            count += bitCount(words[i] & rangeMask(i, first, last, fromIndex, toIndex));
+        } return count;
+    }
+    
+    /**
+     * Passes the index of every set bit to the reader, in ascending order
+     * @param itr reader
+     */
+    @Override
+    public void read(IntReader itr) {
+        for (int i = 0; i < wordsInUse; i++) {
+            long word = words[i];
+            final int wordBits = i << ADDRESS_BITS_PER_WORD;
+            while (word != 0) {
+                itr.next(wordBits + numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+    
     public void indicesUnchecked(IntBag out, int count) {
         out.setSize(count);
         int[] data = out.data();
@@ -209,25 +361,30 @@ public class BitSet {
     }
     
     public int logicalLength() {
-        long[] bits = this.words;
-        for (int word = bits.length - 1; word >= 0; --word) {
-            long wordBits = bits[word];
-            if (wordBits != 0)
-                return (word << ADDRESS_BITS_PER_WORD) + BITS_PER_WORD - numberOfLeadingZeros(wordBits);
-        } return 0;
+        if (wordsInUse == 0) return 0;
+        final int word = wordsInUse - 1;
+        return (word << ADDRESS_BITS_PER_WORD) + BITS_PER_WORD - numberOfLeadingZeros(words[word]);
     }
     
     public boolean isEmpty() {
-        final int l = words.length;
-        for (int i = 0; i < l; i++) {
-            if (words[i] != 0L) return false;
-        } return true;
+        return wordsInUse == 0;
+    }
+    
+    /**
+     * @return the number of words up to and including the highest non-zero word
+     */
+    public int wordsInUse() {
+        return wordsInUse;
     }
     
     public long getWord(int idx) {
         return idx < words.length ? words[idx] : 0L;
     }
     
+    /**
+     * If the returned array is modified, call recalculateWordsInUse() afterwards.
+     * @return the underlying words
+     */
     public long[] getWords() {
         return words;
     }
@@ -238,12 +395,21 @@ public class BitSet {
             System.arraycopy(words, 0, newWords, 0, words.length);
             this.words = newWords;
         } words[idx] = word;
+        trimWordsInUse(Math.max(wordsInUse, idx + 1));
+    }
+    
+    /**
+     * Find the highest word in use by scanning all words.
+     * Only needed after modifying the array returned by getWords().
+     */
+    public void recalculateWordsInUse() {
+        trimWordsInUse(words.length);
     }
     
     @Override
     public int hashCode() {
-        final int word = logicalLength() >>> 6; int hash = 0;
-        for (int i = 0; word >= i; i++) { hash = 127 * hash + (int) (words[i] ^ (words[i] >>> 32));
+        int hash = 0;
+        for (int i = 0; wordsInUse > i; i++) { hash = 127 * hash + (int) (words[i] ^ (words[i] >>> 32));
         } return hash;
     }
     
@@ -254,11 +420,10 @@ public class BitSet {
         if (getClass() != obj.getClass()) return false;
         BitSet other = (BitSet) obj;
         long[] otherBits = other.words;
-        int common = Math.min(words.length, otherBits.length);
-        for (int i = 0; common > i; i++) {
+        if (wordsInUse != other.wordsInUse) return false;
+        for (int i = 0; wordsInUse > i; i++) {
             if (words[i] != otherBits[i]) return false;
-        } if (words.length == otherBits.length) return true;
-        return logicalLength() == other.logicalLength();
+        } return true;
     }
     
     @Override
@@ -289,21 +454,55 @@ public class BitSet {
         }
     }
     
-    /** Returns the index of the first bit that is set to true that occurs on or after the specified starting index. If no such bit
-     * exists then -1 is returned. */
-    private int nextSetBit(int fromIndex) {
-        final int word = fromIndex >>> ADDRESS_BITS_PER_WORD;
-        if (word < words.length) {
-            long bitmap = words[word] >>> fromIndex;
-            if (bitmap == 0) {
-                for (int i = 1 + word; i < words.length; i++) {
-                    bitmap = words[i];
-                    if (bitmap != 0) {
-                        return i * BITS_PER_WORD + numberOfTrailingZeros(bitmap);
-                    }
-                }
-            } else return fromIndex + numberOfTrailingZeros(bitmap);
-        } return -1;
+    private void trimWordsInUse(int candidate) {
+        while (candidate > 0 && words[candidate - 1] == 0L) candidate--;
+        wordsInUse = candidate;
     }
     
+    private static long rangeMask(int word, int first, int last, int fromIndex, int toIndex) {
+        long mask = -1L;
+        if (word == first) mask &= -1L << fromIndex;
+        if (word == last) mask &= -1L >>> -toIndex;
+        return mask;
+    }
+    
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0) throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < fromIndex) throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + " > toIndex: " + toIndex);
+    }
+    
+    /**
+     * Iterate set bits:
+     * for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) { ... }
+     * @param fromIndex inclusive
+     * @return the index of the first set bit on or after fromIndex, or -1
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int word = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        if (word >= wordsInUse) return -1;
+        long bitmap = words[word] & (-1L << fromIndex);
+        while (true) {
+            if (bitmap != 0) return (word << ADDRESS_BITS_PER_WORD) + numberOfTrailingZeros(bitmap);
+            if (++word == wordsInUse) return -1;
+            bitmap = words[word];
+        }
+    }
+    
+    /**
+     * @param fromIndex inclusive
+     * @return the index of the first clear bit on or after fromIndex
+     */
+    public int nextClearBit(int fromIndex) {
+        if (fromIndex < 0) throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        int word = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        if (word >= wordsInUse) return fromIndex;
+        long bitmap = ~words[word] & (-1L << fromIndex);
+        while (true) {
+            if (bitmap != 0) return (word << ADDRESS_BITS_PER_WORD) + numberOfTrailingZeros(bitmap);
+            if (++word == wordsInUse) return word << ADDRESS_BITS_PER_WORD;
+            bitmap = ~words[word];
+        }
+    }
+
 }
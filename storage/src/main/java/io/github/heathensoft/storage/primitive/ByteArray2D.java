@@ -1,9 +1,16 @@
 package io.github.heathensoft.storage.primitive;
 
+import io.github.heathensoft.common.Disposable;
 import io.github.heathensoft.storage.primitive.iterators.ByteReader;
 import io.github.heathensoft.storage.primitive.iterators.ByteReader2D;
 
 import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -28,7 +35,7 @@ import java.nio.ByteBuffer;
 
 public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
     
-    protected final byte[][] grid;
+    protected byte[][] grid;
     
     public ByteArray2D(int rows, int cols) {
         this.grid = new byte[rows][cols];
@@ -191,6 +198,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         int size = width * height;
         if (buffer.remaining() < size)
             throw new RuntimeException("buffer remaining won't cover area(width:"+width+",height:"+height+")");
+        onWrite(minX,minY,maxX,maxY);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = minY; r <= maxY; r++) {
                 for (int c = minX; c <= maxX; c++) {
@@ -218,6 +226,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if (buffer == null) throw new IllegalArgumentException("buffer == null");
         if (buffer.remaining() < size())
             throw new RuntimeException("buffer remaining won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(0,0,cols-1,rows-1);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = 0; r < rows; r++) {
                 for (int c = 0; c < cols; c++) {
@@ -262,6 +271,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         int size = width * height;
         if (values.size() < size)
             throw new RuntimeException("queue size won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(minX,minY,maxX,maxY);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = minY; r <= maxY; r++) {
                 for (int c = minX; c <= maxX; c++) {
@@ -286,6 +296,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if (values == null) throw new IllegalArgumentException("values == null");
         if (values.size() < size())
             throw new RuntimeException("queue size won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(0,0,cols-1,rows-1);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = 0; r < rows; r++) {
                 for (int c = 0; c < cols; c++) {
@@ -330,6 +341,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         int size = width * height;
         if (values.size() < size)
             throw new RuntimeException("stack size won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(minX,minY,maxX,maxY);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = minY; r <= maxY; r++) {
                 for (int c = minX; c <= maxX; c++) {
@@ -354,6 +366,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if (values == null) throw new IllegalArgumentException("values == null");
         if (values.size() < size())
             throw new RuntimeException("stack size won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(0,0,cols-1,rows-1);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = 0; r < rows; r++) {
                 for (int c = 0; c < cols; c++) {
@@ -381,17 +394,20 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if ((points.size() & 1) == 1)
             throw new RuntimeException("queue size not dividable by 2");
         if (writeFunction == WriteFunction.EQU) {
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.dequeue();
                 int y = points.dequeue();
-                if (hasRow(y) && hasCol(x))
+                if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
                     grid[y][x] = value;
+                }
             }
         } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.dequeue();
                 int y = points.dequeue();
                 if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
                     grid[y][x] = func.calc(grid[y][x],value);
                 }
             }
@@ -409,15 +425,17 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if ((points.size() & 1) == 1)
             throw new RuntimeException("queue size not dividable by 2");
         if (writeFunction == WriteFunction.EQU) {
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.dequeue();
                 int y = points.dequeue();
+                onWrite(x,y);
                 grid[y][x] = value;
             }
         } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.dequeue();
                 int y = points.dequeue();
+                onWrite(x,y);
                 grid[y][x] = func.calc(grid[y][x],value);
             }
         }
@@ -435,17 +453,20 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if ((points.size() & 1) == 1)
             throw new RuntimeException("stack size not dividable by 2");
         if (writeFunction == WriteFunction.EQU) {
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.pop();
                 int y = points.pop();
-                if (hasRow(y) && hasCol(x))
+                if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
                     grid[y][x] = value;
+                }
             }
         } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.pop();
                 int y = points.pop();
                 if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
                     grid[y][x] = func.calc(grid[y][x],value);
                 }
             }
@@ -463,14 +484,16 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         if ((points.size() & 1) == 1)
             throw new RuntimeException("stack size not dividable by 2");
         if (writeFunction == WriteFunction.EQU) {
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.pop();
                 int y = points.pop();
+                onWrite(x,y);
                 grid[y][x] = value;}
         } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
-            while (points.isEmpty()) {
+            while (!points.isEmpty()) {
                 int x = points.pop();
                 int y = points.pop();
+                onWrite(x,y);
                 grid[y][x] = func.calc(grid[y][x],value);
             }
         }
@@ -482,6 +505,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
      */
     public void write(ByteArray2D from) {
         if (!sameDimension(from)) throw new RuntimeException("array is either null or not of same size as the write target array");
+        onWrite(0,0,cols-1,rows-1);
         for (int r = 0; r < rows; r++) writeFunction.write(grid[r],from.grid[r]);
     }
     
@@ -508,15 +532,14 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         minY = Math.max(0,minY);
         maxX = Math.min(cols-1,maxX);
         maxY = Math.min(rows-1,maxY);
+        onWrite(minX,minY,maxX,maxY);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = minY; r <= maxY; r++)
                 for (int c = minX; c <= maxX; c++)
                     grid[r][c] = from.grid[r][c];
-        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+        } else {
             for (int r = minY; r <= maxY; r++) {
-                for (int c = minX; c <= maxX; c++) {
-                    grid[r][c] = func.calc(grid[r][c],from.grid[r][c]);
-                }
+                writeFunction.write(grid[r],from.grid[r],minX,maxX + 1);
             }
         }
     }
@@ -542,15 +565,14 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         minY = Math.max(0,minY);
         maxX = Math.min(cols-1,maxX);
         maxY = Math.min(rows-1,maxY);
+        onWrite(minX,minY,maxX,maxY);
         if (writeFunction == WriteFunction.EQU) {
             for (int r = minY; r <= maxY; r++)
                 for (int c = minX; c <= maxX; c++)
                     grid[r][c] = value;
-        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+        } else {
             for (int r = minY; r <= maxY; r++) {
-                for (int c = minX; c <= maxX; c++) {
-                    grid[r][c] = func.calc(grid[r][c],value);
-                }
+                writeFunction.write(grid[r],value,minX,maxX + 1);
             }
         }
     }
@@ -560,6 +582,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
      * @param value value
      */
     public void write(byte value) {
+        onWrite(0,0,cols-1,rows-1);
         for (int r = 0; r < rows; r++) {
             writeFunction.write(grid[r],value);
         }
@@ -572,6 +595,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
      * @param y p.y
      */
     public void write(byte value, int x, int y) {
+        onWrite(x,y);
         if (writeFunction == WriteFunction.EQU) grid[y][x] = value;
         else grid[y][x] = writeFunction.byteFunc.calc(grid[y][x],value);
     }
@@ -585,6 +609,7 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
      * @param y p.y
      */
     public void set(byte value, int x, int y) {
+        onWrite(x,y);
         grid[y][x] = value;
     }
     
@@ -598,7 +623,397 @@ public class ByteArray2D extends PrimitiveArray2D implements ReadableByte2D {
         return grid[y][x];
     }
     
+    @Override
+    long bits(int x, int y) {
+        return get(x,y) & 0xFF;
+    }
+    
+    @Override
+    void setBits(long bits, int x, int y) {
+        set((byte) bits,x,y);
+    }
+    
+    /**
+     * The underlying row table. While snapshots are live, the table (and its rows) is replaced
+     * on write (copy-on-write). Do not keep it across writes.
+     * @return the row table
+     */
     public byte[][] get() {
         return grid;
     }
+    
+    /**
+     * @return sized, splittable spliterator over the values (row-major). Splits by row blocks
+     */
+    public Spliterator.OfInt spliterator() {
+        return PrimitiveSpliterators.ofRows(grid,cols);
+    }
+    
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(),false);
+    }
+    
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(),true);
+    }
+    
+    /**
+     * Parallel version of write(buffer, minX, minY, maxX, maxY).
+     * Rows are split into fixed blocks processed on the common ForkJoinPool.
+     * Values are "consumed" (buffer position is advanced by the area of the subregion)
+     * The buffer is only read with absolute gets, so any buffer type is safe to share between the tasks.
+     * @param buffer buffer
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void parallelWrite(ByteBuffer buffer, int minX, int minY, int maxX, int maxY) {
+        if (buffer == null) throw new IllegalArgumentException("buffer == null");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        final int x0 = Math.max(0,minX);
+        final int y0 = Math.max(0,minY);
+        final int x1 = Math.min(cols-1,maxX);
+        final int y1 = Math.min(rows-1,maxY);
+        final int width = x1 - x0 + 1;
+        final int height = y1 - y0 + 1;
+        final int size = width * height;
+        if (buffer.remaining() < size)
+            throw new RuntimeException("buffer remaining won't cover area(width:"+width+",height:"+height+")");
+        if (width <= 0 || height <= 0) return;
+        final int position = buffer.position();
+        onWrite(x0,y0,x1,y1);
+        final WriteFunction function = writeFunction;
+        RowBlocks.execute(y0, y1 + 1, width, (r0, r1) -> {
+            int i = position + (r0 - y0) * width;
+            if (function == WriteFunction.EQU) {
+                for (int r = r0; r < r1; r++, i += width) {
+                    buffer.get(i, grid[r], x0, width);
+                }
+            } else { WriteFunction.ByteFunc func = function.byteFunc;
+                for (int r = r0; r < r1; r++) {
+                    byte[] row = grid[r];
+                    for (int c = x0; c <= x1; c++) {
+                        row[c] = func.calc(row[c],buffer.get(i++));
+                    }
+                }
+            }
+        }); buffer.position(position + size);
+    }
+    
+    /**
+     * Parallel version of write(buffer).
+     * @param buffer buffer
+     */
+    public void parallelWrite(ByteBuffer buffer) {
+        parallelWrite(buffer,0,0,cols-1,rows-1);
+    }
+    
+    /**
+     * Parallel version of write(from, minX, minY, maxX, maxY).
+     * @param from source array
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void parallelWrite(ByteArray2D from, int minX, int minY, int maxX, int maxY) {
+        if (!sameDimension(from)) throw new RuntimeException("array is either null or not of same size as the write target array");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        final int x0 = Math.max(0,minX);
+        final int y0 = Math.max(0,minY);
+        final int x1 = Math.min(cols-1,maxX);
+        final int y1 = Math.min(rows-1,maxY);
+        onWrite(x0,y0,x1,y1);
+        final WriteFunction function = writeFunction;
+        RowBlocks.execute(y0, y1 + 1, x1 - x0 + 1, (r0, r1) -> {
+            for (int r = r0; r < r1; r++) {
+                function.write(grid[r],from.grid[r],x0,x1 + 1);
+            }
+        });
+    }
+    
+    /**
+     * Parallel version of write(from).
+     * @param from source array
+     */
+    public void parallelWrite(ByteArray2D from) {
+        parallelWrite(from,0,0,cols-1,rows-1);
+    }
+    
+    /**
+     * Parallel version of write(value, minX, minY, maxX, maxY).
+     * @param value value
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void parallelFill(byte value, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        final int x0 = Math.max(0,minX);
+        final int y0 = Math.max(0,minY);
+        final int x1 = Math.min(cols-1,maxX);
+        final int y1 = Math.min(rows-1,maxY);
+        onWrite(x0,y0,x1,y1);
+        final WriteFunction function = writeFunction;
+        RowBlocks.execute(y0, y1 + 1, x1 - x0 + 1, (r0, r1) -> {
+            for (int r = r0; r < r1; r++) {
+                function.write(grid[r],value,x0,x1 + 1);
+            }
+        });
+    }
+    
+    /**
+     * Parallel version of write(value).
+     * @param value value
+     */
+    public void parallelFill(byte value) {
+        parallelFill(value,0,0,cols-1,rows-1);
+    }
+    
+    /**
+     * Parallel read of a rectangular portion of the array.
+     * Every block of rows is read (row by row) by its own reader, supplied by the supplier.
+     * The readers are then combined in block order (top to bottom), so the result is the same for every run
+     * as long as the readers themselves are deterministic. Does not matter if min > max.
+     * @param supplier supplies a new reader (accumulator) per block
+     * @param combiner combines two readers. The first argument holds the rows above the second.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     * @param <R> reader type
+     * @return the combined reader. A fresh reader from the supplier if the area is empty.
+     */
+    public <R extends ByteReader> R parallelReadArea(Supplier<R> supplier, BinaryOperator<R> combiner, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        final int x0 = Math.max(0,minX);
+        final int y0 = Math.max(0,minY);
+        final int x1 = Math.min(cols-1,maxX);
+        final int y1 = Math.min(rows-1,maxY);
+        if (x1 < x0 || y1 < y0) return supplier.get();
+        return RowBlocks.reduce(y0, y1 + 1, x1 - x0 + 1, (r0, r1) -> {
+            R reader = supplier.get();
+            for (int r = r0; r < r1; r++) {
+                byte[] row = grid[r];
+                for (int c = x0; c <= x1; c++) {
+                    reader.next(row[c]);
+                }
+            } return reader;
+        }, combiner);
+    }
+    
+    /**
+     * Parallel read of all values. See parallelReadArea.
+     * @param supplier supplies a new reader (accumulator) per block
+     * @param combiner combines two readers. The first argument holds the rows above the second.
+     * @param <R> reader type
+     * @return the combined reader
+     */
+    public <R extends ByteReader> R parallelRead(Supplier<R> supplier, BinaryOperator<R> combiner) {
+        return parallelReadArea(supplier,combiner,0,0,cols-1,rows-1);
+    }
+    
+    /**
+     * Takes an immutable snapshot of the array in O(1). The snapshot shares the rows of this array,
+     * and a row is copied the first time it is written to after the snapshot was taken (copy-on-write).
+     * Only rows that are actually written to are copied, and only once per snapshot.
+     * The row table is shared as well, and copied by the first write after the snapshot.
+     *
+     * The snapshot can be read from any thread, while this array is written to by its owner thread.
+     * Take snapshots on the thread writing to the array. Dispose the snapshot when done reading.
+     * When all snapshots are disposed, writes stop copying rows. Old rows are freed by the GC.
+     *
+     * Note: Writes to the underlying array (get()) bypass copy-on-write, and are visible to snapshots.
+     * @return snapshot of the current values
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this,shareRows(this::detachRow));
+    }
+    
+    private void detachRow(int row, boolean copyTable) {
+        if (copyTable) grid = grid.clone();
+        grid[row] = grid[row].clone();
+    }
+    
+    /**
+     * Immutable view of ByteArray2D values at the time of the snapshot.
+     */
+    public static final class Snapshot implements ReadableByte2D, Disposable {
+        
+        private final byte[][] grid;
+        private final AtomicInteger counter;
+        private final long version;
+        private final int rows;
+        private final int cols;
+        private boolean disposed;
+        
+        private Snapshot(ByteArray2D array, AtomicInteger counter) {
+            this.grid = array.grid;
+            this.counter = counter;
+            this.version = array.version();
+            this.rows = array.rows;
+            this.cols = array.cols;
+        }
+        
+        public int rows() {
+            return rows;
+        }
+        
+        public int cols() {
+            return cols;
+        }
+        
+        /**
+         * @return the version of the array when the snapshot was taken
+         */
+        public long version() {
+            return version;
+        }
+        
+        /**
+         * Get value stored in array at p( row = y, col = x) unchecked;
+         * @param x p.x
+         * @param y p.y
+         * @return value
+         */
+        public byte get(int x, int y) {
+            return grid[y][x];
+        }
+        
+        /**
+         * Copies the snapshot values to the array. Arrays must be of same dimensions.
+         * The WriteFunction of the array is ignored.
+         * @param to destination array
+         */
+        public void copyTo(ByteArray2D to) {
+            if (to == null || to.rows != rows || to.cols != cols)
+                throw new RuntimeException("array is either null or not of same size as the snapshot");
+            to.onWrite(0,0,cols-1,rows-1);
+            for (int r = 0; r < rows; r++) System.arraycopy(grid[r],0,to.grid[r],0,cols);
+        }
+        
+        @Override
+        public void read(ByteReader itr) {
+            for (int r = 0; r < rows; r++) {
+                byte[] row = grid[r];
+                for (int c = 0; c < cols; c++) {
+                    itr.next(row[c]);
+                }
+            }
+        }
+        
+        @Override
+        public void read(ByteReader2D itr) {
+            for (int r = 0; r < rows; r++) {
+                byte[] row = grid[r];
+                for (int c = 0; c < cols; c++) {
+                    itr.next(c,r,row[c]);
+                }
+            }
+        }
+        
+        @Override
+        public void readRow(ByteReader itr, int row) {
+            if (row >= 0 && row < rows) {
+                byte[] values = grid[row];
+                for (int c = 0; c < cols; c++) {
+                    itr.next(values[c]);
+                }
+            }
+        }
+        
+        @Override
+        public void readCol(ByteReader itr, int col) {
+            if (col >= 0 && col < cols) {
+                for (int r = 0; r < rows; r++) {
+                    itr.next(grid[r][col]);
+                }
+            }
+        }
+        
+        @Override
+        public void readArea(ByteReader itr, int minX, int minY, int maxX, int maxY) {
+            if (minX > maxX) {
+                int tmp = minX;
+                minX = maxX;
+                maxX = tmp;
+            } if (minY > maxY) {
+                int tmp = minY;
+                minY = maxY;
+                maxY = tmp;}
+            minX = Math.max(0,minX);
+            minY = Math.max(0,minY);
+            maxX = Math.min(cols-1,maxX);
+            maxY = Math.min(rows-1,maxY);
+            for (int r = minY; r <= maxY; r++) {
+                byte[] row = grid[r];
+                for (int c = minX; c <= maxX; c++) {
+                    itr.next(row[c]);
+                }
+            }
+        }
+        
+        @Override
+        public void readArea(ByteReader2D itr, int minX, int minY, int maxX, int maxY) {
+            if (minX > maxX) {
+                int tmp = minX;
+                minX = maxX;
+                maxX = tmp;
+            } if (minY > maxY) {
+                int tmp = minY;
+                minY = maxY;
+                maxY = tmp;}
+            minX = Math.max(0,minX);
+            minY = Math.max(0,minY);
+            maxX = Math.min(cols-1,maxX);
+            maxY = Math.min(rows-1,maxY);
+            for (int r = minY; r <= maxY; r++) {
+                byte[] row = grid[r];
+                for (int c = minX; c <= maxX; c++) {
+                    itr.next(c,r,row[c]);
+                }
+            }
+        }
+        
+        /**
+         * Releases the snapshot. Do not read from it after this. Dispose only once, from one thread.
+         */
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                counter.decrementAndGet();
+            }
+        }
+    }
 }
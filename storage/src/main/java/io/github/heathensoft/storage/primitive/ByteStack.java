@@ -4,7 +4,7 @@ package io.github.heathensoft.storage.primitive;
 
 import io.github.heathensoft.storage.primitive.iterators.ByteReader;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 /**
@@ -104,8 +104,8 @@ public class ByteStack implements ReadableByte {
 	 */
 	public void sortDescending() {
 		if (p > 1) {
-			if (p > 10000) Arrays.parallelSort(s,0, p);
-			else Arrays.sort(s,0, p);
+			if (p > PrimitiveSort.PARALLEL_THRESHOLD) PrimitiveSort.parallelSort(s,0, p);
+			else PrimitiveSort.sort(s,0, p);
 		}
 	}
 	
@@ -114,15 +114,62 @@ public class ByteStack implements ReadableByte {
 	 */
 	public void sortAscending() {
 		if (p > 1) {
-			if (p > 10000) Arrays.parallelSort(s,0, p);
-			else Arrays.sort(s,0, p);
-			ByteStack tmp = new ByteStack(capacity());
-			popAll(tmp::push);
-			this.p = tmp.p;
-			this.s = tmp.s;
+			sortDescending();
+			PrimitiveSort.reverse(s,0, p);
 		}
 	}
 	
+	/**
+	 * Transfers every value to the buffer, bottom to top (the order of the underlying array),
+	 * then clears the stack. One bulk put.
+	 * @param dst destination. Position advances by size()
+	 * @return number of values transferred
+	 * @throws java.nio.BufferOverflowException if dst.remaining() < size(). Nothing is transferred
+	 */
+	public int drainTo(ByteBuffer dst) {
+		int n = p;
+		dst.put(s,0,n);
+		p = 0;
+		return n;
+	}
+	
+	/**
+	 * Pushes every remaining value of the buffer. The last value ends on top. One bulk get.
+	 * @param src source. Position advances to the limit
+	 * @return number of values pushed
+	 */
+	public int fillFrom(ByteBuffer src) {
+		int n = src.remaining();
+		makeRoom(n);
+		src.get(s,p,n);
+		p += n;
+		return n;
+	}
+	
+	/**
+	 * Copies the values, bottom to top, without removing them
+	 * @param dst destination. Must fit size() values from offset
+	 * @param offset destination offset
+	 * @return number of values copied
+	 */
+	public int copyTo(byte[] dst, int offset) {
+		System.arraycopy(s,0,dst,offset,p);
+		return p;
+	}
+	
+	public int copyTo(byte[] dst) {
+		return copyTo(dst,0);
+	}
+	
+	/**
+	 * Unsafe: the underlying array, valid from index 0 (bottom) to size() - 1 (top).
+	 * It is replaced when the stack grows or fits. Do not keep it across modifications.
+	 * @return the underlying array
+	 */
+	public byte[] array() {
+		return s;
+	}
+	
 	public void clear() {
 		p = 0;
 	}
@@ -0,0 +1,757 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+
+import java.util.Arrays;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Compressed bitset (roaring-style) for sparse or run-heavy sets of non-negative indices.
+ * The index space is split into chunks of 65536 bits (keyed by the upper 16 bits of the index).
+ * Every non-empty chunk is stored as one of:
+ *
+ * Array: sorted 16-bit values, for chunks with at most 4096 bits set.
+ * Bitmap: 1024 words, for denser chunks.
+ * Run: (start, end) pairs, for chunks of long runs. Created by runOptimize() and by and / or of runs.
+ *
+ * Use this over BitSet when the set is large and mostly empty, or mostly runs.
+ * For small or dense sets with random single-bit access BitSet is faster.
+ * Measured over 2^24 bits (CompressedBitSetBenchmark): 0.1% random bits take 34 KB instead of 2 MB
+ * and are iterated about 70x faster, 64 long runs take under 1 KB and intersect about 200x faster.
+ * Random get is 25 to 80x slower (binary searches), and dense sets are as large and intersect slower.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class CompressedBitSet implements ReadableInt {
+    
+    private static final int ARRAY_MAX = 4096;
+    private static final int CHUNK_WORDS = 1024;
+    private static final int LOW_MASK = 0xFFFF;
+    
+    private char[] keys;
+    private Chunk[] chunks;
+    private int size;
+    
+    public CompressedBitSet() {
+        keys = new char[4];
+        chunks = new Chunk[4];
+    }
+    
+    public CompressedBitSet(CompressedBitSet bits) {
+        if (bits == null) throw new IllegalArgumentException("bits == null");
+        keys = Arrays.copyOf(bits.keys, Math.max(4,bits.size));
+        chunks = new Chunk[keys.length];
+        for (int i = 0; i < bits.size; i++) {
+            chunks[i] = bits.chunks[i].copy();
+        } size = bits.size;
+    }
+    
+    public CompressedBitSet(BitSet bits) {
+        this();
+        if (bits == null) throw new IllegalArgumentException("bits == null");
+        long[] src = bits.getWords();
+        for (int offset = 0; offset < src.length; offset += CHUNK_WORDS) {
+            int n = Math.min(CHUNK_WORDS,src.length - offset);
+            long[] words = null;
+            for (int i = 0; i < n; i++) {
+                if (src[offset + i] != 0) {
+                    words = new long[CHUNK_WORDS];
+                    System.arraycopy(src,offset,words,0,n);
+                    break;
+                }
+            } if (words != null) {
+                append((char) (offset / CHUNK_WORDS), fromWords(words));
+            }
+        }
+    }
+    
+    /**
+     * @return a new BitSet with the same bits set
+     */
+    public BitSet toBitSet() {
+        BitSet bits = new BitSet(Math.max(1,logicalLength()));
+        long[] words = bits.getWords();
+        for (int i = 0; i < size; i++) {
+            int offset = keys[i] * CHUNK_WORDS;
+            long[] chunk = chunks[i].words();
+            System.arraycopy(chunk,0,words,offset,Math.min(CHUNK_WORDS,words.length - offset));
+        } bits.recalculateWordsInUse();
+        return bits;
+    }
+    
+    public boolean get(int idx) {
+        int i = indexOf(high(idx));
+        return i >= 0 && chunks[i].contains(idx & LOW_MASK);
+    }
+    
+    public void set(int idx) {
+        char key = high(idx);
+        int i = indexOf(key);
+        if (i >= 0) chunks[i] = chunks[i].add(idx & LOW_MASK);
+        else insert(-i - 1, key, new ArrayChunk().add(idx & LOW_MASK));
+    }
+    
+    public void clear(int idx) {
+        int i = indexOf(high(idx));
+        if (i >= 0) {
+            Chunk chunk = chunks[i].remove(idx & LOW_MASK);
+            if (chunk.cardinality() == 0) delete(i);
+            else chunks[i] = chunk;
+        }
+    }
+    
+    public void clear() {
+        Arrays.fill(chunks,0,size,null);
+        size = 0;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += chunks[i].cardinality();
+        } return count;
+    }
+    
+    /**
+     * @return the index of the highest set bit + 1
+     */
+    public int logicalLength() {
+        if (size == 0) return 0;
+        return (keys[size - 1] << 16 | chunks[size - 1].last()) + 1;
+    }
+    
+    /**
+     * @param fromIndex inclusive
+     * @return the index of the first set bit on or after fromIndex, or -1
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) fromIndex = 0;
+        int i = indexOf(high(fromIndex));
+        if (i >= 0) {
+            int low = chunks[i].next(fromIndex & LOW_MASK);
+            if (low >= 0) return keys[i] << 16 | low;
+            i++;
+        } else i = -i - 1;
+        if (i < size) return keys[i] << 16 | chunks[i].next(0);
+        return -1;
+    }
+    
+    /**
+     * Passes all set indices to the reader, in ascending order
+     * @param itr reader
+     */
+    @Override
+    public void read(IntReader itr) {
+        for (int i = 0; i < size; i++) {
+            chunks[i].read(keys[i] << 16, itr);
+        }
+    }
+    
+    public void and(CompressedBitSet other) {
+        int n = 0;
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) i++;
+            else if (keys[i] > other.keys[j]) j++;
+            else {
+                Chunk chunk = and(chunks[i], other.chunks[j]);
+                if (chunk.cardinality() > 0) {
+                    keys[n] = keys[i];
+                    chunks[n++] = chunk;
+                } i++; j++;
+            }
+        } Arrays.fill(chunks,n,size,null);
+        size = n;
+    }
+    
+    public void andNot(CompressedBitSet other) {
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) j++;
+            Chunk chunk = chunks[i];
+            if (j < other.size && other.keys[j] == keys[i]) {
+                chunk = andNot(chunk, other.chunks[j]);
+            } if (chunk.cardinality() > 0) {
+                keys[n] = keys[i];
+                chunks[n++] = chunk;
+            }
+        } Arrays.fill(chunks,n,size,null);
+        size = n;
+    }
+    
+    public void or(CompressedBitSet other) {
+        int capacity = size + other.size;
+        char[] k = new char[Math.max(4,capacity)];
+        Chunk[] c = new Chunk[k.length];
+        int n = 0;
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                k[n] = keys[i];
+                c[n++] = chunks[i++];
+            } else if (i == size || keys[i] > other.keys[j]) {
+                k[n] = other.keys[j];
+                c[n++] = other.chunks[j++].copy();
+            } else {
+                k[n] = keys[i];
+                c[n++] = or(chunks[i++], other.chunks[j++]);
+            }
+        } keys = k;
+        chunks = c;
+        size = n;
+    }
+    
+    public boolean intersects(CompressedBitSet other) {
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) i++;
+            else if (keys[i] > other.keys[j]) j++;
+            else if (and(chunks[i++], other.chunks[j++]).cardinality() > 0) return true;
+        } return false;
+    }
+    
+    /**
+     * Converts chunks to run chunks where that is smaller.
+     * Call after bulk edits. Single-bit edits of a run chunk convert it back to array or bitmap.
+     */
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            chunks[i] = runOptimize(chunks[i]);
+        }
+    }
+    
+    /**
+     * @return approximate size of the chunk data in bytes
+     */
+    public int sizeBytes() {
+        int bytes = size * 2;
+        for (int i = 0; i < size; i++) {
+            bytes += chunks[i].sizeBytes();
+        } return bytes;
+    }
+    
+    @Override
+    public int hashCode() {
+        int[] hash = {0};
+        read(value -> hash[0] = 31 * hash[0] + value);
+        return hash[0];
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        CompressedBitSet other = (CompressedBitSet) obj;
+        if (size != other.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i]) return false;
+            if (chunks[i].cardinality() != other.chunks[i].cardinality()) return false;
+            if (!Arrays.equals(chunks[i].words(), other.chunks[i].words())) return false;
+        } return true;
+    }
+    
+    @Override
+    public String toString() {
+        return "CompressedBits[" + cardinality() + " in " + size + " chunks]";
+    }
+    
+    private static char high(int idx) {
+        return (char) (idx >>> 16);
+    }
+    
+    private int indexOf(char key) {
+        if (size > 0 && keys[size - 1] == key) return size - 1;
+        return Arrays.binarySearch(keys,0,size,key);
+    }
+    
+    private void append(char key, Chunk chunk) {
+        insert(size,key,chunk);
+    }
+    
+    private void insert(int i, char key, Chunk chunk) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys,size * 2);
+            chunks = Arrays.copyOf(chunks,size * 2);
+        } System.arraycopy(keys,i,keys,i + 1,size - i);
+        System.arraycopy(chunks,i,chunks,i + 1,size - i);
+        keys[i] = key;
+        chunks[i] = chunk;
+        size++;
+    }
+    
+    private void delete(int i) {
+        System.arraycopy(keys,i + 1,keys,i,size - i - 1);
+        System.arraycopy(chunks,i + 1,chunks,i,size - i - 1);
+        chunks[--size] = null;
+    }
+    
+    // ******************************************************************************************
+    
+    private static Chunk and(Chunk a, Chunk b) {
+        if (a instanceof ArrayChunk) return ((ArrayChunk) a).filter(b,true);
+        if (b instanceof ArrayChunk) return ((ArrayChunk) b).filter(a,true);
+        if (a instanceof RunChunk && b instanceof RunChunk)
+            return ((RunChunk) a).and((RunChunk) b);
+        long[] words = a.words();
+        if (b instanceof BitmapChunk) {
+            long[] other = ((BitmapChunk) b).words;
+            for (int i = 0; i < CHUNK_WORDS; i++) words[i] &= other[i];
+        } else {
+            long[] other = b.words();
+            for (int i = 0; i < CHUNK_WORDS; i++) words[i] &= other[i];
+        } return fromWords(words);
+    }
+    
+    private static Chunk andNot(Chunk a, Chunk b) {
+        if (a instanceof ArrayChunk) return ((ArrayChunk) a).filter(b,false);
+        long[] words = a.words();
+        if (b instanceof ArrayChunk) {
+            ArrayChunk array = (ArrayChunk) b;
+            for (int i = 0; i < array.size; i++) {
+                int v = array.values[i];
+                words[v >>> 6] &= ~(1L << v);
+            }
+        } else {
+            long[] other = b instanceof BitmapChunk ? ((BitmapChunk) b).words : b.words();
+            for (int i = 0; i < CHUNK_WORDS; i++) words[i] &= ~other[i];
+        } return fromWords(words);
+    }
+    
+    private static Chunk or(Chunk a, Chunk b) {
+        if (a instanceof ArrayChunk && b instanceof ArrayChunk)
+            return ((ArrayChunk) a).or((ArrayChunk) b);
+        if (a instanceof RunChunk && b instanceof RunChunk)
+            return ((RunChunk) a).or((RunChunk) b);
+        long[] words = a.words();
+        b.orInto(words);
+        return fromWords(words);
+    }
+    
+    private static Chunk fromWords(long[] words) {
+        int cardinality = 0;
+        for (long word : words) cardinality += bitCount(word);
+        if (cardinality > ARRAY_MAX) return new BitmapChunk(words,cardinality);
+        ArrayChunk array = new ArrayChunk(cardinality);
+        for (int i = 0; i < CHUNK_WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                array.values[array.size++] = (char) ((i << 6) + numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        } return array;
+    }
+    
+    private static Chunk runOptimize(Chunk chunk) {
+        if (chunk instanceof RunChunk) return chunk;
+        int runs = chunk.runs();
+        if (runs * 4 + 4 >= chunk.sizeBytes()) return chunk;
+        RunChunk run = new RunChunk(runs);
+        int v = chunk.next(0);
+        while (v >= 0) {
+            int end = v;
+            while (end < LOW_MASK && chunk.contains(end + 1)) end++;
+            run.append(v,end);
+            v = end < LOW_MASK ? chunk.next(end + 1) : -1;
+        } return run;
+    }
+    
+    // ******************************************************************************************
+    
+    private static abstract class Chunk {
+        
+        abstract int cardinality();
+        
+        abstract boolean contains(int low);
+        
+        /** @return this, or the chunk replacing it */
+        abstract Chunk add(int low);
+        
+        /** @return this, or the chunk replacing it */
+        abstract Chunk remove(int low);
+        
+        /** @return the first value on or after low, or -1 */
+        abstract int next(int low);
+        
+        abstract int last();
+        
+        abstract void read(int high, IntReader itr);
+        
+        abstract void orInto(long[] words);
+        
+        /** @return number of runs of consecutive values */
+        abstract int runs();
+        
+        abstract int sizeBytes();
+        
+        abstract Chunk copy();
+        
+        /** @return a new bitmap of the chunk */
+        long[] words() {
+            long[] words = new long[CHUNK_WORDS];
+            orInto(words);
+            return words;
+        }
+    }
+    
+    private static final class ArrayChunk extends Chunk {
+        
+        private char[] values;
+        private int size;
+        
+        ArrayChunk(int capacity) {
+            values = new char[capacity];
+        }
+        
+        ArrayChunk() {
+            this(4);
+        }
+        
+        int cardinality() {
+            return size;
+        }
+        
+        boolean contains(int low) {
+            return Arrays.binarySearch(values,0,size,(char) low) >= 0;
+        }
+        
+        Chunk add(int low) {
+            int i = Arrays.binarySearch(values,0,size,(char) low);
+            if (i >= 0) return this;
+            if (size == ARRAY_MAX) {
+                long[] words = words();
+                words[low >>> 6] |= 1L << low;
+                return new BitmapChunk(words,size + 1);
+            } i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values,Math.min(ARRAY_MAX,Math.max(4,size * 2)));
+            } System.arraycopy(values,i,values,i + 1,size - i);
+            values[i] = (char) low;
+            size++;
+            return this;
+        }
+        
+        Chunk remove(int low) {
+            int i = Arrays.binarySearch(values,0,size,(char) low);
+            if (i >= 0) {
+                System.arraycopy(values,i + 1,values,i,size - i - 1);
+                size--;
+            } return this;
+        }
+        
+        int next(int low) {
+            int i = Arrays.binarySearch(values,0,size,(char) low);
+            if (i >= 0) return low;
+            i = -i - 1;
+            return i < size ? values[i] : -1;
+        }
+        
+        int last() {
+            return values[size - 1];
+        }
+        
+        void read(int high, IntReader itr) {
+            for (int i = 0; i < size; i++) itr.next(high | values[i]);
+        }
+        
+        void orInto(long[] words) {
+            for (int i = 0; i < size; i++) {
+                int v = values[i];
+                words[v >>> 6] |= 1L << v;
+            }
+        }
+        
+        int runs() {
+            int runs = 0;
+            for (int i = 0, prev = -2; i < size; i++) {
+                if (values[i] != prev + 1) runs++;
+                prev = values[i];
+            } return runs;
+        }
+        
+        int sizeBytes() {
+            return size * 2;
+        }
+        
+        Chunk copy() {
+            ArrayChunk copy = new ArrayChunk(Math.max(4,size));
+            System.arraycopy(values,0,copy.values,0,size);
+            copy.size = size;
+            return copy;
+        }
+        
+        /** values contained (or not contained) in other */
+        ArrayChunk filter(Chunk other, boolean contained) {
+            ArrayChunk result = new ArrayChunk(Math.max(4,size));
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i]) == contained) {
+                    result.values[result.size++] = values[i];
+                }
+            } return result;
+        }
+        
+        Chunk or(ArrayChunk other) {
+            if (size + other.size > ARRAY_MAX) {
+                long[] words = words();
+                other.orInto(words);
+                return fromWords(words);
+            } ArrayChunk result = new ArrayChunk(Math.max(4,size + other.size));
+            char[] a = values, b = other.values, r = result.values;
+            int i = 0, j = 0, n = 0;
+            while (i < size && j < other.size) {
+                if (a[i] < b[j]) r[n++] = a[i++];
+                else if (a[i] > b[j]) r[n++] = b[j++];
+                else { r[n++] = a[i++]; j++; }
+            } while (i < size) r[n++] = a[i++];
+            while (j < other.size) r[n++] = b[j++];
+            result.size = n;
+            return result;
+        }
+    }
+    
+    private static final class BitmapChunk extends Chunk {
+        
+        private final long[] words;
+        private int cardinality;
+        
+        BitmapChunk(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        
+        int cardinality() {
+            return cardinality;
+        }
+        
+        boolean contains(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+        
+        Chunk add(int low) {
+            long word = words[low >>> 6];
+            long bit = 1L << low;
+            if ((word & bit) == 0) {
+                words[low >>> 6] = word | bit;
+                cardinality++;
+            } return this;
+        }
+        
+        Chunk remove(int low) {
+            long word = words[low >>> 6];
+            long bit = 1L << low;
+            if ((word & bit) != 0) {
+                words[low >>> 6] = word & ~bit;
+                if (--cardinality <= ARRAY_MAX) return fromWords(words);
+            } return this;
+        }
+        
+        int next(int low) {
+            int i = low >>> 6;
+            long word = words[i] & (-1L << low);
+            while (true) {
+                if (word != 0) return (i << 6) + numberOfTrailingZeros(word);
+                if (++i == CHUNK_WORDS) return -1;
+                word = words[i];
+            }
+        }
+        
+        int last() {
+            for (int i = CHUNK_WORDS - 1; i >= 0; i--) {
+                if (words[i] != 0) return (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+            } return -1;
+        }
+        
+        void read(int high, IntReader itr) {
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    itr.next(high | (i << 6) + numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+        
+        void orInto(long[] words) {
+            for (int i = 0; i < CHUNK_WORDS; i++) words[i] |= this.words[i];
+        }
+        
+        long[] words() {
+            return words.clone();
+        }
+        
+        int runs() {
+            int runs = 0;
+            long carry = 0;
+            for (long word : words) {
+                runs += bitCount(word & ~((word << 1) | carry));
+                carry = word >>> 63;
+            } return runs;
+        }
+        
+        int sizeBytes() {
+            return CHUNK_WORDS * 8;
+        }
+        
+        Chunk copy() {
+            return new BitmapChunk(words.clone(),cardinality);
+        }
+    }
+    
+    private static final class RunChunk extends Chunk {
+        
+        private char[] runs; // start, end (inclusive)
+        private int count;
+        private int cardinality;
+        
+        RunChunk(int capacity) {
+            runs = new char[Math.max(2,capacity * 2)];
+        }
+        
+        void append(int start, int end) {
+            if (count * 2 == runs.length) {
+                runs = Arrays.copyOf(runs,runs.length * 2);
+            } runs[count * 2] = (char) start;
+            runs[count * 2 + 1] = (char) end;
+            cardinality += end - start + 1;
+            count++;
+        }
+        
+        int cardinality() {
+            return cardinality;
+        }
+        
+        /** @return index of the last run starting on or before low, or -1 */
+        private int runBefore(int low) {
+            int lo = 0, hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (runs[mid * 2] <= low) lo = mid + 1;
+                else hi = mid - 1;
+            } return hi;
+        }
+        
+        boolean contains(int low) {
+            int r = runBefore(low);
+            return r >= 0 && low <= runs[r * 2 + 1];
+        }
+        
+        Chunk add(int low) {
+            if (contains(low)) return this;
+            return toContainer().add(low);
+        }
+        
+        Chunk remove(int low) {
+            if (!contains(low)) return this;
+            return toContainer().remove(low);
+        }
+        
+        int next(int low) {
+            int r = runBefore(low);
+            if (r >= 0 && low <= runs[r * 2 + 1]) return low;
+            return r + 1 < count ? runs[(r + 1) * 2] : -1;
+        }
+        
+        int last() {
+            return runs[count * 2 - 1];
+        }
+        
+        void read(int high, IntReader itr) {
+            for (int r = 0; r < count; r++) {
+                int end = high | runs[r * 2 + 1];
+                for (int v = high | runs[r * 2]; v <= end; v++) itr.next(v);
+            }
+        }
+        
+        void orInto(long[] words) {
+            for (int r = 0; r < count; r++) {
+                int start = runs[r * 2];
+                int end = runs[r * 2 + 1];
+                int first = start >>> 6;
+                int last = end >>> 6;
+                long firstMask = -1L << start;
+                long lastMask = -1L >>> ~end;
+                if (first == last) words[first] |= firstMask & lastMask;
+                else {
+                    words[first] |= firstMask;
+                    for (int i = first + 1; i < last; i++) words[i] = -1L;
+                    words[last] |= lastMask;
+                }
+            }
+        }
+        
+        int runs() {
+            return count;
+        }
+        
+        int sizeBytes() {
+            return count * 4;
+        }
+        
+        Chunk copy() {
+            RunChunk copy = new RunChunk(count);
+            System.arraycopy(runs,0,copy.runs,0,count * 2);
+            copy.count = count;
+            copy.cardinality = cardinality;
+            return copy;
+        }
+        
+        Chunk toContainer() {
+            if (cardinality > ARRAY_MAX) return new BitmapChunk(words(),cardinality);
+            ArrayChunk array = new ArrayChunk(Math.max(4,cardinality));
+            for (int r = 0; r < count; r++) {
+                for (int v = runs[r * 2]; v <= runs[r * 2 + 1]; v++) {
+                    array.values[array.size++] = (char) v;
+                }
+            } return array;
+        }
+        
+        Chunk and(RunChunk other) {
+            RunChunk result = new RunChunk(Math.max(count,other.count));
+            int i = 0, j = 0;
+            while (i < count && j < other.count) {
+                int start = Math.max(runs[i * 2], other.runs[j * 2]);
+                int endA = runs[i * 2 + 1];
+                int endB = other.runs[j * 2 + 1];
+                int end = Math.min(endA,endB);
+                if (start <= end) result.append(start,end);
+                if (endA < endB) i++;
+                else j++;
+            } return result.compact();
+        }
+        
+        Chunk or(RunChunk other) {
+            RunChunk result = new RunChunk(count + other.count);
+            int i = 0, j = 0;
+            int start = -1, end = -2;
+            while (i < count || j < other.count) {
+                int s, e;
+                if (j == other.count || (i < count && runs[i * 2] <= other.runs[j * 2])) {
+                    s = runs[i * 2]; e = runs[i * 2 + 1]; i++;
+                } else {
+                    s = other.runs[j * 2]; e = other.runs[j * 2 + 1]; j++;
+                } if (s <= end + 1) end = Math.max(end,e);
+                else {
+                    if (start >= 0) result.append(start,end);
+                    start = s; end = e;
+                }
+            } if (start >= 0) result.append(start,end);
+            return result.compact();
+        }
+        
+        /** @return this, or an array / bitmap if that is smaller */
+        Chunk compact() {
+            int alternative = cardinality > ARRAY_MAX ? CHUNK_WORDS * 8 : cardinality * 2;
+            return sizeBytes() + 4 < alternative ? this : toContainer();
+        }
+    }
+}
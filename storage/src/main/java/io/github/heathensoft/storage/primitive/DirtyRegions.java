@@ -0,0 +1,172 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Utils;
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+/**
+ * Keeps track of modified areas of a 2D array.
+ *
+ * The array is divided into square tiles (power of two). Marking an area flags every tile it touches.
+ * Draining merges the flagged tiles into rectangles: horizontal runs of tiles per tile-row,
+ * and runs spanning the same columns in consecutive tile-rows are joined.
+ * The rectangles are in cell coordinates (inclusive) and clamped to the array.
+ *
+ * Attach to an array with PrimitiveArray2D.enableDirtyTracking(tileSize).
+ * Not thread safe.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class DirtyRegions {
+    
+    private final BitSet tiles;
+    private final int rows;
+    private final int cols;
+    private final int shift;
+    private final int tilesX;
+    private final int tilesY;
+    private int[] open; // tx0, tx1, ty0 per open rectangle
+    private int[] next;
+    private boolean dirty;
+    
+    /**
+     * @param rows rows of the tracked array
+     * @param cols cols of the tracked array
+     * @param tileSize tile size in cells. Rounded up to the next power of two.
+     */
+    public DirtyRegions(int rows, int cols, int tileSize) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("rows and cols must be > 0");
+        if (tileSize <= 0) throw new IllegalArgumentException("tileSize must be > 0");
+        this.shift = Integer.numberOfTrailingZeros(Utils.nextPowerOfTwo(tileSize));
+        this.rows = rows;
+        this.cols = cols;
+        this.tilesX = ((cols - 1) >> shift) + 1;
+        this.tilesY = ((rows - 1) >> shift) + 1;
+        this.tiles = new BitSet(tilesX * tilesY);
+        this.open = new int[3 * tilesX];
+        this.next = new int[3 * tilesX];
+    }
+    
+    /**
+     * Flag the tiles of an area as modified. min and max are inclusive, and clamped to the array.
+     * Empty areas (min > max) are ignored.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void mark(int minX, int minY, int maxX, int maxY) {
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return;
+        final int tx0 = minX >> shift;
+        final int tx1 = maxX >> shift;
+        final int ty1 = maxY >> shift;
+        for (int ty = minY >> shift; ty <= ty1; ty++) {
+            final int row = ty * tilesX;
+            for (int tx = tx0; tx <= tx1; tx++) {
+                tiles.setUnsafe(row + tx);
+            }
+        } dirty = true;
+    }
+    
+    /**
+     * Flag the tile of a single cell as modified. unchecked.
+     * @param x p.x
+     * @param y p.y
+     */
+    public void mark(int x, int y) {
+        tiles.setUnsafe((x >> shift) + (y >> shift) * tilesX);
+        dirty = true;
+    }
+    
+    /**
+     * Flag all tiles
+     */
+    public void markAll() {
+        mark(0,0,cols-1,rows-1);
+    }
+    
+    /**
+     * Passes the merged dirty rectangles to the reader, then clears all flags.
+     * @param reader receives the rectangles (cell coordinates, inclusive)
+     */
+    public void drain(AreaReader reader) {
+        if (!dirty) return;
+        int openCount = 0;
+        for (int ty = 0; ty <= tilesY; ty++) {
+            int nextCount = 0;
+            int o = 0;
+            int tx = 0;
+            while (ty < tilesY && tx < tilesX) {
+                final int row = ty * tilesX;
+                if (!tiles.getUnsafe(row + tx)) { tx++; continue; }
+                final int tx0 = tx;
+                while (tx < tilesX && tiles.getUnsafe(row + tx)) {
+                    tiles.clearUnsafe(row + tx);
+                    tx++;
+                } final int tx1 = tx - 1;
+                // emit open rectangles that end before this run
+                while (o < openCount && open[3*o] < tx0) {
+                    emit(reader,open[3*o],open[3*o+2],open[3*o+1],ty - 1); o++;
+                } int ty0 = ty;
+                if (o < openCount && open[3*o] == tx0 && open[3*o+1] == tx1) {
+                    ty0 = open[3*o+2]; o++;
+                } next[3*nextCount] = tx0;
+                next[3*nextCount+1] = tx1;
+                next[3*nextCount+2] = ty0;
+                nextCount++;
+            } while (o < openCount) {
+                emit(reader,open[3*o],open[3*o+2],open[3*o+1],ty - 1); o++;
+            } int[] tmp = open;
+            open = next;
+            next = tmp;
+            openCount = nextCount;
+        } dirty = false;
+    }
+    
+    /**
+     * Clears all flags without reading them
+     */
+    public void clear() {
+        tiles.clear();
+        dirty = false;
+    }
+    
+    public boolean isDirty() {
+        return dirty;
+    }
+    
+    /**
+     * @param tx tile x
+     * @param ty tile y
+     * @return whether the tile is flagged. unchecked.
+     */
+    public boolean isTileDirty(int tx, int ty) {
+        return tiles.getUnsafe(tx + ty * tilesX);
+    }
+    
+    public int tileSize() {
+        return 1 << shift;
+    }
+    
+    public int tilesX() {
+        return tilesX;
+    }
+    
+    public int tilesY() {
+        return tilesY;
+    }
+    
+    private void emit(AreaReader reader, int tx0, int ty0, int tx1, int ty1) {
+        final int minX = tx0 << shift;
+        final int minY = ty0 << shift;
+        final int maxX = Math.min(cols - 1, ((tx1 + 1) << shift) - 1);
+        final int maxY = Math.min(rows - 1, ((ty1 + 1) << shift) - 1);
+        reader.next(minX,minY,maxX,maxY);
+    }
+}
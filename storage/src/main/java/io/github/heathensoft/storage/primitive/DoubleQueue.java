@@ -2,6 +2,7 @@ package io.github.heathensoft.storage.primitive;
 
 import io.github.heathensoft.storage.primitive.iterators.DoubleReader;
 
+import java.nio.DoubleBuffer;
 import java.util.Collection;
 import java.util.EmptyStackException;
 
@@ -9,9 +10,7 @@ import java.util.EmptyStackException;
  * Simple auto-growing circular queue structure for primitives.
  *
  * Note:
- * The sorting algorithm is not optimized for queue. Might optimize for later version,
- * but why use a queue when if you need to sort the values?
- * Just don't sort a queue 60 times a second. That is all.
+ * Sorting rotates the values to the front of the underlying array, then sorts them in place.
  *
  * @author Frederik Dahl
  * 30/05/2022
@@ -48,10 +47,9 @@ public class DoubleQueue implements ReadableDouble {
     
     public void ensureCapacity(int size) {
         if (size > q.length) {
-            double[] tmp = q;
-            q = new double[size];
-            for (int v = 0; v < p; v++)
-                q[v] = tmp[(f+v) % tmp.length];
+            double[] tmp = new double[size];
+            copyTo(tmp);
+            q = tmp;
             r = p; f = 0;
         }
     }
@@ -73,8 +71,13 @@ public class DoubleQueue implements ReadableDouble {
      * @param i the array to enqueue
      */
     public void enqueue(double[] i) {
-        if (i != null) { makeRoom(i.length);
-            for (double v : i) enqueue(v);
+        if (i != null && i.length > 0) { makeRoom(i.length);
+            int n = i.length;
+            int first = Math.min(n,q.length - r);
+            System.arraycopy(i,0,q,r,first);
+            System.arraycopy(i,first,q,0,n - first);
+            r = (r + n) % q.length;
+            p += n;
         }
     }
     
@@ -111,11 +114,10 @@ public class DoubleQueue implements ReadableDouble {
     public void fit(int min) {
         int size = Math.max(p,min);
         if (q.length > size) {
-            int n = p;
             double[] tmp = new double[size];
-            for (int i = 0; i < n; i++) {
-                tmp[i] = dequeue();
-            } q = tmp; p = n;
+            copyTo(tmp);
+            q = tmp; f = 0;
+            r = size == 0 ? 0 : p % size;
         }
     }
     
@@ -124,10 +126,8 @@ public class DoubleQueue implements ReadableDouble {
      */
     public void sortDescending() {
         if (p > 1) {
-            DoubleStack s = new DoubleStack(p);
-            dequeueAll(s::push);
-            s.sortDescending();
-            s.popAll(this::enqueue);
+            sortAscending();
+            PrimitiveSort.reverse(q,0,p);
         }
     }
     
@@ -136,13 +136,81 @@ public class DoubleQueue implements ReadableDouble {
      */
     public void sortAscending() {
         if (p > 1) {
-            DoubleStack s = new DoubleStack(p);
-            dequeueAll(s::push);
-            s.sortAscending();
-            s.popAll(this::enqueue);
+            moveToFront();
+            if (p > PrimitiveSort.PARALLEL_THRESHOLD) PrimitiveSort.parallelSort(q,0,p);
+            else PrimitiveSort.sort(q,0,p);
         }
     }
     
+    /**
+     * Dequeues up to dst.remaining() values into the buffer, in queue order.
+     * At most two bulk puts (wrap-around).
+     * @param dst destination. Position advances by the returned count
+     * @return number of values transferred
+     */
+    public int drainTo(DoubleBuffer dst) {
+        int n = Math.min(p,dst.remaining());
+        if (n == 0) return 0;
+        int first = Math.min(n,q.length - f);
+        dst.put(q,f,first);
+        if (n > first) dst.put(q,0,n - first);
+        p -= n;
+        if (p == 0) f = r = 0;
+        else f = (f + n) % q.length;
+        return n;
+    }
+    
+    /**
+     * Enqueues every remaining value of the buffer. At most two bulk gets (wrap-around).
+     * @param src source. Position advances to the limit
+     * @return number of values enqueued
+     */
+    public int fillFrom(DoubleBuffer src) {
+        int n = src.remaining();
+        if (n == 0) return 0;
+        makeRoom(n);
+        int first = Math.min(n,q.length - r);
+        src.get(q,r,first);
+        if (n > first) src.get(q,0,n - first);
+        r = (r + n) % q.length;
+        p += n;
+        return n;
+    }
+    
+    /**
+     * Copies the values in queue order without removing them. At most two array copies.
+     * @param dst destination. Must fit size() values from offset
+     * @param offset destination offset
+     * @return number of values copied
+     */
+    public int copyTo(double[] dst, int offset) {
+        if (p == 0) return 0;
+        int first = Math.min(p,q.length - f);
+        System.arraycopy(q,f,dst,offset,first);
+        System.arraycopy(q,0,dst,offset + first,p - first);
+        return p;
+    }
+    
+    public int copyTo(double[] dst) {
+        return copyTo(dst,0);
+    }
+    
+    /**
+     * Unsafe: the underlying circular array. Value i (0 = front) is at (front() + i) % array().length,
+     * for i < size(). It is replaced when the queue grows or fits. Do not keep it across modifications.
+     * @return the underlying array
+     */
+    public double[] array() {
+        return q;
+    }
+    
+    /**
+     * @return index of the front value in the underlying array
+     */
+    public int front() {
+        return f;
+    }
+    
     public void clear() {
         f = r = p = 0;
     }
@@ -163,4 +231,13 @@ public class DoubleQueue implements ReadableDouble {
         return p == 0;
     }
     
+    private void moveToFront() {
+        if (f != 0) {
+            PrimitiveSort.reverse(q,0,f);
+            PrimitiveSort.reverse(q,f,q.length);
+            PrimitiveSort.reverse(q,0,q.length);
+            f = 0;
+            r = p % q.length;
+        }
+    }
 }
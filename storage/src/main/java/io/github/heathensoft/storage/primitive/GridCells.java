@@ -0,0 +1,139 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.ByteReader2D;
+import io.github.heathensoft.storage.primitive.iterators.ShortReader2D;
+import io.github.heathensoft.storage.primitive.iterators.CharReader2D;
+import io.github.heathensoft.storage.primitive.iterators.IntReader2D;
+import io.github.heathensoft.storage.primitive.iterators.LongReader2D;
+import io.github.heathensoft.storage.primitive.iterators.FloatReader2D;
+import io.github.heathensoft.storage.primitive.iterators.DoubleReader2D;
+
+/**
+ * Type agnostic reads of rectangular areas of the 2D arrays, widening every value to long or double,
+ * and writes of float rows into arrays of any type.
+ * Used by the derived structures (tables, pyramids, stencils) that accept any PrimitiveArray2D.
+ * Char values are unsigned. Area coordinates are inclusive and clamped by the arrays.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+final class GridCells {
+    
+    @FunctionalInterface
+    interface LongCells {
+        void next(int x, int y, long value);
+    }
+    
+    @FunctionalInterface
+    interface DoubleCells {
+        void next(int x, int y, double value);
+    }
+    
+    private GridCells() { }
+    
+    /**
+     * @param source array
+     * @return true if the array holds integral values (not float or double)
+     */
+    static boolean isIntegral(PrimitiveArray2D source) {
+        return !(source instanceof ReadableFloat2D || source instanceof ReadableDouble2D);
+    }
+    
+    /**
+     * Reads an area of an integral array
+     * @throws IllegalArgumentException if the array is not integral
+     */
+    static void readLongs(PrimitiveArray2D source, LongCells cells, int minX, int minY, int maxX, int maxY) {
+        if (source instanceof ReadableByte2D) {
+            ((ReadableByte2D) source).readArea((ByteReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableShort2D) {
+            ((ReadableShort2D) source).readArea((ShortReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableChar2D) {
+            ((ReadableChar2D) source).readArea((CharReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableInt2D) {
+            ((ReadableInt2D) source).readArea((IntReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableLong2D) {
+            ((ReadableLong2D) source).readArea((LongReader2D) cells::next,minX,minY,maxX,maxY);
+        } else throw new IllegalArgumentException("not an integral array: " + source.getClass().getSimpleName());
+    }
+    
+    static void readDoubles(PrimitiveArray2D source, DoubleCells cells, int minX, int minY, int maxX, int maxY) {
+        if (source instanceof ReadableByte2D) {
+            ((ReadableByte2D) source).readArea((ByteReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableShort2D) {
+            ((ReadableShort2D) source).readArea((ShortReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableChar2D) {
+            ((ReadableChar2D) source).readArea((CharReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableInt2D) {
+            ((ReadableInt2D) source).readArea((IntReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableLong2D) {
+            ((ReadableLong2D) source).readArea((LongReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableFloat2D) {
+            ((ReadableFloat2D) source).readArea((FloatReader2D) cells::next,minX,minY,maxX,maxY);
+        } else if (source instanceof ReadableDouble2D) {
+            ((ReadableDouble2D) source).readArea((DoubleReader2D) cells::next,minX,minY,maxX,maxY);
+        } else throw new IllegalArgumentException("unsupported array: " + source.getClass().getSimpleName());
+    }
+    
+    /**
+     * Writes a row of values through the WriteFunction of the array, cell by cell (through the write hooks).
+     * Integral arrays receive the values rounded to the nearest integer, saturated to the range of the type (NaN is 0).
+     * @param target array
+     * @param values values of the cells [x0, x0 + values.length) in row y
+     * @param x0 first column
+     * @param y row
+     */
+    static void writeRow(PrimitiveArray2D target, float[] values, int x0, int y) {
+        final WriteFunction function = target.writeFunction;
+        final boolean equ = function == WriteFunction.EQU;
+        if (target instanceof ReadableByte2D) {
+            for (int i = 0; i < values.length; i++) {
+                byte v = (byte) saturate(values[i],Byte.MIN_VALUE,Byte.MAX_VALUE);
+                if (!equ) v = function.byteFunc.calc((byte) target.bits(x0 + i,y),v);
+                target.setBits(v,x0 + i,y);
+            }
+        } else if (target instanceof ReadableShort2D) {
+            for (int i = 0; i < values.length; i++) {
+                short v = (short) saturate(values[i],Short.MIN_VALUE,Short.MAX_VALUE);
+                if (!equ) v = function.shortFunc.calc((short) target.bits(x0 + i,y),v);
+                target.setBits(v,x0 + i,y);
+            }
+        } else if (target instanceof ReadableChar2D) {
+            for (int i = 0; i < values.length; i++) {
+                char v = (char) saturate(values[i],Character.MIN_VALUE,Character.MAX_VALUE);
+                if (!equ) v = function.charFunc.calc((char) target.bits(x0 + i,y),v);
+                target.setBits(v,x0 + i,y);
+            }
+        } else if (target instanceof ReadableInt2D) {
+            for (int i = 0; i < values.length; i++) {
+                int v = (int) saturate(values[i],Integer.MIN_VALUE,Integer.MAX_VALUE);
+                if (!equ) v = function.intFunc.calc((int) target.bits(x0 + i,y),v);
+                target.setBits(v,x0 + i,y);
+            }
+        } else if (target instanceof ReadableLong2D) {
+            for (int i = 0; i < values.length; i++) {
+                long v = Math.round((double) values[i]);
+                if (!equ) v = function.longFunc.calc(target.bits(x0 + i,y),v);
+                target.setBits(v,x0 + i,y);
+            }
+        } else if (target instanceof ReadableFloat2D) {
+            for (int i = 0; i < values.length; i++) {
+                float v = values[i];
+                if (!equ) v = function.floatFunc.calc(Float.intBitsToFloat((int) target.bits(x0 + i,y)),v);
+                target.setBits(Float.floatToRawIntBits(v) & 0xFFFFFFFFL,x0 + i,y);
+            }
+        } else if (target instanceof ReadableDouble2D) {
+            for (int i = 0; i < values.length; i++) {
+                double v = values[i];
+                if (!equ) v = function.doubleFunc.calc(Double.longBitsToDouble(target.bits(x0 + i,y)),v);
+                target.setBits(Double.doubleToRawLongBits(v),x0 + i,y);
+            }
+        } else throw new IllegalArgumentException("unsupported array: " + target.getClass().getSimpleName());
+    }
+    
+    private static long saturate(float value, long min, long max) {
+        return Math.max(min,Math.min(max,Math.round((double) value)));
+    }
+}
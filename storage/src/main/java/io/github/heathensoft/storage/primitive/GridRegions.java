@@ -0,0 +1,222 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+import java.util.Arrays;
+
+/**
+ * Region queries over 2D arrays: scanline flood fill and connected-component labelling.
+ * Works for any array type. Which cells belong to a region is decided by a CellPredicate,
+ * f.ex. (x, y) -> canvas.get(x,y) == water.
+ *
+ * No recursion. The flood fill keeps its seeds on a heap allocated IntStack,
+ * one seed per horizontal run of unvisited cells found above or below a filled span.
+ * So the stack grows with the number of runs on the frontier, not with the area.
+ * Labelling is two passes over the array with a union-find table of provisional labels.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public final class GridRegions {
+    
+    @FunctionalInterface
+    public interface CellPredicate {
+        /**
+         * @param x p.x (within bounds)
+         * @param y p.y (within bounds)
+         * @return true if the cell is part of the region
+         */
+        boolean test(int x, int y);
+    }
+    
+    private GridRegions() { }
+    
+    /**
+     * Scanline flood fill from a seed cell. Every cell is tested at most a few times and reported once.
+     * The filled cells are reported as horizontal spans (minY == maxY), in no particular order.
+     * The reader may write to the array (f.ex. bucket fill with array.write(value, minX, minY, maxX, maxY)).
+     * Filled cells are not tested again.
+     * @param grid array (only its dimensions are used)
+     * @param inside region predicate
+     * @param x seed.x
+     * @param y seed.y
+     * @param diagonal true for 8-connectivity, false for 4-connectivity
+     * @param spans receives the filled spans
+     * @return number of cells filled. 0 if the seed is out of bounds or not inside
+     */
+    public static int floodFill(PrimitiveArray2D grid, CellPredicate inside, int x, int y, boolean diagonal, AreaReader spans) {
+        if (inside == null || spans == null) throw new IllegalArgumentException("argument == null");
+        final int rows = grid.rows();
+        final int cols = grid.cols();
+        if (x < 0 || y < 0 || x >= cols || y >= rows) return 0;
+        if (!inside.test(x,y)) return 0;
+        final BitSet visited = new BitSet(rows * cols);
+        final IntStack seeds = new IntStack(64);
+        final int reach = diagonal ? 1 : 0;
+        int filled = 0;
+        seeds.push(x);
+        seeds.push(y);
+        while (!seeds.isEmpty()) {
+            int sy = seeds.pop();
+            int sx = seeds.pop();
+            int row = sy * cols;
+            if (visited.getUnsafe(row + sx) || !inside.test(sx,sy)) continue;
+            int minX = sx;
+            int maxX = sx;
+            while (minX > 0 && !visited.getUnsafe(row + minX - 1) && inside.test(minX - 1,sy)) minX--;
+            while (maxX < cols - 1 && !visited.getUnsafe(row + maxX + 1) && inside.test(maxX + 1,sy)) maxX++;
+            visited.set(row + minX,row + maxX + 1);
+            filled += maxX - minX + 1;
+            int fromX = Math.max(0,minX - reach);
+            int toX = Math.min(cols - 1,maxX + reach);
+            if (sy > 0) pushRuns(inside,visited,seeds,fromX,toX,sy - 1,cols);
+            if (sy < rows - 1) pushRuns(inside,visited,seeds,fromX,toX,sy + 1,cols);
+            spans.next(minX,sy,maxX,sy);
+        } return filled;
+    }
+    
+    /**
+     * 4-connected flood fill. See floodFill(grid, inside, x, y, diagonal, spans)
+     */
+    public static int floodFill(PrimitiveArray2D grid, CellPredicate inside, int x, int y, AreaReader spans) {
+        return floodFill(grid,inside,x,y,false,spans);
+    }
+    
+    /**
+     * Two-pass connected-component labelling. Cells inside get labels 1 to n (in order of their first cell,
+     * row by row), cells outside get 0. The labels are written to every cell of the label array,
+     * regardless of its WriteFunction. The predicate is tested once per cell.
+     * @param grid array
+     * @param inside region predicate
+     * @param diagonal true for 8-connectivity, false for 4-connectivity
+     * @param labels destination. Same dimensions as the array
+     * @return number of components (n)
+     */
+    public static int label(PrimitiveArray2D grid, CellPredicate inside, boolean diagonal, IntArray2D labels) {
+        if (inside == null) throw new IllegalArgumentException("inside == null");
+        if (labels == null || !labels.sameDimension(grid)) throw new IllegalArgumentException("labels must be of same dimensions as the array");
+        final int rows = grid.rows();
+        final int cols = grid.cols();
+        labels.onWrite(0,0,cols-1,rows-1);
+        final int[][] out = labels.grid;
+        int[] parent = new int[64]; // parent[0] unused (background)
+        int count = 0;
+        // first pass: provisional labels, equivalences in the union-find table
+        for (int y = 0; y < rows; y++) {
+            final int[] row = out[y];
+            final int[] above = y > 0 ? out[y-1] : null;
+            for (int x = 0; x < cols; x++) {
+                if (!inside.test(x,y)) {
+                    row[x] = 0;
+                    continue;
+                } int l = x > 0 ? row[x-1] : 0;
+                if (above != null) {
+                    l = merge(parent,l,above[x]);
+                    if (diagonal) {
+                        if (x > 0) l = merge(parent,l,above[x-1]);
+                        if (x < cols - 1) l = merge(parent,l,above[x+1]);
+                    }
+                } if (l == 0) {
+                    if (++count == parent.length) parent = Arrays.copyOf(parent,count * 2);
+                    parent[count] = count;
+                    l = count;
+                } row[x] = l;
+            }
+        } // resolve roots to consecutive labels in order of appearance
+        int[] compact = new int[count + 1];
+        int components = 0;
+        for (int l = 1; l <= count; l++) {
+            int root = find(parent,l);
+            if (compact[root] == 0) compact[root] = ++components;
+            compact[l] = compact[root];
+        } // second pass
+        for (int y = 0; y < rows; y++) {
+            final int[] row = out[y];
+            for (int x = 0; x < cols; x++) {
+                row[x] = compact[row[x]];
+            }
+        } return components;
+    }
+    
+    /**
+     * 4-connected labelling. See label(grid, inside, diagonal, labels)
+     */
+    public static int label(PrimitiveArray2D grid, CellPredicate inside, IntArray2D labels) {
+        return label(grid,inside,false,labels);
+    }
+    
+    /**
+     * @param labels labelled array (see label)
+     * @param components number of components
+     * @return cell count per label. Index 0 holds the background count
+     */
+    public static int[] componentSizes(IntArray2D labels, int components) {
+        int[] sizes = new int[components + 1];
+        for (int[] row : labels.grid) {
+            for (int l : row) sizes[l]++;
+        } return sizes;
+    }
+    
+    /**
+     * @param labels labelled array (see label)
+     * @param components number of components
+     * @return true per label touching the edge of the array (f.ex. lakes versus sea). Index 0 is background
+     */
+    public static boolean[] touchesEdge(IntArray2D labels, int components) {
+        boolean[] edge = new boolean[components + 1];
+        final int rows = labels.rows();
+        final int cols = labels.cols();
+        final int[][] grid = labels.grid;
+        for (int x = 0; x < cols; x++) {
+            edge[grid[0][x]] = true;
+            edge[grid[rows-1][x]] = true;
+        } for (int y = 0; y < rows; y++) {
+            edge[grid[y][0]] = true;
+            edge[grid[y][cols-1]] = true;
+        } edge[0] = false;
+        return edge;
+    }
+    
+    /**
+     * Pushes one seed (the first cell) per run of unvisited inside cells in [fromX, toX] of row y
+     */
+    private static void pushRuns(CellPredicate inside, BitSet visited, IntStack seeds, int fromX, int toX, int y, int cols) {
+        final int row = y * cols;
+        boolean run = false;
+        for (int x = fromX; x <= toX; x++) {
+            if (!visited.getUnsafe(row + x) && inside.test(x,y)) {
+                if (!run) {
+                    seeds.push(x);
+                    seeds.push(y);
+                    run = true;
+                }
+            } else run = false;
+        }
+    }
+    
+    /**
+     * Union of two provisional labels (0 is background and is ignored)
+     * @return the smaller root, or 0 if both are 0
+     */
+    private static int merge(int[] parent, int a, int b) {
+        if (b == 0) return a;
+        if (a == 0) return find(parent,b);
+        int ra = find(parent,a);
+        int rb = find(parent,b);
+        if (ra == rb) return ra;
+        if (ra < rb) {
+            parent[rb] = ra;
+            return ra;
+        } parent[ra] = rb;
+        return rb;
+    }
+    
+    private static int find(int[] parent, int l) {
+        while (parent[l] != l) {
+            parent[l] = parent[parent[l]];
+            l = parent[l];
+        } return l;
+    }
+}
@@ -2,7 +2,11 @@ package io.github.heathensoft.storage.primitive;
 
 import io.github.heathensoft.storage.primitive.iterators.IntReader;
 
-import java.util.Arrays;
+import java.nio.IntBuffer;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A malleable multipurpose array. Thin wrapper around primitive array.
@@ -77,10 +81,15 @@ public class IntBag implements ReadableInt {
     
     public void swap(int idx1, int idx2) {
         int tmp = data[idx1];
-        data[idx1] = idx2;
+        data[idx1] = data[idx2];
         data[idx2] = tmp;
     }
     
+    /**
+     * Unsafe: the underlying array, valid from index 0 to size() - 1.
+     * It is replaced when the bag grows or fits. Do not keep it across modifications.
+     * @return the underlying array
+     */
     public int[] data() {
         return data;
     }
@@ -127,8 +136,73 @@ public class IntBag implements ReadableInt {
         size = 0;
     }
     
+    /**
+     * Transfers every value to the buffer (index order), then clears the bag. One bulk put.
+     * @param dst destination. Position advances by size()
+     * @return number of values transferred
+     * @throws java.nio.BufferOverflowException if dst.remaining() < size(). Nothing is transferred
+     */
+    public int drainTo(IntBuffer dst) {
+        int n = size;
+        dst.put(data,0,n);
+        size = 0;
+        return n;
+    }
+    
+    /**
+     * Appends every remaining value of the buffer. One bulk get.
+     * @param src source. Position advances to the limit
+     * @return number of values added
+     */
+    public int fillFrom(IntBuffer src) {
+        int n = src.remaining();
+        ensureCapacity(size + n);
+        src.get(data,size,n);
+        size += n;
+        return n;
+    }
+    
+    /**
+     * Copies the values (index order) without removing them
+     * @param dst destination. Must fit size() values from offset
+     * @param offset destination offset
+     * @return number of values copied
+     */
+    public int copyTo(int[] dst, int offset) {
+        System.arraycopy(data,0,dst,offset,size);
+        return size;
+    }
+    
+    public int copyTo(int[] dst) {
+        return copyTo(dst,0);
+    }
+    
     public void sort() {
-        Arrays.sort(data,0,size);
+        if (size > PrimitiveSort.PARALLEL_THRESHOLD) PrimitiveSort.parallelSort(data,0,size);
+        else PrimitiveSort.sort(data,0,size);
+    }
+    
+    /**
+     * Sorts the values by a parallel array of keys. keys[i] belongs to the value at index i.
+     * The keys are sorted along with the values. Stable.
+     * @param keys sort keys. length >= size
+     */
+    public void sortBy(int[] keys) {
+        PrimitiveSort.sort(keys,data,0,size);
+    }
+    
+    /** See sortBy(int[]) */
+    public void sortBy(long[] keys) {
+        PrimitiveSort.sort(keys,data,0,size);
+    }
+    
+    /**
+     * Sorts the values by a parallel array of keys. keys[i] belongs to the value at index i.
+     * The keys are sorted along with the values. Stable.
+     * @param keys sort keys. length >= size
+     */
+    public void sortBy(float[] keys) {
+        PrimitiveSort.sort(keys,data,0,size);
     }
     
     @Override
@@ -138,6 +212,21 @@ public class IntBag implements ReadableInt {
         }
     }
     
+    /**
+     * @return sized, splittable spliterator over the values
+     */
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(data,0,size,Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+    
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(),false);
+    }
+    
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(),true);
+    }
+    
     private void grow(int s) {
         int[] tmp = data;
         data = new int[s];
@@ -0,0 +1,236 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.generic.Reader;
+import io.github.heathensoft.storage.primitive.external.Tools;
+import io.github.heathensoft.storage.primitive.iterators.IntObjectReader;
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing int to object hash map. Linear probing, backward-shift deletion (no tombstones).
+ * The key 0 is stored outside the table.
+ * Null values are not permitted.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class IntObjectHashMap<V> {
+    
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int FREE_KEY = 0;
+    
+    private int[] keys;
+    private V[] values;
+    private V freeValue;
+    private boolean hasFreeKey;
+    private final float loadFactor;
+    private int threshold;
+    private int size;
+    private int mask;
+    
+    /**
+     * @param capacity expected number of entries
+     * @param loadFactor fill factor (0,1)
+     */
+    public IntObjectHashMap(int capacity, float loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1)
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        if (capacity < 0) throw new IllegalArgumentException("capacity < 0: " + capacity);
+        this.loadFactor = loadFactor;
+        allocate(Tools.arraySize(Math.max(1,capacity),loadFactor));
+    }
+    
+    public IntObjectHashMap(int capacity) {
+        this(capacity,DEFAULT_LOAD_FACTOR);
+    }
+    
+    public IntObjectHashMap() {
+        this(16);
+    }
+    
+    /**
+     * @param key key
+     * @return the value mapped to key or null
+     */
+    public V get(int key) {
+        return get(key,null);
+    }
+    
+    /**
+     * @param key key
+     * @param defaultValue returned if key is not mapped
+     * @return the value mapped to key or defaultValue
+     */
+    public V get(int key, V defaultValue) {
+        if (key == FREE_KEY) return hasFreeKey ? freeValue : defaultValue;
+        int ptr = index(key);
+        return ptr < 0 ? defaultValue : values[ptr];
+    }
+    
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) return hasFreeKey;
+        return index(key) >= 0;
+    }
+    
+    /**
+     * @param key key
+     * @param value value (not null)
+     * @return the previous value mapped to key or null
+     */
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("value == null");
+        if (key == FREE_KEY) {
+            V previous = hasFreeKey ? freeValue : null;
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeValue = value;
+            return previous;
+        } int ptr = hash(key) & mask;
+        int k;
+        while ((k = keys[ptr]) != FREE_KEY) {
+            if (k == key) {
+                V previous = values[ptr];
+                values[ptr] = value;
+                return previous;
+            } ptr = (ptr + 1) & mask;
+        } keys[ptr] = key;
+        values[ptr] = value;
+        if (++size > threshold) rehash(keys.length * 2);
+        return null;
+    }
+    
+    /**
+     * @param key key
+     * @return the removed value or null
+     */
+    public V remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) return null;
+            V previous = freeValue;
+            hasFreeKey = false;
+            freeValue = null;
+            size--;
+            return previous;
+        } int ptr = index(key);
+        if (ptr < 0) return null;
+        V previous = values[ptr];
+        shiftKeys(ptr);
+        size--;
+        return previous;
+    }
+    
+    /**
+     * Read all entries. Order is undefined. Do not modify the map while reading.
+     * @param itr reader
+     */
+    public void read(IntObjectReader<V> itr) {
+        if (hasFreeKey) itr.next(FREE_KEY,freeValue);
+        final int[] keys = this.keys;
+        final V[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) itr.next(keys[i],values[i]);
+        }
+    }
+    
+    public void readKeys(IntReader itr) {
+        if (hasFreeKey) itr.next(FREE_KEY);
+        final int[] keys = this.keys;
+        for (int key : keys) {
+            if (key != FREE_KEY) itr.next(key);
+        }
+    }
+    
+    public void readValues(Reader<V> itr) {
+        if (hasFreeKey) itr.next(freeValue);
+        final int[] keys = this.keys;
+        final V[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) itr.next(values[i]);
+        }
+    }
+    
+    /**
+     * Ensure the map can hold n entries without rehashing
+     * @param n entries
+     */
+    public void ensureCapacity(int n) {
+        if (n > threshold) rehash(Tools.arraySize(n,loadFactor));
+    }
+    
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys,FREE_KEY);
+            Arrays.fill(values,null);
+            hasFreeKey = false;
+            freeValue = null;
+            size = 0;
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    private int index(int key) {
+        int ptr = hash(key) & mask;
+        int k;
+        while ((k = keys[ptr]) != FREE_KEY) {
+            if (k == key) return ptr;
+            ptr = (ptr + 1) & mask;
+        } return -1;
+    }
+    
+    private void shiftKeys(int pos) {
+        final int[] keys = this.keys;
+        final V[] values = this.values;
+        int last, slot;
+        int k;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((k = keys[pos]) == FREE_KEY) {
+                    keys[last] = FREE_KEY;
+                    values[last] = null;
+                    return;
+                } slot = hash(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            } keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = (V[]) new Object[capacity];
+        threshold = (int) (capacity * loadFactor);
+        mask = capacity - 1;
+    }
+    
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final V[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int ptr = hash(key) & mask;
+                while (keys[ptr] != FREE_KEY) ptr = (ptr + 1) & mask;
+                keys[ptr] = key;
+                values[ptr] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int hash(int key) {
+        return Tools.phiMix(key);
+    }
+}
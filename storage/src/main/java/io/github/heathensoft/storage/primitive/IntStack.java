@@ -4,8 +4,12 @@ package io.github.heathensoft.storage.primitive;
 
 import io.github.heathensoft.storage.primitive.iterators.IntReader;
 
-import java.util.Arrays;
+import java.nio.IntBuffer;
 import java.util.Collection;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Simple auto-growing stack structure for primitives.
@@ -31,11 +35,31 @@ public class IntStack implements ReadableInt {
 		this(0);
 	}
 	
+	IntStack(int[] array, int size) {
+		s = array;
+		p = size;
+	}
+	
 	@Override
 	public void read(IntReader itr) {
 		for (int i = 0; i < p; i++) itr.next(s[i]);
 	}
 	
+	/**
+	 * @return sized, splittable spliterator over the values, bottom to top
+	 */
+	public Spliterator.OfInt spliterator() {
+		return Spliterators.spliterator(s,0,p,Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+	
+	public IntStream stream() {
+		return StreamSupport.intStream(spliterator(),false);
+	}
+	
+	public IntStream parallelStream() {
+		return StreamSupport.intStream(spliterator(),true);
+	}
+	
 	/**
 	 * Ensure space for n additional elements. This is useful before pushing, as the underlying
 	 * array would only need to "grow" once instead of potentially multiple times.
@@ -104,8 +128,8 @@ public class IntStack implements ReadableInt {
 	 */
 	public void sortDescending() {
 		if (p > 1) {
-			if (p > 10000) Arrays.parallelSort(s,0, p);
-			else Arrays.sort(s,0, p);
+			if (p > PrimitiveSort.PARALLEL_THRESHOLD) PrimitiveSort.parallelSort(s,0, p);
+			else PrimitiveSort.sort(s,0, p);
 		}
 	}
 	
@@ -114,15 +138,58 @@ public class IntStack implements ReadableInt {
 	 */
 	public void sortAscending() {
 		if (p > 1) {
-			if (p > 10000) Arrays.parallelSort(s,0, p);
-			else Arrays.sort(s,0, p);
-			IntStack tmp = new IntStack(capacity());
-			popAll(tmp::push);
-			this.p = tmp.p;
-			this.s = tmp.s;
+			sortDescending();
+			PrimitiveSort.reverse(s,0, p);
 		}
 	}
 	
+	/**
+	 * Transfers every value to the buffer, bottom to top (the order of the underlying array),
+	 * then clears the stack. One bulk put.
+	 * @param dst destination. Position advances by size()
+	 * @return number of values transferred
+	 * @throws java.nio.BufferOverflowException if dst.remaining() < size(). Nothing is transferred
+	 */
+	public int drainTo(IntBuffer dst) {
+		int n = p;
+		dst.put(s,0,n);
+		p = 0;
+		return n;
+	}
+	
+	/**
+	 * Pushes every remaining value of the buffer. The last value ends on top. One bulk get.
+	 * @param src source. Position advances to the limit
+	 * @return number of values pushed
+	 */
+	public int fillFrom(IntBuffer src) {
+		int n = src.remaining();
+		makeRoom(n);
+		src.get(s,p,n);
+		p += n;
+		return n;
+	}
+	
+	/**
+	 * Copies the values, bottom to top, without removing them
+	 * @param dst destination. Must fit size() values from offset
+	 * @param offset destination offset
+	 * @return number of values copied
+	 */
+	public int copyTo(int[] dst, int offset) {
+		System.arraycopy(s,0,dst,offset,p);
+		return p;
+	}
+	
+	public int copyTo(int[] dst) {
+		return copyTo(dst,0);
+	}
+	
+	/**
+	 * Unsafe: the underlying array, valid from index 0 (bottom) to size() - 1 (top).
+	 * It is replaced when the stack grows or fits. Do not keep it across modifications.
+	 * @return the underlying array
+	 */
 	public int[] array() {
 		return s;
 	}
@@ -0,0 +1,176 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.external.Tools;
+import io.github.heathensoft.storage.primitive.iterators.LongReader;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing long hash set. Linear probing, backward-shift deletion (no tombstones).
+ * The value 0 is stored outside the table.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class LongHashSet implements ReadableLong {
+    
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final long FREE_KEY = 0;
+    
+    private long[] keys;
+    private boolean hasFreeKey;
+    private final float loadFactor;
+    private int threshold;
+    private int size;
+    private int mask;
+    
+    /**
+     * @param capacity expected number of values
+     * @param loadFactor fill factor (0,1)
+     */
+    public LongHashSet(int capacity, float loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1)
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        if (capacity < 0) throw new IllegalArgumentException("capacity < 0: " + capacity);
+        this.loadFactor = loadFactor;
+        allocate(Tools.arraySize(Math.max(1,capacity),loadFactor));
+    }
+    
+    public LongHashSet(int capacity) {
+        this(capacity,DEFAULT_LOAD_FACTOR);
+    }
+    
+    public LongHashSet() {
+        this(16);
+    }
+    
+    /**
+     * Read all values. Order is undefined. Do not modify the set while reading.
+     * @param itr reader
+     */
+    @Override
+    public void read(LongReader itr) {
+        if (hasFreeKey) itr.next(FREE_KEY);
+        final long[] keys = this.keys;
+        for (long key : keys) {
+            if (key != FREE_KEY) itr.next(key);
+        }
+    }
+    
+    /**
+     * @param value value
+     * @return true if the value was added
+     */
+    public boolean add(long value) {
+        if (value == FREE_KEY) {
+            if (hasFreeKey) return false;
+            hasFreeKey = true;
+            size++;
+            return true;
+        } int ptr = hash(value) & mask;
+        long k;
+        while ((k = keys[ptr]) != FREE_KEY) {
+            if (k == value) return false;
+            ptr = (ptr + 1) & mask;
+        } keys[ptr] = value;
+        if (++size > threshold) rehash(keys.length * 2);
+        return true;
+    }
+    
+    /**
+     * @param value value
+     * @return true if the value was removed
+     */
+    public boolean remove(long value) {
+        if (value == FREE_KEY) {
+            if (!hasFreeKey) return false;
+            hasFreeKey = false;
+            size--;
+            return true;
+        } int ptr = index(value);
+        if (ptr < 0) return false;
+        shiftKeys(ptr);
+        size--;
+        return true;
+    }
+    
+    public boolean contains(long value) {
+        if (value == FREE_KEY) return hasFreeKey;
+        return index(value) >= 0;
+    }
+    
+    /**
+     * Ensure the set can hold n values without rehashing
+     * @param n values
+     */
+    public void ensureCapacity(int n) {
+        if (n > threshold) rehash(Tools.arraySize(n,loadFactor));
+    }
+    
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys,FREE_KEY);
+            hasFreeKey = false;
+            size = 0;
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    private int index(long value) {
+        int ptr = hash(value) & mask;
+        long k;
+        while ((k = keys[ptr]) != FREE_KEY) {
+            if (k == value) return ptr;
+            ptr = (ptr + 1) & mask;
+        } return -1;
+    }
+    
+    private void shiftKeys(int pos) {
+        final long[] keys = this.keys;
+        int last, slot;
+        long k;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((k = keys[pos]) == FREE_KEY) {
+                    keys[last] = FREE_KEY;
+                    return;
+                } slot = hash(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            } keys[last] = k;
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        threshold = (int) (capacity * loadFactor);
+        mask = capacity - 1;
+    }
+    
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        allocate(capacity);
+        for (long key : oldKeys) {
+            if (key != FREE_KEY) {
+                int ptr = hash(key) & mask;
+                while (keys[ptr] != FREE_KEY) ptr = (ptr + 1) & mask;
+                keys[ptr] = key;
+            }
+        }
+    }
+    
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
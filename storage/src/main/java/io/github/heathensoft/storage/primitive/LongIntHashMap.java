@@ -0,0 +1,233 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.external.Tools;
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+import io.github.heathensoft.storage.primitive.iterators.LongIntReader;
+import io.github.heathensoft.storage.primitive.iterators.LongReader;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing long to int hash map. Linear probing, backward-shift deletion (no tombstones).
+ * The key 0 is stored outside the table.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class LongIntHashMap {
+    
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final long FREE_KEY = 0;
+    
+    private long[] keys;
+    private int[] values;
+    private int freeValue;
+    private boolean hasFreeKey;
+    private final float loadFactor;
+    private int threshold;
+    private int size;
+    private int mask;
+    
+    /**
+     * @param capacity expected number of entries
+     * @param loadFactor fill factor (0,1)
+     */
+    public LongIntHashMap(int capacity, float loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1)
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        if (capacity < 0) throw new IllegalArgumentException("capacity < 0: " + capacity);
+        this.loadFactor = loadFactor;
+        allocate(Tools.arraySize(Math.max(1,capacity),loadFactor));
+    }
+    
+    public LongIntHashMap(int capacity) {
+        this(capacity,DEFAULT_LOAD_FACTOR);
+    }
+    
+    public LongIntHashMap() {
+        this(16);
+    }
+    
+    /**
+     * @param key key
+     * @return the value mapped to key or 0
+     */
+    public int get(long key) {
+        return get(key,0);
+    }
+    
+    /**
+     * @param key key
+     * @param defaultValue returned if key is not mapped
+     * @return the value mapped to key or defaultValue
+     */
+    public int get(long key, int defaultValue) {
+        if (key == FREE_KEY) return hasFreeKey ? freeValue : defaultValue;
+        int ptr = index(key);
+        return ptr < 0 ? defaultValue : values[ptr];
+    }
+    
+    public boolean containsKey(long key) {
+        if (key == FREE_KEY) return hasFreeKey;
+        return index(key) >= 0;
+    }
+    
+    /**
+     * @param key key
+     * @param value value
+     * @return the previous value mapped to key or 0
+     */
+    public int put(long key, int value) {
+        if (key == FREE_KEY) {
+            int previous = hasFreeKey ? freeValue : 0;
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeValue = value;
+            return previous;
+        } int ptr = hash(key) & mask;
+        long k;
+        while ((k = keys[ptr]) != FREE_KEY) {
+            if (k == key) {
+                int previous = values[ptr];
+                values[ptr] = value;
+                return previous;
+            } ptr = (ptr + 1) & mask;
+        } keys[ptr] = key;
+        values[ptr] = value;
+        if (++size > threshold) rehash(keys.length * 2);
+        return 0;
+    }
+    
+    /**
+     * @param key key
+     * @return the removed value or 0
+     */
+    public int remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) return 0;
+            int previous = freeValue;
+            hasFreeKey = false;
+            freeValue = 0;
+            size--;
+            return previous;
+        } int ptr = index(key);
+        if (ptr < 0) return 0;
+        int previous = values[ptr];
+        shiftKeys(ptr);
+        size--;
+        return previous;
+    }
+    
+    /**
+     * Read all entries. Order is undefined. Do not modify the map while reading.
+     * @param itr reader
+     */
+    public void read(LongIntReader itr) {
+        if (hasFreeKey) itr.next(FREE_KEY,freeValue);
+        final long[] keys = this.keys;
+        final int[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) itr.next(keys[i],values[i]);
+        }
+    }
+    
+    public void readKeys(LongReader itr) {
+        if (hasFreeKey) itr.next(FREE_KEY);
+        final long[] keys = this.keys;
+        for (long key : keys) {
+            if (key != FREE_KEY) itr.next(key);
+        }
+    }
+    
+    public void readValues(IntReader itr) {
+        if (hasFreeKey) itr.next(freeValue);
+        final long[] keys = this.keys;
+        final int[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) itr.next(values[i]);
+        }
+    }
+    
+    /**
+     * Ensure the map can hold n entries without rehashing
+     * @param n entries
+     */
+    public void ensureCapacity(int n) {
+        if (n > threshold) rehash(Tools.arraySize(n,loadFactor));
+    }
+    
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys,FREE_KEY);
+            hasFreeKey = false;
+            freeValue = 0;
+            size = 0;
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    private int index(long key) {
+        int ptr = hash(key) & mask;
+        long k;
+        while ((k = keys[ptr]) != FREE_KEY) {
+            if (k == key) return ptr;
+            ptr = (ptr + 1) & mask;
+        } return -1;
+    }
+    
+    private void shiftKeys(int pos) {
+        final long[] keys = this.keys;
+        final int[] values = this.values;
+        int last, slot;
+        long k;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((k = keys[pos]) == FREE_KEY) {
+                    keys[last] = FREE_KEY;
+                    values[last] = 0;
+                    return;
+                } slot = hash(k) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            } keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        threshold = (int) (capacity * loadFactor);
+        mask = capacity - 1;
+    }
+    
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int ptr = hash(key) & mask;
+                while (keys[ptr] != FREE_KEY) ptr = (ptr + 1) & mask;
+                keys[ptr] = key;
+                values[ptr] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
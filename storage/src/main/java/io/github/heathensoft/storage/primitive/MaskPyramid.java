@@ -0,0 +1,478 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Disposable;
+import io.github.heathensoft.common.Utils;
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+/**
+ * Any / all mip pyramid of an integral mask array (f.ex. terrain or collision flags), for hierarchical
+ * range queries ("is this chunk entirely traversable?", "is there any water in this region?").
+ *
+ * Level 0 holds the bitwise OR and AND of square leaf tiles (power of two). Every level above
+ * halves the resolution, up to a single node covering the whole array.
+ * Queries descend from the top and stop at nodes that are decided by their OR / AND,
+ * so they only read cells of leaf tiles crossing the query border and undecided by the tile bounds.
+ *
+ * The pyramid observes the array: it registers its invalidate method as a write listener of the source
+ * (PrimitiveArray2D.addWriteListener), so every write through the array invalidates the written area.
+ * Writes to the underlying array (get()) or buffer are not seen. Report those with array.markDirty (or invalidate).
+ * Dispose to stop observing.
+ * The touched leaf tiles and their ancestors are recomputed lazily on the next query (or refresh).
+ * Invalidated tiles are kept as one bit per leaf tile, so invalidating without querying does not grow.
+ * Not thread safe.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class MaskPyramid implements Disposable {
+    
+    private final PrimitiveArray2D source;
+    private final AreaReader listener;
+    private final long[][] or;
+    private final long[][] and;
+    private final int[] widths;
+    private final int[] heights;
+    private final BitSet dirty;     // leaf tiles
+    private final BitSet parents;   // nodes of the level above, while refreshing
+    private final int shift;
+    private final int rows;
+    private final int cols;
+    
+    private final GridCells.LongCells leafReader;
+    private final GridCells.LongCells scanOr;
+    private final GridCells.LongCells scanAnd;
+    private long scan;
+    
+    /**
+     * @param source integral array
+     * @param leafSize leaf tile size in cells. Rounded up to the next power of two
+     * @throws IllegalArgumentException if the array holds float or double values
+     */
+    public MaskPyramid(PrimitiveArray2D source, int leafSize) {
+        if (leafSize <= 0) throw new IllegalArgumentException("leafSize must be > 0");
+        if (!GridCells.isIntegral(source)) throw new IllegalArgumentException("not an integral array");
+        this.source = source;
+        this.rows = source.rows();
+        this.cols = source.cols();
+        this.shift = Integer.numberOfTrailingZeros(Utils.nextPowerOfTwo(leafSize));
+        int w = ((cols - 1) >> shift) + 1;
+        int h = ((rows - 1) >> shift) + 1;
+        int levels = 1;
+        while (w > 1 || h > 1) {
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+            levels++;
+        } this.or = new long[levels][];
+        this.and = new long[levels][];
+        this.widths = new int[levels];
+        this.heights = new int[levels];
+        w = ((cols - 1) >> shift) + 1;
+        h = ((rows - 1) >> shift) + 1;
+        for (int l = 0; l < levels; l++) {
+            widths[l] = w;
+            heights[l] = h;
+            or[l] = new long[w * h];
+            and[l] = new long[w * h];
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+        } this.dirty = new BitSet(widths[0] * heights[0]);
+        this.parents = new BitSet(widths[0] * heights[0]);
+        this.leafReader = (x, y, value) -> {
+            int i = (y >> shift) * widths[0] + (x >> shift);
+            or[0][i] |= value;
+            and[0][i] &= value;
+        };
+        this.scanOr = (x, y, value) -> scan |= value;
+        this.scanAnd = (x, y, value) -> scan &= value;
+        invalidateAll();
+        refresh();
+        this.listener = this::invalidate;
+        source.addWriteListener(listener);
+    }
+    
+    public MaskPyramid(PrimitiveArray2D source) {
+        this(source,8);
+    }
+    
+    /**
+     * Bitwise OR of the cells in the area. min and max values are inclusive and clamped to the array.
+     * @return the OR of the area. 0 if the area is outside the array
+     */
+    public long or(int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return 0;
+        refresh();
+        return or(top(),0,0,minX,minY,maxX,maxY,0);
+    }
+    
+    /**
+     * Bitwise AND of the cells in the area. min and max values are inclusive and clamped to the array.
+     * @return the AND of the area. -1 (all bits) if the area is outside the array
+     */
+    public long and(int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return -1L;
+        refresh();
+        return and(top(),0,0,minX,minY,maxX,maxY,-1L);
+    }
+    
+    /**
+     * @return bitwise OR of the array
+     */
+    public long or() {
+        refresh();
+        return or[top()][0];
+    }
+    
+    /**
+     * @return bitwise AND of the array
+     */
+    public long and() {
+        refresh();
+        return and[top()][0];
+    }
+    
+    /**
+     * @return true if any cell in the area (clamped) has any of the mask bits
+     */
+    public boolean any(long mask, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return false;
+        refresh();
+        return any(top(),0,0,minX,minY,maxX,maxY,mask);
+    }
+    
+    /**
+     * @return true if every cell in the area (clamped) has all of the mask bits. True for empty areas
+     */
+    public boolean all(long mask, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return true;
+        refresh();
+        return all(top(),0,0,minX,minY,maxX,maxY,mask);
+    }
+    
+    /**
+     * @return true if no cell in the area (clamped) has any of the mask bits. True for empty areas
+     */
+    public boolean none(long mask, int minX, int minY, int maxX, int maxY) {
+        return !any(mask,minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * Report a modified area of the source array. min and max values are inclusive.
+     * Signature matches AreaReader.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void invalidate(int minX, int minY, int maxX, int maxY) {
+        int x0 = Math.max(0,Math.min(minX,maxX));
+        int y0 = Math.max(0,Math.min(minY,maxY));
+        int x1 = Math.min(cols-1,Math.max(minX,maxX));
+        int y1 = Math.min(rows-1,Math.max(minY,maxY));
+        if (x0 > x1 || y0 > y1) return;
+        final int w = widths[0];
+        for (int ty = y0 >> shift; ty <= y1 >> shift; ty++) {
+            dirty.set(ty * w + (x0 >> shift),ty * w + (x1 >> shift) + 1);
+        }
+    }
+    
+    public void invalidateAll() {
+        invalidate(0,0,cols-1,rows-1);
+    }
+    
+    public boolean isValid() {
+        return dirty.isEmpty();
+    }
+    
+    /**
+     * Recompute the invalidated leaf tiles and their ancestors. Called by the queries.
+     */
+    public void refresh() {
+        if (dirty.isEmpty()) return;
+        final int w0 = widths[0];
+        // leaf tiles, one area per run of dirty tiles in a tile row
+        for (int i = dirty.nextSetBit(0); i >= 0; ) {
+            int ty = i / w0;
+            int end = Math.min(dirty.nextClearBit(i),(ty + 1) * w0);
+            for (int t = i; t < end; t++) {
+                or[0][t] = 0;
+                and[0][t] = -1L;
+            } int tx0 = i - ty * w0;
+            int tx1 = end - 1 - ty * w0;
+            GridCells.readLongs(source,leafReader,tx0 << shift,ty << shift,
+            Math.min(cols,(tx1 + 1) << shift) - 1,Math.min(rows,(ty + 1) << shift) - 1);
+            i = dirty.nextSetBit(end);
+        } // ancestors, level by level
+        BitSet nodes = dirty;
+        BitSet above = parents;
+        for (int l = 1; l < or.length; l++) {
+            final int w = widths[l - 1];
+            above.clear();
+            for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+                int ny = i / w;
+                above.set((ny >> 1) * widths[l] + ((i - ny * w) >> 1));
+            } for (int i = above.nextSetBit(0); i >= 0; i = above.nextSetBit(i + 1)) {
+                int ny = i / widths[l];
+                reduce(l,i - ny * widths[l],ny);
+            } BitSet tmp = nodes;
+            nodes = above;
+            above = tmp;
+        } dirty.clear();
+        parents.clear();
+    }
+    
+    /**
+     * @return number of levels. The top level (levels - 1) is a single node
+     */
+    public int levels() {
+        return or.length;
+    }
+    
+    /**
+     * @param level level
+     * @return side length in cells of the nodes at the level
+     */
+    public int nodeSize(int level) {
+        return 1 << (shift + level);
+    }
+    
+    /**
+     * @param level level
+     * @return nodes along x at the level
+     */
+    public int width(int level) {
+        return widths[level];
+    }
+    
+    /**
+     * @param level level
+     * @return nodes along y at the level
+     */
+    public int height(int level) {
+        return heights[level];
+    }
+    
+    /**
+     * Node lookup for custom traversals (f.ex. quadtree culling). Call refresh first.
+     * @param level level
+     * @param nx node x
+     * @param ny node y
+     * @return bitwise OR of the node
+     */
+    public long nodeOr(int level, int nx, int ny) {
+        return or[level][ny * widths[level] + nx];
+    }
+    
+    /**
+     * Node lookup for custom traversals (f.ex. quadtree culling). Call refresh first.
+     * @param level level
+     * @param nx node x
+     * @param ny node y
+     * @return bitwise AND of the node
+     */
+    public long nodeAnd(int level, int nx, int ny) {
+        return and[level][ny * widths[level] + nx];
+    }
+    
+    /**
+     * Stop observing the source array. Later writes are not reflected unless reported with invalidate
+     */
+    @Override
+    public void dispose() {
+        source.removeWriteListener(listener);
+    }
+    
+    public PrimitiveArray2D source() {
+        return source;
+    }
+    
+    public int rows() {
+        return rows;
+    }
+    
+    public int cols() {
+        return cols;
+    }
+    
+    public int sizeBytes() {
+        int nodes = 0;
+        for (long[] level : or) nodes += level.length;
+        return nodes * 2 * Long.BYTES;
+    }
+    
+    private int top() {
+        return or.length - 1;
+    }
+    
+    private void reduce(int level, int nx, int ny) {
+        final int below = level - 1;
+        final int w = widths[below];
+        final int h = heights[below];
+        long any = 0;
+        long all = -1L;
+        for (int y = ny << 1; y <= Math.min(h - 1,(ny << 1) + 1); y++) {
+            for (int x = nx << 1; x <= Math.min(w - 1,(nx << 1) + 1); x++) {
+                int i = y * w + x;
+                any |= or[below][i];
+                all &= and[below][i];
+            }
+        } int i = ny * widths[level] + nx;
+        or[level][i] = any;
+        and[level][i] = all;
+    }
+    
+    private long or(int level, int nx, int ny, int minX, int minY, int maxX, int maxY, long acc) {
+        long value = or[level][ny * widths[level] + nx];
+        if ((value & ~acc) == 0) return acc;
+        int s = shift + level;
+        int x0 = nx << s;
+        int y0 = ny << s;
+        int x1 = Math.min(cols - 1,x0 + (1 << s) - 1);
+        int y1 = Math.min(rows - 1,y0 + (1 << s) - 1);
+        if (x0 > maxX || x1 < minX || y0 > maxY || y1 < minY) return acc;
+        if (x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY) return acc | value;
+        if (level == 0) {
+            scan = acc;
+            GridCells.readLongs(source,scanOr,Math.max(x0,minX),Math.max(y0,minY),Math.min(x1,maxX),Math.min(y1,maxY));
+            return scan;
+        } int below = level - 1;
+        int cx = nx << 1;
+        int cy = ny << 1;
+        boolean right = cx + 1 < widths[below];
+        boolean up = cy + 1 < heights[below];
+        acc = or(below,cx,cy,minX,minY,maxX,maxY,acc);
+        if (right) acc = or(below,cx + 1,cy,minX,minY,maxX,maxY,acc);
+        if (up) acc = or(below,cx,cy + 1,minX,minY,maxX,maxY,acc);
+        if (right && up) acc = or(below,cx + 1,cy + 1,minX,minY,maxX,maxY,acc);
+        return acc;
+    }
+    
+    private long and(int level, int nx, int ny, int minX, int minY, int maxX, int maxY, long acc) {
+        long value = and[level][ny * widths[level] + nx];
+        if ((acc & ~value) == 0) return acc;
+        int s = shift + level;
+        int x0 = nx << s;
+        int y0 = ny << s;
+        int x1 = Math.min(cols - 1,x0 + (1 << s) - 1);
+        int y1 = Math.min(rows - 1,y0 + (1 << s) - 1);
+        if (x0 > maxX || x1 < minX || y0 > maxY || y1 < minY) return acc;
+        if (x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY) return acc & value;
+        if (level == 0) {
+            scan = acc;
+            GridCells.readLongs(source,scanAnd,Math.max(x0,minX),Math.max(y0,minY),Math.min(x1,maxX),Math.min(y1,maxY));
+            return scan;
+        } int below = level - 1;
+        int cx = nx << 1;
+        int cy = ny << 1;
+        boolean right = cx + 1 < widths[below];
+        boolean up = cy + 1 < heights[below];
+        acc = and(below,cx,cy,minX,minY,maxX,maxY,acc);
+        if (right) acc = and(below,cx + 1,cy,minX,minY,maxX,maxY,acc);
+        if (up) acc = and(below,cx,cy + 1,minX,minY,maxX,maxY,acc);
+        if (right && up) acc = and(below,cx + 1,cy + 1,minX,minY,maxX,maxY,acc);
+        return acc;
+    }
+    
+    private boolean any(int level, int nx, int ny, int minX, int minY, int maxX, int maxY, long mask) {
+        int i = ny * widths[level] + nx;
+        if ((or[level][i] & mask) == 0) return false;
+        int s = shift + level;
+        int x0 = nx << s;
+        int y0 = ny << s;
+        int x1 = Math.min(cols - 1,x0 + (1 << s) - 1);
+        int y1 = Math.min(rows - 1,y0 + (1 << s) - 1);
+        if (x0 > maxX || x1 < minX || y0 > maxY || y1 < minY) return false;
+        // every cell of the node has some of the bits, or the node is inside the area
+        if ((and[level][i] & mask) != 0) return true;
+        if (x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY) return true;
+        if (level == 0) {
+            scan = 0;
+            GridCells.readLongs(source,scanOr,Math.max(x0,minX),Math.max(y0,minY),Math.min(x1,maxX),Math.min(y1,maxY));
+            return (scan & mask) != 0;
+        } int below = level - 1;
+        int cx = nx << 1;
+        int cy = ny << 1;
+        boolean right = cx + 1 < widths[below];
+        boolean up = cy + 1 < heights[below];
+        if (any(below,cx,cy,minX,minY,maxX,maxY,mask)) return true;
+        if (right && any(below,cx + 1,cy,minX,minY,maxX,maxY,mask)) return true;
+        if (up && any(below,cx,cy + 1,minX,minY,maxX,maxY,mask)) return true;
+        return right && up && any(below,cx + 1,cy + 1,minX,minY,maxX,maxY,mask);
+    }
+    
+    private boolean all(int level, int nx, int ny, int minX, int minY, int maxX, int maxY, long mask) {
+        int i = ny * widths[level] + nx;
+        if ((and[level][i] & mask) == mask) return true;
+        int s = shift + level;
+        int x0 = nx << s;
+        int y0 = ny << s;
+        int x1 = Math.min(cols - 1,x0 + (1 << s) - 1);
+        int y1 = Math.min(rows - 1,y0 + (1 << s) - 1);
+        if (x0 > maxX || x1 < minX || y0 > maxY || y1 < minY) return true;
+        // some bit is missing in every cell of the node, or the node is inside the area
+        if ((or[level][i] & mask) != mask) return false;
+        if (x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY) return false;
+        if (level == 0) {
+            scan = -1L;
+            GridCells.readLongs(source,scanAnd,Math.max(x0,minX),Math.max(y0,minY),Math.min(x1,maxX),Math.min(y1,maxY));
+            return (scan & mask) == mask;
+        } int below = level - 1;
+        int cx = nx << 1;
+        int cy = ny << 1;
+        boolean right = cx + 1 < widths[below];
+        boolean up = cy + 1 < heights[below];
+        if (!all(below,cx,cy,minX,minY,maxX,maxY,mask)) return false;
+        if (right && !all(below,cx + 1,cy,minX,minY,maxX,maxY,mask)) return false;
+        if (up && !all(below,cx,cy + 1,minX,minY,maxX,maxY,mask)) return false;
+        return !(right && up) || all(below,cx + 1,cy + 1,minX,minY,maxX,maxY,mask);
+    }
+}
@@ -0,0 +1,403 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Disposable;
+import io.github.heathensoft.common.Utils;
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+/**
+ * Min / max mip pyramid of a numeric 2D array, for hierarchical range queries
+ * ("is any cell in this region above h?", "what is the highest cell in this region?").
+ *
+ * Level 0 holds the min and max of square leaf tiles (power of two). Every level above
+ * halves the resolution, up to a single node covering the whole array.
+ * Queries descend from the top and stop at nodes that are decided by their min / max,
+ * so they only read cells of leaf tiles crossing the query border and undecided by the tile bounds.
+ * Values are stored as double (exact for every type but long values beyond 2^53). NaN values are ignored.
+ *
+ * The pyramid observes the array: it registers its invalidate method as a write listener of the source
+ * (PrimitiveArray2D.addWriteListener), so every write through the array invalidates the written area.
+ * Writes to the underlying array (get()) or buffer are not seen. Report those with array.markDirty (or invalidate).
+ * Dispose to stop observing.
+ * The touched leaf tiles and their ancestors are recomputed lazily on the next query (or refresh).
+ * Invalidated tiles are kept as one bit per leaf tile, so invalidating without querying does not grow.
+ * Not thread safe.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class MinMaxPyramid implements Disposable {
+    
+    private final PrimitiveArray2D source;
+    private final AreaReader listener;
+    private final double[][] min;
+    private final double[][] max;
+    private final int[] widths;
+    private final int[] heights;
+    private final BitSet dirty;     // leaf tiles
+    private final BitSet parents;   // nodes of the level above, while refreshing
+    private final int shift;
+    private final int rows;
+    private final int cols;
+    
+    private final GridCells.DoubleCells leafReader;
+    private final GridCells.DoubleCells scanMin;
+    private final GridCells.DoubleCells scanMax;
+    private double scan;
+    
+    /**
+     * @param source numeric array
+     * @param leafSize leaf tile size in cells. Rounded up to the next power of two
+     */
+    public MinMaxPyramid(PrimitiveArray2D source, int leafSize) {
+        if (leafSize <= 0) throw new IllegalArgumentException("leafSize must be > 0");
+        this.source = source;
+        this.rows = source.rows();
+        this.cols = source.cols();
+        this.shift = Integer.numberOfTrailingZeros(Utils.nextPowerOfTwo(leafSize));
+        int w = ((cols - 1) >> shift) + 1;
+        int h = ((rows - 1) >> shift) + 1;
+        int levels = 1;
+        while (w > 1 || h > 1) {
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+            levels++;
+        } this.min = new double[levels][];
+        this.max = new double[levels][];
+        this.widths = new int[levels];
+        this.heights = new int[levels];
+        w = ((cols - 1) >> shift) + 1;
+        h = ((rows - 1) >> shift) + 1;
+        for (int l = 0; l < levels; l++) {
+            widths[l] = w;
+            heights[l] = h;
+            min[l] = new double[w * h];
+            max[l] = new double[w * h];
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+        } this.dirty = new BitSet(widths[0] * heights[0]);
+        this.parents = new BitSet(widths[0] * heights[0]);
+        this.leafReader = (x, y, value) -> {
+            int i = (y >> shift) * widths[0] + (x >> shift);
+            if (value < min[0][i]) min[0][i] = value;
+            if (value > max[0][i]) max[0][i] = value;
+        };
+        this.scanMin = (x, y, value) -> { if (value < scan) scan = value; };
+        this.scanMax = (x, y, value) -> { if (value > scan) scan = value; };
+        invalidateAll();
+        refresh();
+        this.listener = this::invalidate;
+        source.addWriteListener(listener);
+    }
+    
+    public MinMaxPyramid(PrimitiveArray2D source) {
+        this(source,8);
+    }
+    
+    /**
+     * Max value in the area. min and max values are inclusive and clamped to the array.
+     * @return the max value. Negative infinity if the area is outside the array (or all NaN)
+     */
+    public double max(int minX, int minY, int maxX, int maxY) {
+        return maxAbove(Double.NEGATIVE_INFINITY,minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * Min value in the area. min and max values are inclusive and clamped to the array.
+     * @return the min value. Positive infinity if the area is outside the array (or all NaN)
+     */
+    public double min(int minX, int minY, int maxX, int maxY) {
+        return minBelow(Double.POSITIVE_INFINITY,minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * @return max value of the array
+     */
+    public double max() {
+        refresh();
+        return max[top()][0];
+    }
+    
+    /**
+     * @return min value of the array
+     */
+    public double min() {
+        refresh();
+        return min[top()][0];
+    }
+    
+    /**
+     * @return true if any cell in the area (clamped) is greater than the value
+     */
+    public boolean anyAbove(double value, int minX, int minY, int maxX, int maxY) {
+        return maxAbove(value,minX,minY,maxX,maxY) > value;
+    }
+    
+    /**
+     * @return true if any cell in the area (clamped) is less than the value
+     */
+    public boolean anyBelow(double value, int minX, int minY, int maxX, int maxY) {
+        return minBelow(value,minX,minY,maxX,maxY) < value;
+    }
+    
+    /**
+     * @return true if every cell in the area (clamped) is within [lo,hi]. True for empty areas
+     */
+    public boolean allWithin(double lo, double hi, int minX, int minY, int maxX, int maxY) {
+        return !anyBelow(lo,minX,minY,maxX,maxY) && !anyAbove(hi,minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * Report a modified area of the source array. min and max values are inclusive.
+     * Signature matches AreaReader.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void invalidate(int minX, int minY, int maxX, int maxY) {
+        int x0 = Math.max(0,Math.min(minX,maxX));
+        int y0 = Math.max(0,Math.min(minY,maxY));
+        int x1 = Math.min(cols-1,Math.max(minX,maxX));
+        int y1 = Math.min(rows-1,Math.max(minY,maxY));
+        if (x0 > x1 || y0 > y1) return;
+        final int w = widths[0];
+        for (int ty = y0 >> shift; ty <= y1 >> shift; ty++) {
+            dirty.set(ty * w + (x0 >> shift),ty * w + (x1 >> shift) + 1);
+        }
+    }
+    
+    public void invalidateAll() {
+        invalidate(0,0,cols-1,rows-1);
+    }
+    
+    public boolean isValid() {
+        return dirty.isEmpty();
+    }
+    
+    /**
+     * Recompute the invalidated leaf tiles and their ancestors. Called by the queries.
+     */
+    public void refresh() {
+        if (dirty.isEmpty()) return;
+        final int w0 = widths[0];
+        // leaf tiles, one area per run of dirty tiles in a tile row
+        for (int i = dirty.nextSetBit(0); i >= 0; ) {
+            int ty = i / w0;
+            int end = Math.min(dirty.nextClearBit(i),(ty + 1) * w0);
+            for (int t = i; t < end; t++) {
+                min[0][t] = Double.POSITIVE_INFINITY;
+                max[0][t] = Double.NEGATIVE_INFINITY;
+            } int tx0 = i - ty * w0;
+            int tx1 = end - 1 - ty * w0;
+            GridCells.readDoubles(source,leafReader,tx0 << shift,ty << shift,
+            Math.min(cols,(tx1 + 1) << shift) - 1,Math.min(rows,(ty + 1) << shift) - 1);
+            i = dirty.nextSetBit(end);
+        } // ancestors, level by level
+        BitSet nodes = dirty;
+        BitSet above = parents;
+        for (int l = 1; l < min.length; l++) {
+            final int w = widths[l - 1];
+            above.clear();
+            for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+                int ny = i / w;
+                above.set((ny >> 1) * widths[l] + ((i - ny * w) >> 1));
+            } for (int i = above.nextSetBit(0); i >= 0; i = above.nextSetBit(i + 1)) {
+                int ny = i / widths[l];
+                reduce(l,i - ny * widths[l],ny);
+            } BitSet tmp = nodes;
+            nodes = above;
+            above = tmp;
+        } dirty.clear();
+        parents.clear();
+    }
+    
+    /**
+     * @return number of levels. The top level (levels - 1) is a single node
+     */
+    public int levels() {
+        return min.length;
+    }
+    
+    /**
+     * @param level level
+     * @return side length in cells of the nodes at the level
+     */
+    public int nodeSize(int level) {
+        return 1 << (shift + level);
+    }
+    
+    /**
+     * @param level level
+     * @return nodes along x at the level
+     */
+    public int width(int level) {
+        return widths[level];
+    }
+    
+    /**
+     * @param level level
+     * @return nodes along y at the level
+     */
+    public int height(int level) {
+        return heights[level];
+    }
+    
+    /**
+     * Node lookup for custom traversals (f.ex. quadtree culling). Call refresh first.
+     * @param level level
+     * @param nx node x
+     * @param ny node y
+     * @return min value of the node
+     */
+    public double nodeMin(int level, int nx, int ny) {
+        return min[level][ny * widths[level] + nx];
+    }
+    
+    /**
+     * Node lookup for custom traversals (f.ex. quadtree culling). Call refresh first.
+     * @param level level
+     * @param nx node x
+     * @param ny node y
+     * @return max value of the node
+     */
+    public double nodeMax(int level, int nx, int ny) {
+        return max[level][ny * widths[level] + nx];
+    }
+    
+    /**
+     * Stop observing the source array. Later writes are not reflected unless reported with invalidate
+     */
+    @Override
+    public void dispose() {
+        source.removeWriteListener(listener);
+    }
+    
+    public PrimitiveArray2D source() {
+        return source;
+    }
+    
+    public int rows() {
+        return rows;
+    }
+    
+    public int cols() {
+        return cols;
+    }
+    
+    public int sizeBytes() {
+        int nodes = 0;
+        for (double[] level : min) nodes += level.length;
+        return nodes * 2 * Double.BYTES;
+    }
+    
+    private int top() {
+        return min.length - 1;
+    }
+    
+    private double maxAbove(double floor, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return Double.NEGATIVE_INFINITY;
+        refresh();
+        return max(top(),0,0,minX,minY,maxX,maxY,floor);
+    }
+    
+    private double minBelow(double ceiling, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return Double.POSITIVE_INFINITY;
+        refresh();
+        return min(top(),0,0,minX,minY,maxX,maxY,ceiling);
+    }
+    
+    private void reduce(int level, int nx, int ny) {
+        final int below = level - 1;
+        final int w = widths[below];
+        final int h = heights[below];
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (int y = ny << 1; y <= Math.min(h - 1,(ny << 1) + 1); y++) {
+            for (int x = nx << 1; x <= Math.min(w - 1,(nx << 1) + 1); x++) {
+                int i = y * w + x;
+                lo = Math.min(lo,min[below][i]);
+                hi = Math.max(hi,max[below][i]);
+            }
+        } int i = ny * widths[level] + nx;
+        min[level][i] = lo;
+        max[level][i] = hi;
+    }
+    
+    private double max(int level, int nx, int ny, int minX, int minY, int maxX, int maxY, double best) {
+        double value = max[level][ny * widths[level] + nx];
+        if (value <= best) return best;
+        int s = shift + level;
+        int x0 = nx << s;
+        int y0 = ny << s;
+        int x1 = Math.min(cols - 1,x0 + (1 << s) - 1);
+        int y1 = Math.min(rows - 1,y0 + (1 << s) - 1);
+        if (x0 > maxX || x1 < minX || y0 > maxY || y1 < minY) return best;
+        if (x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY) return value;
+        if (level == 0) {
+            scan = best;
+            GridCells.readDoubles(source,scanMax,Math.max(x0,minX),Math.max(y0,minY),Math.min(x1,maxX),Math.min(y1,maxY));
+            return scan;
+        } int below = level - 1;
+        int cx = nx << 1;
+        int cy = ny << 1;
+        boolean right = cx + 1 < widths[below];
+        boolean up = cy + 1 < heights[below];
+        best = max(below,cx,cy,minX,minY,maxX,maxY,best);
+        if (right) best = max(below,cx + 1,cy,minX,minY,maxX,maxY,best);
+        if (up) best = max(below,cx,cy + 1,minX,minY,maxX,maxY,best);
+        if (right && up) best = max(below,cx + 1,cy + 1,minX,minY,maxX,maxY,best);
+        return best;
+    }
+    
+    private double min(int level, int nx, int ny, int minX, int minY, int maxX, int maxY, double best) {
+        double value = min[level][ny * widths[level] + nx];
+        if (value >= best) return best;
+        int s = shift + level;
+        int x0 = nx << s;
+        int y0 = ny << s;
+        int x1 = Math.min(cols - 1,x0 + (1 << s) - 1);
+        int y1 = Math.min(rows - 1,y0 + (1 << s) - 1);
+        if (x0 > maxX || x1 < minX || y0 > maxY || y1 < minY) return best;
+        if (x0 >= minX && x1 <= maxX && y0 >= minY && y1 <= maxY) return value;
+        if (level == 0) {
+            scan = best;
+            GridCells.readDoubles(source,scanMin,Math.max(x0,minX),Math.max(y0,minY),Math.min(x1,maxX),Math.min(y1,maxY));
+            return scan;
+        } int below = level - 1;
+        int cx = nx << 1;
+        int cy = ny << 1;
+        boolean right = cx + 1 < widths[below];
+        boolean up = cy + 1 < heights[below];
+        best = min(below,cx,cy,minX,minY,maxX,maxY,best);
+        if (right) best = min(below,cx + 1,cy,minX,minY,maxX,maxY,best);
+        if (up) best = min(below,cx,cy + 1,minX,minY,maxX,maxY,best);
+        if (right && up) best = min(below,cx + 1,cy + 1,minX,minY,maxX,maxY,best);
+        return best;
+    }
+}
@@ -0,0 +1,696 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Disposable;
+import io.github.heathensoft.storage.primitive.iterators.ByteReader;
+import io.github.heathensoft.storage.primitive.iterators.ByteReader2D;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Off-heap counterpart of ByteArray2D.
+ *
+ * Values are stored row by row in a single block of native memory (index = x + y * cols),
+ * allocated on construction and released with dispose(). The array is not usable after dispose.
+ *
+ * The backing buffer can be passed directly to native code (texture upload etc.) or a FileChannel
+ * without intermediate copies. Reading and writing follows the same rules as ByteArray2D,
+ * including the current WriteFunction.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class NativeByteArray2D extends PrimitiveArray2D implements ReadableByte2D, Disposable {
+    
+    private ByteBuffer data;
+    
+    /**
+     * Allocates rows * cols zero-initialized values
+     * @param rows rows
+     * @param cols cols
+     */
+    public NativeByteArray2D(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("rows and cols must be > 0");
+        this.data = MemoryUtil.memCalloc(rows * cols);
+        this.rows = rows;
+        this.cols = cols;
+    }
+    
+    /**
+     * Allocates a native copy of the array
+     * @param array2D heap array
+     */
+    public NativeByteArray2D(ByteArray2D array2D) {
+        this(array2D.rows(),array2D.cols());
+        byte[][] grid = array2D.get();
+        for (int r = 0; r < rows; r++) data.put(r * cols, grid[r], 0, cols);
+    }
+    
+    @Override
+    public int sizeBytes() {
+        return size() * Byte.BYTES;
+    }
+    
+    /**
+     * Iterates through all values in order row by row: 0 -> num cols
+     * @param itr iterator
+     */
+    @Override
+    public void read(ByteReader itr) {
+        final int size = size();
+        for (int i = 0; i < size; i++) {
+            itr.next(data.get(i));
+        }
+    }
+    /**
+     * Iterates through all values in order row by row: 0 -> num cols
+     * @param itr iterator
+     */
+    @Override
+    public void read(ByteReader2D itr) {
+        for (int r = 0; r < rows; r++) {
+            final int row = r * cols;
+            for (int c = 0; c < cols; c++) {
+                itr.next(c,r,data.get(row + c));
+            }
+        }
+    }
+    /**
+     * Iterates through given row
+     * @param itr iterator
+     * @param row row
+     */
+    @Override
+    public void readRow(ByteReader itr, int row) {
+        if (hasRow(row)) {
+            final int offset = row * cols;
+            for (int c = 0; c < cols; c++) {
+                itr.next(data.get(offset + c));
+            }
+        }
+    }
+    /**
+     * Iterates through given colon
+     * @param itr iterator
+     * @param col col
+     */
+    @Override
+    public void readCol(ByteReader itr, int col) {
+        if (hasCol(col)) {
+            for (int r = 0; r < rows; r++) {
+                itr.next(data.get(col + r * cols));
+            }
+        }
+    }
+    
+    /**
+     * Iterate a rectangular portion of array values given by
+     * "min / max" coordinates. Does not matter if min > max. Still a rectangle.
+     * @param itr iterator
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    @Override
+    public void readArea(ByteReader itr, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        for (int r = minY; r <= maxY; r++) {
+            final int row = r * cols;
+            for (int c = minX; c <= maxX; c++) {
+                itr.next(data.get(row + c));
+            }
+        }
+    }
+    /**
+     * Iterate a rectangular portion of array values given by
+     * "min / max" coordinates. Does not matter if min > max. Still a rectangle.
+     * @param itr iterator
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    @Override
+    public void readArea(ByteReader2D itr, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        for (int r = minY; r <= maxY; r++) {
+            final int row = r * cols;
+            for (int c = minX; c <= maxX; c++) {
+                itr.next(c,r,data.get(row + c));
+            }
+        }
+    }
+    
+    /**
+     * Writes values stored in buffer to a subregion of the array.
+     * Notes:
+     * Buffer must be in read mode (flipped).
+     * values are "consumed" (buffer position is advanced)
+     * buffer.remaining() must be >= area of subregion,
+     * otherwise, a RuntimeException is thrown and nothing is written.
+     * both min and max values are inclusive!
+     * @param buffer buffer
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void write(ByteBuffer buffer, int minX, int minY, int maxX, int maxY)  {
+        if (buffer == null) throw new IllegalArgumentException("buffer == null");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        int size = width * height;
+        if (buffer.remaining() < size)
+            throw new RuntimeException("buffer remaining won't cover area(width:"+width+",height:"+height+")");
+        onWrite(minX,minY,maxX,maxY);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int r = minY; r <= maxY; r++) {
+                data.put(minX + r * cols, buffer, buffer.position(), width);
+                buffer.position(buffer.position() + width);
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, func.calc(data.get(row + c),buffer.get()));
+                }
+            }
+        }
+    }
+    /**
+     * Writes values stored in buffer to the array (row by row).
+     * Notes:
+     * Buffer must be in read mode (flipped).
+     * values are "consumed" (buffer position is advanced)
+     * buffer.remaining() must be >= array.size(),
+     * otherwise, a RuntimeException is thrown and nothing is written.
+     * @param buffer buffer
+     */
+    public void write(ByteBuffer buffer)  {
+        if (buffer == null) throw new IllegalArgumentException("buffer == null");
+        final int size = size();
+        if (buffer.remaining() < size)
+            throw new RuntimeException("buffer remaining won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(0,0,cols-1,rows-1);
+        if (writeFunction == WriteFunction.EQU) {
+            data.put(0, buffer, buffer.position(), size);
+            buffer.position(buffer.position() + size);
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int i = 0; i < size; i++) {
+                data.put(i, func.calc(data.get(i),buffer.get()));
+            }
+        }
+    }
+    
+    /**
+     * Writes values to a subregion of the array specified by
+     * the min and max values (inclusive). Values are consumed row by row.
+     * values.size() must be >= area of subregion, otherwise a RuntimeException is thrown
+     * and nothing is written.
+     * @param values values
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void write(ByteQueue values, int minX, int minY, int maxX, int maxY) {
+        if (values == null) throw new IllegalArgumentException("values == null");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        if (values.size() < width * height)
+            throw new RuntimeException("queue size won't cover area(width:"+width+",height:"+height+")");
+        onWrite(minX,minY,maxX,maxY);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, values.dequeue());
+                }
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, func.calc(data.get(row + c),values.dequeue()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes values to cover the entire area of the array.
+     * values.size() must be >= this area, otherwise a RuntimeException is thrown
+     * and nothing is written.
+     * @param values values
+     */
+    public void write(ByteQueue values) {
+        if (values == null) throw new IllegalArgumentException("values == null");
+        final int size = size();
+        if (values.size() < size)
+            throw new RuntimeException("queue size won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(0,0,cols-1,rows-1);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int i = 0; i < size; i++) data.put(i, values.dequeue());
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int i = 0; i < size; i++) {
+                data.put(i, func.calc(data.get(i),values.dequeue()));
+            }
+        }
+    }
+    
+    /**
+     * Writes values to a subregion of the array specified by
+     * the min and max values (inclusive). Values are consumed row by row.
+     * values.size() must be >= area of subregion, otherwise a RuntimeException is thrown
+     * and nothing is written.
+     * @param values values
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void write(ByteStack values, int minX, int minY, int maxX, int maxY) {
+        if (values == null) throw new IllegalArgumentException("values == null");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        if (values.size() < width * height)
+            throw new RuntimeException("stack size won't cover area(width:"+width+",height:"+height+")");
+        onWrite(minX,minY,maxX,maxY);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, values.pop());
+                }
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, func.calc(data.get(row + c),values.pop()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes values to cover the entire area of the array.
+     * values.size() must be >= this area, otherwise a RuntimeException is thrown
+     * and nothing is written.
+     * @param values values
+     */
+    public void write(ByteStack values) {
+        if (values == null) throw new IllegalArgumentException("values == null");
+        final int size = size();
+        if (values.size() < size)
+            throw new RuntimeException("stack size won't cover area(width:"+cols+",height:"+rows+")");
+        onWrite(0,0,cols-1,rows-1);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int i = 0; i < size; i++) data.put(i, values.pop());
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int i = 0; i < size; i++) {
+                data.put(i, func.calc(data.get(i),values.pop()));
+            }
+        }
+    }
+    
+    /**
+     * Write value argument to provided array coordinates stored as value-pairs in the queue argument.
+     * Points outside of bounds will be ignored. Queue elements are consumed. The queue argument size must be dividable by 2.
+     * @param points coordinate value-pairs
+     * @param value value written to array
+     */
+    public void write(IntQueue points, byte value) {
+        if (points == null) throw new IllegalArgumentException("points == null");
+        if ((points.size() & 1) == 1)
+            throw new RuntimeException("queue size not dividable by 2");
+        if (writeFunction == WriteFunction.EQU) {
+            while (!points.isEmpty()) {
+                int x = points.dequeue();
+                int y = points.dequeue();
+                if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
+                    final int i = x + y * cols;
+                    data.put(i, value);
+                }
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            while (!points.isEmpty()) {
+                int x = points.dequeue();
+                int y = points.dequeue();
+                if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
+                    final int i = x + y * cols;
+                    data.put(i, func.calc(data.get(i),value));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write value argument to provided array coordinates stored as value-pairs in the queue argument.
+     * Queue elements are consumed. The queue argument size must be dividable by 2.
+     * @param points coordinate value-pairs
+     * @param value value written to array
+     */
+    public void writeUnchecked(IntQueue points, byte value) {
+        if (points == null) throw new IllegalArgumentException("points == null");
+        if ((points.size() & 1) == 1)
+            throw new RuntimeException("queue size not dividable by 2");
+        if (writeFunction == WriteFunction.EQU) {
+            while (!points.isEmpty()) {
+                int x = points.dequeue();
+                int y = points.dequeue();
+                onWrite(x,y);
+                final int i = x + y * cols;
+                data.put(i, value);
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            while (!points.isEmpty()) {
+                int x = points.dequeue();
+                int y = points.dequeue();
+                onWrite(x,y);
+                final int i = x + y * cols;
+                data.put(i, func.calc(data.get(i),value));
+            }
+        }
+    }
+    
+    /**
+     * Write value argument to provided array coordinates stored as value-pairs in the stack argument.
+     * Points outside of bounds will be ignored. Stack elements are consumed. The stack argument size must be dividable by 2.
+     * @param points coordinate value-pairs
+     * @param value value written to array
+     */
+    public void write(IntStack points, byte value) {
+        if (points == null) throw new IllegalArgumentException("points == null");
+        if ((points.size() & 1) == 1)
+            throw new RuntimeException("stack size not dividable by 2");
+        if (writeFunction == WriteFunction.EQU) {
+            while (!points.isEmpty()) {
+                int x = points.pop();
+                int y = points.pop();
+                if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
+                    final int i = x + y * cols;
+                    data.put(i, value);
+                }
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            while (!points.isEmpty()) {
+                int x = points.pop();
+                int y = points.pop();
+                if (hasRow(y) && hasCol(x)) {
+                    onWrite(x,y);
+                    final int i = x + y * cols;
+                    data.put(i, func.calc(data.get(i),value));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write value argument to provided array coordinates stored as value-pairs in the stack argument.
+     * Stack elements are consumed. The stack argument size must be dividable by 2.
+     * @param points coordinate value-pairs
+     * @param value value written to array
+     */
+    public void writeUnchecked(IntStack points, byte value) {
+        if (points == null) throw new IllegalArgumentException("points == null");
+        if ((points.size() & 1) == 1)
+            throw new RuntimeException("stack size not dividable by 2");
+        if (writeFunction == WriteFunction.EQU) {
+            while (!points.isEmpty()) {
+                int x = points.pop();
+                int y = points.pop();
+                onWrite(x,y);
+                final int i = x + y * cols;
+                data.put(i, value);
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            while (!points.isEmpty()) {
+                int x = points.pop();
+                int y = points.pop();
+                onWrite(x,y);
+                final int i = x + y * cols;
+                data.put(i, func.calc(data.get(i),value));
+            }
+        }
+    }
+    
+    /**
+     * Write array values to this. Arrays must be of same dimensions.
+     * @param from source array
+     */
+    public void write(ByteArray2D from) {
+        if (!sameDimension(from)) throw new RuntimeException("array is either null or not of same size as the write target array");
+        byte[][] grid = from.get();
+        onWrite(0,0,cols-1,rows-1);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int r = 0; r < rows; r++) data.put(r * cols, grid[r], 0, cols);
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int r = 0; r < rows; r++) {
+                final int row = r * cols;
+                final byte[] src = grid[r];
+                for (int c = 0; c < cols; c++) {
+                    data.put(row + c, func.calc(data.get(row + c),src[c]));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write array values to a subregion of this. Arrays must be of same dimensions.
+     * min and max values are inclusive and forms the area to write.
+     * @param from source array
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void write(ByteArray2D from, int minX, int minY, int maxX, int maxY) {
+        if (!sameDimension(from)) throw new RuntimeException("array is either null or not of same size as the write target array");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        final int width = maxX - minX + 1;
+        byte[][] grid = from.get();
+        onWrite(minX,minY,maxX,maxY);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int r = minY; r <= maxY; r++) data.put(minX + r * cols, grid[r], minX, width);
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                final byte[] src = grid[r];
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, func.calc(data.get(row + c),src[c]));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies the values of this to the heap array. Arrays must be of same dimensions.
+     * The WriteFunction of this is ignored.
+     * @param to destination array
+     */
+    public void copyTo(ByteArray2D to) {
+        if (!sameDimension(to)) throw new RuntimeException("array is either null or not of same size as the destination array");
+        byte[][] grid = to.get();
+        for (int r = 0; r < rows; r++) data.get(r * cols, grid[r], 0, cols);
+    }
+    
+    /**
+     * Write value to all.
+     * min and max values are inclusive and forms the area to write.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void write(byte value, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        onWrite(minX,minY,maxX,maxY);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++)
+                    data.put(row + c, value);
+            }
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int r = minY; r <= maxY; r++) {
+                final int row = r * cols;
+                for (int c = minX; c <= maxX; c++) {
+                    data.put(row + c, func.calc(data.get(row + c),value));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write value to all.
+     * @param value value
+     */
+    public void write(byte value) {
+        final int size = size();
+        onWrite(0,0,cols-1,rows-1);
+        if (writeFunction == WriteFunction.EQU) {
+            for (int i = 0; i < size; i++) data.put(i, value);
+        } else { WriteFunction.ByteFunc func = writeFunction.byteFunc;
+            for (int i = 0; i < size; i++) {
+                data.put(i, func.calc(data.get(i),value));
+            }
+        }
+    }
+    
+    /**
+     * Write value to coordinate. unchecked.
+     * @param value value
+     * @param x p.x
+     * @param y p.y
+     */
+    public void write(byte value, int x, int y) {
+        onWrite(x,y);
+        final int i = x + y * cols;
+        if (writeFunction == WriteFunction.EQU) data.put(i, value);
+        else data.put(i, writeFunction.byteFunc.calc(data.get(i),value));
+    }
+    
+    /**
+     * Set value of array coordinate to value. unchecked.
+     * Equivalent to single write with WriteFunction.EQU. Only this is faster.
+     * @param value value
+     * @param x p.x
+     * @param y p.y
+     */
+    public void set(byte value, int x, int y) {
+        onWrite(x,y);
+        data.put(x + y * cols, value);
+    }
+    
+    /**
+     * Get value stored in array at p( row = y, col = x) unchecked;
+     * @param x p.x
+     * @param y p.y
+     * @return value
+     */
+    public byte get(int x, int y) {
+        return data.get(x + y * cols);
+    }
+    
+    @Override
+    long bits(int x, int y) {
+        return get(x,y) & 0xFF;
+    }
+    
+    @Override
+    void setBits(long bits, int x, int y) {
+        set((byte) bits,x,y);
+    }
+    
+    /**
+     * The backing buffer. Position 0, limit size(). Do not free it or keep it past dispose().
+     * Use buffer.duplicate() if you need to change position / limit.
+     * @return the backing native buffer
+     */
+    public ByteBuffer buffer() {
+        return data;
+    }
+    
+    /**
+     * @return address of the first value in native memory
+     */
+    public long address() {
+        return MemoryUtil.memAddress(data);
+    }
+    
+    @Override
+    public void dispose() {
+        if (data != null) {
+            MemoryUtil.memFree(data);
+            data = null;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package io.github.heathensoft.storage.primitive;
 
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Frederik Dahl
  * 31/05/2022
@@ -9,6 +13,16 @@ package io.github.heathensoft.storage.primitive;
 public abstract class PrimitiveArray2D {
     
     protected WriteFunction writeFunction = WriteFunction.EQU;
+    protected DirtyRegions dirtyRegions;
+    protected EditJournal journal;
+    
+    private AreaReader[] writeListeners = new AreaReader[0];
+    private AtomicInteger liveSnapshots;
+    private RowDetacher detacher;
+    private long[] detachedAt; // version of the last snapshot the row was detached from
+    private boolean sharing;
+    private boolean tableShared;
+    private long version;
     
     protected int rows;
     protected int cols;
@@ -49,12 +63,217 @@ public abstract class PrimitiveArray2D {
         return writeFunction;
     }
     
+    /**
+     * Start tracking modified areas. Every write (and set) through the array marks the tiles it touches.
+     * Writes to the underlying array (get()) or buffer are not tracked. Use markDirty for those.
+     * @param tileSize tile size in cells (rounded up to a power of two)
+     */
+    public void enableDirtyTracking(int tileSize) {
+        dirtyRegions = new DirtyRegions(rows,cols,tileSize);
+    }
+    
+    public void disableDirtyTracking() {
+        dirtyRegions = null;
+    }
+    
+    public boolean isTrackingDirty() {
+        return dirtyRegions != null;
+    }
+    
+    /**
+     * @return the dirty regions of the array. null if tracking is disabled
+     */
+    public DirtyRegions dirtyRegions() {
+        return dirtyRegions;
+    }
+    
+    /**
+     * Mark an area as modified. For writes not going through the array methods.
+     * Marks the dirty regions (if tracking) and notifies the write listeners. min and max values are inclusive.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void markDirty(int minX, int minY, int maxX, int maxY) {
+        if (dirtyRegions != null) dirtyRegions.mark(minX,minY,maxX,maxY);
+        for (AreaReader listener : writeListeners) listener.next(minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * Passes the merged modified areas since the last drain to the reader, and clears them.
+     * Does nothing if tracking is disabled.
+     * @param reader receives the areas (inclusive)
+     */
+    public void drainDirty(AreaReader reader) {
+        if (dirtyRegions != null) dirtyRegions.drain(reader);
+    }
+    
+    /**
+     * Start recording edits for undo / redo. Only writes inside a transaction
+     * (journal.begin() - journal.commit()) are recorded.
+     * @param tileSize capture granularity of area writes in cells (rounded up to a power of two)
+     * @param maxBytes history memory cap. The oldest steps are evicted first
+     * @return the journal
+     */
+    public EditJournal enableJournal(int tileSize, long maxBytes) {
+        journal = new EditJournal(this,tileSize,maxBytes);
+        return journal;
+    }
+    
+    public void disableJournal() {
+        journal = null;
+    }
+    
+    /**
+     * @return the edit journal of the array. null if disabled
+     */
+    public EditJournal journal() {
+        return journal;
+    }
+    
+    /**
+     * Register a listener notified of every area written through the array (and of markDirty), before the write.
+     * Structures derived from the array (SummedAreaTable, MinMaxPyramid ..) register their invalidate method.
+     * Unlike draining the dirty regions, every listener sees every write.
+     * @param listener receives the written areas (inclusive, within bounds except for markDirty)
+     */
+    public void addWriteListener(AreaReader listener) {
+        if (listener == null) throw new IllegalArgumentException("listener is null");
+        AreaReader[] listeners = new AreaReader[writeListeners.length + 1];
+        System.arraycopy(writeListeners,0,listeners,0,writeListeners.length);
+        listeners[writeListeners.length] = listener;
+        writeListeners = listeners;
+    }
+    
+    /**
+     * @param listener a registered listener
+     * @return true if the listener was registered
+     */
+    public boolean removeWriteListener(AreaReader listener) {
+        for (int i = 0; i < writeListeners.length; i++) {
+            if (writeListeners[i] == listener) {
+                AreaReader[] listeners = new AreaReader[writeListeners.length - 1];
+                System.arraycopy(writeListeners,0,listeners,0,i);
+                System.arraycopy(writeListeners,i + 1,listeners,i,listeners.length - i);
+                writeListeners = listeners;
+                return true;
+            }
+        } return false;
+    }
+    
+    /**
+     * Called by the array before writing to an area. min and max values are inclusive and within bounds.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    protected void onWrite(int minX, int minY, int maxX, int maxY) {
+        if (journal != null) journal.record(minX,minY,maxX,maxY);
+        if (sharing) detachRows(minY,maxY);
+        if (dirtyRegions != null) dirtyRegions.mark(minX,minY,maxX,maxY);
+        for (AreaReader listener : writeListeners) listener.next(minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * Called by the array before writing to a single cell (within bounds).
+     * @param x p.x
+     * @param y p.y
+     */
+    protected void onWrite(int x, int y) {
+        if (journal != null) journal.record(x,y);
+        if (sharing) detachRows(y,y);
+        if (dirtyRegions != null) dirtyRegions.mark(x,y);
+        for (AreaReader listener : writeListeners) listener.next(x,y,x,y);
+    }
+    
+    /**
+     * Raw bits of a cell, zero-extended (float and double by their raw bits). Unchecked.
+     * Used by the journal and GridCodec.
+     * @param x p.x
+     * @param y p.y
+     * @return the bits of the value
+     */
+    abstract long bits(int x, int y);
+    
+    /**
+     * Set a cell from raw bits (see bits). Goes through the write hooks. Unchecked.
+     * @param bits the bits of the value
+     * @param x p.x
+     * @param y p.y
+     */
+    abstract void setBits(long bits, int x, int y);
+    
+    /**
+     * @return number of snapshots taken of this array
+     */
+    public long version() {
+        return version;
+    }
+    
+    /**
+     * @return number of snapshots not yet disposed
+     */
+    public int liveSnapshots() {
+        return liveSnapshots == null ? 0 : liveSnapshots.get();
+    }
+    
+    /**
+     * Copy-on-write of arrays sharing their rows with snapshots. See shareRows.
+     */
+    @FunctionalInterface
+    protected interface RowDetacher {
+        /**
+         * Replace the row with a private copy before it is written to.
+         * @param row row shared with a snapshot
+         * @param copyTable true for the first row detached after a snapshot. The snapshot holds the row table
+         *                  of the array, so the table must be replaced with a copy before the row is replaced in it.
+         */
+        void detach(int row, boolean copyTable);
+    }
+    
+    /**
+     * Called when taking a snapshot, in O(1). Every row (and the row table) is shared with the snapshot
+     * until it is written to. The snapshot must decrement the returned counter once, when it is disposed.
+     * @param detacher replaces shared rows before they are written to
+     * @return the counter of live snapshots
+     */
+    protected AtomicInteger shareRows(RowDetacher detacher) {
+        if (liveSnapshots == null) {
+            liveSnapshots = new AtomicInteger();
+            detachedAt = new long[rows];
+        } this.detacher = detacher;
+        liveSnapshots.incrementAndGet();
+        version++;
+        sharing = true;
+        tableShared = true;
+        return liveSnapshots;
+    }
+    
+    private void detachRows(int minY, int maxY) {
+        if (liveSnapshots.get() == 0) {
+            // all snapshots released. Nothing is shared anymore
+            sharing = false;
+        } else {
+            minY = Math.max(0,minY);
+            maxY = Math.min(rows-1,maxY);
+            for (int r = minY; r <= maxY; r++) {
+                if (detachedAt[r] != version) {
+                    detacher.detach(r,tableShared);
+                    detachedAt[r] = version;
+                    tableShared = false;
+                }
+            }
+        }
+    }
+    
     protected boolean hasRow(int row) {
         return (row >= 0 && row < rows);
     }
     
     protected boolean hasCol(int col) {
-        return (col >= 0 && col < rows);
+        return (col >= 0 && col < cols);
     }
     
     protected boolean sameDimension(PrimitiveArray2D other) {
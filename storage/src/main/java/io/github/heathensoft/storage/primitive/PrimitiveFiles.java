@@ -0,0 +1,514 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary files for the primitive grids, IntBag, IntStack and BitSet.
+ *
+ * Layout: 32 byte header followed by the raw values, row by row.
+ *
+ * 0  int   magic
+ * 4  short version
+ * 6  byte  element type (1 byte ... 7 double)
+ * 7  byte  container kind (grid, bag, stack, bitset)
+ * 8  byte  flags (bit 0: payload is big endian)
+ * 12 int   rows (1 for bags, stacks and bitsets)
+ * 16 int   cols (number of values for bags, stacks and bitsets)
+ * 20 int   CRC32 of the payload
+ * 24 long  payload bytes
+ *
+ * The header is little endian, the payload is in native byte order.
+ * Writes go through a FileChannel: rows are packed into a few direct blocks that are
+ * written with one gathering write. Loads memory-map the file: map() wraps the mapped payload,
+ * the load methods verify the checksum and bulk-copy it into a new container.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public final class PrimitiveFiles {
+    
+    public static final int MAGIC = 0x46505348; // "HSPF"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    
+    public static final byte BYTE = 1, SHORT = 2, CHAR = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7;
+    public static final byte GRID = 1, BAG = 2, STACK = 3, BITSET = 4;
+    
+    private static final byte FLAG_BIG_ENDIAN = 1;
+    private static final int BLOCK_BYTES = 1 << 18;
+    private static final int GATHER_BLOCKS = 16;
+    
+    private PrimitiveFiles() { }
+    
+    /**
+     * Memory-maps a file written by this class. The payload is not verified, see Mapped.verify().
+     * @param path file
+     * @return mapped file
+     * @throws IOException if the file can not be read or is not a valid file
+     */
+    public static Mapped map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) throw new IOException("not a primitive file: " + path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,0,size);
+            return new Mapped(path,buffer);
+        }
+    }
+    
+    public static void write(Path path, IntBag bag) throws IOException {
+        final int[] data = bag.data();
+        final int size = bag.size();
+        writeValues(path,INT,BAG,size,Integer.BYTES,(dst, from, to) -> {
+            dst.asIntBuffer().put(data,from,to - from);
+            dst.position(dst.position() + (to - from) * Integer.BYTES);
+        });
+    }
+    
+    public static void write(Path path, IntStack stack) throws IOException {
+        final int[] data = stack.array();
+        final int size = stack.size();
+        writeValues(path,INT,STACK,size,Integer.BYTES,(dst, from, to) -> {
+            dst.asIntBuffer().put(data,from,to - from);
+            dst.position(dst.position() + (to - from) * Integer.BYTES);
+        });
+    }
+    
+    public static void write(Path path, BitSet bits) throws IOException {
+        final long[] words = bits.getWords();
+        final int size = bits.wordsInUse();
+        writeValues(path,LONG,BITSET,size,Long.BYTES,(dst, from, to) -> {
+            dst.asLongBuffer().put(words,from,to - from);
+            dst.position(dst.position() + (to - from) * Long.BYTES);
+        });
+    }
+    
+    public static IntBag loadIntBag(Path path) throws IOException {
+        Mapped mapped = map(path).require(INT,BAG);
+        IntBag bag = new IntBag(mapped.cols);
+        mapped.asIntBuffer().get(bag.data(),0,mapped.cols);
+        bag.setSize(mapped.cols);
+        return bag;
+    }
+    
+    public static IntStack loadIntStack(Path path) throws IOException {
+        Mapped mapped = map(path).require(INT,STACK);
+        int[] values = new int[mapped.cols];
+        mapped.asIntBuffer().get(values);
+        return new IntStack(values,values.length);
+    }
+    
+    public static BitSet loadBitSet(Path path) throws IOException {
+        Mapped mapped = map(path).require(LONG,BITSET);
+        BitSet bits = new BitSet(Math.max(1,mapped.cols * 64));
+        mapped.asLongBuffer().get(bits.getWords(),0,mapped.cols);
+        bits.recalculateWordsInUse();
+        return bits;
+    }
+    
+    // byte *******************************************************************************************
+    
+    public static void write(Path path, ByteArray2D grid) throws IOException {
+        final byte[][] rows = grid.grid;
+        writeRows(path,BYTE,GRID,grid.rows(),grid.cols(),Byte.BYTES,(dst, row) -> {
+            dst.put(rows[row]);
+        });
+    }
+    
+    public static void write(Path path, NativeByteArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,BYTE,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static ByteArray2D loadByteArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(BYTE,GRID);
+        ByteArray2D grid = new ByteArray2D(mapped.rows,mapped.cols);
+        ByteBuffer src = mapped.asByteBuffer();
+        for (byte[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeByteArray2D loadNativeByteArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(BYTE,GRID);
+        NativeByteArray2D grid = new NativeByteArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asByteBuffer());
+        return grid;
+    }
+    
+    // short *******************************************************************************************
+    
+    public static void write(Path path, ShortArray2D grid) throws IOException {
+        final short[][] rows = grid.grid;
+        writeRows(path,SHORT,GRID,grid.rows(),grid.cols(),Short.BYTES,(dst, row) -> {
+            dst.asShortBuffer().put(rows[row]);
+            dst.position(dst.position() + rows[row].length * Short.BYTES);
+        });
+    }
+    
+    public static void write(Path path, NativeShortArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,SHORT,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static ShortArray2D loadShortArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(SHORT,GRID);
+        ShortArray2D grid = new ShortArray2D(mapped.rows,mapped.cols);
+        ShortBuffer src = mapped.asShortBuffer();
+        for (short[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeShortArray2D loadNativeShortArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(SHORT,GRID);
+        NativeShortArray2D grid = new NativeShortArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asShortBuffer());
+        return grid;
+    }
+    
+    // char *******************************************************************************************
+    
+    public static void write(Path path, CharArray2D grid) throws IOException {
+        final char[][] rows = grid.grid;
+        writeRows(path,CHAR,GRID,grid.rows(),grid.cols(),Character.BYTES,(dst, row) -> {
+            dst.asCharBuffer().put(rows[row]);
+            dst.position(dst.position() + rows[row].length * Character.BYTES);
+        });
+    }
+    
+    public static void write(Path path, NativeCharArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,CHAR,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static CharArray2D loadCharArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(CHAR,GRID);
+        CharArray2D grid = new CharArray2D(mapped.rows,mapped.cols);
+        CharBuffer src = mapped.asCharBuffer();
+        for (char[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeCharArray2D loadNativeCharArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(CHAR,GRID);
+        NativeCharArray2D grid = new NativeCharArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asCharBuffer());
+        return grid;
+    }
+    
+    // int *******************************************************************************************
+    
+    public static void write(Path path, IntArray2D grid) throws IOException {
+        final int[][] rows = grid.grid;
+        writeRows(path,INT,GRID,grid.rows(),grid.cols(),Integer.BYTES,(dst, row) -> {
+            dst.asIntBuffer().put(rows[row]);
+            dst.position(dst.position() + rows[row].length * Integer.BYTES);
+        });
+    }
+    
+    public static void write(Path path, NativeIntArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,INT,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static IntArray2D loadIntArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(INT,GRID);
+        IntArray2D grid = new IntArray2D(mapped.rows,mapped.cols);
+        IntBuffer src = mapped.asIntBuffer();
+        for (int[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeIntArray2D loadNativeIntArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(INT,GRID);
+        NativeIntArray2D grid = new NativeIntArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asIntBuffer());
+        return grid;
+    }
+    
+    // long *******************************************************************************************
+    
+    public static void write(Path path, LongArray2D grid) throws IOException {
+        final long[][] rows = grid.grid;
+        writeRows(path,LONG,GRID,grid.rows(),grid.cols(),Long.BYTES,(dst, row) -> {
+            dst.asLongBuffer().put(rows[row]);
+            dst.position(dst.position() + rows[row].length * Long.BYTES);
+        });
+    }
+    
+    public static void write(Path path, NativeLongArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,LONG,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static LongArray2D loadLongArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(LONG,GRID);
+        LongArray2D grid = new LongArray2D(mapped.rows,mapped.cols);
+        LongBuffer src = mapped.asLongBuffer();
+        for (long[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeLongArray2D loadNativeLongArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(LONG,GRID);
+        NativeLongArray2D grid = new NativeLongArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asLongBuffer());
+        return grid;
+    }
+    
+    // float *******************************************************************************************
+    
+    public static void write(Path path, FloatArray2D grid) throws IOException {
+        final float[][] rows = grid.grid;
+        writeRows(path,FLOAT,GRID,grid.rows(),grid.cols(),Float.BYTES,(dst, row) -> {
+            dst.asFloatBuffer().put(rows[row]);
+            dst.position(dst.position() + rows[row].length * Float.BYTES);
+        });
+    }
+    
+    public static void write(Path path, NativeFloatArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,FLOAT,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static FloatArray2D loadFloatArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(FLOAT,GRID);
+        FloatArray2D grid = new FloatArray2D(mapped.rows,mapped.cols);
+        FloatBuffer src = mapped.asFloatBuffer();
+        for (float[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeFloatArray2D loadNativeFloatArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(FLOAT,GRID);
+        NativeFloatArray2D grid = new NativeFloatArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asFloatBuffer());
+        return grid;
+    }
+    
+    // double *******************************************************************************************
+    
+    public static void write(Path path, DoubleArray2D grid) throws IOException {
+        final double[][] rows = grid.grid;
+        writeRows(path,DOUBLE,GRID,grid.rows(),grid.cols(),Double.BYTES,(dst, row) -> {
+            dst.asDoubleBuffer().put(rows[row]);
+            dst.position(dst.position() + rows[row].length * Double.BYTES);
+        });
+    }
+    
+    public static void write(Path path, NativeDoubleArray2D grid) throws IOException {
+        ByteBuffer payload = MemoryUtil.memByteBuffer(grid.address(),grid.sizeBytes());
+        writePayload(path,DOUBLE,GRID,grid.rows(),grid.cols(),payload);
+    }
+    
+    public static DoubleArray2D loadDoubleArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(DOUBLE,GRID);
+        DoubleArray2D grid = new DoubleArray2D(mapped.rows,mapped.cols);
+        DoubleBuffer src = mapped.asDoubleBuffer();
+        for (double[] row : grid.grid) src.get(row);
+        return grid;
+    }
+    
+    public static NativeDoubleArray2D loadNativeDoubleArray2D(Path path) throws IOException {
+        Mapped mapped = map(path).require(DOUBLE,GRID);
+        NativeDoubleArray2D grid = new NativeDoubleArray2D(mapped.rows,mapped.cols);
+        grid.buffer().duplicate().clear().put(mapped.asDoubleBuffer());
+        return grid;
+    }
+    
+    // *********************************************************************************************
+    
+    /**
+     * A memory-mapped file. The buffers returned wrap the mapped region (read-only, no copy).
+     */
+    public static final class Mapped {
+        
+        private final Path path;
+        private final ByteBuffer payload;
+        private final byte type;
+        private final byte kind;
+        private final int rows;
+        private final int cols;
+        private final int checksum;
+        
+        private Mapped(Path path, MappedByteBuffer buffer) throws IOException {
+            ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("not a primitive file: " + path);
+            if (header.getShort(4) != VERSION) throw new IOException("unsupported version " + header.getShort(4) + ": " + path);
+            this.path = path;
+            this.type = header.get(6);
+            this.kind = header.get(7);
+            ByteOrder order = (header.get(8) & FLAG_BIG_ENDIAN) != 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+            this.rows = header.getInt(12);
+            this.cols = header.getInt(16);
+            this.checksum = header.getInt(20);
+            long bytes = header.getLong(24);
+            if (type < BYTE || type > DOUBLE || rows < 0 || cols < 0)
+                throw new IOException("corrupt header: " + path);
+            if (bytes != (long) rows * cols * elementBytes(type) || bytes != buffer.capacity() - HEADER_BYTES)
+                throw new IOException("payload size mismatch: " + path);
+            this.payload = buffer.position(HEADER_BYTES).slice().order(order).asReadOnlyBuffer().order(order);
+        }
+        
+        /**
+         * @throws IOException if the payload does not match the checksum
+         */
+        public Mapped verify() throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) throw new IOException("checksum mismatch: " + path);
+            return this;
+        }
+        
+        public ByteBuffer payload() {
+            return payload.duplicate().order(payload.order());
+        }
+        
+        public ByteBuffer asByteBuffer() {
+            return payload();
+        }
+        
+        public ShortBuffer asShortBuffer() {
+            return payload.asShortBuffer();
+        }
+        
+        public CharBuffer asCharBuffer() {
+            return payload.asCharBuffer();
+        }
+        
+        public IntBuffer asIntBuffer() {
+            return payload.asIntBuffer();
+        }
+        
+        public LongBuffer asLongBuffer() {
+            return payload.asLongBuffer();
+        }
+        
+        public FloatBuffer asFloatBuffer() {
+            return payload.asFloatBuffer();
+        }
+        
+        public DoubleBuffer asDoubleBuffer() {
+            return payload.asDoubleBuffer();
+        }
+        
+        public byte type() {
+            return type;
+        }
+        
+        public byte kind() {
+            return kind;
+        }
+        
+        public int rows() {
+            return rows;
+        }
+        
+        public int cols() {
+            return cols;
+        }
+        
+        private Mapped require(byte type, byte kind) throws IOException {
+            if (this.type != type || this.kind != kind) {
+                throw new IOException("expected type " + type + " kind " + kind + ", found type "
+                + this.type + " kind " + this.kind + ": " + path);
+            } return verify();
+        }
+    }
+    
+    @FunctionalInterface
+    private interface RangeWriter {
+        /** Put values [from, to) into dst, advancing its position */
+        void put(ByteBuffer dst, int from, int to);
+    }
+    
+    @FunctionalInterface
+    private interface PieceWriter {
+        /** Put piece i (a row, or a range of values) into dst, advancing its position */
+        void put(ByteBuffer dst, int i);
+    }
+    
+    private static void writeRows(Path path, byte type, byte kind, int rows, int cols, int elementBytes, PieceWriter writer) throws IOException {
+        writePieces(path,type,kind,rows,cols,rows,(long) cols * elementBytes,writer);
+    }
+    
+    private static void writeValues(Path path, byte type, byte kind, int count, int elementBytes, RangeWriter writer) throws IOException {
+        final int perPiece = BLOCK_BYTES / elementBytes;
+        final int pieces = (count + perPiece - 1) / perPiece;
+        writePieces(path,type,kind,1,count,pieces,BLOCK_BYTES,(dst, i) -> {
+            int from = i * perPiece;
+            writer.put(dst,from,Math.min(count,from + perPiece));
+        });
+    }
+    
+    /**
+     * Packs the pieces into direct blocks, GATHER_BLOCKS blocks per gathering write.
+     * The header is written last, when the checksum is known.
+     */
+    private static void writePieces(Path path, byte type, byte kind, int rows, int cols, int pieces, long pieceBytes, PieceWriter writer) throws IOException {
+        final int blockBytes = (int) Math.max(BLOCK_BYTES,pieceBytes);
+        final int piecesPerBlock = pieceBytes == 0 ? Math.max(1,pieces) : (int) (blockBytes / pieceBytes);
+        final long payloadBytes = (long) rows * cols * elementBytes(type);
+        try (FileChannel channel = open(path)) {
+            ByteBuffer[] blocks = new ByteBuffer[GATHER_BLOCKS];
+            CRC32 crc = new CRC32();
+            channel.position(HEADER_BYTES);
+            int piece = 0;
+            while (piece < pieces) {
+                int used = 0;
+                while (used < GATHER_BLOCKS && piece < pieces) {
+                    if (blocks[used] == null) blocks[used] = ByteBuffer.allocateDirect(blockBytes).order(ByteOrder.nativeOrder());
+                    ByteBuffer block = blocks[used++].clear();
+                    int end = Math.min(pieces,piece + piecesPerBlock);
+                    while (piece < end) writer.put(block,piece++);
+                    crc.update(block.flip());
+                    block.rewind();
+                } writeFully(channel,blocks,used);
+            } ByteBuffer header = header(type,kind,rows,cols,(int) crc.getValue(),payloadBytes);
+            while (header.hasRemaining()) channel.write(header,header.position());
+        }
+    }
+    
+    private static void writePayload(Path path, byte type, byte kind, int rows, int cols, ByteBuffer payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = header(type,kind,rows,cols,(int) crc.getValue(),payload.remaining());
+        try (FileChannel channel = open(path)) {
+            writeFully(channel,new ByteBuffer[] {header, payload.duplicate()},2);
+        }
+    }
+    
+    private static ByteBuffer header(byte type, byte kind, int rows, int cols, int crc, long payloadBytes) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0,MAGIC).putShort(4,VERSION).put(6,type).put(7,kind);
+        header.put(8,ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? FLAG_BIG_ENDIAN : 0);
+        header.putInt(12,rows).putInt(16,cols).putInt(20,crc).putLong(24,payloadBytes);
+        return header;
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers, int count) throws IOException {
+        long remaining = 0;
+        for (int i = 0; i < count; i++) remaining += buffers[i].remaining();
+        while (remaining > 0) remaining -= channel.write(buffers,0,count);
+    }
+    
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path,StandardOpenOption.CREATE,StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    private static int elementBytes(byte type) {
+        switch (type) {
+            case BYTE: return Byte.BYTES;
+            case SHORT: case CHAR: return Short.BYTES;
+            case INT: case FLOAT: return Integer.BYTES;
+            default: return Long.BYTES;
+        }
+    }
+}
@@ -0,0 +1,1534 @@
+package io.github.heathensoft.storage.primitive;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting of primitive arrays, used by the primitive stacks, queues and bags.
+ *
+ * sort: stable LSD radix sort for ranges of RADIX_THRESHOLD or more, introsort below.
+ * parallelSort: merge sort over the common ForkJoinPool, with radix sorted leaves.
+ * sort(keys, values): co-sorts an int payload array by a parallel key array.
+ *
+ * Floating point values are ordered by their raw bits: -0.0 before 0.0, and NaN after
+ * positive infinity (NaN with the sign bit set before negative infinity).
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public final class PrimitiveSort {
+    
+    public static final int RADIX_THRESHOLD = 256;
+    public static final int PARALLEL_THRESHOLD = 1 << 17;
+    private static final int PARALLEL_LEAF = 1 << 15;
+    private static final int INSERTION_THRESHOLD = 16;
+    
+    private PrimitiveSort() { }
+    
+    // byte *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(byte[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(byte[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new byte[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (1 byte pass). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(byte[] a, int from, int to, byte[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(byte[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(byte[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            byte tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Same as sort. Radix sorting bytes is a single pass over the range per byte,
+     * not worth splitting across threads.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(byte[] a, int from, int to) {
+        sort(a,from,to);
+    }
+    
+    
+    private static void radix(byte[] a, int from, int to, byte[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[1 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = ((a[i] & 0xFF) ^ 0x80);
+            for (int pass = 0; pass < 1; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } byte[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 1; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | (((src[srcFrom] & 0xFF) ^ 0x80) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final byte v = src[srcFrom + i];
+                dst[dstFrom + counts[base | (((v & 0xFF) ^ 0x80) >>> shift) & 0xFF]++] = v;
+            } byte[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(byte[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final byte pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final byte v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(byte[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(byte[] a, int lo, int i, int n) {
+        final byte v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(byte[] a, int i, int j) {
+        byte tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(byte a, byte b) {
+        return a < b;
+    }
+    
+    // short *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(short[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(short[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new short[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (2 byte passes). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(short[] a, int from, int to, short[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(short[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(short[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            short tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Same as sort. Radix sorting shorts is a single pass over the range per byte,
+     * not worth splitting across threads.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(short[] a, int from, int to) {
+        sort(a,from,to);
+    }
+    
+    
+    private static void radix(short[] a, int from, int to, short[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[2 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = ((a[i] & 0xFFFF) ^ 0x8000);
+            for (int pass = 0; pass < 2; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } short[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 2; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | (((src[srcFrom] & 0xFFFF) ^ 0x8000) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final short v = src[srcFrom + i];
+                dst[dstFrom + counts[base | (((v & 0xFFFF) ^ 0x8000) >>> shift) & 0xFF]++] = v;
+            } short[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(short[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final short pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final short v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(short[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(short[] a, int lo, int i, int n) {
+        final short v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(short[] a, int i, int j) {
+        short tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(short a, short b) {
+        return a < b;
+    }
+    
+    // char *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(char[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(char[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new char[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (2 byte passes). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(char[] a, int from, int to, char[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(char[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(char[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            char tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Same as sort. Radix sorting chars is a single pass over the range per byte,
+     * not worth splitting across threads.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(char[] a, int from, int to) {
+        sort(a,from,to);
+    }
+    
+    
+    private static void radix(char[] a, int from, int to, char[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[2 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = a[i];
+            for (int pass = 0; pass < 2; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } char[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 2; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | (src[srcFrom] >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final char v = src[srcFrom + i];
+                dst[dstFrom + counts[base | (v >>> shift) & 0xFF]++] = v;
+            } char[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(char[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final char pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final char v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(char[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(char[] a, int lo, int i, int n) {
+        final char v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(char[] a, int i, int j) {
+        char tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(char a, char b) {
+        return a < b;
+    }
+    
+    // int *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(int[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(int[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new int[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (4 byte passes). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(int[] a, int from, int to, int[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(int[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(int[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Parallel merge sort with radix sorted leaves, using the common ForkJoinPool.
+     * Ranges shorter than PARALLEL_THRESHOLD are sorted sequentially.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(int[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < PARALLEL_THRESHOLD) sort(a,from,to);
+        else ForkJoinPool.commonPool().invoke(new IntMerge(a,new int[to - from],from,to,from));
+    }
+    
+    
+    private static void radix(int[] a, int from, int to, int[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[4 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = (a[i] ^ Integer.MIN_VALUE);
+            for (int pass = 0; pass < 4; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } int[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 4; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | ((src[srcFrom] ^ Integer.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final int v = src[srcFrom + i];
+                dst[dstFrom + counts[base | ((v ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++] = v;
+            } int[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(int[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final int pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final int v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(int[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(int[] a, int lo, int i, int n) {
+        final int v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(int a, int b) {
+        return a < b;
+    }
+    
+    /**
+     * Sorts keys ascending and moves values[i] along with keys[i]. Stable.
+     * Example: sort an IntBag of entity ids by a parallel array of render keys.
+     * @param keys sort keys
+     * @param values payload
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(int[] keys, int[] values, int from, int to) {
+        checkRange(keys.length,from,to);
+        checkRange(values.length,from,to);
+        final int n = to - from;
+        if (n < INSERTION_THRESHOLD * 4) insertionSort(keys,values,from,to);
+        else radix(keys,values,from,to,new int[n],new int[n]);
+    }
+    
+    /**
+     * Stable LSD radix sort of keys, moving values[i] along with keys[i].
+     * @param keys sort keys
+     * @param values payload
+     * @param from inclusive
+     * @param to exclusive
+     * @param keyBuffer scratch array of length (to - from) or more
+     * @param valueBuffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(int[] keys, int[] values, int from, int to, int[] keyBuffer, int[] valueBuffer) {
+        checkRange(keys.length,from,to);
+        checkRange(values.length,from,to);
+        checkBuffer(keyBuffer.length,to - from);
+        checkBuffer(valueBuffer.length,to - from);
+        radix(keys,values,from,to,keyBuffer,valueBuffer);
+    }
+    
+    private static void radix(int[] keys, int[] values, int from, int to, int[] keyBuffer, int[] valueBuffer) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[4 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = (keys[i] ^ Integer.MIN_VALUE);
+            for (int pass = 0; pass < 4; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } int[] srcKeys = keys, dstKeys = keyBuffer;
+        int[] srcValues = values, dstValues = valueBuffer;
+        int srcFrom = from, dstFrom = 0;
+        for (int pass = 0; pass < 4; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | ((srcKeys[srcFrom] ^ Integer.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final int k = srcKeys[srcFrom + i];
+                final int d = dstFrom + counts[base | ((k ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++;
+                dstKeys[d] = k;
+                dstValues[d] = srcValues[srcFrom + i];
+            } int[] tmpKeys = srcKeys; srcKeys = dstKeys; dstKeys = tmpKeys;
+            int[] tmpValues = srcValues; srcValues = dstValues; dstValues = tmpValues;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (srcKeys != keys) {
+            System.arraycopy(srcKeys,srcFrom,keys,from,n);
+            System.arraycopy(srcValues,srcFrom,values,from,n);
+        }
+    }
+    
+    private static void insertionSort(int[] keys, int[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final int k = keys[i];
+            final int v = values[i];
+            int j = i - 1;
+            while (j >= from && less(k,keys[j])) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            } keys[j + 1] = k;
+            values[j + 1] = v;
+        }
+    }
+    
+    // long *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(long[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(long[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new long[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (8 byte passes). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(long[] a, int from, int to, long[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(long[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(long[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            long tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Parallel merge sort with radix sorted leaves, using the common ForkJoinPool.
+     * Ranges shorter than PARALLEL_THRESHOLD are sorted sequentially.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(long[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < PARALLEL_THRESHOLD) sort(a,from,to);
+        else ForkJoinPool.commonPool().invoke(new LongMerge(a,new long[to - from],from,to,from));
+    }
+    
+    
+    private static void radix(long[] a, int from, int to, long[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[8 << 8];
+        for (int i = from; i < to; i++) {
+            final long key = (a[i] ^ Long.MIN_VALUE);
+            for (int pass = 0; pass < 8; pass++) {
+                counts[pass << 8 | (int) (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } long[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 8; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | (int) ((src[srcFrom] ^ Long.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final long v = src[srcFrom + i];
+                dst[dstFrom + counts[base | (int) ((v ^ Long.MIN_VALUE) >>> shift) & 0xFF]++] = v;
+            } long[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(long[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final long pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final long v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(long[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(long[] a, int lo, int i, int n) {
+        final long v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(long[] a, int i, int j) {
+        long tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(long a, long b) {
+        return a < b;
+    }
+    
+    /**
+     * Sorts keys ascending and moves values[i] along with keys[i]. Stable.
+     * Example: sort an IntBag of entity ids by a parallel array of render keys.
+     * @param keys sort keys
+     * @param values payload
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(long[] keys, int[] values, int from, int to) {
+        checkRange(keys.length,from,to);
+        checkRange(values.length,from,to);
+        final int n = to - from;
+        if (n < INSERTION_THRESHOLD * 4) insertionSort(keys,values,from,to);
+        else radix(keys,values,from,to,new long[n],new int[n]);
+    }
+    
+    /**
+     * Stable LSD radix sort of keys, moving values[i] along with keys[i].
+     * @param keys sort keys
+     * @param values payload
+     * @param from inclusive
+     * @param to exclusive
+     * @param keyBuffer scratch array of length (to - from) or more
+     * @param valueBuffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(long[] keys, int[] values, int from, int to, long[] keyBuffer, int[] valueBuffer) {
+        checkRange(keys.length,from,to);
+        checkRange(values.length,from,to);
+        checkBuffer(keyBuffer.length,to - from);
+        checkBuffer(valueBuffer.length,to - from);
+        radix(keys,values,from,to,keyBuffer,valueBuffer);
+    }
+    
+    private static void radix(long[] keys, int[] values, int from, int to, long[] keyBuffer, int[] valueBuffer) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[8 << 8];
+        for (int i = from; i < to; i++) {
+            final long key = (keys[i] ^ Long.MIN_VALUE);
+            for (int pass = 0; pass < 8; pass++) {
+                counts[pass << 8 | (int) (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } long[] srcKeys = keys, dstKeys = keyBuffer;
+        int[] srcValues = values, dstValues = valueBuffer;
+        int srcFrom = from, dstFrom = 0;
+        for (int pass = 0; pass < 8; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | (int) ((srcKeys[srcFrom] ^ Long.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final long k = srcKeys[srcFrom + i];
+                final int d = dstFrom + counts[base | (int) ((k ^ Long.MIN_VALUE) >>> shift) & 0xFF]++;
+                dstKeys[d] = k;
+                dstValues[d] = srcValues[srcFrom + i];
+            } long[] tmpKeys = srcKeys; srcKeys = dstKeys; dstKeys = tmpKeys;
+            int[] tmpValues = srcValues; srcValues = dstValues; dstValues = tmpValues;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (srcKeys != keys) {
+            System.arraycopy(srcKeys,srcFrom,keys,from,n);
+            System.arraycopy(srcValues,srcFrom,values,from,n);
+        }
+    }
+    
+    private static void insertionSort(long[] keys, int[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final long k = keys[i];
+            final int v = values[i];
+            int j = i - 1;
+            while (j >= from && less(k,keys[j])) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            } keys[j + 1] = k;
+            values[j + 1] = v;
+        }
+    }
+    
+    // float *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(float[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(float[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new float[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (4 byte passes). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(float[] a, int from, int to, float[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(float[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(float[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            float tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Parallel merge sort with radix sorted leaves, using the common ForkJoinPool.
+     * Ranges shorter than PARALLEL_THRESHOLD are sorted sequentially.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(float[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < PARALLEL_THRESHOLD) sort(a,from,to);
+        else ForkJoinPool.commonPool().invoke(new FloatMerge(a,new float[to - from],from,to,from));
+    }
+    
+    
+    private static void radix(float[] a, int from, int to, float[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[4 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = (sortable(a[i]) ^ Integer.MIN_VALUE);
+            for (int pass = 0; pass < 4; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } float[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 4; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | ((sortable(src[srcFrom]) ^ Integer.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final float v = src[srcFrom + i];
+                dst[dstFrom + counts[base | ((sortable(v) ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++] = v;
+            } float[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(float[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final float pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final float v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(float[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(float[] a, int lo, int i, int n) {
+        final float v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(float[] a, int i, int j) {
+        float tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(float a, float b) {
+        return sortable(a) < sortable(b);
+    }
+    
+    /**
+     * Sorts keys ascending and moves values[i] along with keys[i]. Stable.
+     * Example: sort an IntBag of entity ids by a parallel array of render keys.
+     * @param keys sort keys
+     * @param values payload
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(float[] keys, int[] values, int from, int to) {
+        checkRange(keys.length,from,to);
+        checkRange(values.length,from,to);
+        final int n = to - from;
+        if (n < INSERTION_THRESHOLD * 4) insertionSort(keys,values,from,to);
+        else radix(keys,values,from,to,new float[n],new int[n]);
+    }
+    
+    /**
+     * Stable LSD radix sort of keys, moving values[i] along with keys[i].
+     * @param keys sort keys
+     * @param values payload
+     * @param from inclusive
+     * @param to exclusive
+     * @param keyBuffer scratch array of length (to - from) or more
+     * @param valueBuffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(float[] keys, int[] values, int from, int to, float[] keyBuffer, int[] valueBuffer) {
+        checkRange(keys.length,from,to);
+        checkRange(values.length,from,to);
+        checkBuffer(keyBuffer.length,to - from);
+        checkBuffer(valueBuffer.length,to - from);
+        radix(keys,values,from,to,keyBuffer,valueBuffer);
+    }
+    
+    private static void radix(float[] keys, int[] values, int from, int to, float[] keyBuffer, int[] valueBuffer) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[4 << 8];
+        for (int i = from; i < to; i++) {
+            final int key = (sortable(keys[i]) ^ Integer.MIN_VALUE);
+            for (int pass = 0; pass < 4; pass++) {
+                counts[pass << 8 | (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } float[] srcKeys = keys, dstKeys = keyBuffer;
+        int[] srcValues = values, dstValues = valueBuffer;
+        int srcFrom = from, dstFrom = 0;
+        for (int pass = 0; pass < 4; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | ((sortable(srcKeys[srcFrom]) ^ Integer.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final float k = srcKeys[srcFrom + i];
+                final int d = dstFrom + counts[base | ((sortable(k) ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++;
+                dstKeys[d] = k;
+                dstValues[d] = srcValues[srcFrom + i];
+            } float[] tmpKeys = srcKeys; srcKeys = dstKeys; dstKeys = tmpKeys;
+            int[] tmpValues = srcValues; srcValues = dstValues; dstValues = tmpValues;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (srcKeys != keys) {
+            System.arraycopy(srcKeys,srcFrom,keys,from,n);
+            System.arraycopy(srcValues,srcFrom,values,from,n);
+        }
+    }
+    
+    private static void insertionSort(float[] keys, int[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final float k = keys[i];
+            final int v = values[i];
+            int j = i - 1;
+            while (j >= from && less(k,keys[j])) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            } keys[j + 1] = k;
+            values[j + 1] = v;
+        }
+    }
+    
+    // double *******************************************************************************************
+    
+    /**
+     * Sorts the array ascending.
+     * @param a array
+     */
+    public static void sort(double[] a) {
+        sort(a,0,a.length);
+    }
+    
+    /**
+     * Sorts the range ascending. Radix sort for large ranges, introsort for small.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void sort(double[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < RADIX_THRESHOLD) introSort(a,from,to);
+        else radix(a,from,to,new double[to - from],0);
+    }
+    
+    /**
+     * Stable LSD radix sort (8 byte passes). Passes where all keys share the same byte are skipped.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     * @param buffer scratch array of length (to - from) or more
+     */
+    public static void radixSort(double[] a, int from, int to, double[] buffer) {
+        checkRange(a.length,from,to);
+        checkBuffer(buffer.length,to - from);
+        radix(a,from,to,buffer,0);
+    }
+    
+    /**
+     * In-place introsort. Quicksort with median of three pivots, heapsort past a recursion depth
+     * of 2 log(n), insertion sort for short ranges. Not stable.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void introSort(double[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        int n = to - from;
+        if (n > 1) introSort(a,from,to - 1,2 * (31 - Integer.numberOfLeadingZeros(n)));
+    }
+    
+    public static void reverse(double[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            double tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+    
+    /**
+     * Parallel merge sort with radix sorted leaves, using the common ForkJoinPool.
+     * Ranges shorter than PARALLEL_THRESHOLD are sorted sequentially.
+     * @param a array
+     * @param from inclusive
+     * @param to exclusive
+     */
+    public static void parallelSort(double[] a, int from, int to) {
+        checkRange(a.length,from,to);
+        if (to - from < PARALLEL_THRESHOLD) sort(a,from,to);
+        else ForkJoinPool.commonPool().invoke(new DoubleMerge(a,new double[to - from],from,to,from));
+    }
+    
+    
+    private static void radix(double[] a, int from, int to, double[] buffer, int bufferFrom) {
+        final int n = to - from;
+        if (n < 2) return;
+        final int[] counts = new int[8 << 8];
+        for (int i = from; i < to; i++) {
+            final long key = (sortable(a[i]) ^ Long.MIN_VALUE);
+            for (int pass = 0; pass < 8; pass++) {
+                counts[pass << 8 | (int) (key >>> (pass << 3)) & 0xFF]++;
+            }
+        } double[] src = a, dst = buffer;
+        int srcFrom = from, dstFrom = bufferFrom;
+        for (int pass = 0; pass < 8; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+            if (counts[base | (int) ((sortable(src[srcFrom]) ^ Long.MIN_VALUE) >>> shift) & 0xFF] == n) continue;
+            for (int b = 0, sum = 0; b < 256; b++) {
+                int count = counts[base | b];
+                counts[base | b] = sum;
+                sum += count;
+            } for (int i = 0; i < n; i++) {
+                final double v = src[srcFrom + i];
+                dst[dstFrom + counts[base | (int) ((sortable(v) ^ Long.MIN_VALUE) >>> shift) & 0xFF]++] = v;
+            } double[] tmp = src; src = dst; dst = tmp;
+            int f = srcFrom; srcFrom = dstFrom; dstFrom = f;
+        } if (src != a) System.arraycopy(src,srcFrom,a,from,n);
+    }
+    
+    private static void introSort(double[] a, int lo, int hi, int depth) {
+        while (hi - lo >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a,lo,hi);
+                return;
+            } int mid = (lo + hi) >>> 1;
+            if (less(a[mid],a[lo])) swap(a,lo,mid);
+            if (less(a[hi],a[lo])) swap(a,lo,hi);
+            if (less(a[hi],a[mid])) swap(a,mid,hi);
+            final double pivot = a[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(a[i],pivot)) i++;
+                while (less(pivot,a[j])) j--;
+                if (i <= j) swap(a,i++,j--);
+            } if (j - lo < hi - i) {
+                introSort(a,lo,j,depth);
+                lo = i;
+            } else {
+                introSort(a,i,hi,depth);
+                hi = j;
+            }
+        } for (int i = lo + 1; i <= hi; i++) {
+            final double v = a[i];
+            int j = i - 1;
+            while (j >= lo && less(v,a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            } a[j + 1] = v;
+        }
+    }
+    
+    private static void heapSort(double[] a, int lo, int hi) {
+        final int n = hi - lo + 1;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(a,lo,i,n);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a,lo,lo + end);
+            siftDown(a,lo,0,end);
+        }
+    }
+    
+    private static void siftDown(double[] a, int lo, int i, int n) {
+        final double v = a[lo + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && less(a[lo + child],a[lo + child + 1])) child++;
+            if (!less(v,a[lo + child])) break;
+            a[lo + i] = a[lo + child];
+            i = child;
+        } a[lo + i] = v;
+    }
+    
+    private static void swap(double[] a, int i, int j) {
+        double tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+    
+    private static boolean less(double a, double b) {
+        return sortable(a) < sortable(b);
+    }
+    
+    // *********************************************************************************************
+    
+    private static int sortable(float v) {
+        final int bits = Float.floatToRawIntBits(v);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+    
+    private static long sortable(double v) {
+        final long bits = Double.doubleToRawLongBits(v);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to)
+            throw new ArrayIndexOutOfBoundsException("range [" + from + ", " + to + ") of length " + length);
+    }
+    
+    private static void checkBuffer(int length, int n) {
+        if (length < n) throw new IllegalArgumentException("buffer length: " + length + " < " + n);
+    }
+    
+    private static final class IntMerge extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] a, buffer;
+        private final int from, to, offset;
+        
+        IntMerge(int[] a, int[] buffer, int from, int to, int offset) {
+            this.a = a; this.buffer = buffer;
+            this.from = from; this.to = to;
+            this.offset = offset;
+        }
+        
+        @Override
+        protected void compute() {
+            final int n = to - from;
+            if (n <= PARALLEL_LEAF) {
+                radix(a,from,to,buffer,from - offset);
+                return;
+            } final int mid = (from + to) >>> 1;
+            invokeAll(new IntMerge(a,buffer,from,mid,offset), new IntMerge(a,buffer,mid,to,offset));
+            if (!less(a[mid],a[mid - 1])) return;
+            int i = from, j = mid, k = from - offset;
+            while (i < mid && j < to) buffer[k++] = less(a[j],a[i]) ? a[j++] : a[i++];
+            while (i < mid) buffer[k++] = a[i++];
+            while (j < to) buffer[k++] = a[j++];
+            System.arraycopy(buffer,from - offset,a,from,n);
+        }
+    }
+    
+    private static final class LongMerge extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final long[] a, buffer;
+        private final int from, to, offset;
+        
+        LongMerge(long[] a, long[] buffer, int from, int to, int offset) {
+            this.a = a; this.buffer = buffer;
+            this.from = from; this.to = to;
+            this.offset = offset;
+        }
+        
+        @Override
+        protected void compute() {
+            final int n = to - from;
+            if (n <= PARALLEL_LEAF) {
+                radix(a,from,to,buffer,from - offset);
+                return;
+            } final int mid = (from + to) >>> 1;
+            invokeAll(new LongMerge(a,buffer,from,mid,offset), new LongMerge(a,buffer,mid,to,offset));
+            if (!less(a[mid],a[mid - 1])) return;
+            int i = from, j = mid, k = from - offset;
+            while (i < mid && j < to) buffer[k++] = less(a[j],a[i]) ? a[j++] : a[i++];
+            while (i < mid) buffer[k++] = a[i++];
+            while (j < to) buffer[k++] = a[j++];
+            System.arraycopy(buffer,from - offset,a,from,n);
+        }
+    }
+    
+    private static final class FloatMerge extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final float[] a, buffer;
+        private final int from, to, offset;
+        
+        FloatMerge(float[] a, float[] buffer, int from, int to, int offset) {
+            this.a = a; this.buffer = buffer;
+            this.from = from; this.to = to;
+            this.offset = offset;
+        }
+        
+        @Override
+        protected void compute() {
+            final int n = to - from;
+            if (n <= PARALLEL_LEAF) {
+                radix(a,from,to,buffer,from - offset);
+                return;
+            } final int mid = (from + to) >>> 1;
+            invokeAll(new FloatMerge(a,buffer,from,mid,offset), new FloatMerge(a,buffer,mid,to,offset));
+            if (!less(a[mid],a[mid - 1])) return;
+            int i = from, j = mid, k = from - offset;
+            while (i < mid && j < to) buffer[k++] = less(a[j],a[i]) ? a[j++] : a[i++];
+            while (i < mid) buffer[k++] = a[i++];
+            while (j < to) buffer[k++] = a[j++];
+            System.arraycopy(buffer,from - offset,a,from,n);
+        }
+    }
+    
+    private static final class DoubleMerge extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final double[] a, buffer;
+        private final int from, to, offset;
+        
+        DoubleMerge(double[] a, double[] buffer, int from, int to, int offset) {
+            this.a = a; this.buffer = buffer;
+            this.from = from; this.to = to;
+            this.offset = offset;
+        }
+        
+        @Override
+        protected void compute() {
+            final int n = to - from;
+            if (n <= PARALLEL_LEAF) {
+                radix(a,from,to,buffer,from - offset);
+                return;
+            } final int mid = (from + to) >>> 1;
+            invokeAll(new DoubleMerge(a,buffer,from,mid,offset), new DoubleMerge(a,buffer,mid,to,offset));
+            if (!less(a[mid],a[mid - 1])) return;
+            int i = from, j = mid, k = from - offset;
+            while (i < mid && j < to) buffer[k++] = less(a[j],a[i]) ? a[j++] : a[i++];
+            while (i < mid) buffer[k++] = a[i++];
+            while (j < to) buffer[k++] = a[j++];
+            System.arraycopy(buffer,from - offset,a,from,n);
+        }
+    }
+}
@@ -0,0 +1,593 @@
+package io.github.heathensoft.storage.primitive;
+
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Splittable, sized spliterators over the primitive containers and 2D arrays,
+ * for java.util.stream (StreamSupport) and fork-join.
+ *
+ * 2D arrays are split by row blocks (halving the remaining rows), so every split
+ * reads whole contiguous rows. byte, short and char values are widened to int, float to double.
+ * The spliterators are not fail-fast: do not modify the source while traversing.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public final class PrimitiveSpliterators {
+    
+    static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+    
+    /** Splits of less than this many cells are not split further within a row */
+    static final int MIN_ROW_SPLIT = 1024;
+    
+    private PrimitiveSpliterators() { }
+    
+    /**
+     * @param rows row-major byte rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfInt ofRows(byte[][] rows, int cols) {
+        return new ByteRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param rows row-major short rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfInt ofRows(short[][] rows, int cols) {
+        return new ShortRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param rows row-major char rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfInt ofRows(char[][] rows, int cols) {
+        return new CharRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param rows row-major int rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfInt ofRows(int[][] rows, int cols) {
+        return new IntRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param rows row-major long rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfLong ofRows(long[][] rows, int cols) {
+        return new LongRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param rows row-major float rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfDouble ofRows(float[][] rows, int cols) {
+        return new FloatRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param rows row-major double rows, all of length cols
+     * @param cols row length
+     * @return sized, splittable spliterator over every cell (row-major)
+     */
+    public static Spliterator.OfDouble ofRows(double[][] rows, int cols) {
+        return new DoubleRows(rows,cols,0,rows.length * cols);
+    }
+    
+    /**
+     * @param ring circular array
+     * @param front index of the first element
+     * @param size number of elements
+     * @return sized, splittable spliterator over the elements in queue order
+     */
+    public static Spliterator.OfInt ofRing(int[] ring, int front, int size) {
+        return new IntRing(ring,front,0,size);
+    }
+    
+    /**
+     * Midpoint of the cell range [lo,fence), preferring a row boundary.
+     * @return the split point, or -1 if the range should not be split
+     */
+    static int splitPoint(int lo, int fence, int cols) {
+        if (cols <= 0 || fence - lo < 2) return -1;
+        int firstRow = (lo + cols - 1) / cols; // first row boundary >= lo
+        int lastRow = fence / cols;             // last row boundary <= fence
+        if (lastRow - firstRow >= 2 || (lastRow - firstRow == 1 && firstRow * cols > lo)) {
+            int mid = ((firstRow + lastRow) >>> 1) * cols;
+            if (mid > lo && mid < fence) return mid;
+        } if (fence - lo < MIN_ROW_SPLIT) return -1;
+        return (lo + fence) >>> 1;
+    }
+    
+    /**
+     * Row-major spliterator over byte rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class ByteRows implements Spliterator.OfInt {
+        
+        private final byte[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        ByteRows(byte[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfInt trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new ByteRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                byte[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Row-major spliterator over short rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class ShortRows implements Spliterator.OfInt {
+        
+        private final short[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        ShortRows(short[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfInt trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new ShortRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                short[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Row-major spliterator over char rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class CharRows implements Spliterator.OfInt {
+        
+        private final char[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        CharRows(char[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfInt trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new CharRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                char[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Row-major spliterator over int rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class IntRows implements Spliterator.OfInt {
+        
+        private final int[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        IntRows(int[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfInt trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new IntRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                int[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Row-major spliterator over long rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class LongRows implements Spliterator.OfLong {
+        
+        private final long[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        LongRows(long[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfLong trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new LongRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                long[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Row-major spliterator over float rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class FloatRows implements Spliterator.OfDouble {
+        
+        private final float[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        FloatRows(float[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfDouble trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new FloatRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                float[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Row-major spliterator over double rows of equal length. Splits at row boundaries (row blocks),
+     * and within a single row when less than two rows remain.
+     */
+    static final class DoubleRows implements Spliterator.OfDouble {
+        
+        private final double[][] rows;
+        private final int cols;
+        private int index; // next cell
+        private final int fence;
+        
+        DoubleRows(double[][] rows, int cols, int index, int fence) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfDouble trySplit() {
+            int lo = index;
+            int mid = splitPoint(lo,fence,cols);
+            if (mid < 0) return null;
+            index = mid;
+            return new DoubleRows(rows,cols,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (index >= fence) return false;
+            action.accept(rows[index / cols][index % cols]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            int i = index;
+            final int end = fence;
+            index = end;
+            while (i < end) {
+                double[] row = rows[i / cols];
+                int c = i % cols;
+                int last = Math.min(cols,c + end - i);
+                for (; c < last; c++) action.accept(row[c]);
+                i += last - (i % cols);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+    
+    /**
+     * Spliterator over a circular int array, in queue order
+     */
+    static final class IntRing implements Spliterator.OfInt {
+        
+        private final int[] ring;
+        private final int front;
+        private int index; // offset from front
+        private final int fence;
+        
+        IntRing(int[] ring, int front, int index, int fence) {
+            this.ring = ring;
+            this.front = front;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        @Override
+        public OfInt trySplit() {
+            int lo = index;
+            int mid = (lo + fence) >>> 1;
+            if (mid <= lo) return null;
+            index = mid;
+            return new IntRing(ring,front,lo,mid);
+        }
+        
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) return false;
+            action.accept(ring[(front + index) % ring.length]);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            final int[] q = ring;
+            int start = (front + index) % q.length;
+            int remaining = fence - index;
+            index = fence;
+            int first = Math.min(remaining,q.length - start);
+            for (int i = 0; i < first; i++) action.accept(q[start + i]);
+            for (int i = 0; i < remaining - first; i++) action.accept(q[i]);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+}
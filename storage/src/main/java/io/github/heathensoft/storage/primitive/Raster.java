@@ -0,0 +1,280 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+/**
+ * Span based rasterizers for 2D arrays: lines, thick lines, filled circles, rectangles and convex polygons.
+ *
+ * Shapes are reported as horizontal spans (minY == maxY) clipped to the array, at most one span per row
+ * and shape (lines: one span per horizontal run). Spans of a shape never overlap, so writing them with
+ * f.ex. WriteFunction.ADD changes every covered cell once:
+ * Raster.circle(grid, x, y, r, (x0, y0, x1, y1) -> grid.write(value, x0, y0, x1, y1))
+ *
+ * A cell (x, y) is covered if its center (the integer coordinate) is inside the shape or on its edge.
+ * Row intervals are solved per row (a square root for circles, one bound per edge for polygons).
+ * No per-cell tests and no temporary point lists.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public final class Raster {
+    
+    private Raster() { }
+    
+    /**
+     * Bresenham line, 8-connected, including both end points.
+     * @param grid array (only its dimensions are used)
+     * @param x1 p1.x
+     * @param y1 p1.y
+     * @param x2 p2.x
+     * @param y2 p2.y
+     * @param spans receives the spans (horizontal runs of the line)
+     */
+    public static void line(PrimitiveArray2D grid, int x1, int y1, int x2, int y2, AreaReader spans) {
+        final int cols = grid.cols();
+        final int rows = grid.rows();
+        if (Math.max(x1,x2) < 0 || Math.min(x1,x2) >= cols) return;
+        if (Math.max(y1,y2) < 0 || Math.min(y1,y2) >= rows) return;
+        final int dx = Math.abs(x2 - x1);
+        final int dy = -Math.abs(y2 - y1);
+        final int sx = x1 < x2 ? 1 : -1;
+        final int sy = y1 < y2 ? 1 : -1;
+        int err = dx + dy;
+        int x = x1;
+        int y = y1;
+        int runStart = x1;
+        while (true) {
+            if (x == x2 && y == y2) {
+                emit(Math.min(runStart,x),Math.max(runStart,x),y,cols,rows,spans);
+                return;
+            } int e2 = 2 * err;
+            boolean stepX = e2 >= dy;
+            boolean stepY = e2 <= dx;
+            if (stepY) {
+                // the row changes: the run ends at the current cell
+                emit(Math.min(runStart,x),Math.max(runStart,x),y,cols,rows,spans);
+                if (stepX) {
+                    err += dy;
+                    x += sx;
+                } err += dx;
+                y += sy;
+                runStart = x;
+            } else {
+                err += dy;
+                x += sx;
+            }
+        }
+    }
+    
+    /**
+     * Thick line: every cell within radius of the segment (a capsule).
+     * Same coverage as stamping filled circles of the radius along the segment, without the overlap.
+     * With radius 0 (or a body too thin to have an area) the segment is a Bresenham line between the rounded end points.
+     * @param grid array (only its dimensions are used)
+     * @param x1 p1.x
+     * @param y1 p1.y
+     * @param x2 p2.x
+     * @param y2 p2.y
+     * @param radius radius >= 0
+     * @param spans receives the spans
+     */
+    public static void line(PrimitiveArray2D grid, float x1, float y1, float x2, float y2, float radius, AreaReader spans) {
+        if (radius < 0) throw new IllegalArgumentException("radius must be >= 0");
+        final double ex = x2 - x1;
+        final double ey = y2 - y1;
+        final double length = Math.sqrt(ex * ex + ey * ey);
+        if (length == 0) {
+            circle(grid,x1,y1,radius,spans);
+            return;
+        } // the body: a rectangle of width 2 * radius around the segment
+        final double nx = -ey / length * radius;
+        final double ny = ex / length * radius;
+        final double[] body = {
+                x1 + nx, y1 + ny, x1 - nx, y1 - ny,
+                x2 - nx, y2 - ny, x2 + nx, y2 + ny };
+        final double area = signedArea(body);
+        if (Math.abs(area) <= EPSILON) {
+            // every edge of a flat body is a half-plane check only: the rows would be unbounded
+            line(grid,Math.round(x1),Math.round(y1),Math.round(x2),Math.round(y2),spans);
+            return;
+        } final int rows = grid.rows();
+        final int cols = grid.cols();
+        final double r2 = (double) radius * radius;
+        final int minY = Math.max(0,(int) Math.ceil((double) Math.min(y1,y2) - radius));
+        final int maxY = Math.min(rows - 1,(int) Math.floor((double) Math.max(y1,y2) + radius));
+        final boolean ccw = area > 0;
+        for (int y = minY; y <= maxY; y++) {
+            // the capsule is convex: its row interval is the hull of the body and cap intervals
+            double lo = Double.POSITIVE_INFINITY;
+            double hi = Double.NEGATIVE_INFINITY;
+            double d1 = y - y1;
+            double d2 = y - y2;
+            if (d1 * d1 <= r2) {
+                double h = Math.sqrt(r2 - d1 * d1);
+                lo = Math.min(lo,x1 - h);
+                hi = Math.max(hi,x1 + h);
+            } if (d2 * d2 <= r2) {
+                double h = Math.sqrt(r2 - d2 * d2);
+                lo = Math.min(lo,x2 - h);
+                hi = Math.max(hi,x2 + h);
+            } long interval = polygonRow(body,ccw,y);
+            if (interval != EMPTY) {
+                lo = Math.min(lo,(int) (interval >> 32));
+                hi = Math.max(hi,(int) interval);
+            } if (lo <= hi) emit((int) Math.ceil(lo - EPSILON),(int) Math.floor(hi + EPSILON),y,cols,rows,spans);
+        }
+    }
+    
+    /**
+     * Filled circle: every cell with (x - cx)^2 + (y - cy)^2 <= radius^2
+     * @param grid array (only its dimensions are used)
+     * @param cx center.x
+     * @param cy center.y
+     * @param radius radius >= 0
+     * @param spans receives the spans
+     */
+    public static void circle(PrimitiveArray2D grid, float cx, float cy, float radius, AreaReader spans) {
+        if (radius < 0) throw new IllegalArgumentException("radius must be >= 0");
+        final int rows = grid.rows();
+        final int cols = grid.cols();
+        final double r2 = (double) radius * radius;
+        final int minY = Math.max(0,(int) Math.ceil((double) cy - radius));
+        final int maxY = Math.min(rows - 1,(int) Math.floor((double) cy + radius));
+        for (int y = minY; y <= maxY; y++) {
+            double dy = y - cy;
+            if (dy * dy > r2) continue;
+            double h = Math.sqrt(r2 - dy * dy);
+            int x0 = (int) Math.ceil(cx - h - EPSILON);
+            int x1 = (int) Math.floor(cx + h + EPSILON);
+            emit(x0,x1,y,cols,rows,spans);
+        }
+    }
+    
+    /**
+     * Filled rectangle. min and max values are inclusive and clamped to the array. Does not matter if min > max.
+     * Reported as a single area (not per row).
+     * @param grid array (only its dimensions are used)
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     * @param spans receives the area
+     */
+    public static void rectangle(PrimitiveArray2D grid, int minX, int minY, int maxX, int maxY, AreaReader spans) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(grid.cols()-1,maxX);
+        maxY = Math.min(grid.rows()-1,maxY);
+        if (minX <= maxX && minY <= maxY) spans.next(minX,minY,maxX,maxY);
+    }
+    
+    /**
+     * Filled convex polygon. Vertices in either winding order.
+     * Concave polygons are not supported (the row intervals are solved as an intersection of half-planes).
+     * A polygon without area (collinear vertices) is drawn as the line between its extreme vertices.
+     * @param grid array (only its dimensions are used)
+     * @param spans receives the spans
+     * @param xy vertices: x0, y0, x1, y1 ... (at least 3)
+     */
+    public static void polygon(PrimitiveArray2D grid, AreaReader spans, float... xy) {
+        if (xy == null || xy.length < 6 || (xy.length & 1) != 0) throw new IllegalArgumentException("expected at least 3 vertices");
+        final double[] vertices = new double[xy.length];
+        double minV = Double.POSITIVE_INFINITY;
+        double maxV = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < xy.length; i++) {
+            vertices[i] = xy[i];
+            if ((i & 1) == 1) {
+                minV = Math.min(minV,xy[i]);
+                maxV = Math.max(maxV,xy[i]);
+            }
+        } final double area = signedArea(vertices);
+        if (Math.abs(area) <= EPSILON) {
+            // extreme vertices of the line, ordered by x, then y
+            int first = 0;
+            int last = 0;
+            for (int i = 2; i < vertices.length; i += 2) {
+                if (vertices[i] < vertices[first] || vertices[i] == vertices[first] && vertices[i+1] < vertices[first+1]) first = i;
+                if (vertices[i] > vertices[last] || vertices[i] == vertices[last] && vertices[i+1] > vertices[last+1]) last = i;
+            } line(grid,Math.round(xy[first]),Math.round(xy[first+1]),Math.round(xy[last]),Math.round(xy[last+1]),spans);
+            return;
+        } final int rows = grid.rows();
+        final int cols = grid.cols();
+        final boolean ccw = area > 0;
+        final int minY = Math.max(0,(int) Math.ceil(minV));
+        final int maxY = Math.min(rows - 1,(int) Math.floor(maxV));
+        for (int y = minY; y <= maxY; y++) {
+            long interval = polygonRow(vertices,ccw,y);
+            if (interval != EMPTY) emit((int) (interval >> 32),(int) interval,y,cols,rows,spans);
+        }
+    }
+    
+    private static final double EPSILON = 1e-9;
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    /**
+     * Integer x interval of a convex polygon on row y, as (lo << 32) | (hi & 0xFFFFFFFF). EMPTY if none.
+     * Each edge bounds x from one side (inside is to the left of the edge for counter-clockwise winding).
+     * The interval starts as the x range of the vertices, so rows no edge bounds (horizontal edges) stay inside it.
+     */
+    private static long polygonRow(double[] v, boolean ccw, int y) {
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        final int n = v.length;
+        for (int i = 0; i < n; i += 2) {
+            lo = Math.min(lo,v[i]);
+            hi = Math.max(hi,v[i]);
+        } for (int i = 0; i < n; i += 2) {
+            int j = (i + 2) % n;
+            double xi = v[i], yi = v[i+1];
+            double ex = v[j] - xi;
+            double ey = v[j+1] - yi;
+            if (!ccw) {
+                ex = -ex;
+                ey = -ey;
+            } // inside: ex * (y - yi) - ey * (x - xi) >= 0
+            double c = ex * (y - yi);
+            if (ey == 0) {
+                if (c < -EPSILON) return EMPTY;
+            } else {
+                double bound = xi + c / ey;
+                if (ey > 0) hi = Math.min(hi,bound);
+                else lo = Math.max(lo,bound);
+            }
+        } if (lo > hi + EPSILON) return EMPTY;
+        long x0 = (long) Math.ceil(lo - EPSILON);
+        long x1 = (long) Math.floor(hi + EPSILON);
+        x0 = Math.max(x0,Integer.MIN_VALUE);
+        x1 = Math.min(x1,Integer.MAX_VALUE);
+        if (x0 > x1) return EMPTY;
+        return (x0 << 32) | (x1 & 0xFFFFFFFFL);
+    }
+    
+    private static double signedArea(double[] v) {
+        double area = 0;
+        final int n = v.length;
+        for (int i = 0; i < n; i += 2) {
+            int j = (i + 2) % n;
+            area += v[i] * v[j+1] - v[j] * v[i+1];
+        } return area;
+    }
+    
+    /**
+     * Reports the span [x0, x1] of row y, clipped to the array. Nothing if x0 > x1
+     */
+    private static void emit(int x0, int x1, int y, int cols, int rows, AreaReader spans) {
+        if (y < 0 || y >= rows) return;
+        x0 = Math.max(0,x0);
+        x1 = Math.min(cols - 1,x1);
+        if (x0 <= x1) spans.next(x0,y,x1,y);
+    }
+}
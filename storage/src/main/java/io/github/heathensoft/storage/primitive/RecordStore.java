@@ -0,0 +1,372 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.FloatReader;
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Struct-of-arrays record store. One primitive array per column (int or float), and one row per record.
+ * Rows are densely packed in [0, size). Removing a record moves the last row into its place (like IntBag.remove),
+ * so a loop over a column touches only live records, sequentially.
+ *
+ * Records are referenced by handles. A handle stays valid until its record is removed, while its row
+ * may change. The store maps handles to rows through an indirection table. A handle holds a slot in the
+ * table (low 24 bits) and the generation of the slot (high 8 bits). Removed handles are detected until the
+ * slot has been reused 256 times.
+ *
+ * The column arrays are exposed (ints(column), floats(column)) for tight, vectorizable and parallel loops.
+ * They are replaced when the store grows. Do not keep them across adds.
+ * Not thread safe. Concurrent reads and writes of distinct rows (f.ex. parallelProcess) are fine.
+ *
+ * Example:
+ * RecordStore.Schema schema = new RecordStore.Schema();
+ * int X = schema.addFloat("x");
+ * int VX = schema.addFloat("vx");
+ * int HP = schema.addInt("health");
+ * RecordStore units = new RecordStore(schema,1024);
+ * int unit = units.add();
+ * units.setFloat(VX,unit,1.5f);
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class RecordStore {
+    
+    /** Maximum number of records */
+    public static final int MAX_RECORDS = 1 << 24;
+    
+    private static final int SLOT_BITS = 24;
+    private static final int SLOT_MASK = MAX_RECORDS - 1;
+    private static final int GENERATION_MASK = 0xFF;
+    
+    /**
+     * Column layout of a store. Columns are identified by their index within their type,
+     * returned by addInt and addFloat (the first int column is 0, the first float column is 0).
+     * Changes to a schema do not affect stores already created with it.
+     */
+    public static final class Schema {
+        
+        private final List<String> intColumns = new ArrayList<>();
+        private final List<String> floatColumns = new ArrayList<>();
+        
+        /**
+         * @param name column name
+         * @return int column index
+         */
+        public int addInt(String name) {
+            intColumns.add(name);
+            return intColumns.size() - 1;
+        }
+        
+        /**
+         * @param name column name
+         * @return float column index
+         */
+        public int addFloat(String name) {
+            floatColumns.add(name);
+            return floatColumns.size() - 1;
+        }
+        
+        public int intColumns() {
+            return intColumns.size();
+        }
+        
+        public int floatColumns() {
+            return floatColumns.size();
+        }
+    }
+    
+    @FunctionalInterface
+    public interface RowRange {
+        /**
+         * @param fromRow first row inclusive
+         * @param toRow last row exclusive
+         */
+        void process(int fromRow, int toRow);
+    }
+    
+    private final String[] intNames;
+    private final String[] floatNames;
+    private final int[][] ints;
+    private final float[][] floats;
+    private int[] rowSlot;      // row -> slot
+    private int[] slotRow;      // slot -> row, -1 if free
+    private int[] generation;   // slot -> generation
+    private final IntStack freeSlots;
+    private int slotCount;
+    private int capacity;
+    private int size;
+    
+    /**
+     * @param schema columns
+     * @param capacity initial number of records
+     */
+    public RecordStore(Schema schema, int capacity) {
+        if (schema == null) throw new IllegalArgumentException("schema == null");
+        if (capacity < 0 || capacity > MAX_RECORDS) throw new IllegalArgumentException("capacity out of range: " + capacity);
+        this.intNames = schema.intColumns.toArray(new String[0]);
+        this.floatNames = schema.floatColumns.toArray(new String[0]);
+        this.ints = new int[intNames.length][capacity];
+        this.floats = new float[floatNames.length][capacity];
+        this.rowSlot = new int[capacity];
+        this.slotRow = new int[capacity];
+        this.generation = new int[capacity];
+        this.freeSlots = new IntStack(16);
+        this.capacity = capacity;
+    }
+    
+    public RecordStore(Schema schema) {
+        this(schema,16);
+    }
+    
+    /**
+     * Adds a record at row size() - 1. Every column of the record is 0.
+     * @return handle of the record
+     * @throws IllegalStateException if the store holds MAX_RECORDS records
+     */
+    public int add() {
+        if (size == capacity) {
+            if (size == MAX_RECORDS) throw new IllegalStateException("store is full");
+            grow((int) Math.min(MAX_RECORDS,size * 2L + 1));
+        } final int row = size++;
+        for (int[] column : ints) column[row] = 0;
+        for (float[] column : floats) column[row] = 0;
+        int slot;
+        if (freeSlots.isEmpty()) {
+            if (slotCount == slotRow.length) {
+                int cap = (int) Math.min(MAX_RECORDS,slotCount * 2L + 1);
+                slotRow = Arrays.copyOf(slotRow,cap);
+                generation = Arrays.copyOf(generation,cap);
+            } slot = slotCount++;
+        } else slot = freeSlots.pop();
+        slotRow[slot] = row;
+        rowSlot[row] = slot;
+        return (generation[slot] << SLOT_BITS) | slot;
+    }
+    
+    /**
+     * Removes a record. The last row is moved into its row.
+     * @param handle handle of the record
+     * @throws IllegalArgumentException if the handle is not valid
+     */
+    public void remove(int handle) {
+        removeRow(row(handle));
+    }
+    
+    /**
+     * Removes the record at a row. The last row is moved into the row.
+     * Loops removing rows should run from the last row to the first.
+     * @param row row in [0, size)
+     */
+    public void removeRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row: " + row + " size: " + size);
+        final int last = --size;
+        final int slot = rowSlot[row];
+        if (row != last) {
+            for (int[] column : ints) column[row] = column[last];
+            for (float[] column : floats) column[row] = column[last];
+            int moved = rowSlot[last];
+            rowSlot[row] = moved;
+            slotRow[moved] = row;
+        } slotRow[slot] = -1;
+        generation[slot] = (generation[slot] + 1) & GENERATION_MASK;
+        freeSlots.push(slot);
+    }
+    
+    /**
+     * @param handle handle
+     * @return true if the handle refers to a record in the store
+     */
+    public boolean contains(int handle) {
+        int slot = handle & SLOT_MASK;
+        return slot < slotCount && slotRow[slot] >= 0 && generation[slot] == handle >>> SLOT_BITS;
+    }
+    
+    /**
+     * Current row of a record. Valid until the next remove or sort.
+     * @param handle handle of the record
+     * @return row in [0, size)
+     * @throws IllegalArgumentException if the handle is not valid
+     */
+    public int row(int handle) {
+        if (!contains(handle)) throw new IllegalArgumentException("invalid handle: " + handle);
+        return slotRow[handle & SLOT_MASK];
+    }
+    
+    /**
+     * @param row row in [0, size). unchecked
+     * @return handle of the record at the row
+     */
+    public int handle(int row) {
+        int slot = rowSlot[row];
+        return (generation[slot] << SLOT_BITS) | slot;
+    }
+    
+    public int getInt(int column, int handle) {
+        return ints[column][row(handle)];
+    }
+    
+    public void setInt(int column, int handle, int value) {
+        ints[column][row(handle)] = value;
+    }
+    
+    public float getFloat(int column, int handle) {
+        return floats[column][row(handle)];
+    }
+    
+    public void setFloat(int column, int handle, float value) {
+        floats[column][row(handle)] = value;
+    }
+    
+    /**
+     * Unsafe: the array of an int column, valid from index (row) 0 to size() - 1.
+     * It is replaced when the store grows or fits. Do not keep it across adds.
+     * @param column int column index
+     * @return the column array
+     */
+    public int[] ints(int column) {
+        return ints[column];
+    }
+    
+    /**
+     * Unsafe: the array of a float column, valid from index (row) 0 to size() - 1.
+     * It is replaced when the store grows or fits. Do not keep it across adds.
+     * @param column float column index
+     * @return the column array
+     */
+    public float[] floats(int column) {
+        return floats[column];
+    }
+    
+    /**
+     * Reads an int column in row order
+     * @param column int column index
+     * @param reader reader
+     */
+    public void readInts(int column, IntReader reader) {
+        final int[] values = ints[column];
+        for (int i = 0; i < size; i++) {
+            reader.next(values[i]);
+        }
+    }
+    
+    /**
+     * Reads a float column in row order
+     * @param column float column index
+     * @param reader reader
+     */
+    public void readFloats(int column, FloatReader reader) {
+        final float[] values = floats[column];
+        for (int i = 0; i < size; i++) {
+            reader.next(values[i]);
+        }
+    }
+    
+    /**
+     * Splits the rows [0, size) into fixed blocks processed on the common ForkJoinPool.
+     * The task can read and write any column of its own rows. Do not add or remove records while processing.
+     * @param task task
+     */
+    public void parallelProcess(RowRange task) {
+        RowBlocks.execute(0,size,Math.max(1,ints.length + floats.length),task::process);
+    }
+    
+    /**
+     * Reorders the rows by an int column (ascending, stable). Handles stay valid.
+     * F.ex. sorting by a spatial key keeps neighbouring records close in memory.
+     * @param column int column index
+     */
+    public void sortBy(int column) {
+        if (size < 2) return;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        PrimitiveSort.sort(Arrays.copyOf(ints[column],size),order,0,size);
+        int[] tmpInts = new int[size];
+        for (int[] values : ints) {
+            for (int i = 0; i < size; i++) tmpInts[i] = values[order[i]];
+            System.arraycopy(tmpInts,0,values,0,size);
+        } float[] tmpFloats = new float[size];
+        for (float[] values : floats) {
+            for (int i = 0; i < size; i++) tmpFloats[i] = values[order[i]];
+            System.arraycopy(tmpFloats,0,values,0,size);
+        } for (int i = 0; i < size; i++) tmpInts[i] = rowSlot[order[i]];
+        System.arraycopy(tmpInts,0,rowSlot,0,size);
+        for (int row = 0; row < size; row++) {
+            slotRow[rowSlot[row]] = row;
+        }
+    }
+    
+    /**
+     * Removes every record. All handles become invalid.
+     */
+    public void clear() {
+        for (int row = 0; row < size; row++) {
+            int slot = rowSlot[row];
+            slotRow[slot] = -1;
+            generation[slot] = (generation[slot] + 1) & GENERATION_MASK;
+            freeSlots.push(slot);
+        } size = 0;
+    }
+    
+    public void ensureCapacity(int capacity) {
+        if (capacity > MAX_RECORDS) throw new IllegalArgumentException("capacity out of range: " + capacity);
+        if (capacity > this.capacity) grow(capacity);
+    }
+    
+    /**
+     * Used to fit the column arrays to max(size, min)
+     * @param min the minimum wanted capacity.
+     */
+    public void fit(int min) {
+        int cap = Math.min(MAX_RECORDS,Math.max(Math.max(0,min),size));
+        if (cap != capacity) grow(cap);
+    }
+    
+    public void fit() {
+        fit(0);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int intColumns() {
+        return ints.length;
+    }
+    
+    public int floatColumns() {
+        return floats.length;
+    }
+    
+    public String intColumnName(int column) {
+        return intNames[column];
+    }
+    
+    public String floatColumnName(int column) {
+        return floatNames[column];
+    }
+    
+    public int sizeBytes() {
+        return capacity * ((ints.length + floats.length + 1) * Integer.BYTES) + slotRow.length * 2 * Integer.BYTES;
+    }
+    
+    private void grow(int cap) {
+        for (int c = 0; c < ints.length; c++) ints[c] = Arrays.copyOf(ints[c],cap);
+        for (int c = 0; c < floats.length; c++) floats[c] = Arrays.copyOf(floats[c],cap);
+        rowSlot = Arrays.copyOf(rowSlot,cap);
+        capacity = cap;
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.heathensoft.storage.primitive;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Splits a range of rows into fixed-size blocks for the parallel operations of the 2D arrays.
+ *
+ * The block size only depends on the width of the area. Not on the number of cores or the pool.
+ * So the partitioning (and the order partial results are combined in) is the same for every run.
+ * Blocks are executed on the common ForkJoinPool.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+final class RowBlocks {
+    
+    /** Approximate number of cells handled by a single task */
+    static final int BLOCK_CELLS = 1 << 14;
+    
+    @FunctionalInterface
+    interface RowTask {
+        /**
+         * @param fromRow first row inclusive
+         * @param toRow last row exclusive
+         */
+        void process(int fromRow, int toRow);
+    }
+    
+    @FunctionalInterface
+    interface RowReduction<R> {
+        /**
+         * @param fromRow first row inclusive
+         * @param toRow last row exclusive
+         * @return the partial result of the block
+         */
+        R process(int fromRow, int toRow);
+    }
+    
+    static int blockRows(int width) {
+        return Math.max(1, BLOCK_CELLS / Math.max(1,width));
+    }
+    
+    /**
+     * @param fromRow first row inclusive
+     * @param toRow last row exclusive
+     * @param width cells per row
+     * @param task task
+     */
+    static void execute(int fromRow, int toRow, int width, RowTask task) {
+        if (toRow <= fromRow) return;
+        final int blockRows = blockRows(width);
+        final int blocks = (toRow - fromRow + blockRows - 1) / blockRows;
+        if (blocks == 1) task.process(fromRow, toRow);
+        else ForkJoinPool.commonPool().invoke(new Blocks(fromRow,toRow,blockRows,0,blocks,task));
+    }
+    
+    /**
+     * Partial results are combined left to right (top to bottom), in block order.
+     * @param fromRow first row inclusive
+     * @param toRow last row exclusive
+     * @param width cells per row
+     * @param reduction produces the partial result of a block
+     * @param combiner combines two partial results
+     * @return the combined result, or null for an empty range
+     */
+    @SuppressWarnings("unchecked")
+    static <R> R reduce(int fromRow, int toRow, int width, RowReduction<R> reduction, BinaryOperator<R> combiner) {
+        if (toRow <= fromRow) return null;
+        final int blockRows = blockRows(width);
+        final int blocks = (toRow - fromRow + blockRows - 1) / blockRows;
+        if (blocks == 1) return reduction.process(fromRow, toRow);
+        final Object[] partial = new Object[blocks];
+        ForkJoinPool.commonPool().invoke(new Blocks(fromRow,toRow,blockRows,0,blocks, (r0, r1) ->
+                partial[(r0 - fromRow) / blockRows] = reduction.process(r0,r1)));
+        R result = (R) partial[0];
+        for (int i = 1; i < blocks; i++) {
+            result = combiner.apply(result,(R) partial[i]);
+        } return result;
+    }
+    
+    private static final class Blocks extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final int fromRow;
+        private final int toRow;
+        private final int blockRows;
+        private final int firstBlock;
+        private final int lastBlock;
+        private final RowTask task;
+        
+        Blocks(int fromRow, int toRow, int blockRows, int firstBlock, int lastBlock, RowTask task) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.blockRows = blockRows;
+            this.firstBlock = firstBlock;
+            this.lastBlock = lastBlock;
+            this.task = task;
+        }
+        
+        @Override
+        protected void compute() {
+            int blocks = lastBlock - firstBlock;
+            if (blocks == 1) {
+                int r0 = fromRow + firstBlock * blockRows;
+                int r1 = Math.min(toRow, r0 + blockRows);
+                task.process(r0,r1);
+            } else {
+                int mid = firstBlock + (blocks >> 1);
+                invokeAll(new Blocks(fromRow,toRow,blockRows,firstBlock,mid,task),
+                          new Blocks(fromRow,toRow,blockRows,mid,lastBlock,task));
+            }
+        }
+    }
+}
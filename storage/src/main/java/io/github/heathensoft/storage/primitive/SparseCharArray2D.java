@@ -0,0 +1,433 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.CharReader;
+import io.github.heathensoft.storage.primitive.iterators.CharReader2D;
+
+
+/**
+ * Sparse two-dimensional array of primitive values.
+ *
+ * The array is divided into 16x16 chunks. A chunk is only allocated when one of its cells
+ * is written a value other than the default value, and it is released again when all of its
+ * cells are back to the default value. Unallocated chunks read as the default value.
+ *
+ * Same read / write rules as CharArray2D (including the WriteFunction), so it can be swapped in for
+ * layers that are mostly default (ownership, overrides, markers). Use readAllocated to iterate
+ * without visiting the empty chunks.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class SparseCharArray2D extends PrimitiveArray2D implements ReadableChar2D {
+    
+    public static final int CHUNK_SHIFT = 4;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    public static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    private final char[][] chunks;
+    private final short[] counts; // non-default cells per chunk
+    private final char defaultValue;
+    private final int chunksX;
+    private final int chunksY;
+    private int allocated;
+    
+    /**
+     * @param rows rows
+     * @param cols cols
+     * @param defaultValue the value of all cells not written to
+     */
+    public SparseCharArray2D(int rows, int cols, char defaultValue) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("rows and cols must be > 0");
+        this.rows = rows;
+        this.cols = cols;
+        this.defaultValue = defaultValue;
+        this.chunksX = ((cols - 1) >> CHUNK_SHIFT) + 1;
+        this.chunksY = ((rows - 1) >> CHUNK_SHIFT) + 1;
+        this.chunks = new char[chunksX * chunksY][];
+        this.counts = new short[chunksX * chunksY];
+    }
+    
+    public SparseCharArray2D(int rows, int cols) {
+        this(rows,cols,(char) 0);
+    }
+    
+    /**
+     * @return Byte-size of the allocated chunks
+     */
+    @Override
+    public int sizeBytes() {
+        return allocated * CHUNK_AREA * Character.BYTES;
+    }
+    
+    /**
+     * Iterates through all values in order row by row: 0 -> num cols
+     * @param itr iterator
+     */
+    @Override
+    public void read(CharReader itr) {
+        for (int r = 0; r < rows; r++) readRowInternal(itr,r,0,cols-1);
+    }
+    /**
+     * Iterates through all values in order row by row: 0 -> num cols
+     * @param itr iterator
+     */
+    @Override
+    public void read(CharReader2D itr) {
+        for (int r = 0; r < rows; r++) readRowInternal(itr,r,0,cols-1);
+    }
+    /**
+     * Iterates through given row
+     * @param itr iterator
+     * @param row row
+     */
+    @Override
+    public void readRow(CharReader itr, int row) {
+        if (hasRow(row)) readRowInternal(itr,row,0,cols-1);
+    }
+    /**
+     * Iterates through given colon
+     * @param itr iterator
+     * @param col col
+     */
+    @Override
+    public void readCol(CharReader itr, int col) {
+        if (hasCol(col)) {
+            for (int r = 0; r < rows; r++) {
+                itr.next(get(col,r));
+            }
+        }
+    }
+    
+    /**
+     * Iterate a rectangular portion of array values given by
+     * "min / max" coordinates. Does not matter if min > max. Still a rectangle.
+     * @param itr iterator
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    @Override
+    public void readArea(CharReader itr, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        for (int r = minY; r <= maxY; r++) readRowInternal(itr,r,minX,maxX);
+    }
+    /**
+     * Iterate a rectangular portion of array values given by
+     * "min / max" coordinates. Does not matter if min > max. Still a rectangle.
+     * @param itr iterator
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    @Override
+    public void readArea(CharReader2D itr, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        for (int r = minY; r <= maxY; r++) readRowInternal(itr,r,minX,maxX);
+    }
+    
+    /**
+     * Iterates the cells of the allocated chunks only, chunk by chunk.
+     * Cells of unallocated chunks all hold the default value and are skipped.
+     * Allocated chunks can still contain default values.
+     * @param itr iterator
+     */
+    public void readAllocated(CharReader2D itr) {
+        for (int cy = 0; cy < chunksY; cy++) {
+            final int y0 = cy << CHUNK_SHIFT;
+            final int y1 = Math.min(rows, y0 + CHUNK_SIZE);
+            for (int cx = 0; cx < chunksX; cx++) {
+                char[] chunk = chunks[cx + cy * chunksX];
+                if (chunk == null) continue;
+                final int x0 = cx << CHUNK_SHIFT;
+                final int x1 = Math.min(cols, x0 + CHUNK_SIZE);
+                for (int r = y0; r < y1; r++) {
+                    final int row = (r & CHUNK_MASK) << CHUNK_SHIFT;
+                    for (int c = x0; c < x1; c++) {
+                        itr.next(c,r,chunk[row | (c & CHUNK_MASK)]);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write value to all. min and max values are inclusive and forms the area to write.
+     * Unallocated chunks are only allocated if the result differs from the default value.
+     * @param value value
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void write(char value, int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return;
+        onWrite(minX,minY,maxX,maxY);
+        final WriteFunction.CharFunc func = writeFunction.charFunc;
+        final boolean emptyStaysEmpty = isDefault(func.calc(defaultValue,value));
+        final int cx1 = maxX >> CHUNK_SHIFT;
+        final int cy1 = maxY >> CHUNK_SHIFT;
+        for (int cy = minY >> CHUNK_SHIFT; cy <= cy1; cy++) {
+            final int y0 = Math.max(minY, cy << CHUNK_SHIFT);
+            final int y1 = Math.min(maxY, (cy << CHUNK_SHIFT) + CHUNK_MASK);
+            for (int cx = minX >> CHUNK_SHIFT; cx <= cx1; cx++) {
+                final int ci = cx + cy * chunksX;
+                if (chunks[ci] == null && emptyStaysEmpty) continue;
+                final int x0 = Math.max(minX, cx << CHUNK_SHIFT);
+                final int x1 = Math.min(maxX, (cx << CHUNK_SHIFT) + CHUNK_MASK);
+                char[] chunk = chunk(ci);
+                int count = counts[ci];
+                for (int r = y0; r <= y1; r++) {
+                    final int row = (r & CHUNK_MASK) << CHUNK_SHIFT;
+                    for (int c = x0; c <= x1; c++) {
+                        final int i = row | (c & CHUNK_MASK);
+                        final char old = chunk[i];
+                        final char v = func.calc(old,value);
+                        chunk[i] = v;
+                        if (isDefault(old)) { if (!isDefault(v)) count++;
+                        } else if (isDefault(v)) count--;
+                    }
+                } counts[ci] = (short) count;
+                if (count == 0) release(ci);
+            }
+        }
+    }
+    
+    /**
+     * Write value to all.
+     * @param value value
+     */
+    public void write(char value) {
+        write(value,0,0,cols-1,rows-1);
+    }
+    
+    /**
+     * Write value to coordinate. unchecked.
+     * @param value value
+     * @param x p.x
+     * @param y p.y
+     */
+    public void write(char value, int x, int y) {
+        final int ci = (x >> CHUNK_SHIFT) + (y >> CHUNK_SHIFT) * chunksX;
+        char[] chunk = chunks[ci];
+        char old = chunk == null ? defaultValue : chunk[((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK)];
+        setInternal(writeFunction.charFunc.calc(old,value),x,y);
+    }
+    
+    /**
+     * Set value of array coordinate to value. unchecked.
+     * Equivalent to single write with WriteFunction.EQU. Only this is faster.
+     * @param value value
+     * @param x p.x
+     * @param y p.y
+     */
+    public void set(char value, int x, int y) {
+        setInternal(value,x,y);
+    }
+    
+    /**
+     * Get value stored in array at p( row = y, col = x) unchecked;
+     * @param x p.x
+     * @param y p.y
+     * @return value
+     */
+    public char get(int x, int y) {
+        char[] chunk = chunks[(x >> CHUNK_SHIFT) + (y >> CHUNK_SHIFT) * chunksX];
+        return chunk == null ? defaultValue : chunk[((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK)];
+    }
+    
+    @Override
+    long bits(int x, int y) {
+        return get(x,y);
+    }
+    
+    @Override
+    void setBits(long bits, int x, int y) {
+        set((char) bits,x,y);
+    }
+    
+    /**
+     * Write array values to this. Arrays must be of same dimensions.
+     * @param from source array
+     */
+    public void write(CharArray2D from) {
+        if (!sameDimension(from)) throw new RuntimeException("array is either null or not of same size as the write target array");
+        char[][] grid = from.get();
+        WriteFunction.CharFunc func = writeFunction.charFunc;
+        onWrite(0,0,cols-1,rows-1);
+        for (int r = 0; r < rows; r++) {
+            char[] src = grid[r];
+            for (int c = 0; c < cols; c++) {
+                store(func.calc(get(c,r),src[c]),c,r);
+            }
+        }
+    }
+    
+    /**
+     * Copies all values of this (including default values) to the row-major array.
+     * Arrays must be of same dimensions. The WriteFunction of this is ignored.
+     * @param to destination array
+     */
+    public void copyTo(CharArray2D to) {
+        if (!sameDimension(to)) throw new RuntimeException("array is either null or not of same size as the destination array");
+        char[][] grid = to.get();
+        for (int r = 0; r < rows; r++) {
+            char[] dst = grid[r];
+            final int row = (r & CHUNK_MASK) << CHUNK_SHIFT;
+            final int cy = r >> CHUNK_SHIFT;
+            for (int cx = 0; cx < chunksX; cx++) {
+                final int c0 = cx << CHUNK_SHIFT;
+                final int n = Math.min(CHUNK_SIZE, cols - c0);
+                char[] chunk = chunks[cx + cy * chunksX];
+                if (chunk == null) {
+                    for (int c = c0; c < c0 + n; c++) dst[c] = defaultValue;
+                } else System.arraycopy(chunk,row,dst,c0,n);
+            }
+        }
+    }
+    
+    /**
+     * Releases all chunks (all values are set to the default value)
+     */
+    public void clear() {
+        onWrite(0,0,cols-1,rows-1);
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = null;
+            counts[i] = 0;
+        } allocated = 0;
+    }
+    
+    public char defaultValue() {
+        return defaultValue;
+    }
+    
+    /**
+     * @return number of allocated chunks
+     */
+    public int allocatedChunks() {
+        return allocated;
+    }
+    
+    public int chunksX() {
+        return chunksX;
+    }
+    
+    public int chunksY() {
+        return chunksY;
+    }
+    
+    private void setInternal(char value, int x, int y) {
+        if (!isDefault(value) || chunks[(x >> CHUNK_SHIFT) + (y >> CHUNK_SHIFT) * chunksX] != null) {
+            onWrite(x,y);
+            store(value,x,y);
+        }
+    }
+    
+    /**
+     * Stores the value without calling the write hooks (onWrite). For area writes that called them once.
+     */
+    private void store(char value, int x, int y) {
+        final int ci = (x >> CHUNK_SHIFT) + (y >> CHUNK_SHIFT) * chunksX;
+        char[] chunk = chunks[ci];
+        if (chunk == null) {
+            if (isDefault(value)) return;
+            chunk = chunk(ci);
+        } final int i = ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+        final char old = chunk[i];
+        chunk[i] = value;
+        if (isDefault(old)) {
+            if (!isDefault(value)) counts[ci]++;
+        } else if (isDefault(value)) {
+            if (--counts[ci] == 0) release(ci);
+        }
+    }
+    
+    private char[] chunk(int ci) {
+        char[] chunk = chunks[ci];
+        if (chunk == null) {
+            chunk = new char[CHUNK_AREA];
+            if (!isDefault((char) 0)) {
+                for (int i = 0; i < CHUNK_AREA; i++) chunk[i] = defaultValue;
+            } chunks[ci] = chunk;
+            allocated++;
+        } return chunk;
+    }
+    
+    private void release(int ci) {
+        if (chunks[ci] != null) {
+            chunks[ci] = null;
+            counts[ci] = 0;
+            allocated--;
+        }
+    }
+    
+    private boolean isDefault(char value) {
+        return value == defaultValue;
+    }
+    
+    private void readRowInternal(CharReader itr, int row, int minX, int maxX) {
+        final int cy = row >> CHUNK_SHIFT;
+        final int offset = (row & CHUNK_MASK) << CHUNK_SHIFT;
+        for (int c = minX; c <= maxX;) {
+            final int n = Math.min(maxX + 1, (c | CHUNK_MASK) + 1) - c;
+            char[] chunk = chunks[(c >> CHUNK_SHIFT) + cy * chunksX];
+            if (chunk == null) {
+                for (int k = 0; k < n; k++) itr.next(defaultValue);
+            } else { final int i = offset | (c & CHUNK_MASK);
+                for (int k = 0; k < n; k++) itr.next(chunk[i + k]);
+            } c += n;
+        }
+    }
+    
+    private void readRowInternal(CharReader2D itr, int row, int minX, int maxX) {
+        final int cy = row >> CHUNK_SHIFT;
+        final int offset = (row & CHUNK_MASK) << CHUNK_SHIFT;
+        for (int c = minX; c <= maxX;) {
+            final int n = Math.min(maxX + 1, (c | CHUNK_MASK) + 1) - c;
+            char[] chunk = chunks[(c >> CHUNK_SHIFT) + cy * chunksX];
+            if (chunk == null) {
+                for (int k = 0; k < n; k++) itr.next(c + k,row,defaultValue);
+            } else { final int i = offset | (c & CHUNK_MASK);
+                for (int k = 0; k < n; k++) itr.next(c + k,row,chunk[i + k]);
+            } c += n;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Utils;
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded lock-free single-producer / single-consumer ring buffer.
+ * Exactly one thread may offer, and exactly one (other) thread may poll / drain.
+ * The producer and consumer counters are kept on separate cache lines to avoid false sharing.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class SpscIntRing {
+    
+    // counters are spaced 128 bytes apart in one array (padding against false sharing)
+    private static final int TAIL = 16;
+    private static final int HEAD_CACHE = 17;
+    private static final int HEAD = 32;
+    private static final int TAIL_CACHE = 33;
+    private static final int COUNTERS = 48;
+    private static final VarHandle COUNTER = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    private final long[] counters;
+    private final int[] buffer;
+    private final int mask;
+    
+    /**
+     * @param capacity rounded up to the nearest power of two
+     */
+    public SpscIntRing(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity < 1: " + capacity);
+        capacity = Utils.nextPowerOfTwo(capacity);
+        this.buffer = new int[capacity];
+        this.counters = new long[COUNTERS];
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * Producer only.
+     * @param value value to add
+     * @return false if the ring is full
+     */
+    public boolean offer(int value) {
+        final long[] c = counters;
+        long tail = c[TAIL];
+        if (tail - c[HEAD_CACHE] > mask) {
+            c[HEAD_CACHE] = (long) COUNTER.getAcquire(c,HEAD);
+            if (tail - c[HEAD_CACHE] > mask) return false;
+        } buffer[(int) tail & mask] = value;
+        COUNTER.setRelease(c,TAIL,tail + 1);
+        return true;
+    }
+    
+    /**
+     * Producer only. Adds as many values as there is room for, and publishes them all at once.
+     * @param src source array
+     * @param offset source offset
+     * @param length max values to add
+     * @return number of values added
+     */
+    public int offer(int[] src, int offset, int length) {
+        final long[] c = counters;
+        long tail = c[TAIL];
+        int free = (int) (buffer.length - (tail - c[HEAD_CACHE]));
+        if (free < length) {
+            c[HEAD_CACHE] = (long) COUNTER.getAcquire(c,HEAD);
+            free = (int) (buffer.length - (tail - c[HEAD_CACHE]));
+        } int n = Math.min(free,length);
+        for (int i = 0; i < n; i++) {
+            buffer[(int) (tail + i) & mask] = src[offset + i];
+        } if (n > 0) COUNTER.setRelease(c,TAIL,tail + n);
+        return n;
+    }
+    
+    /**
+     * Consumer only.
+     * @return the next value, or defaultValue if the ring is empty
+     */
+    public int poll(int defaultValue) {
+        final long[] c = counters;
+        long head = c[HEAD];
+        if (head >= c[TAIL_CACHE]) {
+            c[TAIL_CACHE] = (long) COUNTER.getAcquire(c,TAIL);
+            if (head >= c[TAIL_CACHE]) return defaultValue;
+        } int index = (int) head & mask;
+        int value = buffer[index];
+        COUNTER.setRelease(c,HEAD,head + 1);
+        return value;
+    }
+    
+    /**
+     * Consumer only. Passes all currently available values to the reader.
+     * @param itr reader
+     * @return number of values drained
+     */
+    public int drain(IntReader itr) {
+        return drain(itr,Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Consumer only. Passes up to limit available values to the reader.
+     * The consumed slots are released to the producer in one go, also if the reader throws.
+     * @param itr reader
+     * @param limit max values to drain
+     * @return number of values drained
+     */
+    public int drain(IntReader itr, int limit) {
+        final long[] c = counters;
+        long head = c[HEAD];
+        long tail = c[TAIL_CACHE];
+        if (tail - head < limit) {
+            tail = c[TAIL_CACHE] = (long) COUNTER.getAcquire(c,TAIL);
+        } final int n = (int) Math.min(tail - head,limit);
+        int consumed = 0;
+        try {
+            while (consumed < n) {
+                int index = (int) (head + consumed++) & mask;
+                itr.next(buffer[index]);
+            }
+        } finally { // values passed to a throwing reader are consumed
+            if (consumed > 0) COUNTER.setRelease(c,HEAD,head + consumed);
+        } return n;
+    }
+    
+    /**
+     * Consumer only. Discards all available values.
+     */
+    public void clear() {
+        final long[] c = counters;
+        long tail = c[TAIL_CACHE] = (long) COUNTER.getAcquire(c,TAIL);
+        COUNTER.setRelease(c,HEAD,tail);
+    }
+    
+    /**
+     * @return approximate number of values in the ring
+     */
+    public int size() {
+        long head = (long) COUNTER.getAcquire(counters,HEAD);
+        long tail = (long) COUNTER.getAcquire(counters,TAIL);
+        return (int) Math.max(0,Math.min(tail - head,buffer.length));
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,532 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.GradientReader;
+
+/**
+ * Neighbourhood operations (stencils) over 2D arrays: convolution, min and max.
+ * One engine for blur, gradients, erosion and dilation.
+ *
+ * The source can be any PrimitiveArray2D (values are read as float, char unsigned).
+ * The result is written to any PrimitiveArray2D of the same dimensions, through its WriteFunction.
+ * Integral destinations receive the result rounded to the nearest integer, saturated to the range of the type,
+ * so a ShortArray2D mask can be eroded without a float copy. FloatArray2D destinations are written row by row,
+ * other destinations cell by cell. Source and destination may be the same array.
+ *
+ * For a kernel k of width w, height h and anchor (ax, ay) (the center), the result is the correlation:
+ * dst(x,y) = sum k(i,j) * src(x + i - ax, y + j - ay). Min and max stencils take the min or max
+ * of the source values under the non-zero weights instead. Source cells outside the array are mapped
+ * back in by the Edge mode.
+ *
+ * Rows are processed in blocks (see RowBlocks). A block loads its source rows (with the kernel margin)
+ * once into a contiguous band, and every kernel row / column then runs a linear pass over the band.
+ * Separable stencils filter the band horizontally, then vertically: O(w + h) per cell instead of O(w * h).
+ * The parallel versions process the blocks on the common ForkJoinPool. The result is the same.
+ * gradient passes both central differences of every cell to a reader in one pass, without destination arrays.
+ *
+ * Stencils are immutable and can be shared between threads.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public final class Stencil {
+    
+    /** How source coordinates outside the array are mapped back in */
+    public enum Edge {
+        /** Nearest edge cell: aaa|abcd|ddd */
+        CLAMP,
+        /** Opposite edge (tiling): bcd|abcd|abc */
+        WRAP,
+        /** Reflected, without repeating the edge cell: dcb|abcd|cba */
+        MIRROR;
+        
+        /**
+         * @param i coordinate
+         * @param n array length
+         * @return i mapped into [0, n)
+         */
+        public int map(int i, int n) {
+            if (i >= 0 && i < n) return i;
+            switch (this) {
+                case CLAMP: return i < 0 ? 0 : n - 1;
+                case WRAP: return Math.floorMod(i,n);
+                default:
+                    if (n == 1) return 0;
+                    int period = 2 * (n - 1);
+                    i = Math.floorMod(i,period);
+                    return i < n ? i : period - i;
+            }
+        }
+    }
+    
+    private enum Op { SUM, MIN, MAX }
+    
+    private final Op op;
+    private final float[] weights;     // general kernel, row-major. null if separable
+    private final float[] rowKernel;   // separable: horizontal pass
+    private final float[] colKernel;   // separable: vertical pass
+    private final int width;
+    private final int height;
+    private final int anchorX;
+    private final int anchorY;
+    
+    private Stencil(Op op, float[] weights, float[] rowKernel, float[] colKernel, int width, int height) {
+        this.op = op;
+        this.weights = weights;
+        this.rowKernel = rowKernel;
+        this.colKernel = colKernel;
+        this.width = width;
+        this.height = height;
+        this.anchorX = width / 2;
+        this.anchorY = height / 2;
+    }
+    
+    /**
+     * General kernel. The anchor is the center (width / 2, height / 2).
+     * @param width kernel width
+     * @param height kernel height
+     * @param weights width * height weights, row by row (top row first)
+     * @return convolution stencil
+     */
+    public static Stencil kernel(int width, int height, float... weights) {
+        return new Stencil(Op.SUM,checkWeights(width,height,weights),null,null,width,height);
+    }
+    
+    /**
+     * Separable kernel: the outer product of a column and a row kernel.
+     * The anchor is the center (rowKernel.length / 2, colKernel.length / 2).
+     * @param rowKernel horizontal weights
+     * @param colKernel vertical weights
+     * @return convolution stencil
+     */
+    public static Stencil separable(float[] rowKernel, float[] colKernel) {
+        if (rowKernel == null || colKernel == null) throw new IllegalArgumentException("kernel == null");
+        if (rowKernel.length == 0 || colKernel.length == 0) throw new IllegalArgumentException("empty kernel");
+        return new Stencil(Op.SUM,null,rowKernel.clone(),colKernel.clone(),rowKernel.length,colKernel.length);
+    }
+    
+    /**
+     * Mean of the (2 * radius + 1)^2 neighbourhood
+     * @param radius radius >= 0
+     * @return separable box blur
+     */
+    public static Stencil box(int radius) {
+        float[] k = ones(radius);
+        float w = 1f / k.length;
+        for (int i = 0; i < k.length; i++) k[i] = w;
+        return separable(k,k);
+    }
+    
+    /**
+     * Gaussian blur, normalized to sum 1
+     * @param radius radius >= 0 (3 * sigma covers the bell)
+     * @param sigma standard deviation > 0
+     * @return separable gaussian blur
+     */
+    public static Stencil gaussian(int radius, float sigma) {
+        if (sigma <= 0) throw new IllegalArgumentException("sigma must be > 0");
+        float[] k = ones(radius);
+        float sum = 0;
+        for (int i = 0; i < k.length; i++) {
+            int d = i - radius;
+            k[i] = (float) Math.exp(-(d * d) / (2.0 * sigma * sigma));
+            sum += k[i];
+        } for (int i = 0; i < k.length; i++) k[i] /= sum;
+        return separable(k,k);
+    }
+    
+    /**
+     * Central difference along x: src(x + 1, y) - src(x - 1, y)
+     * @return horizontal gradient
+     */
+    public static Stencil gradientX() {
+        return separable(new float[] {-1, 0, 1},new float[] {1});
+    }
+    
+    /**
+     * Central difference along y: src(x, y + 1) - src(x, y - 1)
+     * @return vertical gradient
+     */
+    public static Stencil gradientY() {
+        return separable(new float[] {1},new float[] {-1, 0, 1});
+    }
+    
+    /** @return horizontal sobel operator */
+    public static Stencil sobelX() {
+        return separable(new float[] {-1, 0, 1},new float[] {1, 2, 1});
+    }
+    
+    /** @return vertical sobel operator */
+    public static Stencil sobelY() {
+        return separable(new float[] {1, 2, 1},new float[] {-1, 0, 1});
+    }
+    
+    /**
+     * Minimum of the (2 * radius + 1)^2 neighbourhood
+     * @param radius radius >= 0
+     * @return separable erosion
+     */
+    public static Stencil erode(int radius) {
+        float[] k = ones(radius);
+        return new Stencil(Op.MIN,null,k,k.clone(),k.length,k.length);
+    }
+    
+    /**
+     * Maximum of the (2 * radius + 1)^2 neighbourhood
+     * @param radius radius >= 0
+     * @return separable dilation
+     */
+    public static Stencil dilate(int radius) {
+        float[] k = ones(radius);
+        return new Stencil(Op.MAX,null,k,k.clone(),k.length,k.length);
+    }
+    
+    /**
+     * Minimum under a structuring element (f.ex. a disc). Non-zero weights are part of the element.
+     * @param width element width
+     * @param height element height
+     * @param mask width * height weights, row by row (top row first). At least one non-zero
+     * @return erosion
+     */
+    public static Stencil erode(int width, int height, float... mask) {
+        return new Stencil(Op.MIN,checkMask(width,height,mask),null,null,width,height);
+    }
+    
+    /**
+     * Maximum under a structuring element (f.ex. a disc). Non-zero weights are part of the element.
+     * @param width element width
+     * @param height element height
+     * @param mask width * height weights, row by row (top row first). At least one non-zero
+     * @return dilation
+     */
+    public static Stencil dilate(int width, int height, float... mask) {
+        return new Stencil(Op.MAX,checkMask(width,height,mask),null,null,width,height);
+    }
+    
+    /**
+     * Apply to all values
+     * @param src source array
+     * @param dst destination array. Same dimensions as the source. Can be the source
+     * @param edge edge mode
+     */
+    public void apply(PrimitiveArray2D src, PrimitiveArray2D dst, Edge edge) {
+        apply(src,dst,edge,0,0,dst.cols-1,dst.rows-1);
+    }
+    
+    /**
+     * Apply to a rectangular area of the destination. The kernel still reads the source outside the area.
+     * min and max values are inclusive and clamped to the array. Does not matter if min > max.
+     * @param src source array
+     * @param dst destination array. Same dimensions as the source. Can be the source
+     * @param edge edge mode
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void apply(PrimitiveArray2D src, PrimitiveArray2D dst, Edge edge, int minX, int minY, int maxX, int maxY) {
+        apply(src,dst,edge,minX,minY,maxX,maxY,false);
+    }
+    
+    /**
+     * Parallel version of apply(src, dst, edge).
+     * @param src source array
+     * @param dst destination array. Same dimensions as the source. Can be the source
+     * @param edge edge mode
+     */
+    public void parallelApply(PrimitiveArray2D src, PrimitiveArray2D dst, Edge edge) {
+        parallelApply(src,dst,edge,0,0,dst.cols-1,dst.rows-1);
+    }
+    
+    /**
+     * Parallel version of apply(src, dst, edge, minX, minY, maxX, maxY).
+     * Blocks of rows are processed on the common ForkJoinPool. The source is only read.
+     * @param src source array
+     * @param dst destination array. Same dimensions as the source. Can be the source
+     * @param edge edge mode
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void parallelApply(PrimitiveArray2D src, PrimitiveArray2D dst, Edge edge, int minX, int minY, int maxX, int maxY) {
+        apply(src,dst,edge,minX,minY,maxX,maxY,true);
+    }
+    
+    /**
+     * Both central differences of every cell in one pass (gradientX and gradientY fused):
+     * gx = src(x + 1, y) - src(x - 1, y), gy = src(x, y + 1) - src(x, y - 1).
+     * Source cells outside the array are mapped back in by the edge mode. Cells are passed row by row.
+     * @param src source array
+     * @param edge edge mode
+     * @param reader receives the gradient of every cell
+     */
+    public static void gradient(PrimitiveArray2D src, Edge edge, GradientReader reader) {
+        if (src == null) throw new IllegalArgumentException("array == null");
+        if (edge == null) throw new IllegalArgumentException("edge == null");
+        if (reader == null) throw new IllegalArgumentException("reader == null");
+        final int rows = src.rows;
+        final int cols = src.cols;
+        final int bandCols = cols + 2;
+        final int blockRows = RowBlocks.blockRows(cols);
+        final Rows source = sourceRows(src,null,edge,-1,rows);
+        final float[] band = new float[(blockRows + 2) * bandCols];
+        final float[] line = source.scratch();
+        for (int r0 = 0; r0 < rows; r0 += blockRows) {
+            final int n = Math.min(rows - r0,blockRows);
+            for (int i = 0; i < n + 2; i++) {
+                float[] row = source.row(edge.map(r0 - 1 + i,rows),line);
+                loadRow(row,cols,edge,-1,band,i * bandCols,bandCols);
+            } for (int y = 0; y < n; y++) {
+                final int above = y * bandCols + 1;
+                final int center = above + bandCols;
+                final int below = center + bandCols;
+                for (int x = 0; x < cols; x++) {
+                    reader.next(x,r0 + y,band[center + x + 1] - band[center + x - 1],band[below + x] - band[above + x]);
+                }
+            }
+        }
+    }
+    
+    public int width() {
+        return width;
+    }
+    
+    public int height() {
+        return height;
+    }
+    
+    public boolean isSeparable() {
+        return weights == null;
+    }
+    
+    private void apply(PrimitiveArray2D src, PrimitiveArray2D dst, Edge edge, int minX, int minY, int maxX, int maxY, boolean parallel) {
+        if (src == null || dst == null) throw new IllegalArgumentException("array == null");
+        if (edge == null) throw new IllegalArgumentException("edge == null");
+        if (!dst.sameDimension(src)) throw new IllegalArgumentException("arrays must be of same dimensions");
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        final int x0 = Math.max(0,minX);
+        final int y0 = Math.max(0,minY);
+        final int x1 = Math.min(dst.cols-1,maxX);
+        final int y1 = Math.min(dst.rows-1,maxY);
+        if (x1 < x0 || y1 < y0) return;
+        final Rows rows = sourceRows(src,dst,edge,y0 - anchorY,y1 + height - 1 - anchorY);
+        dst.onWrite(x0,y0,x1,y1);
+        final int areaWidth = x1 - x0 + 1;
+        final float[][] staged; // results for other destinations, stored after the parallel blocks
+        final RowStore store;
+        if (dst instanceof FloatArray2D) {
+            final float[][] out = ((FloatArray2D) dst).grid;
+            final WriteFunction function = dst.writeFunction;
+            staged = null;
+            store = (values, y) -> store(values,out[y],x0,function);
+        } else if (parallel) {
+            // per cell writes go through the write hooks, which are not thread safe
+            staged = new float[y1 - y0 + 1][];
+            store = (values, y) -> staged[y - y0] = values.clone();
+        } else {
+            staged = null;
+            store = (values, y) -> GridCells.writeRow(dst,values,x0,y);
+        } RowBlocks.RowTask task = (r0, r1) -> process(rows,store,edge,x0,x1,r0,r1);
+        if (parallel) RowBlocks.execute(y0,y1 + 1,areaWidth,task);
+        else { int blockRows = RowBlocks.blockRows(areaWidth);
+            for (int r = y0; r <= y1; r += blockRows) {
+                task.process(r,Math.min(y1 + 1,r + blockRows));
+            }
+        } if (staged != null) {
+            for (int y = y0; y <= y1; y++) GridCells.writeRow(dst,staged[y - y0],x0,y);
+        }
+    }
+    
+    /**
+     * Computes the destination rows [r0, r1) between columns x0 and x1 (inclusive)
+     */
+    private void process(Rows src, RowStore dst, Edge edge, int x0, int x1, int r0, int r1) {
+        final int w = x1 - x0 + 1;
+        final int blockRows = r1 - r0;
+        final int bandRows = blockRows + height - 1;
+        final int bandCols = w + width - 1;
+        final float[] band = new float[bandRows * bandCols];
+        final float[] line = src.scratch();
+        for (int i = 0; i < bandRows; i++) {
+            float[] row = src.row(edge.map(r0 - anchorY + i,src.rows()),line);
+            loadRow(row,src.cols(),edge,x0 - anchorX,band,i * bandCols,bandCols);
+        } final float[] out = new float[w];
+        if (weights == null) {
+            // horizontal pass over the whole band, then vertical pass per row
+            final float[] horizontal = new float[bandRows * w];
+            for (int i = 0; i < bandRows; i++) {
+                reduceRow(rowKernel,band,i * bandCols,horizontal,i * w,w);
+            } for (int y = 0; y < blockRows; y++) {
+                reset(out);
+                for (int j = 0; j < height; j++) {
+                    accumulate(colKernel[j],horizontal,(y + j) * w,out,w);
+                } dst.store(out,r0 + y);
+            }
+        } else {
+            for (int y = 0; y < blockRows; y++) {
+                reset(out);
+                for (int j = 0; j < height; j++) {
+                    int offset = (y + j) * bandCols;
+                    for (int i = 0; i < width; i++) {
+                        accumulate(weights[j * width + i],band,offset + i,out,w);
+                    }
+                } dst.store(out,r0 + y);
+            }
+        }
+    }
+    
+    /**
+     * Applies a 1D kernel along a band row: out[x] = op(k[i], src[offset + x + i])
+     */
+    private void reduceRow(float[] kernel, float[] src, int offset, float[] dst, int dstOffset, int w) {
+        if (op == Op.SUM) {
+            for (int x = 0; x < w; x++) dst[dstOffset + x] = 0;
+            for (int i = 0; i < kernel.length; i++) {
+                float k = kernel[i];
+                if (k == 0) continue;
+                int s = offset + i - dstOffset;
+                for (int x = dstOffset; x < dstOffset + w; x++) {
+                    dst[x] += k * src[s + x];
+                }
+            }
+        } else {
+            float identity = op == Op.MIN ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+            for (int x = 0; x < w; x++) dst[dstOffset + x] = identity;
+            for (int i = 0; i < kernel.length; i++) {
+                if (kernel[i] == 0) continue;
+                int s = offset + i - dstOffset;
+                if (op == Op.MIN) {
+                    for (int x = dstOffset; x < dstOffset + w; x++) dst[x] = Math.min(dst[x],src[s + x]);
+                } else {
+                    for (int x = dstOffset; x < dstOffset + w; x++) dst[x] = Math.max(dst[x],src[s + x]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * out[x] = op(out[x], k * src[offset + x]) for a single kernel weight
+     */
+    private void accumulate(float k, float[] src, int offset, float[] out, int w) {
+        if (k == 0) return;
+        switch (op) {
+            case SUM:
+                for (int x = 0; x < w; x++) out[x] += k * src[offset + x];
+                break;
+            case MIN:
+                for (int x = 0; x < w; x++) out[x] = Math.min(out[x],src[offset + x]);
+                break;
+            default:
+                for (int x = 0; x < w; x++) out[x] = Math.max(out[x],src[offset + x]);
+        }
+    }
+    
+    private void reset(float[] out) {
+        float identity = op == Op.SUM ? 0 : op == Op.MIN ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+        for (int x = 0; x < out.length; x++) out[x] = identity;
+    }
+    
+    private static void store(float[] out, float[] row, int x0, WriteFunction function) {
+        if (function == WriteFunction.EQU) System.arraycopy(out,0,row,x0,out.length);
+        else { WriteFunction.FloatFunc func = function.floatFunc;
+            for (int x = 0; x < out.length; x++) {
+                row[x0 + x] = func.calc(row[x0 + x],out[x]);
+            }
+        }
+    }
+    
+    /**
+     * Copies source columns [from, from + n) of a row into the band. Columns outside the row are mapped by the edge mode.
+     */
+    private static void loadRow(float[] row, int cols, Edge edge, int from, float[] band, int offset, int n) {
+        int first = Math.max(0,from);
+        int last = Math.min(cols,from + n);
+        for (int c = from; c < Math.min(first,from + n); c++) {
+            band[offset + c - from] = row[edge.map(c,cols)];
+        } if (last > first) {
+            System.arraycopy(row,first,band,offset + first - from,last - first);
+        } for (int c = Math.max(last,from); c < from + n; c++) {
+            band[offset + c - from] = row[edge.map(c,cols)];
+        }
+    }
+    
+    /**
+     * Source rows as float arrays. FloatArray2D rows are used directly.
+     * Other arrays are read row by row into the scratch line of the block.
+     * If the source is also the destination, the rows read (from - to, mapped by the edge mode)
+     * are copied before the area is overwritten.
+     */
+    private static Rows sourceRows(PrimitiveArray2D src, PrimitiveArray2D dst, Edge edge, int from, int to) {
+        final int rows = src.rows;
+        final int cols = src.cols;
+        if (src instanceof FloatArray2D || src == dst) {
+            float[][] grid = src instanceof FloatArray2D ? ((FloatArray2D) src).grid : null;
+            if (src == dst) {
+                float[][] copy = new float[rows][];
+                for (int y = from; y <= to; y++) {
+                    int r = edge.map(y,rows);
+                    if (copy[r] != null) continue;
+                    if (grid != null) copy[r] = grid[r].clone();
+                    else { float[] row = copy[r] = new float[cols];
+                        GridCells.readDoubles(src,(x, ry, v) -> row[x] = (float) v,0,r,cols-1,r);
+                    }
+                } grid = copy;
+            } final float[][] source = grid;
+            return new Rows() {
+                public int rows() { return rows; }
+                public int cols() { return cols; }
+                public float[] scratch() { return null; }
+                public float[] row(int r, float[] scratch) { return source[r]; }
+            };
+        } return new Rows() {
+            public int rows() { return rows; }
+            public int cols() { return cols; }
+            public float[] scratch() { return new float[cols]; }
+            public float[] row(int r, float[] scratch) {
+                GridCells.readDoubles(src,(x, y, v) -> scratch[x] = (float) v,0,r,cols-1,r);
+                return scratch;
+            }
+        };
+    }
+    
+    private interface RowStore {
+        /** Stores the results of destination row y, from the first column of the area */
+        void store(float[] values, int y);
+    }
+    
+    private interface Rows {
+        int rows();
+        int cols();
+        float[] scratch();
+        float[] row(int r, float[] scratch);
+    }
+    
+    private static float[] ones(int radius) {
+        if (radius < 0) throw new IllegalArgumentException("radius must be >= 0");
+        float[] k = new float[2 * radius + 1];
+        for (int i = 0; i < k.length; i++) k[i] = 1;
+        return k;
+    }
+    
+    private static float[] checkWeights(int width, int height, float[] weights) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("kernel dimensions must be > 0");
+        if (weights == null || weights.length != width * height)
+            throw new IllegalArgumentException("expected " + width * height + " weights");
+        return weights.clone();
+    }
+    
+    private static float[] checkMask(int width, int height, float[] mask) {
+        float[] weights = checkWeights(width,height,mask);
+        for (float w : weights) if (w != 0) return weights;
+        throw new IllegalArgumentException("empty mask");
+    }
+}
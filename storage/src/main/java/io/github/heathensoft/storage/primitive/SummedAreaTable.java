@@ -0,0 +1,167 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Disposable;
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+
+/**
+ * Summed-area table (integral image) of an integral 2D array (byte, short, char, int or long).
+ * Rectangle sums are O(1). Sums are accumulated in long (char values are unsigned).
+ *
+ * The table observes the array: it registers its invalidate method as a write listener of the source
+ * (PrimitiveArray2D.addWriteListener), so every write through the array invalidates the written area.
+ * Writes to the underlying array (get()) or buffer are not seen. Report those with array.markDirty (or invalidate).
+ * Dispose to stop observing.
+ * A modified cell changes every entry below and to the right of it, so the table is
+ * rebuilt from the lowest invalidated corner to the end of the array.
+ * This happens lazily on the next query (or refresh).
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+public class SummedAreaTable implements Disposable {
+    
+    private final PrimitiveArray2D source;
+    private final AreaReader listener;
+    private final long[] table; // (rows + 1) * (cols + 1), first row and col are 0
+    private final int stride;
+    private final int rows;
+    private final int cols;
+    private int dirtyX;
+    private int dirtyY;
+    
+    /**
+     * @param source integral array
+     * @throws IllegalArgumentException if the array holds float or double values
+     */
+    public SummedAreaTable(PrimitiveArray2D source) {
+        if (!GridCells.isIntegral(source)) throw new IllegalArgumentException("not an integral array");
+        this.source = source;
+        this.rows = source.rows();
+        this.cols = source.cols();
+        this.stride = cols + 1;
+        this.table = new long[(rows + 1) * stride];
+        this.dirtyX = 0;
+        this.dirtyY = 0;
+        refresh();
+        this.listener = this::invalidate;
+        source.addWriteListener(listener);
+    }
+    
+    /**
+     * Sum of the values in the area. min and max values are inclusive and clamped to the array.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     * @return the sum. 0 if the area is outside the array
+     */
+    public long sum(int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX) {
+            int tmp = minX;
+            minX = maxX;
+            maxX = tmp;
+        } if (minY > maxY) {
+            int tmp = minY;
+            minY = maxY;
+            maxY = tmp;}
+        minX = Math.max(0,minX);
+        minY = Math.max(0,minY);
+        maxX = Math.min(cols-1,maxX);
+        maxY = Math.min(rows-1,maxY);
+        if (minX > maxX || minY > maxY) return 0;
+        refresh();
+        final long[] t = table;
+        int top = minY * stride;
+        int bottom = (maxY + 1) * stride;
+        return t[bottom + maxX + 1] - t[bottom + minX] - t[top + maxX + 1] + t[top + minX];
+    }
+    
+    /**
+     * @return sum of all values
+     */
+    public long sum() {
+        refresh();
+        return table[table.length - 1];
+    }
+    
+    /**
+     * Mean value of the area. min and max values are inclusive and clamped to the array.
+     * @return the mean. 0 if the area is outside the array
+     */
+    public double average(int minX, int minY, int maxX, int maxY) {
+        int w = Math.min(cols-1,Math.max(minX,maxX)) - Math.max(0,Math.min(minX,maxX)) + 1;
+        int h = Math.min(rows-1,Math.max(minY,maxY)) - Math.max(0,Math.min(minY,maxY)) + 1;
+        if (w <= 0 || h <= 0) return 0;
+        return (double) sum(minX,minY,maxX,maxY) / ((long) w * h);
+    }
+    
+    /**
+     * Report a modified area of the source array. min and max values are inclusive.
+     * Signature matches AreaReader.
+     * @param minX p1.x
+     * @param minY p1.y
+     * @param maxX p2.x
+     * @param maxY p2.y
+     */
+    public void invalidate(int minX, int minY, int maxX, int maxY) {
+        dirtyX = Math.max(0,Math.min(dirtyX,Math.min(minX,maxX)));
+        dirtyY = Math.max(0,Math.min(dirtyY,Math.min(minY,maxY)));
+    }
+    
+    public void invalidateAll() {
+        dirtyX = dirtyY = 0;
+    }
+    
+    public boolean isValid() {
+        return dirtyX >= cols || dirtyY >= rows;
+    }
+    
+    /**
+     * Rebuild the invalidated part of the table. Called by the queries.
+     */
+    public void refresh() {
+        if (isValid()) return;
+        final int x0 = dirtyX;
+        final int y0 = dirtyY;
+        final long[] t = table;
+        final int s = stride;
+        // raw values first. The source may read its area in any order
+        GridCells.readLongs(source,(x, y, value) -> t[(y + 1) * s + x + 1] = value,x0,y0,cols-1,rows-1);
+        for (int r = y0 + 1; r <= rows; r++) {
+            int row = r * s;
+            int above = row - s;
+            long rowSum = t[row + x0] - t[above + x0];
+            for (int c = x0 + 1; c <= cols; c++) {
+                rowSum += t[row + c];
+                t[row + c] = rowSum + t[above + c];
+            }
+        } dirtyX = cols;
+        dirtyY = rows;
+    }
+    
+    /**
+     * Stop observing the source array. Later writes are not reflected unless reported with invalidate
+     */
+    @Override
+    public void dispose() {
+        source.removeWriteListener(listener);
+    }
+    
+    public PrimitiveArray2D source() {
+        return source;
+    }
+    
+    public int rows() {
+        return rows;
+    }
+    
+    public int cols() {
+        return cols;
+    }
+    
+    public int sizeBytes() {
+        return table.length * Long.BYTES;
+    }
+}
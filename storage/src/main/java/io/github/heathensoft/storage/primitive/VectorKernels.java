@@ -0,0 +1,496 @@
+package io.github.heathensoft.storage.primitive;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels (jdk.incubator.vector) for the array writes of WriteFunction.
+ *
+ * Only ever called by WriteFunction, and only when the vector module is present at runtime
+ * (--add-modules jdk.incubator.vector). Never reference this class from anywhere else,
+ * or the class will fail to load without the module.
+ *
+ * EQU is not handled here. Plain fills and copies are already vectorized by the JIT.
+ * Integral DIV has no hardware instruction and runs the scalar loop.
+ * Float and double SET, AND, CLR run the scalar loop. Converting the lanes to int / long and back
+ * measured slower than the scalar functions (WriteFunctionBenchmark).
+ * Char uses short lanes, which gives the same bits for all ops but DIV (unsigned).
+ *
+ * Every op has its own loop with a constant operator. The JIT only compiles lanewise operations
+ * to vector instructions when the operator is a constant. A variable operator falls back
+ * to a Java loop over the lanes, far slower than the scalar functions.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+final class VectorKernels {
+    
+    private static final VectorSpecies<Byte> BYTE = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORT = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLE = DoubleVector.SPECIES_PREFERRED;
+    
+    private VectorKernels() { }
+    
+    /**
+     * Loads the vector classes.
+     * @return true if the platform has at least two int lanes
+     */
+    static boolean supported() {
+        return INT.length() > 1;
+    }
+    
+    static void write(WriteFunction function, byte[] dest, byte val, int fromIndex, int toIndex) {
+        final int lanes = BYTE.length();
+        final int bound = fromIndex + BYTE.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).add(val).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).sub(val).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).mul(val).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).or(val).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).and(val).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).lanewise(VectorOperators.AND_NOT,val).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.ByteFunc func = function.byteFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, byte[] dest, byte[] src, int fromIndex, int toIndex) {
+        final int lanes = BYTE.length();
+        final int bound = fromIndex + BYTE.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).add(ByteVector.fromArray(BYTE,src,i)).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).sub(ByteVector.fromArray(BYTE,src,i)).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).mul(ByteVector.fromArray(BYTE,src,i)).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).or(ByteVector.fromArray(BYTE,src,i)).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).and(ByteVector.fromArray(BYTE,src,i)).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    ByteVector.fromArray(BYTE,dest,i).lanewise(VectorOperators.AND_NOT,ByteVector.fromArray(BYTE,src,i)).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.ByteFunc func = function.byteFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    static void write(WriteFunction function, short[] dest, short val, int fromIndex, int toIndex) {
+        final int lanes = SHORT.length();
+        final int bound = fromIndex + SHORT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).add(val).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).sub(val).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).mul(val).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).or(val).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).and(val).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).lanewise(VectorOperators.AND_NOT,val).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.ShortFunc func = function.shortFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, short[] dest, short[] src, int fromIndex, int toIndex) {
+        final int lanes = SHORT.length();
+        final int bound = fromIndex + SHORT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).add(ShortVector.fromArray(SHORT,src,i)).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).sub(ShortVector.fromArray(SHORT,src,i)).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).mul(ShortVector.fromArray(SHORT,src,i)).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).or(ShortVector.fromArray(SHORT,src,i)).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).and(ShortVector.fromArray(SHORT,src,i)).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromArray(SHORT,dest,i).lanewise(VectorOperators.AND_NOT,ShortVector.fromArray(SHORT,src,i)).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.ShortFunc func = function.shortFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    static void write(WriteFunction function, char[] dest, char val, int fromIndex, int toIndex) {
+        final int lanes = SHORT.length();
+        final int bound = fromIndex + SHORT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).add((short) val).intoCharArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).sub((short) val).intoCharArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).mul((short) val).intoCharArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).or((short) val).intoCharArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).and((short) val).intoCharArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).lanewise(VectorOperators.AND_NOT,(short) val).intoCharArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.CharFunc func = function.charFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, char[] dest, char[] src, int fromIndex, int toIndex) {
+        final int lanes = SHORT.length();
+        final int bound = fromIndex + SHORT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).add(ShortVector.fromCharArray(SHORT,src,i)).intoCharArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).sub(ShortVector.fromCharArray(SHORT,src,i)).intoCharArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).mul(ShortVector.fromCharArray(SHORT,src,i)).intoCharArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).or(ShortVector.fromCharArray(SHORT,src,i)).intoCharArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).and(ShortVector.fromCharArray(SHORT,src,i)).intoCharArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    ShortVector.fromCharArray(SHORT,dest,i).lanewise(VectorOperators.AND_NOT,ShortVector.fromCharArray(SHORT,src,i)).intoCharArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.CharFunc func = function.charFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    static void write(WriteFunction function, int[] dest, int val, int fromIndex, int toIndex) {
+        final int lanes = INT.length();
+        final int bound = fromIndex + INT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).add(val).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).sub(val).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).mul(val).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).or(val).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).and(val).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).lanewise(VectorOperators.AND_NOT,val).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.IntFunc func = function.intFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, int[] dest, int[] src, int fromIndex, int toIndex) {
+        final int lanes = INT.length();
+        final int bound = fromIndex + INT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).add(IntVector.fromArray(INT,src,i)).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).sub(IntVector.fromArray(INT,src,i)).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).mul(IntVector.fromArray(INT,src,i)).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).or(IntVector.fromArray(INT,src,i)).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).and(IntVector.fromArray(INT,src,i)).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    IntVector.fromArray(INT,dest,i).lanewise(VectorOperators.AND_NOT,IntVector.fromArray(INT,src,i)).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.IntFunc func = function.intFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    static void write(WriteFunction function, long[] dest, long val, int fromIndex, int toIndex) {
+        final int lanes = LONG.length();
+        final int bound = fromIndex + LONG.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).add(val).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).sub(val).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).mul(val).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).or(val).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).and(val).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).lanewise(VectorOperators.AND_NOT,val).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.LongFunc func = function.longFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, long[] dest, long[] src, int fromIndex, int toIndex) {
+        final int lanes = LONG.length();
+        final int bound = fromIndex + LONG.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).add(LongVector.fromArray(LONG,src,i)).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).sub(LongVector.fromArray(LONG,src,i)).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).mul(LongVector.fromArray(LONG,src,i)).intoArray(dest,i);
+                } break;
+            case SET:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).or(LongVector.fromArray(LONG,src,i)).intoArray(dest,i);
+                } break;
+            case AND:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).and(LongVector.fromArray(LONG,src,i)).intoArray(dest,i);
+                } break;
+            case CLR:
+                for (; i < bound; i += lanes) {
+                    LongVector.fromArray(LONG,dest,i).lanewise(VectorOperators.AND_NOT,LongVector.fromArray(LONG,src,i)).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.LongFunc func = function.longFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    static void write(WriteFunction function, float[] dest, float val, int fromIndex, int toIndex) {
+        final int lanes = FLOAT.length();
+        final int bound = fromIndex + FLOAT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).add(val).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).sub(val).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).mul(val).intoArray(dest,i);
+                } break;
+            case DIV:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).div(val).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.FloatFunc func = function.floatFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, float[] dest, float[] src, int fromIndex, int toIndex) {
+        final int lanes = FLOAT.length();
+        final int bound = fromIndex + FLOAT.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).add(FloatVector.fromArray(FLOAT,src,i)).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).sub(FloatVector.fromArray(FLOAT,src,i)).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).mul(FloatVector.fromArray(FLOAT,src,i)).intoArray(dest,i);
+                } break;
+            case DIV:
+                for (; i < bound; i += lanes) {
+                    FloatVector.fromArray(FLOAT,dest,i).div(FloatVector.fromArray(FLOAT,src,i)).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.FloatFunc func = function.floatFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+    
+    static void write(WriteFunction function, double[] dest, double val, int fromIndex, int toIndex) {
+        final int lanes = DOUBLE.length();
+        final int bound = fromIndex + DOUBLE.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).add(val).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).sub(val).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).mul(val).intoArray(dest,i);
+                } break;
+            case DIV:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).div(val).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.DoubleFunc func = function.doubleFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],val);
+    }
+    
+    static void write(WriteFunction function, double[] dest, double[] src, int fromIndex, int toIndex) {
+        final int lanes = DOUBLE.length();
+        final int bound = fromIndex + DOUBLE.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+        switch (function) {
+            case ADD:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).add(DoubleVector.fromArray(DOUBLE,src,i)).intoArray(dest,i);
+                } break;
+            case SUB:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).sub(DoubleVector.fromArray(DOUBLE,src,i)).intoArray(dest,i);
+                } break;
+            case MUL:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).mul(DoubleVector.fromArray(DOUBLE,src,i)).intoArray(dest,i);
+                } break;
+            case DIV:
+                for (; i < bound; i += lanes) {
+                    DoubleVector.fromArray(DOUBLE,dest,i).div(DoubleVector.fromArray(DOUBLE,src,i)).intoArray(dest,i);
+                } break;
+            default: break;
+        } WriteFunction.DoubleFunc func = function.doubleFunc;
+        for (; i < toIndex; i++) dest[i] = func.calc(dest[i],src[i]);
+    }
+}
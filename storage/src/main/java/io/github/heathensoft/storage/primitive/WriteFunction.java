@@ -51,6 +51,28 @@ public enum WriteFunction {
     public final FloatFunc floatFunc;
     public final DoubleFunc doubleFunc;
     
+    /** Minimum range length for the SIMD kernels. Shorter ranges are written with the scalar functions */
+    public static final int VECTOR_THRESHOLD = 64;
+    private static final boolean VECTORIZED = vectorSupport();
+    
+    /**
+     * Array writes (except EQU) use SIMD kernels when the jdk.incubator.vector module is present at runtime.
+     * The module has to be added to the application (--add-modules jdk.incubator.vector),
+     * otherwise the scalar functions are used. Results are the same either way.
+     * @return whether the array writes are vectorized
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+    
+    private static boolean vectorSupport() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try { return VectorKernels.supported();
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+    
     /**
      * Writes value to array. The result depends on the WriteFunction used.
      * No checks for out of bounds.
@@ -63,6 +85,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = byteFunc.calc(dest[i],val);
                 }
@@ -90,6 +114,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = byteFunc.calc(dest[i],src[i]);
                 }
@@ -117,6 +143,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = shortFunc.calc(dest[i],val);
                 }
@@ -144,6 +172,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = shortFunc.calc(dest[i],src[i]);
                 }
@@ -171,6 +201,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                 dest[i] = charFunc.calc(dest[i],val);
             }
@@ -198,6 +230,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                 dest[i] = charFunc.calc(dest[i],src[i]);
             }
@@ -225,6 +259,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = intFunc.calc(dest[i],val);
                 }
@@ -252,6 +288,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = intFunc.calc(dest[i],src[i]);
                 }
@@ -279,6 +317,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = longFunc.calc(dest[i],val);
                 }
@@ -306,6 +346,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = longFunc.calc(dest[i],src[i]);
                 }
@@ -333,6 +375,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = floatFunc.calc(dest[i],val);
                 }
@@ -360,6 +404,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = floatFunc.calc(dest[i],src[i]);
                 }
@@ -387,6 +433,8 @@ public enum WriteFunction {
         if (dest != null) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] = val;
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,val,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = doubleFunc.calc(dest[i],val);
                 }
@@ -414,6 +462,8 @@ public enum WriteFunction {
         if (dest != null && src != null && dest.length == src.length) {
             if (this == EQU) {
                 for (int i = fromIndex; i < toIndex; i++) dest[i] =src[i];
+            } else if (VECTORIZED && toIndex - fromIndex >= VECTOR_THRESHOLD) {
+                VectorKernels.write(this,dest,src,fromIndex,toIndex);
             } else { for (int i = fromIndex; i < toIndex; i++) {
                     dest[i] = doubleFunc.calc(dest[i],src[i]);
                 }
@@ -43,7 +43,6 @@ public class IntIntMap4a implements IntIntMap
         m_fillFactor = fillFactor;
         
         m_data = new int[capacity * 2];
-        System.out.println(capacity * 2);
         m_threshold = (int) (capacity * fillFactor);
         
     }
@@ -0,0 +1,13 @@
+package io.github.heathensoft.storage.primitive.iterators;
+
+/**
+ * Receives rectangular areas. Coordinates are inclusive.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+@FunctionalInterface
+public interface AreaReader {
+    void next(int minX, int minY, int maxX, int maxY);
+}
@@ -0,0 +1,13 @@
+package io.github.heathensoft.storage.primitive.iterators;
+
+/**
+ * Receives the gradient (gx, gy) of a cell. See Stencil.gradient
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+@FunctionalInterface
+public interface GradientReader {
+    void next(int x, int y, float gx, float gy);
+}
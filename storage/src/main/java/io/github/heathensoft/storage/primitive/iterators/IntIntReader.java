@@ -0,0 +1,11 @@
+package io.github.heathensoft.storage.primitive.iterators;
+
+/**
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+@FunctionalInterface
+public interface IntIntReader {
+    void next(int key, int value);
+}
@@ -0,0 +1,76 @@
+package io.github.heathensoft.storage.generic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Container streams with and without gaps, against a loop over the items.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class ContainerTest {
+    
+    @Test
+    void streamsSkipGaps() {
+        Random random = new Random(1);
+        Container<Integer> container = new Container<>(4);
+        for (int i = 0; i < 2000; i++) container.add(i);
+        assertEquals(expected(container),container.stream().collect(Collectors.toList()));
+        assertEquals(2000,container.spliterator().getExactSizeIfKnown());
+        for (int i = 0; i < 700; i++) container.set(random.nextInt(1500),null);
+        List<Integer> expected = expected(container);
+        assertEquals(container.count(),expected.size());
+        assertEquals(expected,container.stream().collect(Collectors.toList()));
+        assertEquals(expected,container.parallelStream().collect(Collectors.toList()));
+        long sum = 0;
+        for (int i : expected) sum += i;
+        assertEquals(sum,container.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+    
+    @Test
+    void splitsCoverEveryItemOnce() {
+        Container<Integer> container = new Container<>();
+        for (int i = 0; i < 1000; i++) container.add(i);
+        for (int i = 0; i < 1000; i += 3) container.set(i,null);
+        List<Integer> seen = new ArrayList<>();
+        traverse(container.spliterator(),seen);
+        assertEquals(expected(container),seen);
+    }
+    
+    @Test
+    void emptyContainer() {
+        Container<String> container = new Container<>();
+        assertEquals(0,container.stream().count());
+        container.add("a");
+        container.set(0,null);
+        assertEquals(0,container.parallelStream().count());
+    }
+    
+    private static void traverse(Spliterator<Integer> spliterator, List<Integer> seen) {
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            traverse(prefix,seen);
+            traverse(spliterator,seen);
+        } else if (spliterator.tryAdvance(seen::add)) {
+            spliterator.forEachRemaining(seen::add);
+        }
+    }
+    
+    private static List<Integer> expected(Container<Integer> container) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < container.peak(); i++) {
+            Integer item = container.get(i);
+            if (item != null) items.add(item);
+        } return items;
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.heathensoft.storage.generic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DaryHeap and IntPriorityHeap against java.util.PriorityQueue given the same operations.
+ * Nodes are cost ordered (ties by id): a lower cost compares greater (top of Heap and DaryHeap, the lowest key of IntPriorityHeap).
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class HeapTest {
+    
+    private static final class Node extends HeapNode<Node> {
+        final int id;
+        int cost;
+        Node(int id, int cost) {
+            this.id = id;
+            this.cost = cost;
+        }
+        public int compareTo(Node o) {
+            int c = Integer.compare(o.cost,cost);
+            return c != 0 ? c : Integer.compare(o.id,id);
+        }
+    }
+    
+    private static final Comparator<Node> BY_COST = Comparator.comparingInt((Node n) -> n.cost).thenComparingInt(n -> n.id);
+    
+    @Test
+    void daryHeapMatchesReference() {
+        for (int arity : new int[] {2,4,8}) {
+            Random random = new Random(arity);
+            DaryHeap<Node> heap = new DaryHeap<>(arity,4);
+            PriorityQueue<Node> reference = new PriorityQueue<>(BY_COST);
+            List<Node> live = new ArrayList<>();
+            Node[] batch = nodes(random,500,0);
+            heap.addAll(batch);
+            for (Node node : batch) {
+                reference.add(node);
+                live.add(node);
+            } for (int step = 0; step < 5000; step++) {
+                int op = random.nextInt(6);
+                if (op == 0 || live.isEmpty()) {
+                    Node node = new Node(1000 + step,random.nextInt(1000));
+                    heap.add(node);
+                    reference.add(node);
+                    live.add(node);
+                } else if (op == 1) {
+                    Node node = heap.pop();
+                    assertSame(reference.poll(),node);
+                    assertFalse(heap.contains(node));
+                    live.remove(node);
+                } else {
+                    Node node = live.get(random.nextInt(live.size()));
+                    reference.remove(node);
+                    if (op == 2) {
+                        node.cost -= random.nextInt(100);
+                        heap.promote(node);
+                    } else if (op == 3) {
+                        node.cost += random.nextInt(100);
+                        heap.demote(node);
+                    } else if (op == 4) {
+                        node.cost = random.nextInt(1000);
+                        heap.update(node);
+                    } else {
+                        heap.remove(node);
+                        live.remove(node);
+                        assertFalse(heap.contains(node));
+                        continue;
+                    } reference.add(node);
+                } assertEquals(reference.size(),heap.size());
+            } while (heap.notEmpty()) assertSame(reference.poll(),heap.pop());
+        }
+    }
+    
+    @Test
+    void intPriorityHeapMatchesReference() {
+        for (int arity : new int[] {2,4,8}) {
+            Random random = new Random(arity);
+            IntPriorityHeap<Node> heap = new IntPriorityHeap<>(arity,4);
+            PriorityQueue<Node> reference = new PriorityQueue<>(BY_COST);
+            List<Node> live = new ArrayList<>();
+            Node[] batch = nodes(random,500,0);
+            int[] keys = new int[batch.length];
+            for (int i = 0; i < batch.length; i++) keys[i] = batch[i].cost;
+            heap.addAll(batch,keys,0,batch.length);
+            for (Node node : batch) {
+                reference.add(node);
+                live.add(node);
+            } for (int step = 0; step < 5000; step++) {
+                int op = random.nextInt(6);
+                if (op == 0 || live.isEmpty()) {
+                    Node node = new Node(1000 + step,random.nextInt(1000));
+                    heap.add(node,node.cost);
+                    reference.add(node);
+                    live.add(node);
+                } else if (op == 1) {
+                    assertEquals(reference.peek().cost,heap.peakKey());
+                    Node node = heap.pop();
+                    assertEquals(reference.peek().cost,node.cost);
+                    assertTrue(reference.remove(node));
+                    live.remove(node);
+                } else {
+                    Node node = live.get(random.nextInt(live.size()));
+                    reference.remove(node);
+                    if (op == 2) {
+                        node.cost -= random.nextInt(100);
+                        heap.decreaseKey(node,node.cost);
+                    } else if (op == 3) {
+                        node.cost += random.nextInt(100);
+                        heap.increaseKey(node,node.cost);
+                    } else if (op == 4) {
+                        node.cost = random.nextInt(1000);
+                        heap.update(node,node.cost);
+                    } else {
+                        heap.remove(node);
+                        live.remove(node);
+                        assertFalse(heap.contains(node));
+                        continue;
+                    } reference.add(node);
+                    assertEquals(node.cost,heap.key(node));
+                } assertEquals(reference.size(),heap.size());
+            } while (heap.notEmpty()) assertEquals(reference.poll().cost,heap.pop().cost);
+        }
+    }
+    
+    @Test
+    void daryHeapOrdersLikeHeap() {
+        Random random = new Random(3);
+        Heap<Node> binary = new Heap<>();
+        DaryHeap<Node> dary = new DaryHeap<>();
+        Node[] a = nodes(random,200,0);
+        Node[] b = new Node[a.length];
+        for (int i = 0; i < a.length; i++) {
+            b[i] = new Node(a[i].id,a[i].cost);
+            binary.add(a[i]);
+        } dary.addAll(b);
+        while (binary.notEmpty()) assertEquals(binary.pop().cost,dary.pop().cost);
+        assertTrue(dary.isEmpty());
+    }
+    
+    @Test
+    void addAllIsAllOrNothing() {
+        DaryHeap<Node> dary = new DaryHeap<>();
+        Node assigned = new Node(0,5);
+        dary.add(assigned);
+        Node fresh = new Node(1,3);
+        assertThrows(IllegalStateException.class,() -> dary.addAll(new Node[] {fresh,assigned}));
+        assertEquals(1,dary.size());
+        assertFalse(dary.contains(fresh));
+        assertThrows(IllegalStateException.class,() -> dary.addAll(new Node[] {fresh,fresh}));
+        assertThrows(IllegalStateException.class,() -> dary.addAll(new Node[] {fresh,null}));
+        assertEquals(1,dary.size());
+        dary.add(fresh);
+        assertSame(fresh,dary.peak());
+        
+        IntPriorityHeap<Node> keyed = new IntPriorityHeap<>();
+        Node other = new Node(2,1);
+        assertThrows(IllegalStateException.class,() -> keyed.addAll(new Node[] {other,fresh},new int[] {1,3},0,2));
+        assertTrue(keyed.isEmpty());
+        assertThrows(IllegalStateException.class,() -> keyed.addAll(new Node[] {other,other},new int[] {1,1},0,2));
+        keyed.add(other,1);
+        assertSame(other,keyed.peak());
+    }
+    
+    @Test
+    void keyDirectionIsChecked() {
+        IntPriorityHeap<Node> heap = new IntPriorityHeap<>();
+        Node node = new Node(0,10);
+        heap.add(node,10);
+        assertThrows(IllegalArgumentException.class,() -> heap.decreaseKey(node,11));
+        assertThrows(IllegalArgumentException.class,() -> heap.increaseKey(node,9));
+        assertThrows(IllegalStateException.class,() -> heap.update(new Node(1,0),0));
+    }
+    
+    private static Node[] nodes(Random random, int count, int firstId) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) nodes[i] = new Node(firstId + i,random.nextInt(1000));
+        return nodes;
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.heathensoft.storage.generic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pool counters, and the cap on retained objects across the shared stack and the thread stacks.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class PoolTest {
+    
+    private static final class Item implements Poolable {
+        int value;
+        int resets;
+        public void reset() {
+            value = 0;
+            resets++;
+        }
+    }
+    
+    @Test
+    void reusesFreedObjects() {
+        Pool<Item> pool = new Pool<>(Item::new,16,4);
+        Item item = pool.obtain();
+        item.value = 7;
+        assertEquals(1,pool.misses());
+        assertEquals(1,pool.outstanding());
+        pool.free(item);
+        assertEquals(0,item.value);
+        assertEquals(1,item.resets);
+        assertEquals(1,pool.retained());
+        assertSame(item,pool.obtain());
+        assertEquals(1,pool.hits());
+        assertEquals(0,pool.retained());
+    }
+    
+    @Test
+    void countsPeakOutstanding() {
+        Pool<Item> pool = new Pool<>(Item::new);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) items.add(pool.obtain());
+        for (Item item : items) pool.free(item);
+        assertEquals(0,pool.outstanding());
+        assertEquals(10,pool.peakOutstanding());
+    }
+    
+    @Test
+    void retainsAtMostMaxRetained() {
+        Pool<Item> pool = new Pool<>(Item::new,10,4);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 25; i++) items.add(pool.obtain());
+        for (Item item : items) pool.free(item);
+        assertEquals(10,pool.retained());
+        assertEquals(15,pool.discarded());
+        items.clear();
+        for (int i = 0; i < 25; i++) items.add(pool.obtain());
+        assertEquals(10,pool.hits());
+        assertEquals(40,pool.misses());
+        assertEquals(0,pool.retained());
+    }
+    
+    @Test
+    void threadStacksCountTowardsMaxRetained() throws InterruptedException {
+        final int max = 20;
+        final int threads = 8;
+        Pool<Item> pool = new Pool<>(Item::new,max,16);
+        AtomicInteger peakRetained = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                List<Item> items = new ArrayList<>();
+                for (int round = 0; round < 50; round++) {
+                    for (int i = 0; i < 12; i++) items.add(pool.obtain());
+                    for (Item item : items) pool.free(item);
+                    items.clear();
+                    peakRetained.accumulateAndGet(pool.retained(),Math::max);
+                }
+            });
+            workers[t].start();
+        } for (Thread worker : workers) worker.join();
+        assertTrue(peakRetained.get() <= max);
+        assertTrue(pool.retained() <= max);
+        assertEquals(0,pool.outstanding());
+        assertEquals(threads * 50 * 12,pool.hits() + pool.misses());
+    }
+    
+    @Test
+    void freeFromAnotherThread() throws InterruptedException {
+        Pool<Item> pool = new Pool<>(Item::new,8,4);
+        Item item = pool.obtain();
+        Thread other = new Thread(() -> pool.free(item));
+        other.start();
+        other.join();
+        assertEquals(0,pool.outstanding());
+        assertEquals(1,pool.retained());
+        assertEquals(1,item.resets);
+    }
+    
+    @Test
+    void fillAndClear() {
+        Pool<Item> pool = new Pool<>(Item::new,8,4);
+        pool.fill(100);
+        assertEquals(8,pool.retained());
+        assertEquals(0,pool.misses());
+        Item item = pool.obtain();
+        assertEquals(7,pool.retained());
+        pool.free(item);
+        pool.free(new Item());
+        assertEquals(1,pool.discarded());
+        pool.clear();
+        assertEquals(0,pool.retained());
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rectangle counts against brute force counts, before and after invalidated edits.
+ * Odd dimensions cover the partial tiles at the edges.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class BitCountTableTest {
+    
+    @Test
+    void countsMatchBruteForce() {
+        for (int[] size : new int[][] {{1,1},{16,16},{37,53},{64,17},{5,200}}) {
+            Random random = new Random(size[0] * 31L + size[1]);
+            ShortArray2D array = new ShortArray2D(size[0],size[1]);
+            fillRandom(array,random);
+            BitCountTable table = BitCountTable.perBit(array,4);
+            assertCounts(array,table,random,200);
+        }
+    }
+    
+    @Test
+    void editsThroughTheArrayAreCounted() {
+        Random random = new Random(2);
+        ByteArray2D array = new ByteArray2D(70,90);
+        fillRandom(array,random);
+        BitCountTable table = new BitCountTable(array,0b1,0b110,0xFF);
+        for (int round = 0; round < 40; round++) {
+            int edits = 1 + random.nextInt(4);
+            for (int e = 0; e < edits; e++) {
+                int x = random.nextInt(array.cols());
+                int y = random.nextInt(array.rows());
+                if (random.nextBoolean()) array.set((byte) random.nextInt(8),x,y);
+                else array.write((byte) random.nextInt(8),x,y,x + random.nextInt(30),y + random.nextInt(30));
+            } assertFalse(table.isValid());
+            assertCounts(array,table,random,30);
+            assertTrue(table.isValid());
+        }
+    }
+    
+    @Test
+    void clampsAndHandlesEmptyAreas() {
+        IntArray2D array = new IntArray2D(20,20);
+        array.write(1);
+        BitCountTable table = new BitCountTable(array,1);
+        assertEquals(400,table.count(0));
+        assertEquals(400,table.count(0,-5,-5,100,100));
+        assertEquals(0,table.count(0,25,0,30,5));
+        assertEquals(4,table.count(0,1,1,0,0));
+        assertTrue(table.all(0,0,0,19,19));
+        assertFalse(table.all(0,30,30,40,40));
+        table.invalidate(-10,-10,-1,-1);
+        assertTrue(table.isValid());
+        assertThrows(IllegalArgumentException.class,() -> new BitCountTable(new FloatArray2D(4,4),1));
+    }
+    
+    @Test
+    void smallerThanIntTables() {
+        ShortArray2D array = new ShortArray2D(256,256);
+        BitCountTable table = BitCountTable.perBit(array,16);
+        long plain = 16L * 257 * 257 * Integer.BYTES;
+        assertTrue(table.sizeBytes() < plain / 2,table.sizeBytes() + " vs " + plain);
+    }
+    
+    private static void fillRandom(PrimitiveArray2D array, Random random) {
+        for (int y = 0; y < array.rows(); y++) {
+            for (int x = 0; x < array.cols(); x++) {
+                // clustered values, so some areas are all or nothing
+                long value = ((x / 7 + y / 5) & 1) == 0 ? 0b1011 : random.nextInt(16);
+                array.setBits(value,x,y);
+            }
+        }
+    }
+    
+    private static void assertCounts(PrimitiveArray2D array, BitCountTable table, Random random, int queries) {
+        for (int q = 0; q < queries; q++) {
+            int x0 = random.nextInt(array.cols() + 4) - 2;
+            int y0 = random.nextInt(array.rows() + 4) - 2;
+            int x1 = random.nextInt(array.cols() + 4) - 2;
+            int y1 = random.nextInt(array.rows() + 4) - 2;
+            int layer = random.nextInt(table.layers());
+            assertEquals(bruteForce(array,table.mask(layer),x0,y0,x1,y1),table.count(layer,x0,y0,x1,y1),
+                    "layer " + layer + " area " + x0 + "," + y0 + " " + x1 + "," + y1);
+        } for (int l = 0; l < table.layers(); l++) {
+            assertEquals(bruteForce(array,table.mask(l),0,0,array.cols() - 1,array.rows() - 1),table.count(l));
+        }
+    }
+    
+    private static int bruteForce(PrimitiveArray2D array, long mask, int x0, int y0, int x1, int y1) {
+        int count = 0;
+        for (int y = Math.max(0,Math.min(y0,y1)); y <= Math.min(array.rows() - 1,Math.max(y0,y1)); y++) {
+            for (int x = Math.max(0,Math.min(x0,x1)); x <= Math.min(array.cols() - 1,Math.max(x0,x1)); x++) {
+                if ((array.bits(x,y) & mask) != 0) count++;
+            }
+        } return count;
+    }
+}
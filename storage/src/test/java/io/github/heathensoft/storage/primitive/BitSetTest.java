@@ -0,0 +1,147 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BitSet against java.util.BitSet: whole-set and range operations, iteration and words in use.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class BitSetTest {
+    
+    private static final int BITS = 1000;
+    
+    @Test
+    void singleBitAndRangeEdits() {
+        Random random = new Random(1);
+        BitSet bits = new BitSet(64);
+        java.util.BitSet reference = new java.util.BitSet();
+        for (int i = 0; i < 5000; i++) {
+            int from = random.nextInt(BITS);
+            int to = Math.min(BITS,from + random.nextInt(200));
+            switch (random.nextInt(4)) {
+                case 0 -> { bits.set(from); reference.set(from); }
+                case 1 -> { bits.clear(from); reference.clear(from); }
+                case 2 -> { bits.set(from,to); reference.set(from,to); }
+                default -> { bits.clear(from,to); reference.clear(from,to); }
+            } if (i % 100 == 0) assertSame(reference,bits);
+        } assertSame(reference,bits);
+    }
+    
+    @Test
+    void wholeSetOperations() {
+        Random random = new Random(2);
+        for (int n = 0; n < 200; n++) {
+            java.util.BitSet refA = randomSet(random);
+            java.util.BitSet refB = randomSet(random);
+            BitSet a = copy(refA);
+            BitSet b = copy(refB);
+            assertEquals(refA.intersects(refB),a.intersects(b));
+            java.util.BitSet union = (java.util.BitSet) refA.clone();
+            union.or(refB);
+            assertEquals(union.equals(refA),a.containsAll(b));
+            for (int op = 0; op < 4; op++) {
+                java.util.BitSet expected = (java.util.BitSet) refA.clone();
+                BitSet actual = new BitSet(a);
+                switch (op) {
+                    case 0 -> { expected.and(refB); actual.and(b); }
+                    case 1 -> { expected.or(refB); actual.or(b); }
+                    case 2 -> { expected.xor(refB); actual.xor(b); }
+                    default -> { expected.andNot(refB); actual.andNot(b); }
+                } assertSame(expected,actual);
+            } assertSame(refB,b);
+        }
+    }
+    
+    @Test
+    void rangeOperations() {
+        Random random = new Random(3);
+        for (int n = 0; n < 500; n++) {
+            java.util.BitSet refA = randomSet(random);
+            java.util.BitSet refB = randomSet(random);
+            BitSet a = copy(refA);
+            BitSet b = copy(refB);
+            int from = random.nextInt(BITS + 100);
+            int to = from + random.nextInt(BITS + 100 - from + 1);
+            java.util.BitSet mask = new java.util.BitSet();
+            mask.set(from,to);
+            java.util.BitSet inRange = (java.util.BitSet) refA.clone();
+            inRange.and(mask);
+            assertEquals(inRange.cardinality(),a.cardinality(from,to));
+            for (int op = 0; op < 4; op++) {
+                // expected: outside the range refA, inside the range refA op refB
+                java.util.BitSet expected = (java.util.BitSet) refA.clone();
+                java.util.BitSet ranged = (java.util.BitSet) refA.clone();
+                BitSet actual = new BitSet(a);
+                switch (op) {
+                    case 0 -> { ranged.and(refB); actual.and(b,from,to); }
+                    case 1 -> { ranged.or(refB); actual.or(b,from,to); }
+                    case 2 -> { ranged.xor(refB); actual.xor(b,from,to); }
+                    default -> { ranged.andNot(refB); actual.andNot(b,from,to); }
+                } ranged.and(mask);
+                expected.andNot(mask);
+                expected.or(ranged);
+                assertSame(expected,actual);
+            }
+        }
+    }
+    
+    @Test
+    void emptySets() {
+        BitSet empty = new BitSet();
+        assertTrue(empty.isEmpty());
+        assertEquals(0,empty.cardinality());
+        assertEquals(-1,empty.nextSetBit(0));
+        assertEquals(5,empty.nextClearBit(5));
+        assertEquals(new BitSet(128),empty);
+        assertEquals(new BitSet(128).hashCode(),empty.hashCode());
+        BitSet bits = new BitSet(256);
+        bits.set(200);
+        bits.clear(200);
+        assertEquals(0,bits.wordsInUse());
+        assertEquals(empty,bits);
+    }
+    
+    private static java.util.BitSet randomSet(Random random) {
+        java.util.BitSet set = new java.util.BitSet();
+        int length = random.nextInt(BITS);
+        int density = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) if (random.nextInt(density) == 0) set.set(i);
+        return set;
+    }
+    
+    private static BitSet copy(java.util.BitSet reference) {
+        BitSet bits = new BitSet(1 + capacity(reference.length()));
+        for (int i = reference.nextSetBit(0); i >= 0; i = reference.nextSetBit(i + 1)) bits.set(i);
+        return bits;
+    }
+    
+    private static int capacity(int length) {
+        return length + (length * 31 % 300); // varying capacity beyond the set bits
+    }
+    
+    private static void assertSame(java.util.BitSet expected, BitSet actual) {
+        assertEquals(expected.cardinality(),actual.cardinality());
+        assertEquals(expected.length(),actual.logicalLength());
+        assertEquals(expected.isEmpty(),actual.isEmpty());
+        assertEquals((expected.length() + 63) / 64,actual.wordsInUse());
+        IntBag read = new IntBag();
+        actual.read(read::push);
+        assertEquals(expected.cardinality(),read.size());
+        int i = 0;
+        for (int idx = expected.nextSetBit(0); idx >= 0; idx = expected.nextSetBit(idx + 1)) {
+            assertEquals(idx,read.get(i++));
+        } for (int idx = 0; idx < BITS + 100; idx += 7) {
+            assertEquals(expected.get(idx),actual.get(idx));
+            assertEquals(expected.nextSetBit(idx),actual.nextSetBit(idx));
+            assertEquals(expected.nextClearBit(idx),actual.nextClearBit(idx));
+        }
+    }
+}
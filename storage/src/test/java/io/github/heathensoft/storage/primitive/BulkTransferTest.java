@@ -0,0 +1,235 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.*;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk buffer and array transfers of the queues, stacks and IntBag against
+ * an ArrayDeque given the same operations. Queues are kept small, so transfers wrap around.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class BulkTransferTest {
+    
+    @Test
+    void intQueueMatchesReference() {
+        Random random = new Random(1);
+        IntQueue queue = new IntQueue(4);
+        ArrayDeque<Integer> reference = new ArrayDeque<>();
+        int next = 0;
+        for (int step = 0; step < 3000; step++) {
+            switch (random.nextInt(6)) {
+                case 0 -> {
+                    queue.enqueue(next);
+                    reference.add(next++);
+                }
+                case 1 -> {
+                    if (!reference.isEmpty()) assertEquals(reference.poll(),queue.dequeue());
+                }
+                case 2 -> {
+                    int n = random.nextInt(12);
+                    IntBuffer src = buffer(n,random.nextBoolean());
+                    for (int i = 0; i < n; i++) {
+                        src.put(next);
+                        reference.add(next++);
+                    } src.flip();
+                    assertEquals(n,queue.fillFrom(src));
+                    assertFalse(src.hasRemaining());
+                }
+                case 3 -> {
+                    IntBuffer dst = buffer(random.nextInt(12),random.nextBoolean());
+                    int n = queue.drainTo(dst);
+                    assertEquals(Math.min(dst.capacity(),reference.size()),n);
+                    assertEquals(n,dst.position());
+                    dst.flip();
+                    while (dst.hasRemaining()) assertEquals(reference.poll(),dst.get());
+                }
+                case 4 -> queue.fit(random.nextInt(3));
+                default -> {
+                    int[] copy = new int[queue.size() + 2];
+                    assertEquals(reference.size(),queue.copyTo(copy,2));
+                    int i = 2;
+                    for (int value : reference) assertEquals(value,copy[i++]);
+                }
+            } assertEquals(reference.size(),queue.size());
+        } while (!reference.isEmpty()) assertEquals(reference.poll(),queue.dequeue());
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    void fitKeepsTheQueueUsable() {
+        IntQueue queue = new IntQueue(8);
+        for (int i = 0; i < 6; i++) queue.enqueue(i);
+        for (int i = 0; i < 3; i++) queue.dequeue();
+        queue.fit(0);
+        assertEquals(3,queue.capacity());
+        queue.enqueue(6);
+        queue.enqueue(7);
+        for (int i = 3; i < 8; i++) assertEquals(i,queue.dequeue());
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    void intStackAndBag() {
+        Random random = new Random(2);
+        IntStack stack = new IntStack(2);
+        IntBag bag = new IntBag(2);
+        int[] values = new int[500];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextInt();
+        stack.push(values[0]);
+        bag.push(values[0]);
+        IntBuffer src = IntBuffer.wrap(values,1,values.length - 1);
+        assertEquals(values.length - 1,stack.fillFrom(src));
+        assertEquals(values.length - 1,bag.fillFrom(IntBuffer.wrap(values,1,values.length - 1)));
+        assertEquals(values[values.length - 1],stack.pop());
+        stack.push(values[values.length - 1]);
+        int[] copy = new int[values.length];
+        assertEquals(values.length,stack.copyTo(copy));
+        assertArrayEquals(values,copy);
+        assertEquals(values.length,bag.copyTo(copy));
+        assertArrayEquals(values,copy);
+        IntBuffer small = buffer(values.length - 1,true);
+        assertThrows(BufferOverflowException.class,() -> stack.drainTo(small));
+        assertThrows(BufferOverflowException.class,() -> bag.drainTo(small));
+        assertEquals(0,small.position());
+        assertEquals(values.length,stack.size());
+        assertEquals(values.length,bag.size());
+        IntBuffer dst = buffer(values.length * 2,true);
+        assertEquals(values.length,stack.drainTo(dst));
+        assertEquals(values.length,bag.drainTo(dst));
+        assertTrue(stack.isEmpty());
+        assertTrue(bag.isEmpty());
+        dst.flip();
+        for (int round = 0; round < 2; round++) {
+            for (int value : values) assertEquals(value,dst.get());
+        }
+    }
+    
+    @Test
+    void otherQueuesWrapAround() {
+        // the front is moved to the middle of a full array, so every transfer wraps
+        ByteQueue bytes = new ByteQueue(8);
+        ShortQueue shorts = new ShortQueue(8);
+        CharQueue chars = new CharQueue(8);
+        LongQueue longs = new LongQueue(8);
+        FloatQueue floats = new FloatQueue(8);
+        DoubleQueue doubles = new DoubleQueue(8);
+        for (int i = 0; i < 5; i++) {
+            bytes.enqueue((byte) 0); shorts.enqueue((short) 0); chars.enqueue((char) 0);
+            longs.enqueue(0); floats.enqueue(0); doubles.enqueue(0);
+        } for (int i = 0; i < 5; i++) {
+            bytes.dequeue(); shorts.dequeue(); chars.dequeue();
+            longs.dequeue(); floats.dequeue(); doubles.dequeue();
+        } int n = 7;
+        ByteBuffer b = ByteBuffer.allocateDirect(n);
+        ShortBuffer s = ShortBuffer.allocate(n);
+        CharBuffer c = CharBuffer.allocate(n);
+        LongBuffer l = LongBuffer.allocate(n);
+        FloatBuffer f = FloatBuffer.allocate(n);
+        DoubleBuffer d = DoubleBuffer.allocate(n);
+        for (int i = 1; i <= n; i++) {
+            b.put((byte) i); s.put((short) i); c.put((char) i);
+            l.put(i); f.put(i); d.put(i);
+        } b.flip(); s.flip(); c.flip(); l.flip(); f.flip(); d.flip();
+        assertEquals(n,bytes.fillFrom(b));
+        assertEquals(n,shorts.fillFrom(s));
+        assertEquals(n,chars.fillFrom(c));
+        assertEquals(n,longs.fillFrom(l));
+        assertEquals(n,floats.fillFrom(f));
+        assertEquals(n,doubles.fillFrom(d));
+        byte[] byteCopy = new byte[n];
+        double[] doubleCopy = new double[n];
+        assertEquals(n,bytes.copyTo(byteCopy));
+        assertEquals(n,doubles.copyTo(doubleCopy));
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1,byteCopy[i]);
+            assertEquals(i + 1,doubleCopy[i]);
+        } assertEquals(1,bytes.dequeue());
+        assertEquals(1,shorts.dequeue());
+        assertEquals(1,chars.dequeue());
+        assertEquals(1,longs.dequeue());
+        assertEquals(1,floats.dequeue());
+        assertEquals(1,doubles.dequeue());
+        b.clear(); s.clear(); c.clear(); l.clear(); f.clear(); d.clear();
+        assertEquals(n - 1,bytes.drainTo(b));
+        assertEquals(n - 1,shorts.drainTo(s));
+        assertEquals(n - 1,chars.drainTo(c));
+        assertEquals(n - 1,longs.drainTo(l));
+        assertEquals(n - 1,floats.drainTo(f));
+        assertEquals(n - 1,doubles.drainTo(d));
+        for (int i = 0; i < n - 1; i++) {
+            assertEquals(i + 2,b.get(i));
+            assertEquals(i + 2,s.get(i));
+            assertEquals(i + 2,c.get(i));
+            assertEquals(i + 2,l.get(i));
+            assertEquals(i + 2,f.get(i));
+            assertEquals(i + 2,d.get(i));
+        } assertTrue(bytes.isEmpty() && shorts.isEmpty() && chars.isEmpty());
+        assertTrue(longs.isEmpty() && floats.isEmpty() && doubles.isEmpty());
+    }
+    
+    @Test
+    void otherStacks() {
+        ByteStack bytes = new ByteStack(1);
+        ShortStack shorts = new ShortStack(1);
+        CharStack chars = new CharStack(1);
+        LongStack longs = new LongStack(1);
+        FloatStack floats = new FloatStack(1);
+        DoubleStack doubles = new DoubleStack(1);
+        int n = 9;
+        ByteBuffer b = ByteBuffer.allocate(n);
+        ShortBuffer s = ShortBuffer.allocate(n);
+        CharBuffer c = CharBuffer.allocate(n);
+        LongBuffer l = LongBuffer.allocate(n);
+        FloatBuffer f = FloatBuffer.allocate(n);
+        DoubleBuffer d = DoubleBuffer.allocate(n);
+        for (int i = 1; i <= n; i++) {
+            b.put((byte) i); s.put((short) i); c.put((char) i);
+            l.put(i); f.put(i); d.put(i);
+        } b.flip(); s.flip(); c.flip(); l.flip(); f.flip(); d.flip();
+        assertEquals(n,bytes.fillFrom(b));
+        assertEquals(n,shorts.fillFrom(s));
+        assertEquals(n,chars.fillFrom(c));
+        assertEquals(n,longs.fillFrom(l));
+        assertEquals(n,floats.fillFrom(f));
+        assertEquals(n,doubles.fillFrom(d));
+        assertEquals(n,bytes.pop());
+        assertEquals(n,shorts.pop());
+        assertEquals(n,chars.pop());
+        assertEquals(n,longs.pop());
+        assertEquals(n,floats.pop());
+        assertEquals(n,doubles.pop());
+        long[] longCopy = new long[n];
+        assertEquals(n - 1,longs.copyTo(longCopy,1));
+        b.clear(); s.clear(); c.clear(); l.clear(); f.clear(); d.clear();
+        assertEquals(n - 1,bytes.drainTo(b));
+        assertEquals(n - 1,shorts.drainTo(s));
+        assertEquals(n - 1,chars.drainTo(c));
+        assertEquals(n - 1,longs.drainTo(l));
+        assertEquals(n - 1,floats.drainTo(f));
+        assertEquals(n - 1,doubles.drainTo(d));
+        for (int i = 0; i < n - 1; i++) {
+            assertEquals(i + 1,longCopy[i + 1]);
+            assertEquals(i + 1,b.get(i));
+            assertEquals(i + 1,s.get(i));
+            assertEquals(i + 1,c.get(i));
+            assertEquals(i + 1,l.get(i));
+            assertEquals(i + 1,f.get(i));
+            assertEquals(i + 1,d.get(i));
+        } assertTrue(bytes.isEmpty() && shorts.isEmpty() && chars.isEmpty());
+        assertTrue(longs.isEmpty() && floats.isEmpty() && doubles.isEmpty());
+    }
+    
+    private static IntBuffer buffer(int capacity, boolean direct) {
+        if (!direct) return IntBuffer.allocate(capacity);
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+}
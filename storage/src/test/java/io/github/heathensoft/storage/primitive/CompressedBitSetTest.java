@@ -0,0 +1,156 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompressedBitSet against java.util.BitSet, for array, bitmap and run chunks and mixes of them.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class CompressedBitSetTest {
+    
+    private static final int BITS = 1 << 20;
+    
+    private enum Shape { SPARSE, DENSE, RUNS, MIXED }
+    
+    @Test
+    void singleBitOperations() {
+        for (Shape shape : Shape.values()) {
+            Random random = new Random(shape.ordinal());
+            java.util.BitSet reference = new java.util.BitSet();
+            CompressedBitSet bits = new CompressedBitSet();
+            fill(random,shape,reference,bits);
+            bits.runOptimize();
+            assertSame(reference,bits);
+            for (int i = 0; i < 20_000; i++) {
+                int idx = random.nextInt(BITS);
+                if (random.nextBoolean()) {
+                    reference.set(idx);
+                    bits.set(idx);
+                } else {
+                    reference.clear(idx);
+                    bits.clear(idx);
+                }
+            } assertSame(reference,bits);
+        }
+    }
+    
+    @Test
+    void setOperations() {
+        for (Shape a : Shape.values()) {
+            for (Shape b : Shape.values()) {
+                Random random = new Random(a.ordinal() * 7L + b.ordinal());
+                java.util.BitSet refA = new java.util.BitSet();
+                java.util.BitSet refB = new java.util.BitSet();
+                CompressedBitSet bitsA = new CompressedBitSet();
+                CompressedBitSet bitsB = new CompressedBitSet();
+                fill(random,a,refA,bitsA);
+                fill(random,b,refB,bitsB);
+                if (random.nextBoolean()) bitsA.runOptimize();
+                if (random.nextBoolean()) bitsB.runOptimize();
+                assertEquals(refA.intersects(refB),bitsA.intersects(bitsB));
+                java.util.BitSet expected = (java.util.BitSet) refA.clone();
+                CompressedBitSet actual = new CompressedBitSet(bitsA);
+                expected.and(refB);
+                actual.and(bitsB);
+                assertSame(expected,actual);
+                expected = (java.util.BitSet) refA.clone();
+                actual = new CompressedBitSet(bitsA);
+                expected.or(refB);
+                actual.or(bitsB);
+                assertSame(expected,actual);
+                expected = (java.util.BitSet) refA.clone();
+                actual = new CompressedBitSet(bitsA);
+                expected.andNot(refB);
+                actual.andNot(bitsB);
+                assertSame(expected,actual);
+                assertSame(refB,bitsB); // operands are not modified
+            }
+        }
+    }
+    
+    @Test
+    void bitSetRoundTrip() {
+        for (Shape shape : Shape.values()) {
+            Random random = new Random(100 + shape.ordinal());
+            java.util.BitSet reference = new java.util.BitSet();
+            CompressedBitSet bits = new CompressedBitSet();
+            fill(random,shape,reference,bits);
+            BitSet plain = bits.toBitSet();
+            assertEquals(reference.cardinality(),plain.cardinality());
+            for (int i = reference.nextSetBit(0); i >= 0; i = reference.nextSetBit(i + 1)) {
+                assertTrue(plain.get(i));
+            } CompressedBitSet back = new CompressedBitSet(plain);
+            assertEquals(bits,back);
+            assertEquals(bits.hashCode(),back.hashCode());
+        }
+    }
+    
+    @Test
+    void runsAreSmaller() {
+        CompressedBitSet bits = new CompressedBitSet();
+        for (int i = 1000; i < 600_000; i++) bits.set(i);
+        int before = bits.sizeBytes();
+        bits.runOptimize();
+        assertTrue(bits.sizeBytes() * 100 < before);
+        assertEquals(599_000,bits.cardinality());
+        bits.clear(5000);
+        assertFalse(bits.get(5000));
+        assertEquals(598_999,bits.cardinality());
+    }
+    
+    private static void fill(Random random, Shape shape, java.util.BitSet reference, CompressedBitSet bits) {
+        switch (shape) {
+            case SPARSE -> {
+                for (int i = 0; i < 3000; i++) set(random.nextInt(BITS),reference,bits);
+            }
+            case DENSE -> {
+                int base = random.nextInt(4) << 16;
+                for (int i = 0; i < 40_000; i++) set(base + random.nextInt(1 << 16),reference,bits);
+            }
+            case RUNS -> {
+                for (int r = 0; r < 40; r++) {
+                    int start = random.nextInt(BITS - 5000);
+                    int length = 1 + random.nextInt(5000);
+                    for (int i = start; i < start + length; i++) set(i,reference,bits);
+                }
+            }
+            case MIXED -> {
+                fill(random,Shape.SPARSE,reference,bits);
+                fill(random,Shape.DENSE,reference,bits);
+                fill(random,Shape.RUNS,reference,bits);
+            }
+        }
+    }
+    
+    private static void set(int idx, java.util.BitSet reference, CompressedBitSet bits) {
+        reference.set(idx);
+        bits.set(idx);
+    }
+    
+    private static void assertSame(java.util.BitSet expected, CompressedBitSet actual) {
+        assertEquals(expected.cardinality(),actual.cardinality());
+        assertEquals(expected.length(),actual.logicalLength());
+        assertEquals(expected.isEmpty(),actual.isEmpty());
+        IntBag read = new IntBag();
+        actual.read(read::push);
+        assertEquals(expected.cardinality(),read.size());
+        int i = 0;
+        for (int idx = expected.nextSetBit(0); idx >= 0; idx = expected.nextSetBit(idx + 1)) {
+            assertEquals(idx,read.get(i++));
+            assertTrue(actual.get(idx));
+        } Random random = new Random(expected.cardinality());
+        for (int n = 0; n < 2000; n++) {
+            int idx = random.nextInt(BITS + (1 << 16));
+            assertEquals(expected.get(idx),actual.get(idx));
+            assertEquals(expected.nextSetBit(idx),actual.nextSetBit(idx));
+        }
+    }
+}
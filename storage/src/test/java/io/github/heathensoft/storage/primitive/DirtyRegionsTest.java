@@ -0,0 +1,91 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drained rectangles are compared against a per-cell reference of the marked tiles.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class DirtyRegionsTest {
+    
+    @Test
+    void drainCoversMarkedTilesExactlyOnce() {
+        Random random = new Random(5);
+        for (int run = 0; run < 200; run++) {
+            int rows = 1 + random.nextInt(90);
+            int cols = 1 + random.nextInt(90);
+            int tileSize = 1 << random.nextInt(4);
+            DirtyRegions regions = new DirtyRegions(rows,cols,tileSize);
+            boolean[][] expected = new boolean[rows][cols];
+            int marks = random.nextInt(6);
+            for (int m = 0; m < marks; m++) {
+                int x0 = random.nextInt(cols + 10) - 5, y0 = random.nextInt(rows + 10) - 5;
+                int x1 = x0 + random.nextInt(20), y1 = y0 + random.nextInt(20);
+                regions.mark(x0,y0,x1,y1);
+                markTiles(expected,tileSize,x0,y0,x1,y1);
+            } int[][] hits = new int[rows][cols];
+            regions.drain((minX, minY, maxX, maxY) -> {
+                assertTrue(minX <= maxX && minY <= maxY);
+                for (int y = minY; y <= maxY; y++) {
+                    for (int x = minX; x <= maxX; x++) hits[y][x]++;
+                }
+            });
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < cols; x++) {
+                    assertEquals(expected[y][x] ? 1 : 0,hits[y][x],"run " + run + " at " + x + "," + y);
+                }
+            } assertFalse(regions.isDirty());
+            regions.drain((minX, minY, maxX, maxY) -> fail("drained twice"));
+        }
+    }
+    
+    @Test
+    void adjacentRowsAreMerged() {
+        DirtyRegions regions = new DirtyRegions(64,64,8);
+        regions.mark(8,8,23,40);
+        List<int[]> areas = new ArrayList<>();
+        regions.drain((minX, minY, maxX, maxY) -> areas.add(new int[] {minX,minY,maxX,maxY}));
+        assertEquals(1,areas.size());
+        assertArrayEquals(new int[] {8,8,23,47},areas.get(0));
+    }
+    
+    @Test
+    void arrayWritesAreTracked() {
+        ShortArray2D array = new ShortArray2D(100,100);
+        array.write((short) 3);
+        array.enableDirtyTracking(16);
+        array.write((short) 1,20,30,25,31);
+        array.set((short) 2,99,99);
+        List<int[]> areas = new ArrayList<>();
+        array.drainDirty((minX, minY, maxX, maxY) -> areas.add(new int[] {minX,minY,maxX,maxY}));
+        assertEquals(2,areas.size());
+        assertArrayEquals(new int[] {16,16,31,31},areas.get(0));
+        assertArrayEquals(new int[] {96,96,99,99},areas.get(1));
+        array.disableDirtyTracking();
+        array.write((short) 5);
+        array.drainDirty((minX, minY, maxX, maxY) -> fail("not tracking"));
+    }
+    
+    private static void markTiles(boolean[][] cells, int tileSize, int x0, int y0, int x1, int y1) {
+        int rows = cells.length, cols = cells[0].length;
+        x0 = Math.max(0,x0); y0 = Math.max(0,y0);
+        x1 = Math.min(cols - 1,x1); y1 = Math.min(rows - 1,y1);
+        if (x0 > x1 || y0 > y1) return;
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                int tx = x / tileSize, ty = y / tileSize;
+                if (tx >= x0 / tileSize && tx <= x1 / tileSize && ty >= y0 / tileSize && ty <= y1 / tileSize) cells[y][x] = true;
+            }
+        }
+    }
+}
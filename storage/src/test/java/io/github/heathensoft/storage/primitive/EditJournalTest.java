@@ -0,0 +1,155 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Undo / redo against copies of the array taken after every step, and the size of the recorded steps.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class EditJournalTest {
+    
+    private static final int ROWS = 48;
+    private static final int COLS = 40;
+    
+    @Test
+    void undoRedoRestoresEveryStep() {
+        Random random = new Random(1);
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        EditJournal journal = array.enableJournal(8,Long.MAX_VALUE);
+        List<int[][]> states = new ArrayList<>();
+        states.add(copy(array));
+        for (int step = 0; step < 30; step++) {
+            journal.begin();
+            randomEdits(array,random);
+            assertTrue(journal.commit());
+            states.add(copy(array));
+        } for (int step = states.size() - 2; step >= 0; step--) {
+            assertTrue(journal.undo());
+            assertArrayEquals(states.get(step),copy(array),"undo to " + step);
+        } assertFalse(journal.undo());
+        for (int step = 1; step < states.size(); step++) {
+            assertTrue(journal.redo());
+            assertArrayEquals(states.get(step),copy(array),"redo to " + step);
+        } assertFalse(journal.redo());
+    }
+    
+    @Test
+    void floatsAndOtherArrayKinds() {
+        Random random = new Random(2);
+        PrimitiveArray2D[] arrays = { new FloatArray2D(ROWS,COLS), new SparseShortArray2D(ROWS,COLS), new NativeDoubleArray2D(ROWS,COLS) };
+        for (PrimitiveArray2D array : arrays) {
+            EditJournal journal = array.enableJournal(4,Long.MAX_VALUE);
+            long[] before = bits(array);
+            journal.begin();
+            for (int i = 0; i < 200; i++) {
+                long value = array instanceof FloatArray2D ? Float.floatToRawIntBits(random.nextFloat()) & 0xFFFFFFFFL
+                        : array instanceof NativeDoubleArray2D ? Double.doubleToRawLongBits(random.nextDouble()) : random.nextInt(1 << 16);
+                array.setBits(value,random.nextInt(COLS),random.nextInt(ROWS));
+            } journal.commit();
+            long[] after = bits(array);
+            journal.undo();
+            assertArrayEquals(before,bits(array),array.getClass().getSimpleName());
+            journal.redo();
+            assertArrayEquals(after,bits(array),array.getClass().getSimpleName());
+            if (array instanceof NativeDoubleArray2D) ((NativeDoubleArray2D) array).dispose();
+        }
+    }
+    
+    @Test
+    void uniformFillIsSmallerThanRawCopy() {
+        IntArray2D array = new IntArray2D(128,128);
+        EditJournal journal = array.enableJournal(16,Long.MAX_VALUE);
+        journal.begin();
+        array.write(-1,10,10,73,73);
+        journal.commit();
+        long raw = 64 * 64 * Integer.BYTES;
+        assertTrue(journal.sizeBytes() < raw / 10,"step bytes: " + journal.sizeBytes());
+        // one value painted over varied cells: about the old values only
+        Random random = new Random(3);
+        for (int y = 0; y < 128; y++) {
+            for (int x = 0; x < 128; x++) array.set(random.nextInt(1 << 20),x,y);
+        } journal.clear();
+        journal.begin();
+        array.write(7,0,0,63,63);
+        journal.commit();
+        assertTrue(journal.sizeBytes() < 64 * 64 * 4,"step bytes: " + journal.sizeBytes());
+        journal.undo();
+        journal.redo();
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) assertEquals(7,array.get(x,y));
+        }
+    }
+    
+    @Test
+    void rollbackAndUnchangedCommits() {
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        array.write(5);
+        EditJournal journal = array.enableJournal(8,Long.MAX_VALUE);
+        int[][] before = copy(array);
+        journal.begin();
+        array.write(9,3,3,30,30);
+        array.set(1,0,0);
+        journal.rollback();
+        assertArrayEquals(before,copy(array));
+        journal.begin();
+        array.write(5,0,0,10,10);
+        assertFalse(journal.commit());
+        assertFalse(journal.canUndo());
+        journal.begin();
+        assertThrows(IllegalStateException.class,journal::begin);
+        assertThrows(IllegalStateException.class,journal::undo);
+        journal.commit();
+    }
+    
+    @Test
+    void historyIsCapped() {
+        Random random = new Random(4);
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        EditJournal journal = array.enableJournal(8,4096);
+        for (int step = 0; step < 100; step++) {
+            journal.begin();
+            randomEdits(array,random);
+            journal.commit();
+            assertTrue(journal.sizeBytes() <= 4096);
+        } assertTrue(journal.undoSteps() < 100);
+        while (journal.undo()) assertTrue(journal.canRedo());
+    }
+    
+    private static void randomEdits(IntArray2D array, Random random) {
+        int edits = 1 + random.nextInt(5);
+        for (int e = 0; e < edits; e++) {
+            int x = random.nextInt(COLS);
+            int y = random.nextInt(ROWS);
+            switch (random.nextInt(3)) {
+                case 0 -> array.set(random.nextInt(),x,y);
+                case 1 -> array.write(random.nextInt(4),x,y,x + random.nextInt(20),y + random.nextInt(20));
+                default -> {
+                    for (int i = 0; i < 20; i++) array.set(random.nextInt(100),random.nextInt(COLS),random.nextInt(ROWS));
+                }
+            }
+        }
+    }
+    
+    private static int[][] copy(IntArray2D array) {
+        int[][] copy = new int[array.rows()][];
+        for (int r = 0; r < array.rows(); r++) copy[r] = array.get()[r].clone();
+        return copy;
+    }
+    
+    private static long[] bits(PrimitiveArray2D array) {
+        long[] bits = new long[array.size()];
+        for (int y = 0; y < array.rows(); y++) {
+            for (int x = 0; x < array.cols(); x++) bits[y * array.cols() + x] = array.bits(x,y);
+        } return bits;
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.common.Disposable;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every codec round trips every element type, between all array kinds (one stream format per element type).
+ * Grids are compared by their raw bits.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class GridCodecTest {
+    
+    private static final int ROWS = 37;
+    private static final int COLS = 53;
+    
+    @Test
+    void roundTripEveryTypeAndCodec() throws IOException {
+        for (GridCodec codec : GridCodec.values()) {
+            for (PrimitiveArray2D source : heapArrays()) {
+                fill(source,new Random(codec.ordinal()));
+                PrimitiveArray2D target = heapOf(source);
+                decode(codec,encode(codec,source),target);
+                assertSameBits(source,target,codec + " " + source.getClass().getSimpleName());
+            }
+        }
+    }
+    
+    @Test
+    void sameStreamForEveryArrayKind() throws IOException {
+        PrimitiveArray2D[][] kinds = {
+                { new ShortArray2D(ROWS,COLS), new SparseShortArray2D(ROWS,COLS), new NativeShortArray2D(ROWS,COLS) },
+                { new FloatArray2D(ROWS,COLS), new NativeFloatArray2D(ROWS,COLS), new SparseFloatArray2D(ROWS,COLS) },
+                { new ByteArray2D(ROWS,COLS), new SparseByteArray2D(ROWS,COLS), new NativeByteArray2D(ROWS,COLS) },
+                { new DoubleArray2D(ROWS,COLS), new SparseDoubleArray2D(ROWS,COLS), new NativeDoubleArray2D(ROWS,COLS) }};
+        try {
+            for (PrimitiveArray2D[] kind : kinds) {
+                fill(kind[0],new Random(3));
+                for (GridCodec codec : GridCodec.values()) {
+                    byte[] heapStream = encode(codec,kind[0]);
+                    for (int k = 1; k < kind.length; k++) {
+                        String name = codec + " " + kind[k].getClass().getSimpleName();
+                        decode(codec,heapStream,kind[k]);
+                        assertSameBits(kind[0],kind[k],name);
+                        assertArrayEquals(heapStream,encode(codec,kind[k]),name);
+                    }
+                }
+            }
+        } finally {
+            for (PrimitiveArray2D[] kind : kinds) {
+                for (PrimitiveArray2D array : kind) {
+                    if (array instanceof Disposable) ((Disposable) array).dispose();
+                }
+            }
+        }
+    }
+    
+    @Test
+    void uniformGridsCompress() throws IOException {
+        IntArray2D uniform = new IntArray2D(256,256);
+        uniform.write(-1);
+        int raw = 256 * 256 * Integer.BYTES;
+        assertTrue(encode(GridCodec.RLE,uniform).length < raw / 100);
+        assertTrue(encode(GridCodec.LZ,uniform).length < raw / 10);
+        assertTrue(encode(GridCodec.DELTA_VARINT,uniform).length < raw / 3);
+    }
+    
+    @Test
+    void decodeGoesThroughWriteHooks() throws IOException {
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        fill(array,new Random(5));
+        int[][] before = new int[ROWS][];
+        for (int r = 0; r < ROWS; r++) before[r] = array.get()[r].clone();
+        IntArray2D.Snapshot snapshot = array.snapshot();
+        IntArray2D other = new IntArray2D(ROWS,COLS);
+        fill(other,new Random(6));
+        array.enableDirtyTracking(16);
+        GridCodec.DELTA_VARINT.decode(new ByteArrayInputStream(encode(GridCodec.DELTA_VARINT,other)),array);
+        assertSameBits(other,array,"decoded");
+        assertTrue(array.dirtyRegions().isDirty());
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) assertEquals(before[r][c],snapshot.get(c,r));
+        } snapshot.dispose();
+    }
+    
+    @Test
+    void rejectsMismatchedStreams() throws IOException {
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        fill(array,new Random(4));
+        byte[] stream = encode(GridCodec.LZ,array);
+        assertThrows(IOException.class,() -> decode(GridCodec.RLE,stream,new IntArray2D(ROWS,COLS)));
+        assertThrows(IOException.class,() -> decode(GridCodec.LZ,stream,new FloatArray2D(ROWS,COLS)));
+        assertThrows(IOException.class,() -> decode(GridCodec.LZ,stream,new IntArray2D(ROWS,COLS + 1)));
+        byte[] truncated = Arrays.copyOf(stream,stream.length / 2);
+        assertThrows(IOException.class,() -> decode(GridCodec.LZ,truncated,new IntArray2D(ROWS,COLS)));
+    }
+    
+    private static byte[] encode(GridCodec codec, PrimitiveArray2D grid) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = codec.encode(grid,out);
+        assertEquals(out.size(),written);
+        return out.toByteArray();
+    }
+    
+    private static void decode(GridCodec codec, byte[] stream, PrimitiveArray2D grid) throws IOException {
+        codec.decode(new ByteArrayInputStream(stream),grid);
+    }
+    
+    private static PrimitiveArray2D[] heapArrays() {
+        return new PrimitiveArray2D[] {
+                new ByteArray2D(ROWS,COLS), new ShortArray2D(ROWS,COLS), new CharArray2D(ROWS,COLS),
+                new IntArray2D(ROWS,COLS), new LongArray2D(ROWS,COLS), new FloatArray2D(ROWS,COLS),
+                new DoubleArray2D(ROWS,COLS) };
+    }
+    
+    private static PrimitiveArray2D heapOf(PrimitiveArray2D array) {
+        for (PrimitiveArray2D heap : heapArrays()) {
+            if (heap.getClass() == array.getClass()) return heap;
+        } throw new IllegalArgumentException();
+    }
+    
+    /**
+     * Runs, smooth slopes and noise. Floating point values are written as numbers (no NaN payloads)
+     */
+    private static void fill(PrimitiveArray2D array, Random random) {
+        for (int r = 0; r < array.rows(); r++) {
+            for (int c = 0; c < array.cols(); c++) {
+                long value;
+                if (r % 3 == 0) value = c < COLS / 2 ? 7 : -3;
+                else if (r % 3 == 1) value = r * 5L + c;
+                else value = random.nextLong();
+                if (array instanceof ReadableFloat2D) value = Float.floatToRawIntBits(value) & 0xFFFFFFFFL;
+                else if (array instanceof ReadableDouble2D) value = Double.doubleToRawLongBits(value);
+                array.setBits(value,c,r);
+            }
+        }
+    }
+    
+    private static void assertSameBits(PrimitiveArray2D expected, PrimitiveArray2D actual, String message) {
+        for (int r = 0; r < expected.rows(); r++) {
+            for (int c = 0; c < expected.cols(); c++) {
+                assertEquals(expected.bits(c,r),actual.bits(c,r),message + " at " + c + "," + r);
+            }
+        }
+    }
+}
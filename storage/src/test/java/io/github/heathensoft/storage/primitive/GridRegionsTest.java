@@ -0,0 +1,161 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Flood fill and labelling against a brute force breadth-first search, for 4- and 8-connectivity,
+ * on random masks of varying density and on a serpentine maze.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class GridRegionsTest {
+    
+    private static final int ROWS = 41;
+    private static final int COLS = 57;
+    
+    @Test
+    void floodFillMatchesBruteForce() {
+        Random random = new Random(1);
+        for (int round = 0; round < 40; round++) {
+            ByteArray2D grid = randomMask(random,0.3f + random.nextFloat() * 0.5f);
+            for (boolean diagonal : new boolean[] {false,true}) {
+                int[][] reference = bruteForceLabels(grid,diagonal);
+                for (int seed = 0; seed < 10; seed++) {
+                    int x = random.nextInt(COLS);
+                    int y = random.nextInt(ROWS);
+                    boolean[][] filled = new boolean[ROWS][COLS];
+                    int count = GridRegions.floodFill(grid,(cx, cy) -> grid.get(cx,cy) != 0,x,y,diagonal,(minX, minY, maxX, maxY) -> {
+                        assertEquals(minY,maxY);
+                        assertTrue(minX <= maxX);
+                        for (int cx = minX; cx <= maxX; cx++) {
+                            assertFalse(filled[minY][cx],"cell reported twice");
+                            filled[minY][cx] = true;
+                        }
+                    });
+                    int label = reference[y][x];
+                    int expected = 0;
+                    for (int cy = 0; cy < ROWS; cy++) {
+                        for (int cx = 0; cx < COLS; cx++) {
+                            boolean member = label != 0 && reference[cy][cx] == label;
+                            assertEquals(member,filled[cy][cx],"cell " + cx + "," + cy);
+                            if (member) expected++;
+                        }
+                    } assertEquals(expected,count);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void bucketFillWritesWhileFilling() {
+        ByteArray2D grid = maze();
+        int open = 0;
+        for (int y = 0; y < grid.rows(); y++) {
+            for (int x = 0; x < grid.cols(); x++) if (grid.get(x,y) == 1) open++;
+        } int count = GridRegions.floodFill(grid,(x, y) -> grid.get(x,y) == 1,0,0,(minX, minY, maxX, maxY) -> grid.write((byte) 2,minX,minY,maxX,maxY));
+        assertEquals(open,count);
+        for (int y = 0; y < grid.rows(); y++) {
+            for (int x = 0; x < grid.cols(); x++) assertNotEquals(1,grid.get(x,y));
+        } assertEquals(0,GridRegions.floodFill(grid,(x, y) -> true,-1,0,(a, b, c, d) -> fail()));
+        assertEquals(0,GridRegions.floodFill(grid,(x, y) -> false,0,0,(a, b, c, d) -> fail()));
+    }
+    
+    @Test
+    void labelsMatchBruteForce() {
+        Random random = new Random(2);
+        for (int round = 0; round < 40; round++) {
+            ByteArray2D grid = randomMask(random,0.3f + random.nextFloat() * 0.5f);
+            for (boolean diagonal : new boolean[] {false,true}) {
+                int[][] reference = bruteForceLabels(grid,diagonal);
+                IntArray2D labels = new IntArray2D(ROWS,COLS);
+                labels.write(-7);
+                int components = GridRegions.label(grid,(x, y) -> grid.get(x,y) != 0,diagonal,labels);
+                int expectedComponents = 0;
+                for (int[] row : reference) {
+                    for (int l : row) expectedComponents = Math.max(expectedComponents,l);
+                } assertEquals(expectedComponents,components);
+                int[] sizes = new int[components + 1];
+                boolean[] edge = new boolean[components + 1];
+                for (int y = 0; y < ROWS; y++) {
+                    for (int x = 0; x < COLS; x++) {
+                        int l = reference[y][x];
+                        assertEquals(l,labels.get(x,y),"cell " + x + "," + y);
+                        sizes[l]++;
+                        if (l != 0 && (x == 0 || y == 0 || x == COLS - 1 || y == ROWS - 1)) edge[l] = true;
+                    }
+                } assertArrayEquals(sizes,GridRegions.componentSizes(labels,components));
+                assertArrayEquals(edge,GridRegions.touchesEdge(labels,components));
+            }
+        }
+    }
+    
+    @Test
+    void mazeIsOneComponent() {
+        ByteArray2D grid = maze();
+        IntArray2D labels = new IntArray2D(grid.rows(),grid.cols());
+        assertEquals(1,GridRegions.label(grid,(x, y) -> grid.get(x,y) == 1,labels));
+        // every wall is a single row segment, separated from the next by an open row
+        int walls = GridRegions.label(grid,(x, y) -> grid.get(x,y) == 0,false,labels);
+        assertEquals(grid.rows() / 2,walls);
+        assertThrows(IllegalArgumentException.class,() -> GridRegions.label(grid,(x, y) -> true,new IntArray2D(1,1)));
+    }
+    
+    private static ByteArray2D randomMask(Random random, float density) {
+        ByteArray2D grid = new ByteArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) grid.set((byte) (random.nextFloat() < density ? 1 : 0),x,y);
+        } return grid;
+    }
+    
+    /**
+     * Every other row is a wall with a gap at alternating ends, so the open cells form one long serpentine path
+     */
+    private static ByteArray2D maze() {
+        int rows = 63;
+        int cols = 80;
+        ByteArray2D grid = new ByteArray2D(rows,cols);
+        grid.write((byte) 1);
+        for (int y = 1; y < rows; y += 2) {
+            int gap = (y / 2) % 2 == 0 ? cols - 1 : 0;
+            for (int x = 0; x < cols; x++) if (x != gap) grid.set((byte) 0,x,y);
+        } return grid;
+    }
+    
+    /**
+     * Breadth-first search from every unlabelled inside cell, row by row. Labels in order of first appearance
+     */
+    private static int[][] bruteForceLabels(ByteArray2D grid, boolean diagonal) {
+        int[][] labels = new int[grid.rows()][grid.cols()];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        int next = 0;
+        for (int y = 0; y < grid.rows(); y++) {
+            for (int x = 0; x < grid.cols(); x++) {
+                if (grid.get(x,y) == 0 || labels[y][x] != 0) continue;
+                labels[y][x] = ++next;
+                queue.add(new int[] {x,y});
+                while (!queue.isEmpty()) {
+                    int[] cell = queue.poll();
+                    for (int dy = -1; dy <= 1; dy++) {
+                        for (int dx = -1; dx <= 1; dx++) {
+                            if (dx == 0 && dy == 0 || !diagonal && dx != 0 && dy != 0) continue;
+                            int nx = cell[0] + dx;
+                            int ny = cell[1] + dy;
+                            if (nx < 0 || ny < 0 || nx >= grid.cols() || ny >= grid.rows()) continue;
+                            if (grid.get(nx,ny) == 0 || labels[ny][nx] != 0) continue;
+                            labels[ny][nx] = next;
+                            queue.add(new int[] {nx,ny});
+                        }
+                    }
+                }
+            }
+        } return labels;
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Open addressing maps and sets against java.util.HashMap / HashSet, with random puts and removes
+ * over a small key range (many collisions and backward shifts), including the key 0.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class HashMapTest {
+    
+    private static final int OPERATIONS = 50_000;
+    private static final int KEYS = 512;
+    
+    @Test
+    void intIntMap() {
+        Random random = new Random(1);
+        IntIntHashMap map = new IntIntHashMap(4);
+        Map<Integer,Integer> reference = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEYS) - KEYS / 4;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.getOrDefault(key,0),map.remove(key));
+                reference.remove(key);
+            } else {
+                int value = random.nextInt();
+                Integer previous = reference.put(key,value);
+                assertEquals(previous == null ? 0 : previous,map.put(key,value));
+            } assertEquals(reference.size(),map.size());
+        } for (int key = -KEYS; key < KEYS; key++) {
+            assertEquals(reference.containsKey(key),map.containsKey(key));
+            assertEquals(reference.getOrDefault(key,-1),map.get(key,-1));
+        } Map<Integer,Integer> entries = new HashMap<>();
+        map.read((k,v) -> assertNull(entries.put(k,v)));
+        assertEquals(reference,entries);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+    
+    @Test
+    void intIntMapImplementsExternalInterface() {
+        io.github.heathensoft.storage.primitive.external.IntIntMap map = new IntIntHashMap();
+        map.put(3,4);
+        assertEquals(4,map.get(3));
+        assertEquals(4,map.remove(3));
+        assertEquals(0,map.size());
+    }
+    
+    @Test
+    void longIntMap() {
+        Random random = new Random(2);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long,Integer> reference = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            long key = ((long) (random.nextInt(KEYS) - KEYS / 4)) << 33;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.getOrDefault(key,0),map.remove(key));
+                reference.remove(key);
+            } else {
+                int value = random.nextInt();
+                Integer previous = reference.put(key,value);
+                assertEquals(previous == null ? 0 : previous,map.put(key,value));
+            } assertEquals(reference.size(),map.size());
+        } Map<Long,Integer> entries = new HashMap<>();
+        map.read((k,v) -> assertNull(entries.put(k,v)));
+        assertEquals(reference,entries);
+    }
+    
+    @Test
+    void intObjectMap() {
+        Random random = new Random(3);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+        Map<Integer,String> reference = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEYS) - KEYS / 4;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key),map.remove(key));
+            } else {
+                String value = Integer.toString(random.nextInt(100));
+                assertEquals(reference.put(key,value),map.put(key,value));
+            } assertEquals(reference.size(),map.size());
+        } Map<Integer,String> entries = new HashMap<>();
+        map.read((k,v) -> assertNull(entries.put(k,v)));
+        assertEquals(reference,entries);
+    }
+    
+    @Test
+    void longObjectMap() {
+        Random random = new Random(4);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        Map<Long,String> reference = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            long key = random.nextInt(KEYS) - KEYS / 4L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key),map.remove(key));
+            } else {
+                String value = Integer.toString(random.nextInt(100));
+                assertEquals(reference.put(key,value),map.put(key,value));
+            } assertEquals(reference.size(),map.size());
+        } for (long key = -KEYS; key < KEYS; key++) {
+            assertEquals(reference.get(key),map.get(key));
+        }
+    }
+    
+    @Test
+    void intSet() {
+        Random random = new Random(5);
+        IntHashSet set = new IntHashSet(4);
+        Set<Integer> reference = new HashSet<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int value = random.nextInt(KEYS) - KEYS / 4;
+            if (random.nextInt(3) == 0) assertEquals(reference.remove(value),set.remove(value));
+            else assertEquals(reference.add(value),set.add(value));
+            assertEquals(reference.size(),set.size());
+        } Set<Integer> values = new HashSet<>();
+        set.read(v -> assertTrue(values.add(v)));
+        assertEquals(reference,values);
+    }
+    
+    @Test
+    void longSet() {
+        Random random = new Random(6);
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> reference = new HashSet<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            long value = (long) (random.nextInt(KEYS) - KEYS / 4) * 0x1_0000_0001L;
+            if (random.nextInt(3) == 0) assertEquals(reference.remove(value),set.remove(value));
+            else assertEquals(reference.add(value),set.add(value));
+            assertEquals(reference.size(),set.size());
+        } for (long value : reference) assertTrue(set.contains(value));
+    }
+}
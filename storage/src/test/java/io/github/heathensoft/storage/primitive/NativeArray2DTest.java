@@ -0,0 +1,163 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Native arrays are compared against the heap array given the same writes.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class NativeArray2DTest {
+    
+    private static final int ROWS = 13;
+    private static final int COLS = 17;
+    
+    private IntArray2D heap;
+    private NativeIntArray2D off;
+    private Random random;
+    
+    @BeforeEach
+    void setUp() {
+        random = new Random(7);
+        heap = new IntArray2D(ROWS,COLS);
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) heap.set(random.nextInt(100),c,r);
+        } off = new NativeIntArray2D(heap);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        off.dispose();
+    }
+    
+    @Test
+    void copyRoundTrip() {
+        IntArray2D copy = new IntArray2D(ROWS,COLS);
+        off.copyTo(copy);
+        assertCells(heap,copy);
+    }
+    
+    @Test
+    void bufferWriteMatchesHeap() {
+        for (WriteFunction function : new WriteFunction[] {WriteFunction.EQU,WriteFunction.ADD}) {
+            heap.setWriteFunction(function);
+            off.setWriteFunction(function);
+            IntBuffer a = randomBuffer(100);
+            IntBuffer b = a.duplicate();
+            heap.write(a,12,9,3,2);
+            off.write(b,12,9,3,2);
+            assertEquals(a.position(),b.position());
+            assertCells(heap,off);
+        }
+    }
+    
+    @Test
+    void queueAndStackWritesMatchHeap() {
+        for (WriteFunction function : new WriteFunction[] {WriteFunction.EQU,WriteFunction.ADD}) {
+            heap.setWriteFunction(function);
+            off.setWriteFunction(function);
+            int[] values = randomValues(ROWS * COLS);
+            IntQueue q1 = queue(values), q2 = queue(values);
+            heap.write(q1,-3,4,8,100);
+            off.write(q2,-3,4,8,100);
+            assertEquals(q1.size(),q2.size());
+            assertCells(heap,off);
+            heap.write(queue(values));
+            off.write(queue(values));
+            IntStack s1 = stack(values), s2 = stack(values);
+            heap.write(s1,2,2,5,11);
+            off.write(s2,2,2,5,11);
+            assertEquals(s1.size(),s2.size());
+            heap.write(stack(values));
+            off.write(stack(values));
+            assertCells(heap,off);
+        }
+    }
+    
+    @Test
+    void pointWritesMatchHeap() {
+        heap.setWriteFunction(WriteFunction.ADD);
+        off.setWriteFunction(WriteFunction.ADD);
+        int[] points = {0,0, 16,12, -1,3, 5,5, 5,5, 3,40};
+        heap.write(queue(points),9);
+        off.write(queue(points),9);
+        heap.write(stack(points),4);
+        off.write(stack(points),4);
+        int[] inside = {1,1, 12,0, 0,12};
+        heap.writeUnchecked(queue(inside),2);
+        off.writeUnchecked(queue(inside),2);
+        heap.writeUnchecked(stack(inside),3);
+        off.writeUnchecked(stack(inside),3);
+        assertCells(heap,off);
+    }
+    
+    @Test
+    void areaFromArrayMatchesHeap() {
+        IntArray2D from = new IntArray2D(ROWS,COLS);
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) from.set(random.nextInt(),c,r);
+        } for (WriteFunction function : new WriteFunction[] {WriteFunction.EQU,WriteFunction.SUB}) {
+            heap.setWriteFunction(function);
+            off.setWriteFunction(function);
+            heap.write(from,20,-2,4,6);
+            off.write(from,20,-2,4,6);
+            assertCells(heap,off);
+        }
+    }
+    
+    @Test
+    void shortSourceThrowsAndWritesNothing() {
+        IntArray2D before = new IntArray2D(ROWS,COLS);
+        off.copyTo(before);
+        IntQueue queue = queue(randomValues(10));
+        assertThrows(RuntimeException.class,() -> off.write(queue,0,0,3,3));
+        assertEquals(10,queue.size());
+        assertThrows(RuntimeException.class,() -> off.write(randomBuffer(10)));
+        assertThrows(RuntimeException.class,() -> off.write(queue(new int[] {1,2,3}),1));
+        assertCells(before,off);
+    }
+    
+    private static void assertCells(IntArray2D expected, NativeIntArray2D actual) {
+        IntArray2D copy = new IntArray2D(ROWS,COLS);
+        actual.copyTo(copy);
+        assertCells(expected,copy);
+    }
+    
+    private static void assertCells(IntArray2D expected, IntArray2D actual) {
+        for (int r = 0; r < ROWS; r++) {
+            assertArrayEquals(expected.get()[r],actual.get()[r],"row " + r);
+        }
+    }
+    
+    private int[] randomValues(int n) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) values[i] = random.nextInt(1000) - 500;
+        return values;
+    }
+    
+    private IntBuffer randomBuffer(int n) {
+        return IntBuffer.wrap(randomValues(n));
+    }
+    
+    private static IntQueue queue(int[] values) {
+        IntQueue queue = new IntQueue(values.length);
+        queue.enqueue(values);
+        return queue;
+    }
+    
+    private static IntStack stack(int[] values) {
+        IntStack stack = new IntStack(values.length);
+        for (int v : values) stack.push(v);
+        return stack;
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.IntReader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parallel operations compared against their sequential counterparts.
+ * The arrays are large enough to be split into several blocks.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class ParallelArray2DTest {
+    
+    private static final int ROWS = 300;
+    private static final int COLS = 211;
+    
+    @Test
+    void blocksCoverRangeOnce() {
+        for (int width : new int[] {1,7,COLS,5000,RowBlocks.BLOCK_CELLS * 2}) {
+            int[] hits = new int[1000];
+            RowBlocks.execute(3,997,width,(r0, r1) -> {
+                assertTrue(r1 - r0 <= RowBlocks.blockRows(width));
+                for (int r = r0; r < r1; r++) {
+                    synchronized (hits) { hits[r]++; }
+                }
+            });
+            for (int r = 0; r < hits.length; r++) {
+                assertEquals(r >= 3 && r < 997 ? 1 : 0,hits[r],"row " + r);
+            }
+        }
+    }
+    
+    @Test
+    void reduceCombinesInBlockOrder() {
+        for (int run = 0; run < 5; run++) {
+            List<Integer> rows = RowBlocks.reduce(0,ROWS,COLS,(r0, r1) -> {
+                List<Integer> list = new ArrayList<>();
+                for (int r = r0; r < r1; r++) list.add(r);
+                return list;
+            }, (a, b) -> { a.addAll(b); return a; });
+            assertEquals(ROWS,rows.size());
+            for (int r = 0; r < ROWS; r++) assertEquals(r,rows.get(r));
+        } assertNull(RowBlocks.reduce(5,5,COLS,(r0, r1) -> 1,Integer::sum));
+    }
+    
+    @Test
+    void parallelWritesMatchSequential() {
+        Random random = new Random(3);
+        for (WriteFunction function : WriteFunction.values()) {
+            IntArray2D sequential = randomArray(random);
+            IntArray2D parallel = new IntArray2D(ROWS,COLS);
+            parallel.write(sequential);
+            IntArray2D from = randomArray(random);
+            int[] values = new int[ROWS * COLS];
+            for (int i = 0; i < values.length; i++) values[i] = random.nextInt(50) + 1;
+            sequential.setWriteFunction(function);
+            parallel.setWriteFunction(function);
+            IntBuffer a = IntBuffer.wrap(values);
+            IntBuffer b = IntBuffer.wrap(values);
+            sequential.write(a,190,-4,11,260);
+            parallel.parallelWrite(b,190,-4,11,260);
+            assertEquals(a.position(),b.position());
+            sequential.write(from,0,17,COLS,ROWS);
+            parallel.parallelWrite(from,0,17,COLS,ROWS);
+            sequential.write(9,5,5,100,299);
+            parallel.parallelFill(9,5,5,100,299);
+            for (int r = 0; r < ROWS; r++) {
+                assertArrayEquals(sequential.get()[r],parallel.get()[r],function + " row " + r);
+            }
+        }
+    }
+    
+    @Test
+    void parallelReadIsDeterministic() {
+        IntArray2D array = randomArray(new Random(11));
+        Sum expected = new Sum();
+        array.readArea(expected,4,2,200,290);
+        for (int run = 0; run < 5; run++) {
+            Sum sum = array.parallelReadArea(Sum::new,Sum::combine,200,290,4,2);
+            assertEquals(expected.sum,sum.sum);
+            assertEquals(expected.count,sum.count);
+            assertEquals(expected.hash,sum.hash);
+        } assertEquals(0,array.parallelReadArea(Sum::new,Sum::combine,-10,-10,-1,-1).count);
+    }
+    
+    private static IntArray2D randomArray(Random random) {
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) array.set(random.nextInt(1000) + 1,c,r);
+        } return array;
+    }
+    
+    /** Order dependent hash: only equal if the values are combined in row order */
+    private static final class Sum implements IntReader {
+        long sum, count, hash, power = 1;
+        public void next(int value) {
+            sum += value;
+            count++;
+            hash = hash * 31 + value;
+            power *= 31;
+        }
+        Sum combine(Sum below) {
+            sum += below.sum;
+            count += below.count;
+            hash = hash * below.power + below.hash;
+            power *= below.power;
+            return this;
+        }
+    }
+}
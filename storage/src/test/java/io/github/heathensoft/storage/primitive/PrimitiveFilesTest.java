@@ -0,0 +1,188 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write / load round trips of every container, and rejection of corrupt files (checksum, header, size, type).
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class PrimitiveFilesTest {
+    
+    private static final int ROWS = 300;
+    private static final int COLS = 301; // larger than one write block for the wide types
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void heapGridsRoundTrip() throws IOException {
+        Random random = new Random(1);
+        ByteArray2D bytes = new ByteArray2D(ROWS,COLS);
+        ShortArray2D shorts = new ShortArray2D(ROWS,COLS);
+        CharArray2D chars = new CharArray2D(ROWS,COLS);
+        IntArray2D ints = new IntArray2D(ROWS,COLS);
+        LongArray2D longs = new LongArray2D(ROWS,COLS);
+        FloatArray2D floats = new FloatArray2D(ROWS,COLS);
+        DoubleArray2D doubles = new DoubleArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) {
+                bytes.set((byte) random.nextInt(),x,y);
+                shorts.set((short) random.nextInt(),x,y);
+                chars.set((char) random.nextInt(),x,y);
+                ints.set(random.nextInt(),x,y);
+                longs.set(random.nextLong(),x,y);
+                floats.set(random.nextFloat(),x,y);
+                doubles.set(random.nextGaussian(),x,y);
+            }
+        } PrimitiveFiles.write(dir.resolve("b"),bytes);
+        PrimitiveFiles.write(dir.resolve("s"),shorts);
+        PrimitiveFiles.write(dir.resolve("c"),chars);
+        PrimitiveFiles.write(dir.resolve("i"),ints);
+        PrimitiveFiles.write(dir.resolve("l"),longs);
+        PrimitiveFiles.write(dir.resolve("f"),floats);
+        PrimitiveFiles.write(dir.resolve("d"),doubles);
+        assertArrayEquals(bytes.get(),PrimitiveFiles.loadByteArray2D(dir.resolve("b")).get());
+        assertArrayEquals(shorts.get(),PrimitiveFiles.loadShortArray2D(dir.resolve("s")).get());
+        assertArrayEquals(chars.get(),PrimitiveFiles.loadCharArray2D(dir.resolve("c")).get());
+        assertArrayEquals(ints.get(),PrimitiveFiles.loadIntArray2D(dir.resolve("i")).get());
+        assertArrayEquals(longs.get(),PrimitiveFiles.loadLongArray2D(dir.resolve("l")).get());
+        assertArrayEquals(floats.get(),PrimitiveFiles.loadFloatArray2D(dir.resolve("f")).get());
+        assertArrayEquals(doubles.get(),PrimitiveFiles.loadDoubleArray2D(dir.resolve("d")).get());
+        assertEquals(PrimitiveFiles.HEADER_BYTES + (long) ROWS * COLS * Long.BYTES,Files.size(dir.resolve("l")));
+    }
+    
+    @Test
+    void nativeGridsRoundTrip() throws IOException {
+        Random random = new Random(2);
+        IntArray2D heap = new IntArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) heap.set(random.nextInt(),x,y);
+        } NativeIntArray2D off = new NativeIntArray2D(heap);
+        try {
+            PrimitiveFiles.write(dir.resolve("native"),off);
+            // heap and native files are interchangeable
+            assertArrayEquals(heap.get(),PrimitiveFiles.loadIntArray2D(dir.resolve("native")).get());
+            PrimitiveFiles.write(dir.resolve("heap"),heap);
+            NativeIntArray2D loaded = PrimitiveFiles.loadNativeIntArray2D(dir.resolve("heap"));
+            try {
+                for (int y = 0; y < ROWS; y++) {
+                    for (int x = 0; x < COLS; x++) assertEquals(heap.get(x,y),loaded.get(x,y));
+                }
+            } finally {
+                loaded.dispose();
+            }
+        } finally {
+            off.dispose();
+        }
+    }
+    
+    @Test
+    void containersRoundTrip() throws IOException {
+        Random random = new Random(3);
+        IntBag bag = new IntBag();
+        IntStack stack = new IntStack();
+        BitSet bits = new BitSet(1000);
+        for (int i = 0; i < 777; i++) {
+            bag.push(random.nextInt());
+            stack.push(random.nextInt());
+            if (random.nextBoolean()) bits.set(random.nextInt(1000));
+        } PrimitiveFiles.write(dir.resolve("bag"),bag);
+        PrimitiveFiles.write(dir.resolve("stack"),stack);
+        PrimitiveFiles.write(dir.resolve("bits"),bits);
+        IntBag loadedBag = PrimitiveFiles.loadIntBag(dir.resolve("bag"));
+        assertEquals(bag.size(),loadedBag.size());
+        for (int i = 0; i < bag.size(); i++) assertEquals(bag.get(i),loadedBag.get(i));
+        IntStack loadedStack = PrimitiveFiles.loadIntStack(dir.resolve("stack"));
+        assertEquals(stack.size(),loadedStack.size());
+        while (!stack.isEmpty()) assertEquals(stack.pop(),loadedStack.pop());
+        assertEquals(bits,PrimitiveFiles.loadBitSet(dir.resolve("bits")));
+        PrimitiveFiles.write(dir.resolve("empty"),new IntBag());
+        assertTrue(PrimitiveFiles.loadIntBag(dir.resolve("empty")).isEmpty());
+    }
+    
+    @Test
+    void mappedPayload() throws IOException {
+        IntArray2D grid = new IntArray2D(4,5);
+        for (int i = 0; i < 20; i++) grid.set(i * 3,i % 5,i / 5);
+        PrimitiveFiles.write(dir.resolve("grid"),grid);
+        PrimitiveFiles.Mapped mapped = PrimitiveFiles.map(dir.resolve("grid")).verify();
+        assertEquals(PrimitiveFiles.INT,mapped.type());
+        assertEquals(PrimitiveFiles.GRID,mapped.kind());
+        assertEquals(4,mapped.rows());
+        assertEquals(5,mapped.cols());
+        IntBuffer values = mapped.asIntBuffer();
+        assertTrue(values.isReadOnly());
+        for (int i = 0; i < 20; i++) assertEquals(i * 3,values.get(i));
+    }
+    
+    @Test
+    void corruptPayloadFailsChecksum() throws IOException {
+        Path path = writeGrid("crc");
+        patch(path,PrimitiveFiles.HEADER_BYTES + 17,(byte) 0x5A);
+        IOException e = assertThrows(IOException.class,() -> PrimitiveFiles.loadIntArray2D(path));
+        assertTrue(e.getMessage().contains("checksum"));
+        PrimitiveFiles.map(path); // mapping alone does not verify
+        assertThrows(IOException.class,() -> PrimitiveFiles.map(path).verify());
+    }
+    
+    @Test
+    void corruptHeaderIsRejected() throws IOException {
+        Path magic = writeGrid("magic");
+        patch(magic,0,(byte) 0xFF);
+        assertThrows(IOException.class,() -> PrimitiveFiles.loadIntArray2D(magic));
+        Path version = writeGrid("version");
+        patch(version,4,(byte) 99);
+        assertThrows(IOException.class,() -> PrimitiveFiles.loadIntArray2D(version));
+        Path rows = writeGrid("rows");
+        patch(rows,12,(byte) 7);
+        assertThrows(IOException.class,() -> PrimitiveFiles.loadIntArray2D(rows));
+        Path truncated = writeGrid("truncated");
+        try (FileChannel channel = FileChannel.open(truncated,StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        } assertThrows(IOException.class,() -> PrimitiveFiles.loadIntArray2D(truncated));
+        Path tiny = dir.resolve("tiny");
+        Files.write(tiny,new byte[5]);
+        assertThrows(IOException.class,() -> PrimitiveFiles.loadIntArray2D(tiny));
+    }
+    
+    @Test
+    void wrongTypeIsRejected() throws IOException {
+        Path path = writeGrid("type");
+        assertThrows(IOException.class,() -> PrimitiveFiles.loadFloatArray2D(path));
+        assertThrows(IOException.class,() -> PrimitiveFiles.loadIntBag(path));
+    }
+    
+    private Path writeGrid(String name) throws IOException {
+        IntArray2D grid = new IntArray2D(8,8);
+        for (int i = 0; i < 64; i++) grid.set(i,i % 8,i / 8);
+        Path path = dir.resolve(name);
+        PrimitiveFiles.write(path,grid);
+        return path;
+    }
+    
+    private static void patch(Path path, long position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,StandardOpenOption.READ,StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b,position);
+            b.put(0,(byte) (b.get(0) ^ value));
+            b.rewind();
+            channel.write(b,position);
+        }
+    }
+}
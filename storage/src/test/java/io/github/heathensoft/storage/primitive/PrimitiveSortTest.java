@@ -0,0 +1,169 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PrimitiveSort against Arrays.sort: every algorithm, type and range size (insertion, introsort,
+ * radix and parallel), sub-ranges, and the stability of the key / value co-sorts.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class PrimitiveSortTest {
+    
+    private static final int[] SIZES = {0, 1, 2, 15, 17, 100, 255, 256, 1000, 5000, PrimitiveSort.PARALLEL_THRESHOLD + 7};
+    
+    @Test
+    void intSorts() {
+        Random random = new Random(1);
+        for (int n : SIZES) {
+            int[] a = new int[n];
+            int range = random.nextBoolean() ? 50 : Integer.MAX_VALUE;
+            for (int i = 0; i < n; i++) a[i] = random.nextInt(range) - (range == 50 ? 25 : random.nextInt(range));
+            int[] expected = a.clone();
+            Arrays.sort(expected);
+            int[] b = a.clone();
+            PrimitiveSort.sort(b);
+            assertArrayEquals(expected,b);
+            b = a.clone();
+            PrimitiveSort.introSort(b,0,n);
+            assertArrayEquals(expected,b);
+            b = a.clone();
+            PrimitiveSort.radixSort(b,0,n,new int[n]);
+            assertArrayEquals(expected,b);
+            b = a.clone();
+            PrimitiveSort.parallelSort(b,0,n);
+            assertArrayEquals(expected,b);
+            if (n > 4) {
+                b = a.clone();
+                int[] range2 = a.clone();
+                PrimitiveSort.sort(b,2,n - 2);
+                Arrays.sort(range2,2,n - 2);
+                assertArrayEquals(range2,b);
+            }
+        }
+    }
+    
+    @Test
+    void longSorts() {
+        Random random = new Random(2);
+        for (int n : SIZES) {
+            long[] a = new long[n];
+            for (int i = 0; i < n; i++) a[i] = random.nextLong() >> random.nextInt(64);
+            long[] expected = a.clone();
+            Arrays.sort(expected);
+            long[] b = a.clone();
+            PrimitiveSort.sort(b);
+            assertArrayEquals(expected,b);
+            b = a.clone();
+            PrimitiveSort.introSort(b,0,n);
+            assertArrayEquals(expected,b);
+            b = a.clone();
+            PrimitiveSort.parallelSort(b,0,n);
+            assertArrayEquals(expected,b);
+        }
+    }
+    
+    @Test
+    void floatingPointSorts() {
+        Random random = new Random(3);
+        float[] special = {0.0f, -0.0f, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE};
+        for (int n : SIZES) {
+            float[] f = new float[n];
+            double[] d = new double[n];
+            for (int i = 0; i < n; i++) {
+                f[i] = random.nextInt(10) == 0 ? special[random.nextInt(special.length)] : (float) random.nextGaussian() * 1000;
+                d[i] = f[i];
+            } float[] expectedF = f.clone();
+            double[] expectedD = d.clone();
+            Arrays.sort(expectedF);
+            Arrays.sort(expectedD);
+            float[] sortedF = f.clone();
+            double[] sortedD = d.clone();
+            PrimitiveSort.sort(sortedF);
+            PrimitiveSort.sort(sortedD);
+            assertArrayEquals(expectedF,sortedF);
+            assertArrayEquals(expectedD,sortedD);
+            sortedF = f.clone();
+            sortedD = d.clone();
+            PrimitiveSort.introSort(sortedF,0,n);
+            PrimitiveSort.introSort(sortedD,0,n);
+            assertArrayEquals(expectedF,sortedF);
+            assertArrayEquals(expectedD,sortedD);
+            sortedF = f.clone();
+            sortedD = d.clone();
+            PrimitiveSort.parallelSort(sortedF,0,n);
+            PrimitiveSort.parallelSort(sortedD,0,n);
+            assertArrayEquals(expectedF,sortedF);
+            assertArrayEquals(expectedD,sortedD);
+        }
+    }
+    
+    @Test
+    void narrowSorts() {
+        Random random = new Random(4);
+        for (int n : SIZES) {
+            byte[] b = new byte[n];
+            short[] s = new short[n];
+            char[] c = new char[n];
+            for (int i = 0; i < n; i++) {
+                b[i] = (byte) random.nextInt();
+                s[i] = (short) random.nextInt();
+                c[i] = (char) random.nextInt();
+            } byte[] eb = b.clone();
+            short[] es = s.clone();
+            char[] ec = c.clone();
+            Arrays.sort(eb);
+            Arrays.sort(es);
+            Arrays.sort(ec);
+            PrimitiveSort.sort(b);
+            PrimitiveSort.sort(s);
+            PrimitiveSort.sort(c);
+            assertArrayEquals(eb,b);
+            assertArrayEquals(es,s);
+            assertArrayEquals(ec,c);
+        }
+    }
+    
+    @Test
+    void keyValueSortsAreStable() {
+        Random random = new Random(5);
+        for (int n : SIZES) {
+            if (n > 10_000) continue;
+            int[] intKeys = new int[n];
+            long[] longKeys = new long[n];
+            float[] floatKeys = new float[n];
+            for (int i = 0; i < n; i++) {
+                intKeys[i] = random.nextInt(20) - 10;
+                longKeys[i] = (random.nextInt(20) - 10L) << 40;
+                floatKeys[i] = (random.nextInt(20) - 10) * 0.5f;
+            } int[] values = new int[n];
+            for (int i = 0; i < n; i++) values[i] = i;
+            int[] v = values.clone();
+            int[] keys = intKeys.clone();
+            PrimitiveSort.sort(keys,v,0,n);
+            for (int i = 1; i < n; i++) {
+                assertTrue(keys[i-1] < keys[i] || (keys[i-1] == keys[i] && v[i-1] < v[i]));
+            } for (int i = 0; i < n; i++) assertEquals(intKeys[v[i]],keys[i]);
+            v = values.clone();
+            long[] lk = longKeys.clone();
+            PrimitiveSort.sort(lk,v,0,n);
+            for (int i = 1; i < n; i++) {
+                assertTrue(lk[i-1] < lk[i] || (lk[i-1] == lk[i] && v[i-1] < v[i]));
+            } for (int i = 0; i < n; i++) assertEquals(longKeys[v[i]],lk[i]);
+            v = values.clone();
+            float[] fk = floatKeys.clone();
+            PrimitiveSort.sort(fk,v,0,n);
+            for (int i = 1; i < n; i++) {
+                assertTrue(fk[i-1] < fk[i] || (fk[i-1] == fk[i] && v[i-1] < v[i]));
+            } for (int i = 0; i < n; i++) assertEquals(floatKeys[v[i]],fk[i]);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sequential and parallel streams against plain loops, and recursive splits against the full range:
+ * every cell exactly once, in order, with exact sizes.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class PrimitiveSpliteratorsTest {
+    
+    private static final int[][] SHAPES = {{1,1},{1,5000},{2,3000},{37,53},{300,7}};
+    
+    @Test
+    void arrayStreamsMatchLoops() {
+        Random random = new Random(1);
+        for (int[] shape : SHAPES) {
+            int rows = shape[0];
+            int cols = shape[1];
+            IntArray2D ints = new IntArray2D(rows,cols);
+            ByteArray2D bytes = new ByteArray2D(rows,cols);
+            LongArray2D longs = new LongArray2D(rows,cols);
+            FloatArray2D floats = new FloatArray2D(rows,cols);
+            int[] expected = new int[rows * cols];
+            long intSum = 0, byteSum = 0, longSum = 0;
+            double floatSum = 0;
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < cols; x++) {
+                    int value = random.nextInt(1 << 16) - (1 << 15);
+                    ints.set(value,x,y);
+                    bytes.set((byte) value,x,y);
+                    longs.set((long) value << 20,x,y);
+                    floats.set(value / 4f,x,y);
+                    expected[y * cols + x] = value;
+                    intSum += value;
+                    byteSum += (byte) value;
+                    longSum += (long) value << 20;
+                    floatSum += value / 4f;
+                }
+            } String shapeName = rows + "x" + cols;
+            assertArrayEquals(expected,ints.stream().toArray(),shapeName);
+            assertArrayEquals(expected,ints.parallelStream().toArray(),shapeName);
+            assertEquals(intSum,ints.stream().asLongStream().sum(),shapeName);
+            assertEquals(intSum,ints.parallelStream().asLongStream().sum(),shapeName);
+            assertEquals(byteSum,bytes.parallelStream().asLongStream().sum(),shapeName);
+            assertEquals(longSum,longs.stream().sum(),shapeName);
+            assertEquals(longSum,longs.parallelStream().sum(),shapeName);
+            // quarters are exact in float and double, so the sum does not depend on the split order
+            assertEquals(floatSum,floats.parallelStream().sum(),shapeName);
+            assertEquals(rows * cols,ints.spliterator().getExactSizeIfKnown(),shapeName);
+        }
+    }
+    
+    @Test
+    void splitsCoverEveryCellOnce() {
+        for (int[] shape : SHAPES) {
+            int rows = shape[0];
+            int cols = shape[1];
+            int[][] cells = new int[rows][cols];
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < cols; x++) cells[y][x] = y * cols + x;
+            } int[] seen = new int[rows * cols];
+            int[] next = new int[1];
+            traverse(PrimitiveSpliterators.ofRows(cells,cols),seen,next,0);
+            assertEquals(rows * cols,next[0]);
+            for (int i = 0; i < seen.length; i++) assertEquals(i,seen[i],rows + "x" + cols);
+        }
+    }
+    
+    @Test
+    void rowSplitsPreferRowBoundaries() {
+        int cols = 10;
+        assertEquals(-1,PrimitiveSpliterators.splitPoint(0,1,cols));
+        assertEquals(50,PrimitiveSpliterators.splitPoint(0,100,cols));
+        assertEquals(60,PrimitiveSpliterators.splitPoint(15,100,cols));
+        assertEquals(-1,PrimitiveSpliterators.splitPoint(3,8,cols));
+        int wide = PrimitiveSpliterators.MIN_ROW_SPLIT * 4;
+        assertEquals(wide / 2,PrimitiveSpliterators.splitPoint(0,wide,wide));
+    }
+    
+    @Test
+    void queueStreamsInQueueOrder() {
+        IntQueue queue = new IntQueue(8);
+        int next = 0;
+        int front = 0;
+        // cycle the ring so the elements wrap around the end of the array
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < 5; i++) queue.enqueue(next++);
+            for (int i = 0; i < 3; i++) assertEquals(front++,queue.dequeue());
+            int[] expected = IntStream.range(front,next).toArray();
+            assertArrayEquals(expected,queue.stream().toArray());
+            assertArrayEquals(expected,queue.parallelStream().toArray());
+            int[] seen = new int[queue.size()];
+            int[] count = new int[1];
+            traverse(queue.spliterator(),seen,count,front);
+            assertEquals(queue.size(),count[0]);
+        }
+    }
+    
+    @Test
+    void bagAndStackStreams() {
+        Random random = new Random(2);
+        IntBag bag = new IntBag(4);
+        IntStack stack = new IntStack(4);
+        long sum = 0;
+        int[] pushed = new int[3000];
+        for (int i = 0; i < pushed.length; i++) {
+            pushed[i] = random.nextInt();
+            bag.push(pushed[i]);
+            stack.push(pushed[i]);
+            sum += pushed[i];
+        } assertArrayEquals(pushed,bag.stream().toArray());
+        assertArrayEquals(pushed,stack.parallelStream().toArray());
+        assertEquals(sum,bag.parallelStream().asLongStream().sum());
+        assertEquals(sum,stack.stream().asLongStream().sum());
+        assertEquals(pushed.length,bag.spliterator().getExactSizeIfKnown());
+        stack.pop();
+        bag.pop();
+        assertEquals(pushed.length - 1,stack.stream().count());
+        assertEquals(pushed.length - 1,bag.parallelStream().count());
+    }
+    
+    /**
+     * Splits recursively, traverses the prefix before the rest (mixing tryAdvance and forEachRemaining)
+     * and checks that each part reports its exact size. Values are expected to be offset + order.
+     */
+    private static void traverse(Spliterator.OfInt spliterator, int[] seen, int[] next, int offset) {
+        long size = spliterator.estimateSize();
+        int start = next[0];
+        Spliterator.OfInt prefix = spliterator.trySplit();
+        if (prefix != null) {
+            assertEquals(size,prefix.estimateSize() + spliterator.estimateSize());
+            assertTrue(prefix.estimateSize() > 0 && spliterator.estimateSize() > 0);
+            traverse(prefix,seen,next,offset);
+            traverse(spliterator,seen,next,offset);
+        } else {
+            if (spliterator.tryAdvance((int v) -> seen[next[0]++] = v - offset)) {
+                spliterator.forEachRemaining((int v) -> seen[next[0]++] = v - offset);
+            } assertFalse(spliterator.tryAdvance((int v) -> fail()));
+            assertEquals(0,spliterator.estimateSize());
+        } assertEquals(size,next[0] - start);
+        for (int i = start; i < next[0]; i++) assertEquals(i,seen[i]);
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MinMaxPyramid and MaskPyramid queries against brute force, before and after edits through the array,
+ * and several structures observing the same array.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class PyramidTest {
+    
+    private static final int ROWS = 45;
+    private static final int COLS = 70;
+    
+    @Test
+    void minMaxMatchesBruteForce() {
+        Random random = new Random(1);
+        FloatArray2D array = new FloatArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) array.set(random.nextFloat() * 100,x,y);
+        } MinMaxPyramid pyramid = new MinMaxPyramid(array,4);
+        for (int round = 0; round < 50; round++) {
+            for (int e = 0; e < 3; e++) {
+                int x = random.nextInt(COLS);
+                int y = random.nextInt(ROWS);
+                float value = random.nextFloat() * 300 - 100;
+                array.write(value,x,y,x + random.nextInt(9),y + random.nextInt(9));
+            } assertFalse(pyramid.isValid());
+            for (int q = 0; q < 20; q++) {
+                int[] area = area(random);
+                double lo = Double.POSITIVE_INFINITY;
+                double hi = Double.NEGATIVE_INFINITY;
+                for (int y = area[1]; y <= area[3]; y++) {
+                    for (int x = area[0]; x <= area[2]; x++) {
+                        lo = Math.min(lo,array.get(x,y));
+                        hi = Math.max(hi,array.get(x,y));
+                    }
+                } assertEquals(hi,pyramid.max(area[0],area[1],area[2],area[3]));
+                assertEquals(lo,pyramid.min(area[0],area[1],area[2],area[3]));
+            } assertTrue(pyramid.isValid());
+        }
+    }
+    
+    @Test
+    void maskMatchesBruteForce() {
+        Random random = new Random(2);
+        ByteArray2D array = new ByteArray2D(ROWS,COLS);
+        array.write((byte) 0b0101);
+        MaskPyramid pyramid = new MaskPyramid(array,8);
+        for (int round = 0; round < 50; round++) {
+            for (int e = 0; e < 3; e++) {
+                int x = random.nextInt(COLS);
+                int y = random.nextInt(ROWS);
+                if (random.nextBoolean()) array.set((byte) random.nextInt(16),x,y);
+                else array.write((byte) random.nextInt(16),x,y,x + random.nextInt(5),y + random.nextInt(5));
+            } for (int q = 0; q < 20; q++) {
+                int[] area = area(random);
+                long or = 0;
+                long and = -1L;
+                for (int y = area[1]; y <= area[3]; y++) {
+                    for (int x = area[0]; x <= area[2]; x++) {
+                        or |= array.get(x,y);
+                        and &= array.get(x,y);
+                    }
+                } assertEquals(or,pyramid.or(area[0],area[1],area[2],area[3]));
+                assertEquals(and,pyramid.and(area[0],area[1],area[2],area[3]));
+                long mask = 1L << random.nextInt(4);
+                assertEquals((or & mask) != 0,pyramid.any(mask,area[0],area[1],area[2],area[3]));
+                assertEquals((and & mask) == mask,pyramid.all(mask,area[0],area[1],area[2],area[3]));
+            }
+        }
+    }
+    
+    @Test
+    void repeatedInvalidationWithoutQueries() {
+        ByteArray2D array = new ByteArray2D(ROWS,COLS);
+        MaskPyramid pyramid = new MaskPyramid(array,4);
+        for (int i = 0; i < 100_000; i++) {
+            int x = i % COLS;
+            int y = (i / COLS) % ROWS;
+            array.set((byte) (i & 3),x,y);
+        } assertEquals(0,pyramid.and(0,0,COLS - 1,ROWS - 1));
+        assertEquals(3,pyramid.or());
+        pyramid.invalidate(-5,-5,-1,-1);
+        assertTrue(pyramid.isValid());
+    }
+    
+    @Test
+    void observersDoNotStarveEachOther() {
+        Random random = new Random(3);
+        ByteArray2D array = new ByteArray2D(ROWS,COLS);
+        array.enableDirtyTracking(8);
+        MaskPyramid pyramid = new MaskPyramid(array,4);
+        MinMaxPyramid minMax = new MinMaxPyramid(array,8);
+        SummedAreaTable table = new SummedAreaTable(array);
+        for (int round = 0; round < 30; round++) {
+            int x = random.nextInt(COLS);
+            int y = random.nextInt(ROWS);
+            array.write((byte) (1 + random.nextInt(7)),x,y,x + random.nextInt(6),y + random.nextInt(6));
+            array.drainDirty((minX, minY, maxX, maxY) -> { });
+            int[] area = area(random);
+            long or = 0;
+            long sum = 0;
+            int hi = 0;
+            for (int cy = area[1]; cy <= area[3]; cy++) {
+                for (int cx = area[0]; cx <= area[2]; cx++) {
+                    or |= array.get(cx,cy);
+                    sum += array.get(cx,cy);
+                    hi = Math.max(hi,array.get(cx,cy));
+                }
+            } assertEquals(or,pyramid.or(area[0],area[1],area[2],area[3]));
+            assertEquals(hi,minMax.max(area[0],area[1],area[2],area[3]));
+            assertEquals(sum,table.sum(area[0],area[1],area[2],area[3]));
+        } // writes to the underlying array are reported with markDirty
+        array.get()[3][5] = 100;
+        array.markDirty(5,3,5,3);
+        assertEquals(100,minMax.max());
+        // disposed structures stop observing
+        pyramid.refresh();
+        pyramid.dispose();
+        array.write((byte) 0);
+        assertTrue(pyramid.isValid());
+        assertFalse(minMax.isValid());
+        assertEquals(0,minMax.max());
+        assertEquals(0,table.sum(0,0,COLS - 1,ROWS - 1));
+        minMax.dispose();
+        table.dispose();
+    }
+    
+    private static int[] area(Random random) {
+        int x0 = random.nextInt(COLS);
+        int y0 = random.nextInt(ROWS);
+        return new int[] { x0, y0, Math.min(COLS - 1,x0 + random.nextInt(30)), Math.min(ROWS - 1,y0 + random.nextInt(30)) };
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Raster shapes against brute force distance tests, every cell reported once.
+ * Cells within a small tolerance of a shape boundary are not compared.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class RasterTest {
+    
+    private static final int ROWS = 48;
+    private static final int COLS = 64;
+    
+    @Test
+    void thickLinesMatchBruteForce() {
+        Random random = new Random(1);
+        ByteArray2D grid = new ByteArray2D(ROWS,COLS);
+        for (int i = 0; i < 300; i++) {
+            float x1 = random.nextFloat() * (COLS + 20) - 10;
+            float y1 = random.nextFloat() * (ROWS + 20) - 10;
+            float x2 = random.nextFloat() * (COLS + 20) - 10;
+            float y2 = random.nextFloat() * (ROWS + 20) - 10;
+            float radius = 0.25f + random.nextFloat() * 6;
+            boolean[][] cells = collect(grid,spans -> Raster.line(grid,x1,y1,x2,y2,radius,spans));
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLS; x++) {
+                    double d = segmentDistance(x,y,x1,y1,x2,y2);
+                    if (Math.abs(d - radius) < 1e-4) continue;
+                    assertEquals(d < radius,cells[y][x],"cell " + x + "," + y + " line " + i);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void zeroRadiusLineIsTheSegment() {
+        ByteArray2D grid = new ByteArray2D(64,2048);
+        boolean[][] cells = collect(grid,spans -> Raster.line(grid,100f,10f,110f,10f,0f,spans));
+        for (int y = 0; y < grid.rows(); y++) {
+            for (int x = 0; x < grid.cols(); x++) {
+                assertEquals(y == 10 && x >= 100 && x <= 110,cells[y][x],"cell " + x + "," + y);
+            }
+        } boolean[][] thin = collect(grid,spans -> Raster.line(grid,3.2f,4.4f,40.6f,29.9f,0f,spans));
+        boolean[][] bresenham = collect(grid,spans -> Raster.line(grid,3,4,41,30,spans));
+        for (int y = 0; y < grid.rows(); y++) assertArrayEquals(bresenham[y],thin[y]);
+        boolean[][] point = collect(grid,spans -> Raster.line(grid,5f,5f,5f,5f,0f,spans));
+        assertTrue(point[5][5]);
+        assertThrows(IllegalArgumentException.class,() -> Raster.line(grid,0f,0f,1f,1f,-1f,(a, b, c, d) -> { }));
+    }
+    
+    @Test
+    void bresenhamLinesAreConnected() {
+        Random random = new Random(2);
+        ByteArray2D grid = new ByteArray2D(ROWS,COLS);
+        for (int i = 0; i < 200; i++) {
+            int x1 = random.nextInt(COLS);
+            int y1 = random.nextInt(ROWS);
+            int x2 = random.nextInt(COLS);
+            int y2 = random.nextInt(ROWS);
+            boolean[][] cells = collect(grid,spans -> Raster.line(grid,x1,y1,x2,y2,spans));
+            assertTrue(cells[y1][x1] && cells[y2][x2]);
+            int count = 0;
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLS; x++) {
+                    if (!cells[y][x]) continue;
+                    count++;
+                    // every cell lies close to the segment
+                    assertTrue(segmentDistance(x,y,x1,y1,x2,y2) <= Math.sqrt(0.5) + 1e-9);
+                }
+            } assertEquals(Math.max(Math.abs(x2 - x1),Math.abs(y2 - y1)) + 1,count);
+        }
+    }
+    
+    @Test
+    void circlesMatchBruteForce() {
+        Random random = new Random(3);
+        ByteArray2D grid = new ByteArray2D(ROWS,COLS);
+        for (int i = 0; i < 200; i++) {
+            float cx = random.nextFloat() * (COLS + 10) - 5;
+            float cy = random.nextFloat() * (ROWS + 10) - 5;
+            float radius = random.nextFloat() * 15;
+            boolean[][] cells = collect(grid,spans -> Raster.circle(grid,cx,cy,radius,spans));
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLS; x++) {
+                    double d = Math.hypot(x - cx,y - cy);
+                    if (Math.abs(d - radius) < 1e-4) continue;
+                    assertEquals(d < radius,cells[y][x]);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void degeneratePolygonsStayBounded() {
+        ByteArray2D grid = new ByteArray2D(20,20);
+        boolean[][] flat = collect(grid,spans -> Raster.polygon(grid,spans,2f,5f,6f,5f,4f,5f));
+        for (int y = 0; y < grid.rows(); y++) {
+            for (int x = 0; x < grid.cols(); x++) assertEquals(y == 5 && x >= 2 && x <= 6,flat[y][x],"cell " + x + "," + y);
+        } boolean[][] diagonal = collect(grid,spans -> Raster.polygon(grid,spans,5f,3f,1f,1f,9f,5f));
+        boolean[][] bresenham = collect(grid,spans -> Raster.line(grid,1,1,9,5,spans));
+        for (int y = 0; y < grid.rows(); y++) assertArrayEquals(bresenham[y],diagonal[y]);
+        // a thin triangle covering a single row
+        float[] xy = {1.5f,4.8f, 8.2f,5.1f, 3f,5.3f};
+        boolean[][] thin = collect(grid,spans -> Raster.polygon(grid,spans,xy));
+        for (int y = 0; y < grid.rows(); y++) {
+            for (int x = 0; x < grid.cols(); x++) {
+                double d = Math.min(Math.min(cross(xy,0,2,x,y),cross(xy,2,4,x,y)),cross(xy,4,0,x,y));
+                if (Math.abs(d) < 1e-4) continue;
+                assertEquals(d > 0,thin[y][x],"cell " + x + "," + y);
+            }
+        } assertTrue(thin[5][3] && thin[5][5] && !thin[5][6]);
+    }
+    
+    private interface Shape {
+        void draw(AreaReader spans);
+    }
+    
+    private static boolean[][] collect(PrimitiveArray2D grid, Shape shape) {
+        boolean[][] cells = new boolean[grid.rows()][grid.cols()];
+        shape.draw((minX, minY, maxX, maxY) -> {
+            assertTrue(minX >= 0 && minY >= 0 && maxX < grid.cols() && maxY < grid.rows());
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    assertFalse(cells[y][x],"cell reported twice");
+                    cells[y][x] = true;
+                }
+            }
+        });
+        return cells;
+    }
+    
+    /**
+     * Edge function of the edge i -> j at (px, py). Positive to the left (inside of a counter-clockwise polygon)
+     */
+    private static double cross(float[] xy, int i, int j, double px, double py) {
+        return (xy[j] - xy[i]) * (py - xy[i+1]) - (xy[j+1] - xy[i+1]) * (px - xy[i]);
+    }
+    
+    private static double segmentDistance(double px, double py, double x1, double y1, double x2, double y2) {
+        double ex = x2 - x1;
+        double ey = y2 - y1;
+        double length2 = ex * ex + ey * ey;
+        double t = length2 == 0 ? 0 : Math.max(0,Math.min(1,((px - x1) * ex + (py - y1) * ey) / length2));
+        return Math.hypot(px - (x1 + t * ex),py - (y1 + t * ey));
+    }
+}
@@ -0,0 +1,169 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Handles, swap removal, generations, sorting, capacity and the column loops
+ * against a map from handle to the expected record.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class RecordStoreTest {
+    
+    private static final int ID = 0;
+    private static final int KEY = 1;
+    private static final int X = 0;
+    
+    @Test
+    void handlesSurviveRemovalsAndSorts() {
+        Random random = new Random(1);
+        RecordStore store = new RecordStore(schema(),2);
+        Map<Integer,int[]> expected = new HashMap<>(); // handle -> {id, key, x bits}
+        List<Integer> live = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        int nextId = 0;
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || live.isEmpty()) {
+                int handle = store.add();
+                assertTrue(store.contains(handle));
+                assertEquals(0,store.getInt(ID,handle));
+                assertEquals(0f,store.getFloat(X,handle));
+                int[] record = { nextId++, random.nextInt(100), Float.floatToIntBits(random.nextFloat()) };
+                store.setInt(ID,handle,record[0]);
+                store.setInt(KEY,handle,record[1]);
+                store.setFloat(X,handle,Float.intBitsToFloat(record[2]));
+                expected.put(handle,record);
+                live.add(handle);
+            } else if (op < 8) {
+                int handle = live.remove(random.nextInt(live.size()));
+                if (random.nextBoolean()) store.remove(handle);
+                else store.removeRow(store.row(handle));
+                expected.remove(handle);
+                assertFalse(store.contains(handle));
+                removed.add(handle);
+            } else if (op == 8) {
+                store.sortBy(KEY);
+                int[] keys = store.ints(KEY);
+                for (int row = 1; row < store.size(); row++) assertTrue(keys[row - 1] <= keys[row]);
+            } else {
+                int handle = live.get(random.nextInt(live.size()));
+                expected.get(handle)[1] = random.nextInt(100);
+                store.setInt(KEY,handle,expected.get(handle)[1]);
+            } assertEquals(live.size(),store.size());
+        } for (Map.Entry<Integer,int[]> entry : expected.entrySet()) {
+            int handle = entry.getKey();
+            int row = store.row(handle);
+            assertEquals(handle,store.handle(row));
+            assertEquals(entry.getValue()[0],store.getInt(ID,handle));
+            assertEquals(entry.getValue()[1],store.ints(KEY)[row]);
+            assertEquals(Float.intBitsToFloat(entry.getValue()[2]),store.floats(X)[row]);
+        } for (int handle : removed) {
+            // removed handles stay invalid unless their slot came back with the same generation
+            if (!expected.containsKey(handle)) assertFalse(store.contains(handle));
+        }
+    }
+    
+    @Test
+    void generationsDetectStaleHandles() {
+        RecordStore store = new RecordStore(schema(),4);
+        int first = store.add();
+        store.remove(first);
+        assertThrows(IllegalArgumentException.class,() -> store.getInt(ID,first));
+        assertThrows(IllegalArgumentException.class,() -> store.remove(first));
+        int second = store.add();
+        assertNotEquals(first,second);
+        assertEquals(first & 0xFFFFFF,second & 0xFFFFFF,"the slot is reused");
+        assertTrue(store.contains(second));
+        assertFalse(store.contains(first));
+        assertFalse(store.contains(12345));
+        store.clear();
+        assertFalse(store.contains(second));
+        assertTrue(store.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class,() -> store.removeRow(0));
+    }
+    
+    @Test
+    void sortIsStable() {
+        RecordStore store = new RecordStore(schema());
+        int[] handles = new int[300];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = store.add();
+            store.setInt(ID,handles[i],i);
+            store.setInt(KEY,handles[i],(i * 7) % 5);
+        } store.sortBy(KEY);
+        int[] ids = store.ints(ID);
+        int[] keys = store.ints(KEY);
+        for (int row = 1; row < store.size(); row++) {
+            assertTrue(keys[row - 1] < keys[row] || keys[row - 1] == keys[row] && ids[row - 1] < ids[row]);
+        } for (int i = 0; i < handles.length; i++) assertEquals(i,store.getInt(ID,handles[i]));
+    }
+    
+    @Test
+    void capacityFitAndColumnReads() {
+        RecordStore store = new RecordStore(schema(),0);
+        assertEquals(0,store.capacity());
+        for (int i = 0; i < 100; i++) {
+            int handle = store.add();
+            store.setInt(ID,handle,i);
+            store.setFloat(X,handle,i * 0.5f);
+        } assertTrue(store.capacity() >= 100);
+        for (int row = 99; row >= 0; row -= 2) store.removeRow(row);
+        store.fit();
+        assertEquals(50,store.capacity());
+        store.ensureCapacity(80);
+        assertEquals(80,store.capacity());
+        store.fit(60);
+        assertEquals(60,store.capacity());
+        assertThrows(IllegalArgumentException.class,() -> store.ensureCapacity(RecordStore.MAX_RECORDS + 1));
+        long[] sum = new long[1];
+        store.readInts(ID,value -> sum[0] += value);
+        assertEquals(50 * 49,sum[0]); // the even ids 0, 2 .. 98
+        double[] floats = new double[1];
+        store.readFloats(X,value -> floats[0] += value);
+        assertEquals(50 * 49 * 0.5,floats[0],1e-9);
+        assertEquals("id",store.intColumnName(ID));
+        assertEquals("x",store.floatColumnName(X));
+        assertEquals(2,store.intColumns());
+        assertEquals(1,store.floatColumns());
+    }
+    
+    @Test
+    void parallelProcessCoversEveryRowOnce() {
+        RecordStore store = new RecordStore(schema());
+        int n = 200_000;
+        for (int i = 0; i < n; i++) store.setInt(ID,store.add(),i);
+        store.parallelProcess((fromRow, toRow) -> {
+            int[] ids = store.ints(ID);
+            float[] x = store.floats(X);
+            int[] keys = store.ints(KEY);
+            for (int row = fromRow; row < toRow; row++) {
+                x[row] = ids[row] * 2;
+                keys[row]++;
+            }
+        });
+        for (int row = 0; row < n; row++) {
+            assertEquals(1,store.ints(KEY)[row]);
+            assertEquals(store.ints(ID)[row] * 2f,store.floats(X)[row]);
+        }
+    }
+    
+    private static RecordStore.Schema schema() {
+        RecordStore.Schema schema = new RecordStore.Schema();
+        assertEquals(ID,schema.addInt("id"));
+        assertEquals(KEY,schema.addInt("key"));
+        assertEquals(X,schema.addFloat("x"));
+        return schema;
+    }
+}
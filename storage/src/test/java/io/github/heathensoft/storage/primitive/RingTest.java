@@ -0,0 +1,175 @@
+package io.github.heathensoft.storage.primitive;
+
+import io.github.heathensoft.storage.generic.MpscRing;
+import io.github.heathensoft.storage.generic.SpscRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SPSC and MPSC rings: order, capacity, wrap-around, batches, throwing readers,
+ * and concurrent producers handing over every value exactly once.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class RingTest {
+    
+    private static final int VALUES = 200_000;
+    
+    @Test
+    void spscIntRingOrderAndCapacity() {
+        SpscIntRing ring = new SpscIntRing(5);
+        assertEquals(8,ring.capacity());
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 8; i++) assertTrue(ring.offer(round * 8 + i));
+            assertFalse(ring.offer(-1));
+            assertEquals(8,ring.size());
+            for (int i = 0; i < 8; i++) assertEquals(round * 8 + i,ring.poll(-1));
+            assertEquals(-1,ring.poll(-1));
+        }
+    }
+    
+    @Test
+    void spscIntRingBatch() {
+        SpscIntRing ring = new SpscIntRing(8);
+        int[] src = {0,1,2,3,4,5,6,7,8,9};
+        assertEquals(8,ring.offer(src,0,10));
+        List<Integer> out = new ArrayList<>();
+        assertEquals(3,ring.drain(out::add,3));
+        assertEquals(3,ring.offer(src,7,3));
+        assertEquals(8,ring.drain(out::add));
+        assertEquals(List.of(0,1,2,3,4,5,6,7,7,8,9),out);
+        ring.offer(1);
+        ring.clear();
+        assertTrue(ring.isEmpty());
+    }
+    
+    @Test
+    void throwingReaderConsumesPassedValues() {
+        SpscIntRing spsc = new SpscIntRing(4);
+        MpscIntRing mpsc = new MpscIntRing(4);
+        SpscRing<Integer> spscObjects = new SpscRing<>(4);
+        MpscRing<Integer> mpscObjects = new MpscRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            spsc.offer(i);
+            mpsc.offer(i);
+            spscObjects.offer(i);
+            mpscObjects.offer(i);
+        } assertThrows(IllegalStateException.class,() -> spsc.drain(v -> { if (v == 1) throw new IllegalStateException(); }));
+        assertThrows(IllegalStateException.class,() -> mpsc.drain(v -> { if (v == 1) throw new IllegalStateException(); }));
+        assertThrows(IllegalStateException.class,() -> spscObjects.drain(v -> { if (v == 1) throw new IllegalStateException(); }));
+        assertThrows(IllegalStateException.class,() -> mpscObjects.drain(v -> { if (v == 1) throw new IllegalStateException(); }));
+        // 0 and 1 are consumed, the ring keeps working
+        assertEquals(2,spsc.size());
+        assertEquals(2,mpsc.size());
+        assertEquals(2,spscObjects.size());
+        assertEquals(2,mpscObjects.size());
+        assertTrue(mpsc.offer(4));
+        assertTrue(mpscObjects.offer(4));
+        List<Integer> out = new ArrayList<>();
+        mpsc.drain(out::add);
+        assertEquals(List.of(2,3,4),out);
+        out.clear();
+        mpscObjects.drain(out::add);
+        assertEquals(List.of(2,3,4),out);
+        assertEquals(2,spsc.poll(-1));
+        assertEquals(2,spscObjects.poll());
+    }
+    
+    @Test
+    void spscIntRingConcurrent() throws InterruptedException {
+        SpscIntRing ring = new SpscIntRing(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < VALUES; i++) {
+                while (!ring.offer(i)) Thread.yield();
+            }
+        });
+        producer.start();
+        int[] expected = {0};
+        while (expected[0] < VALUES) {
+            if (ring.drain(v -> assertEquals(expected[0]++,v)) == 0) Thread.yield();
+        } producer.join();
+        assertTrue(ring.isEmpty());
+    }
+    
+    @Test
+    void spscRingConcurrent() throws InterruptedException {
+        SpscRing<Integer> ring = new SpscRing<>(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < VALUES; i++) {
+                while (!ring.offer(i)) Thread.yield();
+            }
+        });
+        producer.start();
+        int expected = 0;
+        while (expected < VALUES) {
+            Integer value = ring.poll();
+            if (value == null) Thread.yield();
+            else assertEquals(expected++,value);
+        } producer.join();
+        assertNull(ring.poll());
+    }
+    
+    @Test
+    void mpscIntRingConcurrent() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = VALUES / producers;
+        MpscIntRing ring = new MpscIntRing(64);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(id * perProducer + i)) Thread.yield();
+                }
+            });
+            threads[p].start();
+        } int[] next = new int[producers]; // per producer, values arrive in order
+        int[] received = {0};
+        while (received[0] < producers * perProducer) {
+            int n = ring.drain(v -> {
+                int id = v / perProducer;
+                assertEquals(id * perProducer + next[id]++,v);
+            });
+            if (n == 0) Thread.yield();
+            received[0] += n;
+        } for (Thread thread : threads) thread.join();
+        for (int count : next) assertEquals(perProducer,count);
+        assertTrue(ring.isEmpty());
+    }
+    
+    @Test
+    void mpscRingConcurrent() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = VALUES / producers;
+        MpscRing<Integer> ring = new MpscRing<>(64);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(id * perProducer + i)) Thread.yield();
+                }
+            });
+            threads[p].start();
+        } int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            Integer v = ring.poll();
+            if (v == null) {
+                Thread.yield();
+                continue;
+            }
+            int id = v / perProducer;
+            assertEquals(id * perProducer + next[id]++,v);
+            received++;
+        } for (Thread thread : threads) thread.join();
+        assertNull(ring.poll());
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Copy-on-write snapshots: a snapshot keeps the values at the time it was taken,
+ * and only the rows written to after it are copied.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class SnapshotTest {
+    
+    private static final int ROWS = 40;
+    private static final int COLS = 30;
+    
+    @Test
+    void snapshotKeepsValues() {
+        Random random = new Random(8);
+        IntArray2D array = randomArray(random);
+        int[][] before = copy(array.get());
+        IntArray2D.Snapshot snapshot = array.snapshot();
+        assertEquals(1,array.liveSnapshots());
+        assertEquals(array.version(),snapshot.version());
+        for (int i = 0; i < 30; i++) {
+            int x0 = random.nextInt(COLS), y0 = random.nextInt(ROWS);
+            array.write(random.nextInt(),x0,y0,x0 + random.nextInt(5),y0 + random.nextInt(5));
+            array.set(random.nextInt(),random.nextInt(COLS),random.nextInt(ROWS));
+        } array.parallelFill(-1,0,0,COLS,3);
+        assertValues(before,snapshot);
+        IntArray2D restored = new IntArray2D(ROWS,COLS);
+        snapshot.copyTo(restored);
+        for (int r = 0; r < ROWS; r++) assertArrayEquals(before[r],restored.get()[r]);
+        snapshot.dispose();
+        snapshot.dispose();
+        assertEquals(0,array.liveSnapshots());
+    }
+    
+    @Test
+    void onlyWrittenRowsAreCopied() {
+        IntArray2D array = randomArray(new Random(9));
+        int[][] table = array.get();
+        IntArray2D.Snapshot snapshot = array.snapshot();
+        assertSame(table,array.get(),"the row table is shared until written to");
+        array.set(5,3,7);
+        int[][] copied = array.get();
+        assertNotSame(table,copied);
+        for (int r = 0; r < ROWS; r++) {
+            if (r == 7) assertNotSame(table[r],copied[r]);
+            else assertSame(table[r],copied[r],"row " + r);
+        } int[] row = copied[7];
+        array.set(6,4,7);
+        assertSame(row,array.get()[7],"a row is copied once per snapshot");
+        assertSame(copied,array.get(),"the table is copied once per snapshot");
+        snapshot.dispose();
+        array.set(1,1,1);
+        assertSame(copied[1],array.get()[1],"no copies without live snapshots");
+    }
+    
+    @Test
+    void multipleSnapshots() {
+        FloatArray2D array = new FloatArray2D(ROWS,COLS);
+        array.write(1f);
+        FloatArray2D.Snapshot first = array.snapshot();
+        array.write(2f,0,0,COLS,ROWS / 2);
+        FloatArray2D.Snapshot second = array.snapshot();
+        array.write(3f);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) {
+                assertEquals(1f,first.get(x,y));
+                assertEquals(y <= ROWS / 2 ? 2f : 1f,second.get(x,y));
+                assertEquals(3f,array.get(x,y));
+            }
+        } assertTrue(second.version() > first.version());
+        first.dispose();
+        second.dispose();
+    }
+    
+    private static void assertValues(int[][] expected, IntArray2D.Snapshot snapshot) {
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) assertEquals(expected[y][x],snapshot.get(x,y));
+        }
+    }
+    
+    private static IntArray2D randomArray(Random random) {
+        IntArray2D array = new IntArray2D(ROWS,COLS);
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) array.set(random.nextInt(),c,r);
+        } return array;
+    }
+    
+    private static int[][] copy(int[][] grid) {
+        int[][] copy = new int[grid.length][];
+        for (int r = 0; r < grid.length; r++) copy[r] = grid[r].clone();
+        return copy;
+    }
+}
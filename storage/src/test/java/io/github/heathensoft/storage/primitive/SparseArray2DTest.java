@@ -0,0 +1,108 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sparse arrays are compared against the row-major array given the same writes.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class SparseArray2DTest {
+    
+    private static final int ROWS = 50;
+    private static final int COLS = 70;
+    private static final int DEFAULT = 7;
+    
+    @Test
+    void writesMatchRowMajor() {
+        Random random = new Random(4);
+        SparseIntArray2D sparse = new SparseIntArray2D(ROWS,COLS,DEFAULT);
+        IntArray2D expected = new IntArray2D(ROWS,COLS);
+        expected.write(DEFAULT);
+        for (WriteFunction function : new WriteFunction[] {WriteFunction.EQU,WriteFunction.ADD,WriteFunction.CLR}) {
+            sparse.setWriteFunction(function);
+            expected.setWriteFunction(function);
+            for (int i = 0; i < 50; i++) {
+                int value = random.nextBoolean() ? DEFAULT : random.nextInt(16);
+                int x0 = random.nextInt(COLS + 10) - 5, y0 = random.nextInt(ROWS + 10) - 5;
+                int x1 = x0 + random.nextInt(20), y1 = y0 + random.nextInt(20);
+                sparse.write(value,x0,y0,x1,y1);
+                expected.write(value,x0,y0,x1,y1);
+                int x = random.nextInt(COLS), y = random.nextInt(ROWS);
+                sparse.write(value,x,y);
+                expected.write(value,x,y);
+            } assertCells(expected,sparse);
+        }
+    }
+    
+    @Test
+    void chunksAreReleasedWhenDefault() {
+        SparseIntArray2D sparse = new SparseIntArray2D(ROWS,COLS,DEFAULT);
+        sparse.write(DEFAULT);
+        assertEquals(0,sparse.allocatedChunks());
+        sparse.set(1,3,3);
+        sparse.set(2,40,40);
+        assertEquals(2,sparse.allocatedChunks());
+        assertEquals(2 * SparseIntArray2D.CHUNK_AREA * Integer.BYTES,sparse.sizeBytes());
+        sparse.set(DEFAULT,3,3);
+        assertEquals(1,sparse.allocatedChunks());
+        sparse.write(DEFAULT,32,32,47,47);
+        assertEquals(0,sparse.allocatedChunks());
+        assertEquals(DEFAULT,sparse.get(40,40));
+    }
+    
+    @Test
+    void readAllocatedSkipsEmptyChunks() {
+        SparseIntArray2D sparse = new SparseIntArray2D(ROWS,COLS,DEFAULT);
+        sparse.set(9,20,33);
+        int[] count = new int[1];
+        sparse.readAllocated((x, y, value) -> {
+            assertEquals(16,x & ~15);
+            assertEquals(32,y & ~15);
+            count[0]++;
+        }); assertEquals(SparseIntArray2D.CHUNK_AREA,count[0]);
+    }
+    
+    @Test
+    void arrayWriteCallsWriteHooksOnce() {
+        int[] hooks = new int[2]; // area, cell
+        SparseIntArray2D sparse = new SparseIntArray2D(ROWS,COLS,DEFAULT) {
+            protected void onWrite(int minX, int minY, int maxX, int maxY) {
+                hooks[0]++;
+                super.onWrite(minX,minY,maxX,maxY);
+            }
+            protected void onWrite(int x, int y) {
+                hooks[1]++;
+                super.onWrite(x,y);
+            }
+        };
+        IntArray2D from = new IntArray2D(ROWS,COLS);
+        from.write(3);
+        EditJournal journal = sparse.enableJournal(8,1 << 20);
+        journal.begin();
+        sparse.write(from);
+        journal.commit();
+        assertArrayEquals(new int[] {1,0},hooks);
+        assertCells(from,sparse);
+        assertTrue(journal.undo());
+        IntArray2D defaults = new IntArray2D(ROWS,COLS);
+        defaults.write(DEFAULT);
+        assertCells(defaults,sparse);
+        assertEquals(0,sparse.allocatedChunks());
+    }
+    
+    private static void assertCells(IntArray2D expected, SparseIntArray2D actual) {
+        IntArray2D copy = new IntArray2D(ROWS,COLS);
+        actual.copyTo(copy);
+        for (int r = 0; r < ROWS; r++) {
+            assertArrayEquals(expected.get()[r],copy.get()[r],"row " + r);
+        }
+    }
+}
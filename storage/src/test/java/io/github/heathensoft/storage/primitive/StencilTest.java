@@ -0,0 +1,183 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stencils against a brute force correlation (every edge mode), float and typed destinations,
+ * in place application, areas, the parallel versions and the fused gradient.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class StencilTest {
+    
+    private static final int ROWS = 37;
+    private static final int COLS = 29;
+    
+    @Test
+    void kernelsMatchBruteForce() {
+        Random random = new Random(1);
+        IntArray2D src = new IntArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) src.set(random.nextInt(200) - 100,x,y);
+        } float[] weights = new float[5 * 3];
+        for (int i = 0; i < weights.length; i++) weights[i] = random.nextInt(7) - 3;
+        for (Stencil.Edge edge : Stencil.Edge.values()) {
+            FloatArray2D dst = new FloatArray2D(ROWS,COLS);
+            Stencil.kernel(5,3,weights).apply(src,dst,edge);
+            assertGrid(bruteForce(src,weights,5,3,0,edge),dst,edge.name());
+            float[] row = {1, -2, 3};
+            float[] col = {2, 0, 1, -1, 1};
+            float[] outer = new float[15];
+            for (int j = 0; j < 5; j++) {
+                for (int i = 0; i < 3; i++) outer[j * 3 + i] = col[j] * row[i];
+            } Stencil.separable(row,col).parallelApply(src,dst,edge);
+            assertGrid(bruteForce(src,outer,3,5,0,edge),dst,edge.name());
+            float[] disc = {0,1,0, 1,1,1, 0,1,0};
+            Stencil.erode(3,3,disc).apply(src,dst,edge);
+            assertGrid(bruteForce(src,disc,3,3,-1,edge),dst,edge.name());
+            Stencil.dilate(2).apply(src,dst,edge);
+            assertGrid(bruteForce(src,ones(25),5,5,1,edge),dst,edge.name());
+        }
+    }
+    
+    @Test
+    void erodesShortMaskInPlace() {
+        Random random = new Random(2);
+        ShortArray2D mask = new ShortArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) mask.set((short) (random.nextInt(10) < 8 ? 1 : 0),x,y);
+        } float[][] expected = bruteForce(mask,ones(9),3,3,-1,Stencil.Edge.CLAMP);
+        ShortArray2D copy = new ShortArray2D(ROWS,COLS);
+        copy.write(mask);
+        Stencil.erode(1).apply(mask,mask,Stencil.Edge.CLAMP);
+        Stencil.erode(1).parallelApply(copy,copy,Stencil.Edge.CLAMP);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) {
+                assertEquals(expected[y][x],mask.get(x,y));
+                assertEquals(expected[y][x],copy.get(x,y));
+            }
+        }
+    }
+    
+    @Test
+    void integralDestinationsRoundAndSaturate() {
+        FloatArray2D src = new FloatArray2D(2,3);
+        float[] values = {1.4f, 1.6f, -2.5f, 300f, -300f, Float.NaN};
+        for (int i = 0; i < values.length; i++) src.set(values[i],i % 3,i / 3);
+        Stencil identity = Stencil.box(0);
+        ByteArray2D bytes = new ByteArray2D(2,3);
+        identity.apply(src,bytes,Stencil.Edge.CLAMP);
+        byte[] expected = {1, 2, -2, 127, -128, 0};
+        for (int i = 0; i < values.length; i++) assertEquals(expected[i],bytes.get(i % 3,i / 3));
+        CharArray2D chars = new CharArray2D(2,3);
+        identity.apply(src,chars,Stencil.Edge.CLAMP);
+        assertEquals(0,chars.get(2,0));
+        assertEquals(300,chars.get(0,1));
+        // the write function of the destination applies
+        IntArray2D ints = new IntArray2D(2,3);
+        ints.write(10);
+        ints.setWriteFunction(WriteFunction.ADD);
+        identity.apply(src,ints,Stencil.Edge.CLAMP);
+        assertEquals(11,ints.get(0,0));
+        assertEquals(310,ints.get(0,1));
+    }
+    
+    @Test
+    void otherDestinationsAndAreas() {
+        Random random = new Random(3);
+        FloatArray2D src = new FloatArray2D(ROWS,COLS);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) src.set(random.nextInt(64),x,y);
+        } Stencil blur = Stencil.box(1);
+        float[][] expected = new FloatArray2D(ROWS,COLS).get();
+        FloatArray2D reference = new FloatArray2D(ROWS,COLS);
+        blur.apply(src,reference,Stencil.Edge.WRAP,3,4,20,30);
+        PrimitiveArray2D[] targets = { new SparseFloatArray2D(ROWS,COLS), new SparseDoubleArray2D(ROWS,COLS), new NativeFloatArray2D(ROWS,COLS) };
+        for (PrimitiveArray2D target : targets) {
+            blur.parallelApply(src,target,Stencil.Edge.WRAP,20,30,3,4);
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLS; x++) {
+                    double value = target instanceof SparseDoubleArray2D ? Double.longBitsToDouble(target.bits(x,y))
+                            : Float.intBitsToFloat((int) target.bits(x,y));
+                    assertEquals(reference.get(x,y),value,1e-5,target.getClass().getSimpleName());
+                    if (x < 3 || x > 20 || y < 4 || y > 30) assertEquals(expected[y][x],value);
+                }
+            } if (target instanceof NativeFloatArray2D) ((NativeFloatArray2D) target).dispose();
+        } assertThrows(IllegalArgumentException.class,() -> blur.apply(src,new ByteArray2D(ROWS,COLS + 1),Stencil.Edge.CLAMP));
+    }
+    
+    @Test
+    void fusedGradientMatchesGradientStencils() {
+        Random random = new Random(4);
+        PrimitiveArray2D[] sources = { new IntArray2D(ROWS,COLS), new FloatArray2D(ROWS,COLS) };
+        for (PrimitiveArray2D src : sources) {
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLS; x++) {
+                    if (src instanceof IntArray2D) ((IntArray2D) src).set(random.nextInt(200) - 100,x,y);
+                    else ((FloatArray2D) src).set(random.nextFloat() * 10,x,y);
+                }
+            } for (Stencil.Edge edge : Stencil.Edge.values()) {
+                FloatArray2D gx = new FloatArray2D(ROWS,COLS);
+                FloatArray2D gy = new FloatArray2D(ROWS,COLS);
+                Stencil.gradientX().apply(src,gx,edge);
+                Stencil.gradientY().apply(src,gy,edge);
+                boolean[][] visited = new boolean[ROWS][COLS];
+                Stencil.gradient(src,edge,(x, y, dx, dy) -> {
+                    assertFalse(visited[y][x],"cell reported twice");
+                    visited[y][x] = true;
+                    assertEquals(gx.get(x,y),dx,1e-4,edge + " gx at " + x + "," + y);
+                    assertEquals(gy.get(x,y),dy,1e-4,edge + " gy at " + x + "," + y);
+                });
+                for (boolean[] row : visited) {
+                    for (boolean cell : row) assertTrue(cell);
+                }
+            }
+        } assertThrows(IllegalArgumentException.class,() -> Stencil.gradient(sources[0],null,(x, y, dx, dy) -> { }));
+    }
+    
+    /**
+     * @param op 0: sum of products, -1: min, 1: max (over the non-zero weights)
+     */
+    private static float[][] bruteForce(PrimitiveArray2D src, float[] weights, int width, int height, int op, Stencil.Edge edge) {
+        float[][] result = new float[src.rows()][src.cols()];
+        for (int y = 0; y < src.rows(); y++) {
+            for (int x = 0; x < src.cols(); x++) {
+                double value = op == 0 ? 0 : op < 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < height; j++) {
+                    for (int i = 0; i < width; i++) {
+                        float w = weights[j * width + i];
+                        if (w == 0) continue;
+                        int sx = edge.map(x + i - width / 2,src.cols());
+                        int sy = edge.map(y + j - height / 2,src.rows());
+                        double s = (int) src.bits(sx,sy);
+                        if (src instanceof ShortArray2D) s = (short) s;
+                        if (op == 0) value += w * s;
+                        else value = op < 0 ? Math.min(value,s) : Math.max(value,s);
+                    }
+                } result[y][x] = (float) value;
+            }
+        } return result;
+    }
+    
+    private static void assertGrid(float[][] expected, FloatArray2D actual, String message) {
+        for (int y = 0; y < expected.length; y++) {
+            for (int x = 0; x < expected[y].length; x++) {
+                assertEquals(expected[y][x],actual.get(x,y),1e-4,message + " at " + x + "," + y);
+            }
+        }
+    }
+    
+    private static float[] ones(int n) {
+        float[] ones = new float[n];
+        Arrays.fill(ones,1);
+        return ones;
+    }
+}
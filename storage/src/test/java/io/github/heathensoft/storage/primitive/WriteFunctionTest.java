@@ -0,0 +1,197 @@
+package io.github.heathensoft.storage.primitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Array writes of every WriteFunction and type against the scalar function applied per element.
+ * Ranges start at odd offsets and have odd lengths, so both the vector loops and the tails are covered.
+ *
+ * @author Frederik Dahl
+ * 19/10/2026
+ */
+
+
+class WriteFunctionTest {
+    
+    private static final int LENGTH = 1000;
+    private static final int[][] RANGES = {{0,LENGTH},{3,LENGTH - 5},{7,70},{1,9},{500,500}};
+    
+    @Test
+    void byteWrites() {
+        Random random = new Random(28);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                byte[] dest = new byte[LENGTH];
+                byte[] src = new byte[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = (byte) (random.nextInt(255) - 127);
+                    src[i] = (byte) (random.nextInt(126) + 1);
+                } byte val = (byte) (random.nextInt(126) + 1);
+                byte[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.byteFunc.calc(expected[i],src[i]);
+                byte[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.byteFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+    
+    @Test
+    void shortWrites() {
+        Random random = new Random(35);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                short[] dest = new short[LENGTH];
+                short[] src = new short[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = (short) (random.nextInt(65535) - 32767);
+                    src[i] = (short) (random.nextInt(1000) + 1);
+                } short val = (short) (random.nextInt(1000) + 1);
+                short[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.shortFunc.calc(expected[i],src[i]);
+                short[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.shortFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+    
+    @Test
+    void charWrites() {
+        Random random = new Random(28);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                char[] dest = new char[LENGTH];
+                char[] src = new char[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = (char) random.nextInt(65536);
+                    src[i] = (char) (random.nextInt(1000) + 1);
+                } char val = (char) (random.nextInt(1000) + 1);
+                char[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.charFunc.calc(expected[i],src[i]);
+                char[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.charFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+    
+    @Test
+    void intWrites() {
+        Random random = new Random(21);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                int[] dest = new int[LENGTH];
+                int[] src = new int[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = random.nextInt();
+                    src[i] = random.nextInt(100000) + 1;
+                } int val = random.nextInt(100000) + 1;
+                int[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.intFunc.calc(expected[i],src[i]);
+                int[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.intFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+    
+    @Test
+    void longWrites() {
+        Random random = new Random(28);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                long[] dest = new long[LENGTH];
+                long[] src = new long[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = random.nextLong();
+                    src[i] = random.nextInt(100000) + 1L;
+                } long val = random.nextInt(100000) + 1L;
+                long[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.longFunc.calc(expected[i],src[i]);
+                long[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.longFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+    
+    @Test
+    void floatWrites() {
+        Random random = new Random(35);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                float[] dest = new float[LENGTH];
+                float[] src = new float[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = (random.nextFloat() - 0.5f) * 1000;
+                    src[i] = random.nextFloat() * 100 + 0.5f;
+                } float val = random.nextFloat() * 100 + 0.5f;
+                float[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.floatFunc.calc(expected[i],src[i]);
+                float[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.floatFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+    
+    @Test
+    void doubleWrites() {
+        Random random = new Random(42);
+        for (WriteFunction function : WriteFunction.values()) {
+            for (int[] range : RANGES) {
+                double[] dest = new double[LENGTH];
+                double[] src = new double[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    dest[i] = (random.nextDouble() - 0.5) * 1000;
+                    src[i] = random.nextDouble() * 100 + 0.5;
+                } double val = random.nextDouble() * 100 + 0.5;
+                double[] expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.doubleFunc.calc(expected[i],src[i]);
+                double[] actual = dest.clone();
+                function.write(actual,src,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " array " + range[0] + "-" + range[1]);
+                expected = dest.clone();
+                for (int i = range[0]; i < range[1]; i++) expected[i] = function.doubleFunc.calc(expected[i],val);
+                actual = dest.clone();
+                function.write(actual,val,range[0],range[1]);
+                assertArrayEquals(expected,actual,function + " value " + range[0] + "-" + range[1]);
+            }
+        }
+    }
+}
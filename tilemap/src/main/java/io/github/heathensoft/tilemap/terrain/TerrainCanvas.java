@@ -3,10 +3,11 @@ package io.github.heathensoft.tilemap.terrain;
 import io.github.heathensoft.common.Assert;
 import io.github.heathensoft.common.Disposable;
 import io.github.heathensoft.graphics.texture.Texture2D;
-import io.github.heathensoft.math.MathLib;
 import io.github.heathensoft.storage.primitive.IntStack;
+import io.github.heathensoft.storage.primitive.Raster;
 import io.github.heathensoft.storage.primitive.ShortArray2D;
 import io.github.heathensoft.storage.primitive.WriteFunction;
+import io.github.heathensoft.storage.primitive.iterators.AreaReader;
 import io.github.heathensoft.tilemap.TerrainType;
 import org.joml.Vector2f;
 import org.joml.Vector2i;
@@ -15,9 +16,8 @@ import org.joml.primitives.Rectanglei;
 import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ShortBuffer;
+import java.util.Arrays;
 
-import static java.lang.Math.max;
-import static java.lang.Math.min;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL12.GL_UNSIGNED_SHORT_4_4_4_4;
 
@@ -36,12 +36,10 @@ public class TerrainCanvas implements Disposable {
     private final Vector2i stroke_max;
     private final ShortArray2D canvas;
     private final Texture2D texture;
-    private final IntStack points;
     private final boolean[][] mask;
     private final int rows;
     private final int cols;
     private float brushRadius;
-    private float sampleDelta;
     private boolean modified;
     private boolean clearMode;
     
@@ -56,9 +54,7 @@ public class TerrainCanvas implements Disposable {
         rows = texture.height();
         cols = texture.width();
         brushRadius = 1f;
-        sampleDelta = 1f;
         callback = callbackInternal;
-        points = new IntStack(Math.max(64,(rows * cols)/8));
         tmp = new Vector2i();
         stroke_max = new Vector2i(0,0);
         stroke_min = new Vector2i(cols-1,rows-1);
@@ -75,9 +71,7 @@ public class TerrainCanvas implements Disposable {
         rows = texture.height();
         cols = texture.width();
         brushRadius = 1f;
-        sampleDelta = 1f;
         callback = callbackInternal;
-        points = new IntStack(Math.max(64,(rows * cols)/8));
         tmp = new Vector2i();
         stroke_max = new Vector2i(0,0);
         stroke_min = new Vector2i(cols-1,rows-1);
@@ -117,8 +111,6 @@ public class TerrainCanvas implements Disposable {
         buffer.flip();
         upload(stroke);
         stroke.dispose();
-        if (points.capacity() > rows * cols)
-            points.fit(Math.max(64,(rows * cols)/8));
         modified = true;
     }
     
@@ -159,33 +151,8 @@ public class TerrainCanvas implements Disposable {
     
     
     public void drawLine(int x1, int y1, int x2, int y2) {
-        points.clear();
-        Vector2f P1 = MathLib.vec2(x1,y1);
-        Vector2f P2 = MathLib.vec2(x2,y2);
-        Vector2f dir = MathLib.vec2();
-        P2.sub(P1,dir).normalize();
-        final float l = P1.distance(P2);
-        final int samples = (int)(l / sampleDelta) + 1;
-        Vector2f sample = MathLib.vec2();
-        int px = x2;
-        int py = y2;
-        for (int i = 0; i < samples; i++) {
-            sample.set(dir).mul(i * sampleDelta);
-            sample.add(P1);
-            px = Math.round(sample.x);
-            py = Math.round(sample.y);
-            points.push(px);
-            points.push(py);
-        } if (!points.isEmpty()) {
-            if (px != x2 || py != y2) {
-                points.push(x2);
-                points.push(y2);
-            } while (!points.isEmpty()) {
-                px = points.pop();
-                py = points.pop();
-                drawPointInternal(px,py);
-            }
-        } flush();
+        Raster.line(canvas,x1,y1,x2,y2,brushRadius,maskSpans);
+        flush();
     }
     
     public void drawRectangle(int x1, int y1, int x2, int y2) {
@@ -199,18 +166,8 @@ public class TerrainCanvas implements Disposable {
         Rectanglei rect1 = new Rectanglei(0,0,cols-1,rows-1);
         Rectanglei rect2 = new Rectanglei(minX,minY,maxX,maxY);
         if (rect1.intersectsRectangle(rect2)) {
-            minX = Math.max(0,minX);
-            minY = Math.max(0,minY);
-            maxX = Math.min(cols-1,maxX);
-            maxY = Math.min(rows-1,maxY);
-            tmp.set(maxX,maxY);
-            stroke_max.max(tmp);
-            tmp.set(minX,minY);
-            stroke_min.min(tmp);
-            for (int r = minY; r <= maxY; r++) {
-                for (int c = minX; c <= maxX; c++) {
-                    mask[r][c] = true;}
-            } float tmp = brushRadius;
+            Raster.rectangle(canvas,minX,minY,maxX,maxY,maskSpans);
+            float tmp = brushRadius;
             brushRadius = 0;
             flush();
             brushRadius = tmp;
@@ -243,25 +200,19 @@ public class TerrainCanvas implements Disposable {
         final int limX = cols - 1;
         final int limY = rows - 1;
         if (px < 0 || px > limX || py < 0 || py > limY) return;
-        tmp.set(px,py);
+        Raster.circle(canvas,px,py,brushRadius,maskSpans);
+    }
+    
+    /** Marks the spans of a shape in the mask and grows the stroke area */
+    private final AreaReader maskSpans = (minX, minY, maxX, maxY) -> {
+        tmp.set(maxX,maxY);
         stroke_max.max(tmp);
+        tmp.set(minX,minY);
         stroke_min.min(tmp);
-        final float br = brushRadius;
-        final int x1 = max(0,px - (int) br);
-        final int y1 = max(0,py - (int) br);
-        final int x2 = min(limX,px + (int) br);
-        final int y2 = min(limY,py + (int) br);
-        float a, b, k;
-        float d2 = br * br;
-        for (int r = y1; r <= y2; r++) {
-            for (int c = x1; c <= x2; c++) {
-                a = r - py;
-                b = c - px;
-                k = a * a + b * b;
-                if (d2 >= k) mask[r][c] = true;
-            }
+        for (int r = minY; r <= maxY; r++) {
+            Arrays.fill(mask[r],minX,maxX + 1,true);
         }
-    }
+    };
     
     public boolean isClearMode() {
         return clearMode;
@@ -295,9 +246,11 @@ public class TerrainCanvas implements Disposable {
         this.terrainType = terrainType;
     }
     
-    public void setSampleDelta(float sampleDelta) {
-        this.sampleDelta = sampleDelta;
-    }
+    /**
+     * @deprecated lines are rasterized as a whole (every cell within the brush radius of the segment). Does nothing
+     */
+    @Deprecated
+    public void setSampleDelta(float sampleDelta) { }
     
     private final TerrainEditCallback callbackInternal = (row, col, oldMask, newMask) -> {
         /* ------------ */
@@ -8,6 +8,8 @@ import org.joml.primitives.Rectanglef;
 /**
  * Quadtree for orthographic view culling. No LOD.
  * Query returns the coordinate and center-point of leaf-nodes in view.
+ * An optional filter can cull whole branches early (f.ex. empty or hidden regions
+ * answered by a MinMaxPyramid / MaskPyramid of the terrain).
  *
  * @author Frederik Dahl
  * 13/05/2022
@@ -17,7 +19,9 @@ import org.joml.primitives.Rectanglef;
 public class TerrainQuadTree {
  
     private final static QTItr QT_ITR = (x, y, cX, cY, s) -> {};
+    private final static QTFilter QT_FILTER = (x, y, s) -> true;
     private QTItr itr = QT_ITR;
+    private QTFilter filter = QT_FILTER;
     private final int size;
     private final int lim;
     private float x0 = 0;
@@ -51,6 +55,15 @@ public class TerrainQuadTree {
         this.itr = itr == null ? QT_ITR : itr;
     }
     
+    /**
+     * The filter is called for every node in view before it is visited.
+     * Nodes rejected by the filter are skipped along with their children.
+     * @param filter QTFilter (null to visit all)
+     */
+    public void setFilter(QTFilter filter) {
+        this.filter = filter == null ? QT_FILTER : filter;
+    }
+    
     /**
      * Query the tree given 2 points p1 and p2 forming a rectangle
      * @param p1X p1
@@ -73,7 +86,7 @@ public class TerrainQuadTree {
     
     private void query(float x0, float y0, float s, float cMinx, float cMinY, float cMaxX, float cMaxY, float d) {
         float nMaxX = x0 + s; float nMaxY = y0 + s;
-        if (x0 < cMaxX && nMaxX > cMinx && nMaxY > cMinY && y0 < cMaxY) {
+        if (x0 < cMaxX && nMaxX > cMinx && nMaxY > cMinY && y0 < cMaxY && filter.accept(x0,y0,s)) {
             float sH = s / 2; float cX = x0 + sH; float cY = y0 + sH;
             if (d++ < lim) {
                 query(x0,y0,sH,cMinx,cMinY,cMaxX,cMaxY,d);
@@ -94,4 +107,14 @@ public class TerrainQuadTree {
          */
         void pass(int x, int y, float cX, float cY, float s);
     }
+    
+    public interface QTFilter {
+        /**
+         * @param x node min x
+         * @param y node min y
+         * @param s node size
+         * @return false to skip the node and its children
+         */
+        boolean accept(float x, float y, float s);
+    }
 }